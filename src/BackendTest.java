@@ -1,9 +1,26 @@
 import controller.GameController;
+import controller.SimpleBot;
 import enums.Difficulty;
 import enums.GameMode;
 import model.*;
+import replay.ReplayReader;
+import replay.ReplayWriter;
+import stats.ArchiveColumn;
+import stats.GameArchive;
+import stats.GameArchiveWriter;
+import stats.GameRecord;
+import enums.GameState;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 /**
  * Backend Test for MEMORY GAME with ID system
@@ -45,6 +62,21 @@ public class BackendTest {
         System.out.println("─────────────────────────────");
         testGameInitialization();
 
+        // Test 6: Event Log
+        System.out.println("\nTEST 6: Event Log Replay");
+        System.out.println("─────────────────────────────");
+        testEventLog();
+
+        // Test 7: Replay Files
+        System.out.println("\nTEST 7: Replay Files");
+        System.out.println("─────────────────────────────");
+        testReplayFiles();
+
+        // Test 8: Game Archive
+        System.out.println("\nTEST 8: Columnar Game Archive");
+        System.out.println("─────────────────────────────");
+        testGameArchive();
+
         System.out.println("\n════════════════════════════════════════");
         System.out.println("   BACKEND TEST COMPLETE");
         System.out.println("════════════════════════════════════════");
@@ -302,4 +334,297 @@ public class BackendTest {
             e.printStackTrace();
         }
     }
+
+    private static void testEventLog() {
+        try {
+            Random random = new Random(40);
+            List<GameController> games = new ArrayList<>();
+            List<List<GameEvent>> logs = new ArrayList<>();
+            Map<GameEvent.Type, Integer> counts = new EnumMap<>(GameEvent.Type.class);
+
+            // Mix random classic turns with bot moves, quietly (each turn prints several lines)
+            PrintStream console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                for (int g = 0; g < 40; g++) {
+                    GameController controller = new GameController();
+                    GameEventLog log = new GameEventLog();
+                    controller.setEventListener(log);
+                    int players = 2 + g % 5; // Only 2-player games leave cards in the deck to refill from
+                    GameMode mode = players % 2 == 0 && g % 3 == 0 ? GameMode.TEAM_SIMPLE : GameMode.INDIVIDUAL_SIMPLE;
+                    List<String> names = new ArrayList<>();
+                    for (int p = 0; p < players; p++) {
+                        names.add("P" + p);
+                    }
+                    controller.initializeGame(players, mode, Difficulty.NORMAL, names, random.nextLong());
+                    controller.startGame();
+                    for (int turn = 0; turn < 300 && controller.isGameRunning(); turn++) {
+                        if (random.nextInt(10) == 0) {
+                            controller.executeBotTurn(new SimpleBot(), 50);
+                            continue;
+                        }
+                        int handSize = controller.getCurrentPlayer().getHand().getSize();
+                        int hallSize = controller.getGame().getLectureHall().getCardCount();
+                        controller.executeTurn(new int[]{random.nextInt(handSize), random.nextInt(handSize),
+                                random.nextInt(Math.max(1, hallSize))});
+                    }
+                    games.add(controller);
+                    logs.add(log.getEvents());
+                    for (GameEvent event : log.getEvents()) {
+                        counts.merge(event.getType(), 1, Integer::sum);
+                    }
+                }
+            } finally {
+                System.setOut(console);
+            }
+            System.out.println("Recorded " + games.size() + " games: " + counts);
+            assert counts.containsKey(GameEvent.Type.TRIO_FORMED) && counts.containsKey(GameEvent.Type.TURN_ADVANCED)
+                    && counts.containsKey(GameEvent.Type.REFILLED) : "Games should form trios, refill and pass turns";
+
+            // Folding the events rebuilds each game exactly
+            for (int g = 0; g < games.size(); g++) {
+                GameController live = games.get(g);
+                GameController replayed = GameController.replay(logs.get(g));
+                assert Arrays.equals(GameCodec.encode(live.getGame()), GameCodec.encode(replayed.getGame()))
+                        : "Replayed game " + g + " differs from the live game";
+                assert replayed.getGameState() == live.getGameState() : "Replayed state differs";
+                assert replayed.getCurrentPlayer().getEctsCredits() == live.getCurrentPlayer().getEctsCredits();
+            }
+            System.out.println("✅ Every replayed game matches its live game");
+
+            // The same seed deals the same table
+            GameController first = new GameController();
+            GameController second = new GameController();
+            List<String> names = Arrays.asList("Dana", "Acil", "Alice");
+            first.initializeGame(3, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL, names, 2024L);
+            second.initializeGame(3, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL, names, 2024L);
+            assert Arrays.equals(GameCodec.encode(first.getGame()), GameCodec.encode(second.getGame()))
+                    : "Same seed should deal the same table";
+            assert GameController.replay(new ArrayList<>()).getGameState() == GameState.SETUP;
+            System.out.println("✅ Dealing is deterministic for a seed");
+
+            // Fold speed
+            int rounds = 50;
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (List<GameEvent> events : logs) {
+                    Game.replay(events);
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("✅ Replayed %d games in %.0f ms (%.0f games/s)%n",
+                    rounds * logs.size(), seconds * 1000, rounds * logs.size() / seconds);
+        } catch (Exception e) {
+            System.out.println("❌ Event log test FAILED: " + e);
+            e.printStackTrace();
+        }
+    }
+
+    private static void testReplayFiles() {
+        try {
+            Path directory = Files.createTempDirectory("trio-replays");
+            Random random = new Random(42);
+            List<Path> files = new ArrayList<>();
+            List<Map<Integer, byte[]>> tables = new ArrayList<>();
+            List<GameState> endStates = new ArrayList<>();
+
+            PrintStream console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                for (int g = 0; g < 30; g++) {
+                    Path file = directory.resolve("game" + g + replay.ReplayFormat.EXTENSION);
+                    ReplayWriter writer = new ReplayWriter(Files.newOutputStream(file), 8);
+                    GameController controller = new GameController();
+                    controller.setEventListener(writer);
+                    int players = 2 + g % 5;
+                    List<String> names = new ArrayList<>();
+                    for (int p = 0; p < players; p++) {
+                        names.add("P" + p);
+                    }
+                    controller.initializeGame(players, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL, names, random.nextLong());
+                    controller.startGame();
+
+                    // Table after each move count, to compare with what the replay rebuilds
+                    Map<Integer, byte[]> table = new HashMap<>();
+                    table.put(0, GameCodec.encode(controller.getGame()));
+                    for (int turn = 0; turn < 120 && controller.isGameRunning(); turn++) {
+                        if (random.nextInt(8) == 0) {
+                            controller.executeBotTurn(new SimpleBot(), 50);
+                        } else {
+                            int handSize = controller.getCurrentPlayer().getHand().getSize();
+                            int hallSize = controller.getGame().getLectureHall().getCardCount();
+                            controller.executeTurn(new int[]{random.nextInt(handSize), random.nextInt(handSize),
+                                    random.nextInt(Math.max(1, hallSize))});
+                        }
+                        table.put(writer.getMoveCount(), GameCodec.encode(controller.getGame()));
+                    }
+                    if (g % 10 == 9 && controller.isGameRunning()) {
+                        controller.endGame(); // Stopped before anyone graduated
+                    }
+                    writer.close();
+                    files.add(file);
+                    tables.add(table);
+                    endStates.add(controller.getGameState());
+                }
+            } finally {
+                System.setOut(console);
+            }
+
+            long bytes = 0;
+            int moves = 0;
+            long start = System.nanoTime();
+            for (int g = 0; g < files.size(); g++) {
+                bytes += Files.size(files.get(g));
+                try (ReplayReader reader = new ReplayReader(Files.newInputStream(files.get(g)))) {
+                    while (reader.next()) {
+                        byte[] expected = tables.get(g).get(reader.getPosition());
+                        assert expected == null || Arrays.equals(expected, GameCodec.encode(reader.getGame()))
+                                : "Replay " + g + " diverges at move " + reader.getPosition();
+                    }
+                    moves += reader.getPosition();
+                    assert reader.getState() == endStates.get(g) : "Replay " + g + " should end in " + endStates.get(g);
+                }
+            }
+            double millis = (System.nanoTime() - start) / 1e6;
+            System.out.printf("✅ Streamed %d replays (%d moves) in %.0f ms, %.1f bytes per move on disk%n",
+                    files.size(), moves, millis, (double) bytes / Math.max(1, moves));
+
+            // Seeking through the keyframe index lands on the same table as playing from the start
+            int seeks = 0;
+            long seekStart = System.nanoTime();
+            for (int g = 0; g < files.size(); g++) {
+                for (Map.Entry<Integer, byte[]> entry : tables.get(g).entrySet()) {
+                    try (ReplayReader reader = ReplayReader.open(files.get(g), entry.getKey())) {
+                        assert reader.getPosition() == entry.getKey() : "Seek should reach move " + entry.getKey();
+                        assert Arrays.equals(entry.getValue(), GameCodec.encode(reader.getGame()))
+                                : "Seek to move " + entry.getKey() + " of replay " + g + " differs";
+                    }
+                    seeks++;
+                }
+            }
+            double seekMicros = (System.nanoTime() - seekStart) / 1000.0 / Math.max(1, seeks);
+            ReplayReader last = ReplayReader.open(files.get(0), Integer.MAX_VALUE);
+            assert last.getPosition() == last.getMoveCount() : "Seeking past the end should stop on the last move";
+            GameController resumed = last.toController();
+            last.close();
+            assert resumed.getGameState() == endStates.get(0) : "Controller should continue from the replay";
+            System.out.printf("✅ %d keyframe seeks match the live games (%.0f µs per seek)%n", seeks, seekMicros);
+        } catch (Exception e) {
+            System.out.println("❌ Replay test FAILED: " + e);
+            e.printStackTrace();
+        }
+    }
+
+    private static void testGameArchive() {
+        try {
+            Path directory = Files.createTempDirectory("trio-archive");
+            Random random = new Random(45);
+
+            // Summaries of real games, quietly
+            List<GameRecord> played = new ArrayList<>();
+            PrintStream console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                for (int g = 0; g < 60; g++) {
+                    GameController controller = new GameController();
+                    GameEventLog log = new GameEventLog();
+                    controller.setEventListener(log);
+                    int players = 2 + g % 5;
+                    GameMode mode = players % 2 == 0 && g % 3 == 0 ? GameMode.TEAM_SIMPLE : GameMode.INDIVIDUAL_SIMPLE;
+                    List<String> names = new ArrayList<>();
+                    for (int p = 0; p < players; p++) {
+                        names.add("P" + p);
+                    }
+                    controller.initializeGame(players, mode, Difficulty.NORMAL, names, random.nextLong());
+                    controller.startGame();
+                    for (int turn = 0; turn < 200 && controller.isGameRunning(); turn++) {
+                        controller.executeBotTurn(new SimpleBot(), 50);
+                    }
+                    played.add(GameRecord.of(log.getEvents(), 1_700_000_000_000L + g));
+                }
+            } finally {
+                System.setOut(console);
+            }
+            GameRecord sample = played.get(3);
+            assert sample.getPlayers() == 5 && sample.getTurns() > 0 : "Record should summarize its game";
+
+            // Two million finished games drawn from them, as a long-running server would collect
+            int rows = 2_000_000;
+            long finishedAt = 1_700_000_000_000L;
+            long fourPlayers = 0;
+            long fourPlayerTurns = 0;
+            long pfeTrios = 0;
+            long[][] winners = new long[GameMode.values().length][7];
+            long start = System.nanoTime();
+            try (GameArchiveWriter writer = new GameArchiveWriter(directory)) {
+                for (int i = 0; i < rows; i++) {
+                    GameRecord base = played.get(random.nextInt(played.size()));
+                    finishedAt += random.nextInt(2000);
+                    int[] trios = new int[13];
+                    for (int id = 1; id <= 12; id++) {
+                        trios[id] = base.getTrios(id);
+                    }
+                    GameRecord record = new GameRecord(finishedAt, base.getMode(), base.getPlayers(),
+                            base.getWinnerSeat(), base.getTurns() + random.nextInt(4), base.isPfeWin(), trios);
+                    writer.append(record);
+                    if (record.getPlayers() == 4) {
+                        fourPlayers++;
+                        fourPlayerTurns += record.getTurns();
+                    }
+                    pfeTrios += record.getTrios(1);
+                    winners[record.getMode().ordinal()][record.getWinnerSeat() + 1]++;
+                }
+            }
+            double writeSeconds = (System.nanoTime() - start) / 1e9;
+
+            try (GameArchive archive = new GameArchive(directory)) {
+                assert archive.getRowCount() == rows : "Archive should hold every game";
+                long bytes = 0;
+                for (ArchiveColumn column : ArchiveColumn.values()) {
+                    bytes += archive.getColumnBytes(column);
+                }
+                System.out.printf("✅ Archived %d games in %.0f ms: %d blocks, %.2f bytes per game over %d columns%n",
+                        rows, writeSeconds * 1000, archive.getBlockCount(), (double) bytes / rows,
+                        ArchiveColumn.values().length);
+
+                // One- and two-column aggregates agree with the games written
+                start = System.nanoTime();
+                assert archive.count(ArchiveColumn.PLAYERS, 4, 4) == fourPlayers : "Count by players differs";
+                assert archive.sumWhere(ArchiveColumn.PLAYERS, 4, 4, ArchiveColumn.TURNS) == fourPlayerTurns
+                        : "Turns of 4-player games differ";
+                assert archive.sum(ArchiveColumn.trios(1)) == pfeTrios : "PFE trio count differs";
+                long[][] scanned = new long[GameMode.values().length][7];
+                archive.scan(ArchiveColumn.MODE, ArchiveColumn.WINNER_SEAT,
+                        (mode, seat) -> scanned[(int) mode][(int) seat + 1]++);
+                assert Arrays.deepEquals(scanned, winners) : "Winners by mode differ";
+                double scanSeconds = (System.nanoTime() - start) / 1e9;
+                assert archive.min(ArchiveColumn.FINISHED_AT) >= 1_700_000_000_000L
+                        && archive.max(ArchiveColumn.FINISHED_AT) == finishedAt : "Block statistics differ";
+                System.out.printf("✅ Four aggregates over %d games in %.0f ms (%.1f s for 100M games)%n",
+                        rows, scanSeconds * 1000, scanSeconds * 100_000_000 / rows);
+                System.out.printf("   Average turns of 4-player games: %.1f%n", (double) fourPlayerTurns / fourPlayers);
+            }
+
+            // A block torn by a crash is cut off when the archive is reopened for writing
+            Path turns = directory.resolve(ArchiveColumn.TURNS.fileName());
+            Files.write(turns, new byte[]{0, 0, 1, 0, 0, 42}, java.nio.file.StandardOpenOption.APPEND);
+            try (GameArchive archive = new GameArchive(directory)) {
+                assert archive.sum(ArchiveColumn.PLAYERS) > 0 && archive.getRowCount() == rows;
+            }
+            try (GameArchiveWriter writer = new GameArchiveWriter(directory)) {
+                writer.append(played.get(0));
+            }
+            try (GameArchive archive = new GameArchive(directory)) {
+                assert archive.getRowCount() == rows + 1 : "Reopened archive should keep appending";
+                assert archive.count(ArchiveColumn.TURNS, played.get(0).getTurns(), played.get(0).getTurns()) > 0;
+                long[] last = new long[1];
+                archive.scan(ArchiveColumn.TURNS, value -> last[0] = value);
+                assert last[0] == played.get(0).getTurns() : "Torn bytes should be gone";
+            }
+            System.out.println("✅ Torn block dropped and archive reopened for appending");
+        } catch (Exception e) {
+            System.out.println("❌ Game archive test FAILED: " + e);
+            e.printStackTrace();
+        }
+    }
 }
@@ -1,8 +1,18 @@
 import controller.*;
 import model.*;
 import enums.*;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Test class for all controller components
@@ -21,6 +31,9 @@ public class ControllerTest {
         testGameController();
         testTurnController();
         testIntegration();
+        testBotTurn();
+        testAsyncController();
+        testCheckpoint();
 
         System.out.println("\n╔════════════════════════════════════════╗");
         System.out.println("║   ✅ ALL CONTROLLER TESTS PASSED!      ║");
@@ -249,4 +262,241 @@ public class ControllerTest {
 
         System.out.println("✅ Integration tests passed!\n");
     }
+
+    private static void testBotTurn() {
+        System.out.println("🤖 Testing bot turns...");
+
+        GameController gc = new GameController();
+        List<String> names = Arrays.asList("Dana", "Acil", "Alice");
+        gc.initializeGame(3, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL, names);
+        gc.startGame();
+
+        // Well-behaved bot always produces a playable move
+        Student before = gc.getCurrentPlayer();
+        boolean success = gc.executeBotTurn(new SimpleBot(), 200);
+        assert success || gc.getCurrentPlayer() != before : "Invalid bot move should pass the turn";
+        System.out.println("  ✓ SimpleBot played a move");
+
+        // Bots see other hands as players do: size, first and last card
+        BotView table = new BotView(gc.getGame(), gc.getCurrentPlayer());
+        for (Student student : gc.getGame().getStudents()) {
+            BotView.VisibleHand seen = table.getOtherHands().get(student.getName());
+            if (student == gc.getCurrentPlayer()) {
+                assert seen == null : "Own hand is not another hand";
+                continue;
+            }
+            assert seen.getSize() == student.getHand().getSize()
+                    && seen.getFirstCard() == student.getHand().getFirstCard()
+                    && seen.getLastCard() == student.getHand().getLastCard() : "Only the ends should be visible";
+        }
+        System.out.println("  ✓ Bot view hides the middle of other hands");
+
+        // Runaway bot must not block the turn beyond its deadline
+        Bot runaway = (view, best) -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                // Ignores the deadline on purpose, stops when interrupted
+            }
+        };
+        gc = newGame(names); // The first move may have won the game
+        long start = System.nanoTime();
+        gc.executeBotTurn(runaway, 50);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assert elapsedMillis < 1000 : "Runaway bot should be cut off at its deadline";
+        System.out.println("  ✓ Runaway bot cut off after " + elapsedMillis + " ms");
+
+        // A bot that ignores interrupts gets its worker replaced until it returns
+        BotExecutor executor = BotExecutor.getShared();
+        int poolSize = Runtime.getRuntime().availableProcessors();
+        awaitStuckWorkers(executor, 0);
+        java.util.concurrent.atomic.AtomicBoolean released = new java.util.concurrent.atomic.AtomicBoolean();
+        Bot stubborn = (view, best) -> {
+            while (!released.get()) {
+                Thread.onSpinWait();
+            }
+        };
+        gc = newGame(names);
+        gc.executeBotTurn(stubborn, 50);
+        assert executor.getStuckWorkers() == 1 && executor.getPoolSize() == poolSize + 1
+                : "Stuck worker should be replaced";
+        if (!gc.isGameRunning()) {
+            gc = newGame(names); // The default move may have won the game
+        }
+        start = System.nanoTime();
+        Student next = gc.getCurrentPlayer();
+        boolean valid = gc.executeBotTurn(new SimpleBot(), 5000);
+        elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assert valid || gc.getCurrentPlayer() != next : "Next bot should play";
+        assert elapsedMillis < 2000 : "Next bot should not wait for the stuck one";
+        released.set(true);
+        awaitStuckWorkers(executor, 0);
+        assert executor.getPoolSize() == poolSize : "Pool should shrink back";
+        System.out.println("  ✓ Stuck worker replaced, next bot played in " + elapsedMillis + " ms");
+
+        // With fewer than three cards within reach, bots pass instead of stalling
+        GameController bare = newGame(names);
+        bare.getGame().getLectureHall().clear();
+        for (Student student : bare.getGame().getStudents()) {
+            student.getHand().clear();
+        }
+        bare.getGame().getStudents().get(1).getHand().addCard(Deck.cardForId(5));
+        for (int turn = 0; turn < 3; turn++) {
+            int seat = bare.getGame().getTurnManager().getCurrentPlayerIndex();
+            TurnResult result = bare.playBotTurn(new SimpleBot(), 50);
+            assert result.isPlayed() && !result.isValid() : "Bot with no move should pass";
+            assert result.getNextPlayerIndex() == (seat + 1) % 3 : "Turn should advance";
+        }
+        assert bare.isGameRunning() : "Passing should not end the game";
+        System.out.println("  ✓ Bots pass on a near-empty table");
+
+        System.out.println("✅ Bot turns working!\n");
+    }
+
+    /**
+     * Start a fresh three-player game
+     */
+    private static GameController newGame(List<String> names) {
+        GameController gc = new GameController();
+        gc.initializeGame(3, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL, names);
+        gc.startGame();
+        return gc;
+    }
+
+    /**
+     * Wait until abandoned bot searches have returned
+     */
+    private static void awaitStuckWorkers(BotExecutor executor, int stuck) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getStuckWorkers() != stuck && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        assert executor.getStuckWorkers() == stuck : "Abandoned bots should return";
+    }
+
+    private static void testAsyncController() {
+        System.out.println("⏩ Testing async controller...");
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        AsyncGameController async = new AsyncGameController(pool);
+        List<String> names = Arrays.asList("Dana", "Acil", "Alice");
+
+        // Invalid configuration fails the future instead of printing
+        try {
+            async.initializeGame(3, GameMode.TEAM_SIMPLE, Difficulty.NORMAL, names).join();
+            assert false : "Odd team game should fail";
+        } catch (CompletionException e) {
+            assert e.getCause() instanceof IllegalArgumentException : "Should fail with the reason";
+            System.out.println("  ✓ Invalid configuration: " + e.getCause().getMessage());
+        }
+
+        // Commands queued without waiting run in order, one at a time
+        async.initializeGame(3, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL, names);
+        async.startGame();
+        CompletableFuture<TurnResult> badIndices = async.playTurn(new int[]{0, 0, 0});
+        List<CompletableFuture<TurnResult>> turns = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            turns.add(async.playBotTurn(new SimpleBot(), 100));
+        }
+
+        TurnResult rejected = badIndices.join();
+        assert !rejected.isPlayed() && !rejected.isValid() : "Same hand card twice should be rejected";
+        System.out.println("  ✓ " + rejected);
+
+        boolean over = false;
+        for (CompletableFuture<TurnResult> turn : turns) {
+            TurnResult result = turn.join();
+            if (over) {
+                assert !result.isPlayed() : "Turns after victory should be rejected";
+                continue;
+            }
+            assert result.isPlayed() : "Turns before victory should be played";
+            assert result.isBonusTurn() == (result.isValid() && !result.isVictory()) : "Bonus turn only for a trio that does not win";
+            assert result.isValid() || result.getEctsAwarded() == 0 : "Invalid trio earns nothing";
+            over = result.isVictory();
+        }
+        TurnResult first = turns.get(0).join();
+        System.out.println("  ✓ 20 pipelined bot turns, first: " + first);
+
+        boolean finished = async.checkVictory().join();
+        assert finished == over : "Victory check should agree with the turn results";
+        System.out.println("  ✓ Victory check composed after the turns: " + (finished ? "game over" : "still playing"));
+
+        pool.shutdown();
+        System.out.println("✅ Async controller working!\n");
+    }
+
+    private static void testCheckpoint() {
+        System.out.println("💾 Testing checkpoints...");
+
+        try {
+            GameController gc = new GameController();
+            gc.initializeGame(4, GameMode.TEAM_SIMPLE, Difficulty.NORMAL,
+                    Arrays.asList("Dana", "Acil", "Alice", "Bob"), 43L);
+            gc.startGame();
+            for (int i = 0; i < 6 && gc.isGameRunning(); i++) {
+                gc.executeTurn(new int[]{0, 1, i % 3}); // Mostly failed trios: the turn moves on
+            }
+
+            // Save and load through a file
+            Path file = Files.createTempFile("trio", GameCheckpoint.EXTENSION);
+            GameCheckpoint.save(gc, file);
+            GameController loaded = GameCheckpoint.load(file);
+            assert Arrays.equals(GameCodec.encode(gc.getGame()), GameCodec.encode(loaded.getGame()))
+                    : "Loaded table should match the saved one";
+            assert loaded.getGameState() == gc.getGameState() : "State should survive saving";
+            assert loaded.getCurrentPlayer().getName().equals(gc.getCurrentPlayer().getName()) : "Turn should survive saving";
+            assert loaded.getGame().getTurnManager().getRoundNumber() == gc.getGame().getTurnManager().getRoundNumber();
+            long size = Files.size(file);
+            assert size < 512 : "A checkpoint should be a few hundred bytes";
+            Files.delete(file);
+            System.out.println("  ✓ Saved and loaded " + size + " bytes, " + loaded.getCurrentPlayer().getName() + " to play");
+
+            // Speed of a round trip
+            int rounds = 2000;
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                GameCheckpoint.decode(GameCheckpoint.encode(gc));
+            }
+            double micros = (System.nanoTime() - start) / 1000.0 / rounds;
+            assert micros < 1000 : "Save and load should take under a millisecond";
+            System.out.printf("  ✓ Encode + decode in %.1f µs%n", micros);
+
+            // Version 1 as written by the first builds, field by field
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0x5452434B);
+            out.writeShort(1);
+            out.writeByte(GameState.PLAYING.ordinal());
+            GameCodec.write(gc.getGame(), out);
+            out.close();
+            GameController old = GameCheckpoint.decode(bytes.toByteArray());
+            assert old.isGameRunning() && old.getCurrentPlayer().getName().equals(gc.getCurrentPlayer().getName())
+                    : "Version 1 checkpoints should stay readable";
+            System.out.println("  ✓ Version 1 checkpoint read");
+
+            // Unknown versions and other files are refused
+            byte[] future = GameCheckpoint.encode(gc);
+            future[5] = 99;
+            try {
+                GameCheckpoint.decode(future);
+                assert false : "Newer version should be refused";
+            } catch (IOException e) {
+                System.out.println("  ✓ Refused: " + e.getMessage());
+            }
+            try {
+                GameCheckpoint.decode(GameCodec.encode(gc.getGame()));
+                assert false : "A bare game is not a checkpoint";
+            } catch (IOException e) {
+                System.out.println("  ✓ Refused: " + e.getMessage());
+            }
+        } catch (IOException e) {
+            throw new AssertionError("Checkpoint I/O failed", e);
+        }
+
+        System.out.println("✅ Checkpoints working!\n");
+    }
 }
@@ -0,0 +1,1837 @@
+import cluster.*;
+import server.*;
+import network.*;
+import enums.*;
+import model.GameSnapshot;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Test class for the multi-session server components
+ * Verifies that many games can be hosted side by side
+ */
+public class ServerTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║   SERVER TEST SUITE                    ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        testSessionManager();
+        testSessionMailbox();
+        testNioServer();
+        testHttpGateway();
+        testDeltaBroadcast();
+        testSpectatorRing();
+        testResume();
+        testMatchmaking();
+        testThrottling();
+        testHibernation();
+        testJournal();
+        testRecovery();
+        testCompaction();
+        testProfiles();
+        testLiveStats();
+        testMetrics();
+        testSharding();
+        testLoadGenerator();
+
+        System.out.println("\n╔════════════════════════════════════════╗");
+        System.out.println("║   ✅ ALL SERVER TESTS PASSED!          ║");
+        System.out.println("╚════════════════════════════════════════╝");
+    }
+
+    private static void testSessionManager() throws Exception {
+        System.out.println("🗂️  Testing SessionManager...");
+
+        GameServer server = new GameServer(2);
+        SessionManager manager = server.getSessionManager();
+        List<String> names = Arrays.asList("Dana", "Acil", "Alice");
+
+        // Create several independent sessions
+        List<CompletableFuture<GameSession>> created = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            created.add(manager.createSession(3, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL, names));
+        }
+        for (CompletableFuture<GameSession> future : created) {
+            future.get();
+        }
+        assert manager.getSessionCount() == 20 : "Should host 20 sessions";
+        System.out.println("  ✓ Created 20 sessions");
+
+        // Look up and run a command
+        GameSession session = created.get(0).get();
+        assert manager.getSession(session.getSessionId()) == session : "Lookup should find session";
+        boolean running = session.submit(gc -> gc.isGameRunning()).get();
+        assert running : "Session game should be running";
+        System.out.println("  ✓ Lookup and command execution");
+
+        // Invalid configuration is rejected
+        try {
+            manager.createSession(3, GameMode.TEAM_SIMPLE, Difficulty.NORMAL, names).get();
+            assert false : "Odd team game should fail";
+        } catch (Exception e) {
+            System.out.println("  ✓ Invalid configuration rejected");
+        }
+
+        // Tear down
+        boolean closed = manager.closeSession(session.getSessionId());
+        assert closed : "Close should succeed";
+        assert manager.getSession(session.getSessionId()) == null : "Closed session should be gone";
+        assert manager.getSessionCount() == 19 : "Should have 19 sessions left";
+        System.out.println("  ✓ Session teardown");
+
+        server.shutdown();
+        System.out.println("✅ SessionManager working!\n");
+    }
+
+    private static void testSessionMailbox() throws Exception {
+        System.out.println("📬 Testing session mailbox...");
+
+        GameServer server = new GameServer(4);
+        GameSession session = server.getSessionManager().createSession(3, GameMode.INDIVIDUAL_SIMPLE,
+                Difficulty.NORMAL, Arrays.asList("Dana", "Acil", "Alice")).get();
+        GameSnapshot initial = session.getSnapshot();
+        assert initial != null : "Snapshot should be published after creation";
+        assert initial.getLectureHall().size() == 9 : "Snapshot should contain the hall";
+        System.out.println("  ✓ Initial snapshot: " + initial);
+
+        // Many threads post commands; the mailbox serializes them
+        int[] counter = new int[1];
+        List<Thread> threads = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    CompletableFuture<Integer> future = session.submit(gc -> ++counter[0]);
+                    synchronized (results) {
+                        results.add(future);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (CompletableFuture<Integer> future : results) {
+            future.get();
+        }
+        assert counter[0] == 4000 : "All commands should run exactly once, got " + counter[0];
+        System.out.println("  ✓ 4000 concurrent commands serialized");
+
+        // Commands that change nothing do not create versions
+        assert session.getSnapshot().getVersion() == initial.getVersion() : "Read-only commands keep the version";
+        assert session.getPendingCommands() == 0 : "Mailbox should be drained";
+
+        // Reads come from the published snapshot
+        session.submit(gc -> gc.executeMove(model.Move.fromHandAndHall(0, 1, 0))).get();
+        GameSnapshot latest = session.getSnapshot();
+        assert latest.getVersion() > initial.getVersion() : "Version should advance";
+        System.out.println("  ✓ Snapshot version advanced to " + latest.getVersion());
+
+        server.shutdown();
+        System.out.println("✅ Session mailbox working!\n");
+    }
+
+    private static void testNioServer() throws Exception {
+        System.out.println("🌐 Testing NIO server...");
+
+        GameServer gameServer = new GameServer(2);
+        TrioNioServer server = new TrioNioServer(gameServer, 0);
+        server.start();
+
+        try (TrioClient client = new TrioClient("127.0.0.1", server.getPort())) {
+            String sessionId = client.createGame(GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL,
+                    Arrays.asList("Dana", "Acil"));
+            assert gameServer.getSessionManager().getSession(sessionId) != null : "Session should exist";
+            System.out.println("  ✓ Created session " + sessionId);
+
+            // Without a name the client only watches
+            RemoteTable watched = new RemoteTable();
+            watched.applyState(client.join(sessionId, "").getPayload());
+            GameSnapshot snapshot = gameServer.getSessionManager().getSession(sessionId).getSnapshot();
+            for (int seat = 0; seat < snapshot.getPlayers().size(); seat++) {
+                assert watched.getPlayers().get(seat).getHand().equals(visible(snapshot.getPlayers().get(seat).getHand()))
+                        : "Anonymous client should not see the middle of hand " + seat;
+            }
+            client.sendMove(new int[][]{
+                    {Protocol.SOURCE_HAND, 0, 0}, {Protocol.SOURCE_HAND, 0, 1}, {Protocol.SOURCE_HALL, 0, 0}});
+            TrioClient.Frame refused;
+            while ((refused = client.readFrame()).getType() != Protocol.ERROR) {
+                assert refused.getType() != Protocol.RESULT : "Anonymous client should not move";
+            }
+            assert Protocol.readString(refused.getPayload()).equals("Spectators cannot play") : "Move should be refused";
+            assert gameServer.getSessionManager().getSession(sessionId).getSnapshot().getVersion() == snapshot.getVersion()
+                    : "Refused move should change nothing";
+            System.out.println("  ✓ Anonymous client watches and cannot move");
+
+            TrioClient.Frame state = client.join(sessionId, snapshot.getCurrentPlayer().getName());
+            assert state.getPayload().remaining() > 0 : "Join should return the table";
+            System.out.println("  ✓ Joined and received state");
+
+            client.sendMove(new int[][]{
+                    {Protocol.SOURCE_HAND, 0, 0}, {Protocol.SOURCE_HAND, 0, 1}, {Protocol.SOURCE_HALL, 0, 0}});
+            boolean sawUpdate = false;
+            TrioClient.Frame result;
+            while ((result = client.readFrame()).getType() != Protocol.RESULT) {
+                sawUpdate |= result.getType() == Protocol.DELTA;
+            }
+            assert result.getPayload().remaining() == 5 : "Result should have 5 fields";
+            assert sawUpdate : "Move should broadcast a state update";
+            System.out.println("  ✓ Move played, result and state update received");
+
+            // Seat-bound player cannot move out of turn
+            try (TrioClient other = new TrioClient("127.0.0.1", server.getPort())) {
+                other.join(sessionId, "Nobody");
+                assert false : "Unknown player should be refused";
+            } catch (java.io.IOException e) {
+                System.out.println("  ✓ Unknown player refused");
+            }
+        }
+
+        server.stop();
+        gameServer.shutdown();
+        System.out.println("✅ NIO server working!\n");
+    }
+
+    private static void testHttpGateway() throws Exception {
+        System.out.println("🌍 Testing HTTP gateway...");
+
+        GameServer gameServer = new GameServer(2);
+        HttpGateway gateway = new HttpGateway(gameServer, 0);
+        gateway.start();
+        String base = "http://127.0.0.1:" + gateway.getPort() + "/sessions";
+
+        String created = http("POST", base + "?mode=INDIVIDUAL_SIMPLE&difficulty=NORMAL&players=Dana,Acil");
+        assert created.contains("\"version\":1") : "Creation should return version 1: " + created;
+        String sessionId = created.substring(created.indexOf(":\"") + 2, created.indexOf("\","));
+        System.out.println("  ✓ Created session " + sessionId);
+
+        String state = http("GET", base + "/" + sessionId);
+        assert state.contains("\"lectureHall\"") : "State should include the hall";
+        System.out.println("  ✓ State query");
+
+        // Middle cards are hidden except from their owner
+        String dana = http("GET", base + "/" + sessionId + "?player=Dana");
+        String danaHand = dana.substring(dana.indexOf("\"hand\""), dana.indexOf("\"name\":\"Acil\""));
+        String acilHand = dana.substring(dana.indexOf("\"name\":\"Acil\""), dana.indexOf("\"teams\""));
+        assert !danaHand.contains("null") : "Dana's own hand should be sent in full: " + danaHand;
+        assert acilHand.contains("null") : "Dana should not see the middle of Acil's hand: " + acilHand;
+        assert state.contains("null") : "Spectators should not see the middle of any hand";
+        assert http("GET", base + "/" + sessionId + "?player=Nobody").contains("error")
+                : "Unknown players should be rejected";
+        System.out.println("  ✓ Hands hidden per viewer");
+
+        // Long poll parks until a move publishes version 2
+        CompletableFuture<String> poll = CompletableFuture.supplyAsync(() -> {
+            try {
+                return http("GET", base + "/" + sessionId + "?since=1&wait=5000");
+            } catch (Exception e) {
+                return e.toString();
+            }
+        });
+        Thread.sleep(200);
+        assert !poll.isDone() : "Long poll should wait for a change";
+        String result = http("POST", base + "/" + sessionId + "/moves?picks=hand:0,hand:1,hall:0");
+        assert result.contains("\"valid\"") : "Move should return an outcome: " + result;
+        assert poll.get().contains("\"version\":2") : "Long poll should return version 2";
+        System.out.println("  ✓ Move submission wakes long poll");
+
+        gateway.stop();
+        gameServer.shutdown();
+        System.out.println("✅ HTTP gateway working!\n");
+    }
+
+    private static String http(String method, String url) throws Exception {
+        java.net.HttpURLConnection connection =
+                (java.net.HttpURLConnection) new java.net.URL(url).openConnection();
+        connection.setRequestMethod(method);
+        try (java.io.InputStream in = connection.getResponseCode() < 400
+                ? connection.getInputStream() : connection.getErrorStream()) {
+            return in == null ? "" : new String(in.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void testDeltaBroadcast() throws Exception {
+        System.out.println("🔺 Testing delta broadcast...");
+
+        GameServer gameServer = new GameServer(2);
+        TrioNioServer server = new TrioNioServer(gameServer, 0);
+        server.setHotseat(true); // Clients without a name play every seat
+        server.start();
+
+        try (TrioClient player = new TrioClient("127.0.0.1", server.getPort());
+             TrioClient spectator = new TrioClient("127.0.0.1", server.getPort())) {
+            String sessionId = player.createGame(GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL,
+                    Arrays.asList("Dana", "Acil"));
+            RemoteTable table = new RemoteTable();
+            table.applyState(player.join(sessionId, "").getPayload());
+            RemoteTable watched = new RemoteTable();
+            watched.applyState(spectator.join(sessionId, "").getPayload());
+            System.out.println("  ✓ Full snapshot on join (v" + table.getVersion() + ")");
+
+            int deltas = 0;
+            for (int move = 0; move < 40 && table.getState() == GameState.PLAYING; move++) {
+                player.sendMove(pickMove(table));
+                while (true) {
+                    TrioClient.Frame frame = player.readFrame();
+                    if (frame.getType() == Protocol.DELTA) {
+                        boolean applied = table.applyDelta(frame.getPayload());
+                        assert applied : "Deltas should be contiguous";
+                        deltas++;
+                    } else if (frame.getType() == Protocol.RESULT || frame.getType() == Protocol.ERROR) {
+                        break;
+                    }
+                }
+            }
+            System.out.println("  ✓ Applied " + deltas + " deltas");
+
+            // Client copy must match the server's table exactly
+            GameSnapshot snapshot = gameServer.getSessionManager().getSession(sessionId).getSnapshot();
+            assert table.getVersion() == snapshot.getVersion() : "Versions should match";
+            for (int seat = 0; seat < snapshot.getPlayers().size(); seat++) {
+                List<model.Card> hand = snapshot.getPlayers().get(seat).getHand();
+                assert table.getPlayers().get(seat).getHand()
+                        .equals(seat == snapshot.getCurrentPlayerIndex() ? ids(hand) : visible(hand))
+                        : "Hand " + seat + " should match what the table may see";
+                assert table.getPlayers().get(seat).getEcts() == snapshot.getPlayers().get(seat).getEctsCredits()
+                        : "Score " + seat + " should match";
+            }
+            assert table.getLectureHall().equals(ids(snapshot.getLectureHall())) : "Hall should match";
+            assert table.getCurrentPlayerIndex() == snapshot.getCurrentPlayerIndex() : "Turn should match";
+            System.out.println("  ✓ Client table matches server at v" + snapshot.getVersion());
+            System.out.println("  ✓ Only the current player's hand is sent in full");
+
+            // Spectator receives the same deltas
+            while (watched.getVersion() < snapshot.getVersion()) {
+                TrioClient.Frame frame = spectator.readFrame();
+                if (frame.getType() == Protocol.DELTA) {
+                    boolean applied = watched.applyDelta(frame.getPayload());
+                    assert applied : "Spectator deltas should be contiguous";
+                }
+            }
+            assert watched.getLectureHall().equals(table.getLectureHall()) : "Spectator should see the same hall";
+            for (int seat = 0; seat < snapshot.getPlayers().size(); seat++) {
+                assert watched.getPlayers().get(seat).getHand().equals(table.getPlayers().get(seat).getHand())
+                        : "Second hotseat client should see hand " + seat + " like the first";
+            }
+            System.out.println("  ✓ Spectator in sync");
+        }
+
+        server.stop();
+        gameServer.shutdown();
+        System.out.println("✅ Delta broadcast working!\n");
+    }
+
+    private static void testSpectatorRing() throws Exception {
+        System.out.println("👀 Testing spectator ring...");
+
+        EventRing ring = new EventRing(4);
+        assert ring.capacity() == 4 : "Capacity should be a power of two";
+        for (long sequence = 1; sequence <= 6; sequence++) {
+            ring.publish(sequence, new byte[]{(byte) sequence});
+        }
+        assert ring.getLastSequence() == 6 : "Last sequence should be 6";
+        assert ring.get(6)[0] == 6 && ring.get(3)[0] == 3 : "Recent events should be readable";
+        assert ring.get(2) == null && ring.isOverrun(2) : "Lapped events should be gone";
+        assert !ring.isOverrun(3) : "Oldest kept event should not be overrun";
+        System.out.println("  ✓ Ring keeps the last " + ring.capacity() + " events");
+
+        GameServer gameServer = new GameServer(2);
+        TrioNioServer server = new TrioNioServer(gameServer, 0, 4);
+        server.setHotseat(true);
+        server.start();
+
+        List<TrioClient> spectators = new ArrayList<>();
+        try (TrioClient player = new TrioClient("127.0.0.1", server.getPort())) {
+            String sessionId = player.createGame(GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL,
+                    Arrays.asList("Dana", "Acil"));
+            RemoteTable table = new RemoteTable();
+            table.applyState(player.join(sessionId, "").getPayload());
+
+            List<RemoteTable> watched = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                TrioClient spectator = new TrioClient("127.0.0.1", server.getPort());
+                spectators.add(spectator);
+                RemoteTable view = new RemoteTable();
+                view.applyState(spectator.spectate(sessionId).getPayload());
+                watched.add(view);
+            }
+            System.out.println("  ✓ " + spectators.size() + " spectators watching");
+
+            spectators.get(0).sendMove(pickMove(table));
+            spectators.get(0).expect(Protocol.ERROR);
+            System.out.println("  ✓ Spectators cannot play");
+
+            for (int move = 0; move < 30 && table.getState() == GameState.PLAYING; move++) {
+                player.sendMove(pickMove(table));
+                while (true) {
+                    TrioClient.Frame frame = player.readFrame();
+                    if (frame.getType() == Protocol.DELTA) {
+                        boolean applied = table.applyDelta(frame.getPayload());
+                        assert applied : "Deltas should be contiguous";
+                    } else if (frame.getType() == Protocol.RESULT || frame.getType() == Protocol.ERROR) {
+                        break;
+                    }
+                }
+            }
+
+            // Every spectator converges on the player's table, through deltas or a fresh STATE
+            for (int i = 0; i < spectators.size(); i++) {
+                RemoteTable view = watched.get(i);
+                while (view.getVersion() < table.getVersion()) {
+                    TrioClient.Frame frame = spectators.get(i).readFrame();
+                    if (frame.getType() == Protocol.STATE) {
+                        view.applyState(frame.getPayload());
+                    } else if (frame.getType() == Protocol.DELTA) {
+                        boolean applied = view.applyDelta(frame.getPayload());
+                        assert applied : "Spectator deltas should be contiguous";
+                    }
+                }
+                assert view.getLectureHall().equals(table.getLectureHall()) : "Spectator should see the same hall";
+                GameSnapshot snapshot = gameServer.getSessionManager().getSession(sessionId).getSnapshot();
+                for (int seat = 0; seat < snapshot.getPlayers().size(); seat++) {
+                    assert view.getPlayers().get(seat).getHand().equals(visible(snapshot.getPlayers().get(seat).getHand()))
+                            : "Spectators should only see the ends of hand " + seat;
+                }
+            }
+            System.out.println("  ✓ All spectators in sync at v" + table.getVersion() + ", middle cards hidden");
+        } finally {
+            for (TrioClient spectator : spectators) {
+                spectator.close();
+            }
+        }
+
+        server.stop();
+        gameServer.shutdown();
+        System.out.println("✅ Spectator ring working!\n");
+    }
+
+    private static void testResume() throws Exception {
+        System.out.println("🔌 Testing reconnect and resume...");
+
+        GameServer gameServer = new GameServer(2);
+        TrioNioServer server = new TrioNioServer(gameServer, 0, 8);
+        server.setHotseat(true);
+        server.start();
+
+        try (TrioClient host = new TrioClient("127.0.0.1", server.getPort())) {
+            String sessionId = host.createGame(GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL,
+                    Arrays.asList("Dana", "Acil"));
+            RemoteTable live = new RemoteTable();
+            live.applyState(host.join(sessionId, "").getPayload());
+
+            // Dana drops after the first moves
+            RemoteTable dropped = new RemoteTable();
+            try (TrioClient dana = new TrioClient("127.0.0.1", server.getPort())) {
+                dropped.applyState(dana.join(sessionId, "Dana").getPayload());
+            }
+            playMoves(host, live, 5);
+            long missed = live.getVersion() - dropped.getVersion();
+
+            try (TrioClient dana = new TrioClient("127.0.0.1", server.getPort())) {
+                long start = System.nanoTime();
+                int replayed = dana.resume(sessionId, "Dana", dropped);
+                long micros = (System.nanoTime() - start) / 1000;
+                assert replayed == missed : "Should replay exactly the missed versions: " + replayed + "/" + missed;
+                assert dropped.getVersion() == live.getVersion() : "Resumed table should be current";
+                assert dropped.getLectureHall().equals(live.getLectureHall()) : "Resumed hall should match";
+                System.out.println("  ✓ Resumed with " + replayed + " missed deltas in " + micros + " µs");
+
+                // Live deltas follow the replay without a gap
+                if (live.getState() == GameState.PLAYING) {
+                    playMoves(host, live, 1);
+                    while (dropped.getVersion() < live.getVersion()) {
+                        TrioClient.Frame frame = dana.readFrame();
+                        if (frame.getType() == Protocol.DELTA) {
+                            boolean applied = dropped.applyDelta(frame.getPayload());
+                            assert applied : "Live deltas should follow the replay";
+                        }
+                    }
+                }
+                System.out.println("  ✓ Live deltas continue after the replay");
+            }
+
+            // A gap larger than the event log falls back to a snapshot
+            RemoteTable stale = new RemoteTable();
+            try (TrioClient acil = new TrioClient("127.0.0.1", server.getPort())) {
+                stale.applyState(acil.join(sessionId, "Acil").getPayload());
+            }
+            int played = playMoves(host, live, 12);
+            try (TrioClient acil = new TrioClient("127.0.0.1", server.getPort())) {
+                int replayed = acil.resume(sessionId, "Acil", stale);
+                assert played <= 8 || replayed == -1 : "A gap beyond the 8-event ring should send a STATE";
+                assert stale.getVersion() == live.getVersion() : "Snapshot should bring the table up to date";
+                System.out.println("  ✓ Gap of " + played + " moves resumed " + (replayed < 0 ? "from a snapshot" : "from " + replayed + " deltas"));
+            }
+        }
+
+        server.stop();
+        gameServer.shutdown();
+        System.out.println("✅ Resume working!\n");
+    }
+
+    /**
+     * Pass turns with failed trios (which never end the game), applying the deltas to the table
+     * @return Number of moves sent
+     */
+    private static int playMoves(TrioClient client, RemoteTable table, int moves) throws Exception {
+        int played = 0;
+        for (; played < moves && table.getState() == GameState.PLAYING; played++) {
+            List<Integer> hall = table.getLectureHall();
+            int other = 1;
+            while (hall.get(other).equals(hall.get(0))) {
+                other++;
+            }
+            client.sendMove(new int[][]{{Protocol.SOURCE_HALL, 0, 0}, {Protocol.SOURCE_HALL, 0, other},
+                    {Protocol.SOURCE_HAND, 0, 0}});
+            while (true) {
+                TrioClient.Frame frame = client.readFrame();
+                if (frame.getType() == Protocol.DELTA) {
+                    boolean applied = table.applyDelta(frame.getPayload());
+                    assert applied : "Deltas should be contiguous";
+                } else if (frame.getType() == Protocol.RESULT || frame.getType() == Protocol.ERROR) {
+                    break;
+                }
+            }
+        }
+        return played;
+    }
+
+    private static void testMatchmaking() throws Exception {
+        System.out.println("🤝 Testing matchmaking...");
+
+        GameServer gameServer = new GameServer(2);
+        MatchmakingService matchmaking = new MatchmakingService(gameServer.getSessionManager(), 0);
+
+        try {
+            matchmaking.enqueue("Dana", GameMode.TEAM_SIMPLE, 3, Difficulty.NORMAL);
+            assert false : "Odd team table should be refused";
+        } catch (IllegalArgumentException e) {
+            System.out.println("  ✓ Odd team table refused");
+        }
+
+        // Concurrent enqueues from several threads
+        int threads = 4;
+        int perThread = 300;
+        List<MatchmakingService.Ticket> tickets = java.util.Collections.synchronizedList(new ArrayList<>());
+        List<Thread> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    tickets.add(matchmaking.enqueue("P" + id + "-" + i, GameMode.INDIVIDUAL_SIMPLE, 3, Difficulty.NORMAL));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long micros = Math.max(1, (System.nanoTime() - start) / 1000);
+        System.out.println("  ✓ " + tickets.size() + " enqueues in " + micros / 1000 + " ms ("
+                + (tickets.size() * 1_000_000L / micros) + "/s)");
+
+        java.util.Map<GameSession, Integer> seats = new java.util.HashMap<>();
+        for (MatchmakingService.Ticket ticket : tickets) {
+            MatchmakingService.Match match = ticket.getFuture().get(10, java.util.concurrent.TimeUnit.SECONDS);
+            seats.merge(match.getSession(), 1, Integer::sum);
+        }
+        assert seats.size() == threads * perThread / 3 : "Every 3 players should share one table";
+        for (int count : seats.values()) {
+            assert count == 3 : "Tables should be full";
+        }
+        assert matchmaking.getWaitingCount(GameMode.INDIVIDUAL_SIMPLE, 3, Difficulty.NORMAL) == 0
+                : "Nobody should be left waiting";
+        System.out.println("  ✓ " + seats.size() + " full tables, every player seated once");
+
+        MatchmakingService.Ticket cancelled = matchmaking.enqueue("Dana", GameMode.INDIVIDUAL_ADVANCED, 2, Difficulty.EASY);
+        boolean withdrawn = matchmaking.cancel(cancelled);
+        assert withdrawn : "Waiting ticket should cancel";
+        MatchmakingService.Ticket first = matchmaking.enqueue("Dana", GameMode.INDIVIDUAL_ADVANCED, 2, Difficulty.EASY);
+        MatchmakingService.Ticket second = matchmaking.enqueue("Dana", GameMode.INDIVIDUAL_ADVANCED, 2, Difficulty.EASY);
+        MatchmakingService.Match match = second.getFuture().get(5, java.util.concurrent.TimeUnit.SECONDS);
+        assert first.getFuture().get().getSession() == match.getSession() : "Cancelled ticket should be skipped";
+        assert match.getPlayerName().equals("Dana (2)") : "Duplicate names should be made unique";
+        System.out.println("  ✓ Cancelled ticket skipped, duplicate name seated as " + match.getPlayerName());
+        matchmaking.shutdown();
+
+        // Backfill: a lone player gets bots after the timeout
+        MatchmakingService backfilling = new MatchmakingService(gameServer.getSessionManager(), 200);
+        MatchmakingService.Ticket lonely = backfilling.enqueue("Acil", GameMode.TEAM_SIMPLE, 4, Difficulty.NORMAL);
+        MatchmakingService.Match seated = lonely.getFuture().get(5, java.util.concurrent.TimeUnit.SECONDS);
+        GameSnapshot snapshot = seated.getSession().getSnapshot();
+        assert snapshot.getPlayers().size() == 4 : "Table should be filled with bots";
+        // The human plays until the turn passes, then the bots play on their own until it comes back
+        long botMoves = 0;
+        for (int turn = 0; turn < 3 && snapshot.getState() == GameState.PLAYING; turn++) {
+            while (snapshot.getState() == GameState.PLAYING
+                    && snapshot.getCurrentPlayer().getName().equals("Acil")) {
+                snapshot = seated.getSession().submit(controller -> {
+                    controller.executeMove(model.Move.fromHandAndHall(0, 1, 0));
+                    return null;
+                }).thenApply(ignored -> seated.getSession().getSnapshot()).get();
+            }
+            long before = snapshot.getVersion();
+            while (snapshot.getState() == GameState.PLAYING
+                    && !snapshot.getCurrentPlayer().getName().equals("Acil")) {
+                snapshot = seated.getSession().awaitNewerThan(snapshot.getVersion())
+                        .get(5, java.util.concurrent.TimeUnit.SECONDS);
+            }
+            botMoves += snapshot.getVersion() - before;
+        }
+        assert botMoves > 0 : "Bots should have played";
+        System.out.println("  ✓ Backfilled with 3 bots, bots played " + botMoves + " moves");
+        backfilling.shutdown();
+
+        gameServer.shutdown();
+        System.out.println("✅ Matchmaking working!\n");
+    }
+
+    private static void testThrottling() throws Exception {
+        System.out.println("🚦 Testing move throttling...");
+
+        TokenBucket bucket = new TokenBucket(10, 5);
+        int granted = 0;
+        for (int i = 0; i < 8; i++) {
+            if (bucket.tryAcquire()) {
+                granted++;
+            }
+        }
+        assert granted == 5 : "Burst should allow exactly 5 tokens, got " + granted;
+        long retry = bucket.getRetryAfterMillis();
+        assert retry > 0 && retry <= 100 : "Next token should come within 100 ms, got " + retry;
+        Thread.sleep(retry + 5);
+        boolean refilled = bucket.tryAcquire();
+        assert refilled : "Token should be back after the suggested wait";
+        System.out.println("  ✓ Token bucket: burst of 5, retry after " + retry + " ms");
+
+        // 5 moves per second per connection, generous per session
+        MoveThrottle throttle = new MoveThrottle(5, 5, 8, 1000, 1000, 64);
+        GameServer gameServer = new GameServer(2, throttle);
+        TrioNioServer server = new TrioNioServer(gameServer, 0);
+        server.setHotseat(true);
+        server.start();
+
+        try (TrioClient spammer = new TrioClient("127.0.0.1", server.getPort());
+             TrioClient player = new TrioClient("127.0.0.1", server.getPort())) {
+            String noisy = spammer.createGame(GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL, Arrays.asList("Dana", "Acil"));
+            spammer.join(noisy, "");
+            String quiet = player.createGame(GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL, Arrays.asList("Dana", "Acil"));
+            RemoteTable table = new RemoteTable();
+            table.applyState(player.join(quiet, "").getPayload());
+
+            int[][] move = {{Protocol.SOURCE_HAND, 0, 0}, {Protocol.SOURCE_HAND, 0, 1}, {Protocol.SOURCE_HALL, 0, 0}};
+            for (int i = 0; i < 50; i++) {
+                spammer.sendMove(move);
+            }
+            int throttled = 0;
+            int answered = 0;
+            while (throttled + answered < 50) {
+                TrioClient.Frame frame = spammer.readFrame();
+                if (frame.getType() == Protocol.THROTTLED) {
+                    assert frame.getPayload().get() == MoveThrottle.CONNECTION_LIMIT : "Connection limit expected";
+                    assert frame.getPayload().getInt() > 0 : "Retry delay expected";
+                    throttled++;
+                } else if (frame.getType() == Protocol.RESULT || frame.getType() == Protocol.ERROR) {
+                    answered++;
+                }
+            }
+            assert answered <= 8 && throttled >= 42 : "Spam should be shed, " + answered + " moves got through";
+            System.out.println("  ✓ Spammer: " + answered + " moves played, " + throttled + " throttled");
+
+            // The other session is unaffected
+            player.sendMove(pickMove(table));
+            TrioClient.Frame frame;
+            while ((frame = player.readFrame()).getType() != Protocol.RESULT) {
+                assert frame.getType() != Protocol.THROTTLED : "Quiet player should not be throttled";
+            }
+            System.out.println("  ✓ Other session unaffected");
+        }
+        assert throttle.getThrottledByConnection() >= 42 : "Counters should record throttled moves";
+        System.out.println("  ✓ Counters: " + throttle);
+        server.stop();
+        gameServer.shutdown();
+
+        // Session budget over HTTP: 2 moves at once, then 1 per second
+        GameServer httpServer = new GameServer(2, new MoveThrottle(100, 100, 8, 1, 2, 64));
+        HttpGateway gateway = new HttpGateway(httpServer, 0);
+        gateway.start();
+        String base = "http://127.0.0.1:" + gateway.getPort();
+        String created = http("POST", base + "/sessions?mode=INDIVIDUAL_SIMPLE&difficulty=NORMAL&players=Dana,Acil");
+        String sessionId = created.substring(created.indexOf(":\"") + 2, created.indexOf("\","));
+        int limited = 0;
+        for (int i = 0; i < 5; i++) {
+            if (http("POST", base + "/sessions/" + sessionId + "/moves?picks=hand:0,hand:1,hall:0")
+                    .contains("Too many moves")) {
+                limited++;
+            }
+        }
+        assert limited == 3 : "Only the burst of 2 should pass, " + limited + " limited";
+        String stats = http("GET", base + "/stats");
+        assert stats.contains("\"throttledBySession\":3") : "Stats should count throttled moves: " + stats;
+        System.out.println("  ✓ HTTP: 429 after the session burst, " + stats);
+        gateway.stop();
+        httpServer.shutdown();
+
+        System.out.println("✅ Move throttling working!\n");
+    }
+
+    private static void testHibernation() throws Exception {
+        System.out.println("💤 Testing session hibernation...");
+
+        // Codec round trip on a game in progress
+        controller.GameController played = new controller.GameController();
+        played.initializeGame(4, GameMode.TEAM_SIMPLE, Difficulty.NORMAL, Arrays.asList("Dana", "Acil", "Alex", "Sam"));
+        played.startGame();
+        for (int i = 0; i < 12 && played.isGameRunning(); i++) {
+            played.executeBotTurn(new controller.SimpleBot(), 200);
+        }
+        byte[] encoded = model.GameCodec.encode(played.getGame());
+        model.Game restored = model.GameCodec.decode(encoded);
+        assert Arrays.equals(encoded, model.GameCodec.encode(restored)) : "Re-encoding should give the same bytes";
+        GameSnapshot original = GameSnapshot.capture(played.getGame(), played.getGameState(), 1);
+        assert model.StateDelta.between(original, GameSnapshot.capture(restored, played.getGameState(), 2)).isEmpty()
+                : "Restored game should look identical";
+        System.out.println("  ✓ Game codec round trip in " + encoded.length + " bytes");
+
+        GameServer gameServer = new GameServer(2);
+        SessionManager sessions = gameServer.getSessionManager();
+        java.nio.file.Path directory = java.nio.file.Files.createTempDirectory("trio-hibernate");
+        FileHibernationStore store = new FileHibernationStore(directory);
+        List<GameSession> created = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            created.add(sessions.createSession(3, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL,
+                    Arrays.asList("Dana", "Acil", "Alex")).get());
+        }
+        Thread.sleep(5);
+        created.get(19).submit(controller -> null).get(); // Most recently used
+
+        SessionGovernor governor = new SessionGovernor(sessions, store, 5 * SessionGovernor.ESTIMATED_SESSION_BYTES, 0);
+        int requested = governor.enforce();
+        assert requested == 15 : "Sessions over the budget should be hibernated";
+        long deadline = System.currentTimeMillis() + 5000;
+        while (governor.getHibernatedCount() < 15 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assert governor.getHibernatedCount() == 15 : "15 sessions should be hibernated";
+        assert !created.get(19).isHibernated() : "Most recently used session should stay in memory";
+        try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.list(directory)) {
+            assert files.count() == 15 : "One file per hibernated session";
+        }
+        System.out.println("  ✓ 15 of 20 sessions hibernated, " + store.getStoredBytes() + " bytes on disk");
+
+        // Reads still work, the next command wakes the game transparently
+        GameSession sleeping = created.get(0);
+        GameSnapshot before = sleeping.getSnapshot();
+        assert sleeping.isHibernated() && before != null : "Snapshot should stay readable";
+        String current = sleeping.submit(controller -> controller.getCurrentPlayer().getName()).get();
+        assert !sleeping.isHibernated() : "Command should rehydrate the session";
+        assert current.equals(before.getCurrentPlayer().getName()) : "Turn should survive hibernation";
+        assert sleeping.getSnapshot().getVersion() == before.getVersion() : "Waking should not create a version";
+        boolean valid = sleeping.submit(controller -> controller.executeBotTurn(new controller.SimpleBot(), 200)).get();
+        assert valid || sleeping.getSnapshot().getVersion() > before.getVersion() : "Rehydrated game should play";
+        System.out.println("  ✓ Rehydrated on next command, game continues");
+
+        sessions.closeSession(created.get(1).getSessionId());
+        Thread.sleep(50);
+        try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.list(directory)) {
+            assert files.count() == 13 : "Closed and woken sessions should leave no file";
+        }
+
+        OffHeapHibernationStore offHeap = new OffHeapHibernationStore();
+        GameSession last = created.get(19);
+        GameSnapshot lastBefore = last.getSnapshot();
+        new SessionGovernor(sessions, offHeap, 1, 0).enforce();
+        while (!last.isHibernated() && System.currentTimeMillis() < deadline + 5000) {
+            Thread.sleep(10);
+        }
+        assert offHeap.getStoredBytes() > 0 : "Off-heap store should hold the session";
+        last.submit(controller -> null).get();
+        assert model.StateDelta.between(lastBefore, last.getSnapshot()).isEmpty() : "Off-heap round trip should be exact";
+        System.out.println("  ✓ Off-heap store round trip");
+
+        gameServer.shutdown();
+        System.out.println("✅ Session hibernation working!\n");
+    }
+
+    private static void testJournal() throws Exception {
+        System.out.println("📒 Testing move journal...");
+
+        // Group commit: many appenders, few syncs, everything read back in order
+        java.nio.file.Path directory = java.nio.file.Files.createTempDirectory("trio-journal");
+        Journal journal = new Journal(directory, 256 * 1024, 1000);
+        int threads = 4;
+        int perThread = 25_000;
+        List<CompletableFuture<Long>> appends = java.util.Collections.synchronizedList(new ArrayList<>());
+        List<Thread> appenders = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            String sessionId = "s" + t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    byte[] payload = new byte[24];
+                    java.nio.ByteBuffer.wrap(payload).putInt(i);
+                    appends.add(journal.append(sessionId, payload));
+                }
+            });
+            appenders.add(thread);
+            thread.start();
+        }
+        for (Thread thread : appenders) {
+            thread.join();
+        }
+        CompletableFuture.allOf(appends.toArray(new CompletableFuture<?>[0])).get();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long total = (long) threads * perThread;
+        assert journal.getDurableSequence() == total : "Every record should be durable";
+        assert journal.getCommitCount() < total / 10 : "Records should share syncs";
+        System.out.printf("  ✓ %d durable appends in %.0f ms (%.0f/s) with %d syncs%n",
+                total, seconds * 1000, total / seconds, journal.getCommitCount());
+        journal.close();
+
+        long[] expected = new long[threads];
+        long[] lastSequence = {0};
+        long read = Journal.read(directory, (sequence, sessionId, payload) -> {
+            assert sequence == lastSequence[0] + 1 : "Sequences should be contiguous";
+            lastSequence[0] = sequence;
+            int t = sessionId.charAt(1) - '0';
+            assert java.nio.ByteBuffer.wrap(payload).getInt() == expected[t]++ : "Per-session order should be kept";
+        });
+        long segments;
+        try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.list(directory)) {
+            segments = files.count();
+        }
+        assert read == total && segments > 1 : "All records should be read back across segments";
+        System.out.println("  ✓ Read back " + read + " records from " + segments + " segments");
+
+        // A torn tail is cut off on open and the journal continues after it
+        java.nio.file.Path last;
+        try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.list(directory)) {
+            last = files.sorted().reduce((first, second) -> second).get();
+        }
+        long size = java.nio.file.Files.size(last);
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(last,
+                java.nio.file.StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5); // Half of the last record
+            channel.write(java.nio.ByteBuffer.wrap(new byte[]{9, 9, 9}), 20); // Corrupt the first record's body
+        }
+        long[] valid = {0};
+        Journal.read(directory, (sequence, sessionId, payload) -> valid[0] = sequence);
+        assert valid[0] < total - 1 : "Damaged records should not be read";
+        Journal reopened = new Journal(directory, 256 * 1024, 1000);
+        long appended = reopened.append("s0", new byte[]{1}).get();
+        assert appended == valid[0] + 1 : "Journal should continue after the last valid record";
+        reopened.close();
+        System.out.println("  ✓ Checksum and torn tail detected, journal resumes at " + (valid[0] + 1));
+
+        // Sessions acknowledge moves once their events are durable, and the journal rebuilds the games
+        GameServer gameServer = new GameServer(2);
+        java.nio.file.Path gameDirectory = java.nio.file.Files.createTempDirectory("trio-journal-games");
+        Journal gameJournal = gameServer.startJournal(gameDirectory, 500);
+        SessionManager sessions = gameServer.getSessionManager();
+        List<GameSession> games = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            games.add(sessions.createSession(3, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL,
+                    Arrays.asList("Dana", "Acil", "Alex")).get());
+        }
+        for (int move = 0; move < 20; move++) {
+            List<CompletableFuture<Boolean>> moves = new ArrayList<>();
+            for (GameSession game : games) {
+                moves.add(game.submit(controller -> controller.executeTurn(new int[]{0, 1, 0})));
+            }
+            for (CompletableFuture<Boolean> played : moves) {
+                played.get();
+            }
+        }
+        long acknowledged = gameJournal.getDurableSequence();
+        java.util.Map<String, List<model.GameEvent>> events = new java.util.HashMap<>();
+        long records = Journal.read(gameDirectory, (sequence, sessionId, payload) -> {
+            try {
+                events.computeIfAbsent(sessionId, id -> new ArrayList<>()).addAll(SessionRecovery.decodeEvents(payload));
+            } catch (java.io.IOException e) {
+                throw new AssertionError("Journal payload should decode", e);
+            }
+        });
+        assert records == acknowledged : "Acknowledged commands should already be on disk";
+        for (GameSession game : games) {
+            byte[] live = game.submit(controller -> model.GameCodec.encode(controller.getGame())).get();
+            controller.GameController replayed = controller.GameController.replay(events.get(game.getSessionId()));
+            assert Arrays.equals(live, model.GameCodec.encode(replayed.getGame())) : "Journal should rebuild the game";
+            assert replayed.getGameState() == game.getSnapshot().getState() : "Journal should rebuild the state";
+        }
+        System.out.println("  ✓ " + games.size() + " games rebuilt from " + gameJournal.getRecordCount()
+                + " journal records (" + gameJournal.getCommitCount() + " syncs)");
+
+        gameServer.shutdown();
+        System.out.println("✅ Move journal working!\n");
+    }
+
+    private static void testRecovery() throws Exception {
+        System.out.println("♻️  Testing crash recovery...");
+        java.nio.file.Path directory = java.nio.file.Files.createTempDirectory("trio-recovery");
+        java.io.PrintStream console = System.out;
+
+        // A server with 10k sessions a few moves in, one migrated in and one closed
+        GameServer crashed = new GameServer(4);
+        Journal journal = crashed.startJournal(directory, 1000);
+        SessionManager sessions = crashed.getSessionManager();
+        int count = 10_000;
+        List<GameSession> games = new ArrayList<>();
+        java.util.Map<String, byte[]> expected = new java.util.HashMap<>();
+        String closedId;
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            List<CompletableFuture<GameSession>> created = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int players = 3 + i % 4;
+                created.add(sessions.createSession(players, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL,
+                        Arrays.asList("Dana", "Acil", "Alex", "Sam", "Lou", "Max").subList(0, players)));
+            }
+            for (CompletableFuture<GameSession> session : created) {
+                games.add(session.get());
+            }
+            for (int move = 0; move < 3; move++) {
+                List<CompletableFuture<Boolean>> moves = new ArrayList<>();
+                for (GameSession game : games) {
+                    int[] picks = {move % 3, (move + 1) % 3, move % 2};
+                    moves.add(game.submit(controller -> controller.executeTurn(picks)));
+                }
+                for (CompletableFuture<Boolean> played : moves) {
+                    played.get();
+                }
+            }
+
+            GameServer other = new GameServer(1);
+            GameSession away = other.getSessionManager().createSession(4, GameMode.TEAM_SIMPLE, Difficulty.NORMAL,
+                    Arrays.asList("Dana", "Acil", "Alex", "Sam")).get();
+            away.submit(controller -> controller.executeTurn(new int[]{0, 1, 0})).get();
+            byte[] moved = other.getSessionManager().detachSession(away.getSessionId()).get();
+            other.shutdown();
+            GameSession migrated = sessions.adoptSession("migrated", moved).get();
+            migrated.submit(controller -> controller.executeTurn(new int[]{1, 2, 0})).get();
+            games.add(migrated);
+
+            closedId = games.get(1).getSessionId();
+            sessions.closeSession(closedId);
+            for (GameSession game : games) {
+                if (!game.getSessionId().equals(closedId)) {
+                    expected.put(game.getSessionId(), game.submit(controller ->
+                            model.GameCodec.encode(controller.getGame())).get());
+                }
+            }
+        } finally {
+            System.setOut(console);
+        }
+        Thread.sleep(100); // Lets the closed session journal its end
+
+        // Crash: the journal stops mid-write, nothing is closed
+        journal.close();
+        List<java.nio.file.Path> segments = new ArrayList<>();
+        try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.list(directory)) {
+            files.sorted().forEach(segments::add);
+        }
+        java.nio.file.Files.write(segments.get(segments.size() - 1), new byte[]{0, 0, 0, 40, 1, 2},
+                java.nio.file.StandardOpenOption.APPEND);
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            crashed.shutdown(); // Its journal is closed: nothing more is recorded
+        } finally {
+            System.setOut(console);
+        }
+
+        // A new server rebuilds every open session from the journal
+        GameServer restarted = new GameServer(4);
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            restarted.startJournal(directory, 1000);
+        } finally {
+            System.setOut(console);
+        }
+        SessionRecovery recovery = restarted.getRecovery();
+        System.out.println("  ✓ " + recovery);
+        assert recovery.getFailed() == 0 : "Every session should be rebuilt";
+        assert recovery.getSessions().size() == expected.size() : "Open sessions should come back, closed ones not";
+        SessionManager resumed = restarted.getSessionManager();
+        assert resumed.getSession(closedId) == null : "Closed session should stay closed";
+        for (java.util.Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            GameSession session = resumed.getSession(entry.getKey());
+            assert session != null && session.getSnapshot() != null : "Session " + entry.getKey() + " should be back";
+            byte[] rebuilt = session.submit(controller -> model.GameCodec.encode(controller.getGame())).get();
+            assert Arrays.equals(entry.getValue(), rebuilt) : "Session " + entry.getKey() + " differs after recovery";
+        }
+        assert recovery.getElapsedMillis() < 10_000 : "Recovery should take seconds, not minutes";
+        System.out.println("  ✓ " + expected.size() + " games identical after the crash, including the migrated one");
+
+        // Recovered sessions keep playing and new sessions get fresh IDs
+        GameSession again = resumed.getSession(games.get(0).getSessionId());
+        GameSession fresh;
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            again.submit(controller -> controller.executeTurn(new int[]{0, 1, 0})).get();
+            fresh = resumed.createSession(3, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL,
+                    Arrays.asList("Dana", "Acil", "Alex")).get();
+            assert !expected.containsKey(fresh.getSessionId()) && !fresh.getSessionId().equals(closedId)
+                    : "New session should not reuse a recovered ID";
+            expected.put(again.getSessionId(), again.submit(controller ->
+                    model.GameCodec.encode(controller.getGame())).get());
+            expected.put(fresh.getSessionId(), fresh.submit(controller ->
+                    model.GameCodec.encode(controller.getGame())).get());
+        } finally {
+            System.setOut(console);
+        }
+
+        // A normal shutdown leaves the open sessions in the journal for the next server
+        GameServer next = new GameServer(4);
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            restarted.shutdown();
+            next.startJournal(directory, 1000);
+        } finally {
+            System.setOut(console);
+        }
+        SessionRecovery reopened = next.getRecovery();
+        assert reopened.getFailed() == 0 : "Every session should be rebuilt after a shutdown";
+        assert reopened.getSessions().size() == expected.size() : "Shutdown should not close the sessions";
+        for (java.util.Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            GameSession session = next.getSessionManager().getSession(entry.getKey());
+            assert session != null : "Session " + entry.getKey() + " should be back after a shutdown";
+            byte[] rebuilt = session.submit(controller -> model.GameCodec.encode(controller.getGame())).get();
+            assert Arrays.equals(entry.getValue(), rebuilt) : "Session " + entry.getKey() + " differs after a shutdown";
+        }
+        System.out.println("  ✓ " + expected.size() + " games resumed after a normal shutdown");
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            next.shutdown();
+        } finally {
+            System.setOut(console);
+        }
+        System.out.println("✅ Crash recovery working!\n");
+    }
+
+    /**
+     * Journal size under churn with compaction, recovery from it, and its bandwidth limit
+     */
+    private static void testCompaction() throws Exception {
+        System.out.println("🗜️  Testing journal compaction...");
+        java.nio.file.Path directory = java.nio.file.Files.createTempDirectory("trio-compaction");
+        java.io.PrintStream console = System.out;
+        long segmentBytes = 32 * 1024;
+
+        // Long-lived games keep playing while short ones come and go around them
+        GameServer crashed = new GameServer(4);
+        Journal journal = crashed.startJournal(directory, segmentBytes, 200);
+        SessionManager sessions = crashed.getSessionManager();
+        List<GameSession> longLived = new ArrayList<>();
+        long grown;
+        long flat = 0;
+        long flatSegments = 0;
+        JournalCompactor compactor;
+        java.util.Map<String, byte[]> expected = new java.util.HashMap<>();
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            for (int i = 0; i < 50; i++) {
+                longLived.add(sessions.createSession(3, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL,
+                        Arrays.asList("Dana", "Acil", "Alex")).get());
+            }
+            for (int round = 0; round < 20; round++) {
+                churn(sessions, longLived, round);
+            }
+            grown = journal.getDiskBytes();
+
+            // Same traffic again, compacting after each round
+            compactor = crashed.startCompaction(JournalCompactor.DEFAULT_BYTES_PER_SECOND, 3_600_000);
+            for (int round = 20; round < 60; round++) {
+                churn(sessions, longLived, round);
+                compactor.compact();
+                if (round >= 40) {
+                    flat = Math.max(flat, journal.getDiskBytes());
+                    flatSegments = Math.max(flatSegments, journal.getSegmentCount());
+                }
+            }
+            for (GameSession game : longLived) {
+                expected.put(game.getSessionId(), game.submit(controller ->
+                        model.GameCodec.encode(controller.getGame())).get());
+            }
+            Thread.sleep(100); // Lets the short games end before the console is back
+        } finally {
+            System.setOut(console);
+        }
+        System.out.println("  ✓ Journal after 20 rounds without compaction: " + grown / 1024 + " KB");
+        System.out.println("  ✓ Journal over 20 more rounds with compaction: at most " + flat / 1024 + " KB in "
+                + flatSegments + " segments (" + compactor.getCheckpointCount() + " checkpoints, "
+                + compactor.getDeletedSegments() + " segments deleted)");
+        assert compactor.getDeletedSegments() > 0 : "Covered segments should be deleted";
+        assert flat < grown / 2 : "Compacted journal should stay well below the uncompacted one";
+
+        // Crash and recover from the compacted journal
+        journal.close();
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            crashed.shutdown();
+        } finally {
+            System.setOut(console);
+        }
+        GameServer restarted = new GameServer(4);
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            restarted.startJournal(directory, segmentBytes, 200);
+        } finally {
+            System.setOut(console);
+        }
+        SessionRecovery recovery = restarted.getRecovery();
+        System.out.println("  ✓ " + recovery);
+        assert recovery.getFailed() == 0 : "Every session should be rebuilt from its checkpoint";
+        assert recovery.getSessions().size() == expected.size() : "Only the long-lived sessions are open";
+        for (java.util.Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            GameSession session = restarted.getSessionManager().getSession(entry.getKey());
+            byte[] rebuilt = session.submit(controller -> model.GameCodec.encode(controller.getGame())).get();
+            assert Arrays.equals(entry.getValue(), rebuilt) : "Session " + entry.getKey() + " differs after compaction";
+        }
+        System.out.println("  ✓ " + expected.size() + " long-lived games identical after recovery");
+
+        // Checkpoints are paced by the bandwidth limit
+        journal = restarted.startJournal(directory, segmentBytes, 200);
+        JournalCompactor slow = new JournalCompactor(restarted.getSessionManager(), journal, 16 * 1024);
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            List<GameSession> open = new ArrayList<>(restarted.getSessionManager().getSessions());
+            for (int round = 0; round < 100 && journal.getSegmentCount() < 2; round++) {
+                churn(restarted.getSessionManager(), open, round);
+            }
+            Thread.sleep(100); // Lets the short games end before the console is back
+        } finally {
+            System.setOut(console);
+        }
+        long start = System.nanoTime();
+        slow.compact();
+        double millis = (System.nanoTime() - start) / 1e6;
+        double floor = (slow.getCheckpointBytes() / 64.0 - 16) / 256 * 1000; // 64-byte tokens, burst of 16
+        System.out.printf("  ✓ %d checkpoints (%d bytes) at 16 KB/s took %.0f ms%n",
+                slow.getCheckpointCount(), slow.getCheckpointBytes(), millis);
+        assert slow.getCheckpointCount() == expected.size() : "Every session should be checkpointed";
+        assert millis >= floor * 0.9 : "Compaction should not exceed its bandwidth";
+
+        // Compacting a hibernated session keeps its stored game for the next command
+        List<GameSession> open = new ArrayList<>(restarted.getSessionManager().getSessions());
+        HibernationStore store = new FileHibernationStore(directory.resolve("hibernated"));
+        JournalCompactor passing = new JournalCompactor(restarted.getSessionManager(), journal,
+                JournalCompactor.DEFAULT_BYTES_PER_SECOND);
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            long segments = journal.getSegmentCount();
+            for (int round = 0; round < 100 && journal.getSegmentCount() <= segments; round++) {
+                churn(restarted.getSessionManager(), open, round);
+            }
+            Thread.sleep(100); // Lets the short games end before the console is back
+        } finally {
+            System.setOut(console);
+        }
+        new SessionGovernor(restarted.getSessionManager(), store, 1, 0).enforce(); // Keeps one resident
+        long deadline = System.currentTimeMillis() + 5000;
+        List<GameSession> sleeping = new ArrayList<>();
+        while (sleeping.size() < open.size() - 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            sleeping.clear();
+            open.stream().filter(GameSession::isHibernated).forEach(sleeping::add);
+        }
+        assert sleeping.size() == open.size() - 1 : "All but one long-lived session should be hibernated";
+        passing.compact();
+        assert passing.getCheckpointCount() == open.size() : "Hibernated sessions should be checkpointed too";
+        assert sleeping.stream().allMatch(GameSession::isHibernated) : "Compaction should not wake sessions";
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            for (GameSession session : sleeping) {
+                session.submit(controller -> controller.playTurn(new int[]{0, 1, 0})).get(); // Throws if not restored
+                assert !session.isHibernated() : "Session " + session.getSessionId() + " should be restored";
+            }
+        } finally {
+            System.setOut(console);
+        }
+        assert store.getStoredBytes() == 0 : "Restored sessions should leave nothing stored";
+        System.out.println("  ✓ " + sleeping.size() + " hibernated sessions checkpointed, then played a move");
+
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            restarted.shutdown();
+        } finally {
+            System.setOut(console);
+        }
+        System.out.println("✅ Journal compaction working!\n");
+    }
+
+    /**
+     * One round of traffic: a move in every long-lived game, and short games started, played and closed
+     */
+    private static void churn(SessionManager sessions, List<GameSession> longLived, int round) throws Exception {
+        int[] picks = {round % 3, (round + 1) % 3, round % 2};
+        List<CompletableFuture<Boolean>> moves = new ArrayList<>();
+        for (GameSession game : longLived) {
+            moves.add(game.submit(controller -> controller.executeTurn(picks)));
+        }
+        List<GameSession> shortLived = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            shortLived.add(sessions.createSession(4, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL,
+                    Arrays.asList("Dana", "Acil", "Alex", "Sam")).get());
+        }
+        for (GameSession game : shortLived) {
+            moves.add(game.submit(controller -> controller.executeTurn(picks)));
+        }
+        for (CompletableFuture<Boolean> move : moves) {
+            move.get();
+        }
+        for (GameSession game : shortLived) {
+            sessions.closeSession(game.getSessionId());
+        }
+    }
+
+    private static void testProfiles() throws Exception {
+        System.out.println("👤 Testing player profiles...");
+        java.nio.file.Path directory = java.nio.file.Files.createTempDirectory("trio-profiles");
+        java.util.Random random = new java.util.Random(47);
+
+        // Thousands of game ends over a few hundred players, small segments so that they roll
+        int players = 300;
+        int gamesPlayed = 5000;
+        int[] games = new int[players];
+        int[] wins = new int[players];
+        long[] ects = new long[players];
+        int[] trios = new int[players];
+        stats.ProfileStore store = new stats.ProfileStore(directory, 64 * 1024, 0);
+        long start = System.nanoTime();
+        for (int g = 0; g < gamesPlayed; g++) {
+            int seats = 2 + random.nextInt(3);
+            List<String> names = new ArrayList<>();
+            int[] seatEcts = new int[seats];
+            boolean[] won = new boolean[seats];
+            int[][] seatTrios = new int[seats][13];
+            won[random.nextInt(seats)] = true;
+            for (int seat = 0; seat < seats; seat++) {
+                int player;
+                do {
+                    player = random.nextInt(players);
+                } while (names.contains("player" + player));
+                names.add("player" + player);
+                seatEcts[seat] = random.nextInt(10);
+                seatTrios[seat][1 + random.nextInt(12)] = 1;
+                games[player]++;
+                wins[player] += won[seat] ? 1 : 0;
+                ects[player] += seatEcts[seat];
+                trios[player]++;
+            }
+            store.recordGame(new stats.ProfileStore.Outcome(g, names, seatEcts, won, seatTrios));
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("  ✓ %d game ends recorded in %.0f ms (%.0f µs each, one sync per game)%n",
+                gamesPlayed, millis, millis * 1000 / gamesPlayed);
+        assert store.getProfileCount() == players : "Every player should have a profile";
+        assert store.getSegmentCount() > 2 : "Segments should roll over";
+        checkProfiles(store, games, wins, ects, trios);
+
+        // Compaction keeps only the latest profile of each player
+        long before = store.getDiskBytes();
+        int segmentsBefore = store.getSegmentCount();
+        boolean compacted = store.compact();
+        assert compacted : "Mostly outdated segments should be compacted";
+        long after = store.getDiskBytes();
+        System.out.println("  ✓ Compaction: " + segmentsBefore + " segments, " + before / 1024 + " KB → "
+                + store.getSegmentCount() + " segments, " + after / 1024 + " KB");
+        assert after < before / 4 : "Compaction should reclaim outdated profiles";
+        compacted = store.compact();
+        assert !compacted : "Nothing left to compact";
+        checkProfiles(store, games, wins, ects, trios);
+        store.close();
+
+        // A torn record at the end is dropped on reopen, everything before it kept
+        List<java.nio.file.Path> segments = new ArrayList<>();
+        try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.list(directory)) {
+            files.sorted().forEach(segments::add);
+        }
+        java.nio.file.Path last = segments.get(segments.size() - 1);
+        long size = java.nio.file.Files.size(last);
+        java.nio.file.Files.write(last, new byte[]{0, 0, 1, 0, 7, 7, 7}, java.nio.file.StandardOpenOption.APPEND);
+        java.io.PrintStream console = System.out;
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            store = new stats.ProfileStore(directory, 64 * 1024, 0);
+        } finally {
+            System.setOut(console);
+        }
+        assert java.nio.file.Files.size(last) == size : "Torn tail should be cut off";
+        checkProfiles(store, games, wins, ects, trios);
+        store.close();
+        System.out.println("  ✓ Reopened after a torn write with every profile intact");
+
+        // The server updates profiles when its games end
+        java.nio.file.Path serverDirectory = java.nio.file.Files.createTempDirectory("trio-server-profiles");
+        GameServer server = new GameServer(2);
+        stats.ProfileStore profiles = server.startProfiles(serverDirectory);
+        int finished = 0;
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            for (int g = 0; g < 10; g++) {
+                GameSession session = server.getSessionManager().createSession(2, GameMode.INDIVIDUAL_SIMPLE,
+                        Difficulty.NORMAL, Arrays.asList("Dana", "Acil")).get();
+                boolean won = session.submit(controller -> {
+                    for (int turn = 0; turn < 300 && controller.isGameRunning(); turn++) {
+                        controller.executeBotTurn(new controller.SimpleBot(), 50);
+                    }
+                    return controller.getGame().checkVictoryConditions() != null;
+                }).get();
+                finished += won ? 1 : 0;
+            }
+        } finally {
+            System.setOut(console);
+        }
+        for (int wait = 0; wait < 100 && finished > 0 && (profiles.get("Dana") == null
+                || profiles.get("Dana").getGamesPlayed() < finished); wait++) {
+            Thread.sleep(20);
+        }
+        stats.PlayerProfile dana = profiles.get("Dana");
+        stats.PlayerProfile acil = profiles.get("Acil");
+        assert finished > 0 : "Bots should finish some games";
+        assert dana.getGamesPlayed() == finished && acil.getGamesPlayed() == finished : "Every finished game should count";
+        assert dana.getWins() + acil.getWins() >= finished : "Every finished game has a winner";
+        assert Math.abs(dana.getRating() + acil.getRating() - 2 * stats.PlayerProfile.INITIAL_RATING) < 1e-6
+                : "Ratings should only move between the players";
+        System.out.println("  ✓ " + dana);
+        System.out.println("  ✓ " + acil);
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            server.shutdown();
+        } finally {
+            System.setOut(console);
+        }
+        System.out.println("✅ Player profiles working!\n");
+    }
+
+    private static void checkProfiles(stats.ProfileStore store, int[] games, int[] wins, long[] ects,
+                                      int[] trios) throws java.io.IOException {
+        double ratings = 0;
+        for (int player = 0; player < games.length; player++) {
+            stats.PlayerProfile profile = store.get("player" + player);
+            assert profile.getGamesPlayed() == games[player] : "Games of player" + player;
+            assert profile.getWins() == wins[player] : "Wins of player" + player;
+            assert profile.getTotalEcts() == ects[player] : "ECTS of player" + player;
+            assert profile.getTotalTrios() == trios[player] : "Trios of player" + player;
+            ratings += profile.getRating();
+        }
+        assert Math.abs(ratings - games.length * stats.PlayerProfile.INITIAL_RATING) < 1e-6
+                : "Ratings should only move between players";
+    }
+
+    private static void testLiveStats() throws Exception {
+        System.out.println("📊 Testing live statistics...");
+        java.io.PrintStream console = System.out;
+        java.util.Random random = new java.util.Random(49);
+
+        // Counters match the finished games, whatever the mode
+        stats.LiveStats live = new stats.LiveStats();
+        long[] trios = new long[13];
+        long[] branches = new long[Branch.values().length];
+        long pfeTrios = 0;
+        long[] finished = new long[GameMode.values().length];
+        long[] judged = new long[2]; // Moves, valid ones
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            for (int g = 0; g < 2000; g++) {
+                controller.GameController game = new controller.GameController();
+                stats.LiveStats.GameTracker tracker = live.track(null);
+                game.setEventListener(event -> {
+                    if (event.getType() == model.GameEvent.Type.REVEALED) {
+                        judged[0]++; // Every move, valid or not
+                    } else if (event.getType() == model.GameEvent.Type.TRIO_FORMED) {
+                        judged[1]++;
+                    }
+                    tracker.onEvent(event);
+                });
+                int players = 2 + g % 5;
+                GameMode mode = GameMode.values()[g % 4];
+                if (mode.isTeamMode() && players % 2 != 0) {
+                    players++;
+                }
+                game.initializeGame(players, mode, Difficulty.NORMAL,
+                        Arrays.asList("P0", "P1", "P2", "P3", "P4", "P5").subList(0, players), random.nextLong());
+                game.startGame();
+                for (int turn = 0; turn < 200 && game.isGameRunning(); turn++) {
+                    if (random.nextInt(4) == 0) {
+                        game.executeBotTurn(new controller.SimpleBot(), 50);
+                        continue;
+                    }
+                    int handSize = game.getCurrentPlayer().getHand().getSize();
+                    int hallSize = game.getGame().getLectureHall().getCardCount();
+                    game.executeTurn(new int[]{random.nextInt(handSize), random.nextInt(handSize),
+                            random.nextInt(Math.max(1, hallSize))});
+                }
+                if (game.getGame().checkVictoryConditions() != null) {
+                    finished[mode.ordinal()]++;
+                }
+                for (model.Student student : game.getGame().getStudents()) {
+                    for (model.Trio trio : student.getCompletedTrios()) {
+                        trios[trio.getCard1().getId()]++;
+                        branches[trio.getBranch().ordinal()]++;
+                        pfeTrios += trio.isPFETrio() ? 1 : 0;
+                    }
+                }
+            }
+        } finally {
+            System.setOut(console);
+        }
+        stats.LiveStats.Snapshot snapshot = live.snapshot();
+        System.out.println("  ✓ " + snapshot);
+        long chained = 0;
+        for (int id = 1; id <= 12; id++) {
+            assert snapshot.getTrios(id) == trios[id] : "Trios of course " + id;
+        }
+        for (Branch branch : Branch.values()) {
+            assert snapshot.getTrios(branch) == branches[branch.ordinal()] : "Trios of " + branch;
+        }
+        for (GameMode mode : GameMode.values()) {
+            assert snapshot.getGamesFinished(mode) == finished[mode.ordinal()] : "Games finished in " + mode;
+        }
+        for (int length = 1; length <= stats.LiveStats.MAX_CHAIN; length++) {
+            chained += length * snapshot.getChains(length);
+        }
+        assert snapshot.getPfeTrios() == pfeTrios && pfeTrios == trios[1] + trios[7] : "PFE trios follow Card.isPFE";
+        assert snapshot.getMoves() == judged[0] && snapshot.getInvalidAttempts() == judged[0] - judged[1] : "Moves and invalid attempts";
+        assert snapshot.getChains(stats.LiveStats.MAX_CHAIN) > 0 || chained == snapshot.getTotalTrios()
+                : "Every trio belongs to one chain";
+        System.out.println("  ✓ Counts per course, branch and mode match " + snapshot.getTotalGamesFinished()
+                + " finished games; chains of 1/2/3: " + snapshot.getChains(1) + "/" + snapshot.getChains(2)
+                + "/" + snapshot.getChains(3));
+
+        // A server counts the moves of all its sessions
+        GameServer server = new GameServer(2);
+        int won = 0;
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            for (int g = 0; g < 20; g++) {
+                GameSession session = server.getSessionManager().createSession(2, GameMode.INDIVIDUAL_SIMPLE,
+                        Difficulty.NORMAL, Arrays.asList("Dana", "Acil")).get();
+                won += session.submit(controller -> {
+                    for (int turn = 0; turn < 300 && controller.isGameRunning(); turn++) {
+                        controller.executeBotTurn(new controller.SimpleBot(), 50);
+                    }
+                    return controller.getGame().checkVictoryConditions() != null ? 1 : 0;
+                }).get();
+            }
+            server.shutdown();
+        } finally {
+            System.setOut(console);
+        }
+        stats.LiveStats.Snapshot served = server.getLiveStats().snapshot();
+        assert served.getGamesFinished(GameMode.INDIVIDUAL_SIMPLE) == won : "Server should count its finished games";
+        assert served.getMoves() >= served.getTotalTrios() && served.getTotalTrios() > 0 : "Server should count trios";
+        System.out.println("  ✓ Server: " + served);
+
+        // Hibernating between moves loses no chain and no finished game
+        GameServer sleepy = new GameServer(2);
+        SessionGovernor governor = new SessionGovernor(sleepy.getSessionManager(), new OffHeapHibernationStore(), 1, 0);
+        int sleepyWon = 0;
+        int naps = 0;
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            GameSession keeper = sleepy.getSessionManager().createSession(2, GameMode.INDIVIDUAL_SIMPLE,
+                    Difficulty.NORMAL, Arrays.asList("Sam", "Lou")).get();
+            for (int g = 0; g < 10; g++) {
+                GameSession session = sleepy.getSessionManager().createSession(2, GameMode.INDIVIDUAL_SIMPLE,
+                        Difficulty.NORMAL, Arrays.asList("Dana", "Acil")).get();
+                for (int turn = 0; turn < 300 && session.getSnapshot().getState() != GameState.GAME_OVER; turn++) {
+                    session.submit(controller -> controller.executeBotTurn(new controller.SimpleBot(), 50)).get();
+                    Thread.sleep(2);
+                    keeper.submit(controller -> null).get(); // Most recently used: the game is the one to go
+                    governor.enforce();
+                    long deadline = System.currentTimeMillis() + 5000;
+                    while (!session.isHibernated() && System.currentTimeMillis() < deadline) {
+                        Thread.sleep(1);
+                    }
+                    naps++;
+                }
+                sleepyWon += session.submit(controller ->
+                        controller.getGame().checkVictoryConditions() != null ? 1 : 0).get();
+            }
+            sleepy.shutdown();
+        } finally {
+            System.setOut(console);
+        }
+        stats.LiveStats.Snapshot rested = sleepy.getLiveStats().snapshot();
+        long restedChained = 0;
+        for (int length = 1; length <= stats.LiveStats.MAX_CHAIN; length++) {
+            restedChained += length * rested.getChains(length);
+        }
+        assert rested.getTotalTrios() > 0 : "Hibernated games should form trios";
+        assert restedChained == rested.getTotalTrios() : "Chains cut by hibernation: " + restedChained + "/" + rested.getTotalTrios();
+        assert rested.getGamesFinished(GameMode.INDIVIDUAL_SIMPLE) == sleepyWon : "Games won after waking should count";
+        System.out.println("  ✓ " + naps + " hibernations: " + rested);
+
+        // Cost per move with every thread adding at once
+        int threads = 4;
+        int movesPerThread = 20_000_000;
+        stats.LiveStats shared = new stats.LiveStats();
+        model.GameEvent[][] moves = {
+                {new model.GameEvent.Revealed(0, new int[]{0, 0, -1}, new int[]{3, 4, 3}), new model.GameEvent.TurnAdvanced(1, 1)},
+                {new model.GameEvent.Revealed(0, new int[]{0, 0, -1}, new int[]{9, 9, 9}),
+                        new model.GameEvent.TrioFormed(0, new int[]{0, 0, -1}, new int[]{9, 9, 9}, 2)},
+                {new model.GameEvent.Revealed(1, new int[]{1, 1, -1}, new int[]{2, 2, 2}),
+                        new model.GameEvent.TrioFormed(1, new int[]{1, 1, -1}, new int[]{2, 2, 2}, 2), new model.GameEvent.TurnAdvanced(0, 1)},
+        };
+        double[] nanosPerMove = new double[threads];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            Thread worker = new Thread(() -> {
+                stats.LiveStats.GameTracker tracker = shared.track(GameMode.INDIVIDUAL_SIMPLE);
+                java.lang.management.ThreadMXBean cpu = java.lang.management.ManagementFactory.getThreadMXBean();
+                for (int round = 0; round < 2; round++) { // The first round warms up
+                    long start = cpu.getCurrentThreadCpuTime(); // CPU time: threads may outnumber cores
+                    for (int move = 0; move < movesPerThread; move++) {
+                        for (model.GameEvent event : moves[move % 3]) {
+                            tracker.onEvent(event);
+                        }
+                    }
+                    nanosPerMove[index] = (cpu.getCurrentThreadCpuTime() - start) / (double) movesPerThread;
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double worst = Arrays.stream(nanosPerMove).max().getAsDouble();
+        long start = System.nanoTime();
+        stats.LiveStats.Snapshot read = shared.snapshot();
+        double readMicros = (System.nanoTime() - start) / 1e3;
+        System.out.printf("  ✓ %d threads: %.1f ns per move (worst thread), snapshot read in %.1f µs%n",
+                threads, worst, readMicros);
+        assert read.getMoves() == 2L * threads * movesPerThread : "No increment should be lost";
+        assert worst < 50 : "A move should cost under 50 ns";
+        System.out.println("✅ Live statistics working!\n");
+    }
+
+    private static void testMetrics() throws Exception {
+        System.out.println("⏱️  Testing latency histograms...");
+        java.io.PrintStream console = System.out;
+        java.nio.file.Path directory = java.nio.file.Files.createTempDirectory("trio-metrics");
+
+        // Threads record while intervals are taken and logged: nothing lost or counted twice
+        stats.LatencyRecorder recorder = new stats.LatencyRecorder("test-us", 60_000_000, 3);
+        java.nio.file.Path logFile = directory.resolve("intervals.hlog");
+        stats.HistogramLogWriter log = new stats.HistogramLogWriter(logFile);
+        int threads = 4;
+        int perThread = 250_000;
+        java.util.concurrent.atomic.AtomicInteger running = new java.util.concurrent.atomic.AtomicInteger(threads);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread writer = new Thread(() -> {
+                for (int value = 1; value <= perThread; value++) {
+                    recorder.recordValue(value);
+                }
+                running.decrementAndGet();
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        int intervals = 0;
+        while (running.get() > 0) {
+            log.writeInterval(recorder);
+            intervals++;
+            Thread.sleep(1);
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        log.writeInterval(recorder);
+        log.close();
+        stats.Histogram logged = new stats.Histogram(60_000_000, 3);
+        int read = stats.HistogramLogWriter.read(logFile, (tag, start, length, histogram) -> {
+            assert tag.equals("test-us") : "Tag should survive the log";
+            logged.add(histogram);
+        });
+        stats.Histogram total = recorder.getTotal();
+        assert read == intervals + 1 : "Every interval should be logged";
+        assert total.getTotalCount() == (long) threads * perThread : "No value should be lost: " + total.getTotalCount();
+        assert logged.getTotalCount() == total.getTotalCount() : "Intervals should add up to the total";
+        assert Math.abs(logged.getValueAtPercentile(50) - perThread / 2) <= perThread / 2000
+                && logged.getMax() == perThread : "Logged percentiles should be exact to 3 digits";
+        assert recorder.getThreadCount() == 0 : "Ended threads' histograms should be dropped once read";
+        System.out.println("  ✓ " + total.getTotalCount() + " values from " + threads + " threads in " + read
+                + " logged intervals: " + logged);
+
+        // Recording allocates nothing once a thread has its histogram
+        com.sun.management.ThreadMXBean memory =
+                (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 100_000; i++) {
+            recorder.recordValue(i);
+        }
+        long allocated = memory.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < 1_000_000; i++) {
+            recorder.recordValue(i & 0xFFFFF);
+        }
+        double nanos = (System.nanoTime() - start) / 1e6;
+        allocated = memory.getCurrentThreadAllocatedBytes() - allocated;
+        System.out.printf("  ✓ %.1f ns per value, %d bytes allocated for 1M values%n", nanos, allocated);
+        assert allocated < 1024 : "Recording should not allocate";
+
+        // A server times its turns and games and logs them by interval
+        GameServer server = new GameServer(2);
+        java.nio.file.Path serverLog = directory.resolve("server.hlog");
+        server.startMetricsLog(serverLog, 50);
+        int won = 0;
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            for (int g = 0; g < 20; g++) {
+                GameSession session = server.getSessionManager().createSession(2, GameMode.INDIVIDUAL_SIMPLE,
+                        Difficulty.NORMAL, Arrays.asList("Dana", "Acil")).get();
+                won += session.submit(controller -> {
+                    for (int turn = 0; turn < 300 && controller.isGameRunning(); turn++) {
+                        controller.executeBotTurn(new controller.SimpleBot(), 50);
+                    }
+                    return controller.getGame().checkVictoryConditions() != null ? 1 : 0;
+                }).get();
+            }
+            Thread.sleep(120);
+            server.shutdown();
+        } finally {
+            System.setOut(console);
+        }
+        // A game saved and restored before every move is still measured as a whole
+        stats.GameMetrics resumed = new stats.GameMetrics();
+        int restores = 0;
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            controller.GameController game = new controller.GameController();
+            game.initializeGame(2, GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL, Arrays.asList("Dana", "Acil"), 13L);
+            game.startGame();
+            for (int turn = 0; turn < 300 && game.isGameRunning(); turn++) {
+                if (turn > 0) {
+                    game = controller.GameCheckpoint.decode(controller.GameCheckpoint.encode(game));
+                    restores++;
+                }
+                game.setMetrics(resumed);
+                game.executeBotTurn(new controller.SimpleBot(), 50);
+            }
+            assert !game.isGameRunning() && restores > 0 : "The resumed game should end";
+        } finally {
+            System.setOut(console);
+        }
+        long resumedMoves = resumed.getTurnNanos().getTotal().getTotalCount();
+        assert resumed.getTurnsPerGame().getTotal().getTotalCount() == 1
+                && resumed.getTurnsPerGame().getTotal().getMax() == resumedMoves
+                : "The game's moves should be counted across restores";
+        assert resumed.getMoveIntervalMillis().getTotal().getTotalCount() == resumedMoves - restores
+                : "The wait before the first move after a restore is unknown";
+        System.out.println("  ✓ Game of " + resumedMoves + " moves measured across " + restores + " restores");
+
+        stats.GameMetrics metrics = server.getMetrics();
+        long moves = server.getLiveStats().snapshot().getMoves();
+        assert metrics.getTurnNanos().getTotal().getTotalCount() == moves : "Every move should be timed: " + metrics.getTurnNanos().getTotal().getTotalCount() + " vs " + moves;
+        assert metrics.getMoveIntervalMillis().getTotal().getTotalCount() == moves : "Every move follows another or the start";
+        assert metrics.getTurnsPerGame().getTotal().getTotalCount() == won
+                && metrics.getGameMillis().getTotal().getTotalCount() == won : "Every finished game should be measured";
+        for (String line : metrics.getSummary().split("\n")) {
+            System.out.println("  ✓ " + line);
+        }
+        java.util.Map<String, Long> counts = new java.util.HashMap<>();
+        stats.HistogramLogWriter.read(serverLog, (tag, begin, length, histogram) ->
+                counts.merge(tag, histogram.getTotalCount(), Long::sum));
+        assert counts.size() == 4 && counts.get("turn-ns") == moves && counts.get("game-ms") == won
+                : "The server log should hold every interval: " + counts;
+        System.out.println("  ✓ Server interval log adds up: " + counts);
+        System.out.println("✅ Latency histograms working!\n");
+    }
+
+    private static void testSharding() throws Exception {
+        System.out.println("🧩 Testing sharded cluster...");
+
+        // Virtual nodes spread sessions evenly, and a new shard only takes its share
+        List<ShardAddress> three = Arrays.asList(new ShardAddress("a", "127.0.0.1", 1),
+                new ShardAddress("b", "127.0.0.1", 2), new ShardAddress("c", "127.0.0.1", 3));
+        List<ShardAddress> four = new ArrayList<>(three);
+        four.add(new ShardAddress("d", "127.0.0.1", 4));
+        HashRing before = new HashRing(three, HashRing.DEFAULT_VIRTUAL_NODES);
+        HashRing after = HashRing.parse(new HashRing(four, HashRing.DEFAULT_VIRTUAL_NODES).toSpec(),
+                HashRing.DEFAULT_VIRTUAL_NODES);
+        int keys = 30_000;
+        int[] load = new int[3];
+        int moved = 0;
+        for (int i = 0; i < keys; i++) {
+            String key = Long.toString(i * 7919L, 36);
+            ShardAddress owner = before.ownerOf(key);
+            load[three.indexOf(owner)]++;
+            if (!after.ownerOf(key).equals(owner)) {
+                assert after.ownerOf(key).getId().equals("d") : "Keys should only move to the new shard";
+                moved++;
+            }
+        }
+        for (int count : load) {
+            assert Math.abs(count - keys / 3) < keys / 3 * 0.2 : "Load should be within 20% of even: " + Arrays.toString(load);
+        }
+        assert moved > keys / 4 * 0.7 && moved < keys / 4 * 1.3 : "About a quarter should move: " + moved;
+        System.out.println("  ✓ Ring load " + Arrays.toString(load) + ", " + moved + "/" + keys + " moved to a 4th shard");
+
+        // Real shard processes behind a router, over loopback
+        try (ClusterLauncher cluster = new ClusterLauncher()) {
+            cluster.startShard("a");
+            cluster.startShard("b");
+            cluster.rebalance();
+            ShardRouter router = cluster.startRouter(0);
+
+            List<String> sessionIds = new ArrayList<>();
+            List<TrioClient> clients = new ArrayList<>();
+            List<RemoteTable> tables = new ArrayList<>();
+            try {
+                for (int i = 0; i < 24; i++) {
+                    TrioClient client = new TrioClient("127.0.0.1", router.getPort());
+                    clients.add(client);
+                    String sessionId = client.createGame(GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL,
+                            Arrays.asList("Dana", "Acil"));
+                    RemoteTable table = new RemoteTable();
+                    table.applyState(client.join(sessionId, "").getPayload());
+                    sessionIds.add(sessionId);
+                    tables.add(table);
+                }
+                System.out.println("  ✓ 24 games created and joined through the router on 2 shards");
+
+                cluster.startShard("c");
+                int migrated = cluster.rebalance();
+                int expected = 0;
+                for (String sessionId : sessionIds) {
+                    if (cluster.getRing().ownerOf(sessionId).getId().equals("c")) {
+                        expected++;
+                    }
+                }
+                assert migrated == expected && expected > 0 : "Sessions now owned by c should move: " + migrated + "/" + expected;
+                System.out.println("  ✓ Scale-out to 3 shards migrated " + migrated + " sessions");
+
+                for (int i = 0; i < sessionIds.size(); i++) {
+                    if (!cluster.getRing().ownerOf(sessionIds.get(i)).getId().equals("c")) {
+                        continue;
+                    }
+                    TrioClient client = clients.get(i);
+                    TrioClient.Frame frame = client.expect(Protocol.MOVED);
+                    assert Protocol.readString(frame.getPayload()).equals(sessionIds.get(i)) : "MOVED should name the session";
+
+                    // Joining again, as the player whose turn it is, lands on the new owner with the game intact
+                    RemoteTable seen = tables.get(i);
+                    RemoteTable table = new RemoteTable();
+                    table.applyState(client.join(sessionIds.get(i),
+                            seen.getPlayers().get(seen.getCurrentPlayerIndex()).getName()).getPayload());
+                    assert table.getLectureHall().equals(seen.getLectureHall()) : "Hall should survive migration";
+                    assert table.getCurrentPlayerIndex() == seen.getCurrentPlayerIndex() : "Turn should survive migration";
+                    client.sendMove(pickMove(table));
+                    client.expect(Protocol.RESULT);
+                }
+                System.out.println("  ✓ Moved clients rejoined and played on the new shard");
+            } finally {
+                for (TrioClient client : clients) {
+                    client.close();
+                }
+            }
+        }
+        System.out.println("✅ Sharded cluster working!\n");
+    }
+
+    private static void testLoadGenerator() throws Exception {
+        System.out.println("📈 Testing load generator...");
+
+        // Histogram keeps 3 significant digits over the whole range
+        stats.Histogram histogram = new stats.Histogram(60_000_000, 3);
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.recordValue(value);
+        }
+        assert histogram.getTotalCount() == 100_000 : "Every value should be counted";
+        long p50 = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+        assert Math.abs(p50 - 50_000) <= 50 && Math.abs(p99 - 99_000) <= 99 : "Percentiles off: " + p50 + ", " + p99;
+        assert histogram.getMax() == 100_000 && histogram.getMin() == 1 : "Min and max should be exact";
+        stats.Histogram merged = new stats.Histogram(60_000_000, 3);
+        merged.recordValue(59_000_000);
+        merged.add(histogram);
+        assert merged.getTotalCount() == 100_001 && merged.getValueAtPercentile(100) == 59_000_000
+                : "Merged histogram should hold both";
+        System.out.println("  ✓ Histogram: " + histogram);
+
+        GameServer gameServer = new GameServer(2);
+        TrioNioServer server = new TrioNioServer(gameServer, 0);
+        server.setHotseat(true);
+        server.start();
+        LoadGenerator generator = new LoadGenerator(new java.net.InetSocketAddress("127.0.0.1", server.getPort()),
+                200, 400, 20, LoadGenerator.parseMix("INDIVIDUAL_SIMPLE:3,TEAM_SIMPLE:1"));
+        // Games on the server play silently: nothing reaches stdout
+        java.io.PrintStream console = System.out;
+        java.io.ByteArrayOutputStream printed = new java.io.ByteArrayOutputStream();
+        System.setOut(new java.io.PrintStream(printed, true, "UTF-8"));
+        LoadGenerator.Report report;
+        try {
+            report = generator.run(2000);
+        } finally {
+            System.setOut(console);
+        }
+        assert printed.size() == 0 : "Server games should not print: " + printed.toString("UTF-8");
+        System.out.println("  ✓ Server games printed nothing");
+
+        // Finished games are closed; the server must stop broadcasting them
+        assert server.getFanoutCount() > 0 : "Played sessions should have been broadcast";
+        for (GameSession session : new ArrayList<>(gameServer.getSessionManager().getSessions())) {
+            gameServer.getSessionManager().closeSession(session.getSessionId());
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.getFanoutCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assert server.getFanoutCount() == 0 : "Closed sessions should be dropped: " + server.getFanoutCount();
+        System.out.println("  ✓ Closed sessions no longer broadcast");
+        server.stop();
+        gameServer.shutdown();
+
+        assert report.getClients() == 200 : "All clients should have arrived";
+        assert report.getErrors() == 0 : "No client should fail: " + report.getErrors();
+        assert report.getGames() > 0 && report.getMoves() >= report.getGames() : "Games should be played to the end";
+        assert report.getGamesByMode().size() == 2 : "Both modes of the mix should be played";
+        assert report.getMoveLatencyMicros().getTotalCount() == report.getMoves() : "Every move should be timed";
+        System.out.println("  ✓ " + report.getClients() + " clients, " + report.getGames() + " games, "
+                + report.getMoves() + " moves, p99 " + report.getMoveLatencyMicros().getValueAtPercentile(99) + " µs");
+        System.out.println("✅ Load generator working!\n");
+    }
+
+    /**
+     * Two matching cards from the current hand plus a match in the hall if possible
+     */
+    private static int[][] pickMove(RemoteTable table) {
+        List<Integer> hand = table.getPlayers().get(table.getCurrentPlayerIndex()).getHand();
+        for (int i = 0; i + 1 < hand.size(); i++) {
+            if (hand.get(i).equals(hand.get(i + 1))) {
+                int hallIndex = table.getLectureHall().indexOf(hand.get(i));
+                if (hallIndex >= 0) {
+                    return new int[][]{{Protocol.SOURCE_HAND, 0, i}, {Protocol.SOURCE_HAND, 0, i + 1},
+                            {Protocol.SOURCE_HALL, 0, hallIndex}};
+                }
+            }
+        }
+        return new int[][]{{Protocol.SOURCE_HAND, 0, 0}, {Protocol.SOURCE_HAND, 0, 1}, {Protocol.SOURCE_HALL, 0, 0}};
+    }
+
+    private static List<Integer> visible(List<model.Card> hand) {
+        List<Integer> ids = ids(hand);
+        for (int i = 1; i < ids.size() - 1; i++) {
+            ids.set(i, Protocol.HIDDEN_CARD);
+        }
+        return ids;
+    }
+
+    private static List<Integer> ids(List<model.Card> cards) {
+        List<Integer> ids = new ArrayList<>();
+        for (model.Card card : cards) {
+            ids.add(card.getId());
+        }
+        return ids;
+    }
+}
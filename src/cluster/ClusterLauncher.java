@@ -0,0 +1,192 @@
+package cluster;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a sharded cluster on one machine: each shard is its own JVM
+ * process (see {@link ShardNode#main}), and a ShardRouter in this
+ * process forwards clients to them over loopback.
+ *
+ * Adding a shard is two steps: {@link #startShard} launches the process,
+ * {@link #rebalance} hands the new ring to every shard, waits for their
+ * migrations, and only then lets the router use it.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class ClusterLauncher implements Closeable {
+    private static final long REPLY_TIMEOUT_SECONDS = 30;
+
+    /**
+     * A running shard process
+     */
+    private static class ShardProcess {
+        final Process process;
+        final PrintWriter commands;
+        final BlockingQueue<String> replies;
+        ShardAddress address;
+
+        ShardProcess(Process process) {
+            this.process = process;
+            this.commands = new PrintWriter(process.getOutputStream(), true);
+            this.replies = new LinkedBlockingQueue<>();
+        }
+    }
+
+    private final List<ShardProcess> shards;
+    private ShardRouter router;
+    private HashRing ring;
+
+    public ClusterLauncher() {
+        this.shards = new ArrayList<>();
+    }
+
+    /**
+     * Launch a shard process; it serves nothing until the next rebalance
+     * @param shardId Shard name on the ring
+     * @return Its address
+     * @throws IOException if the process cannot start
+     */
+    public synchronized ShardAddress startShard(String shardId) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ShardNode.class.getName(), shardId, "0");
+        builder.redirectErrorStream(true);
+        ShardProcess shard = new ShardProcess(builder.start());
+
+        // Drain the child's output; control lines are answers, the rest is its log
+        Thread reader = new Thread(() -> {
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(shard.process.getInputStream()))) {
+                String line;
+                while ((line = out.readLine()) != null) {
+                    if (line.startsWith(ShardNode.CONTROL_PREFIX)) {
+                        shard.replies.offer(line.substring(ShardNode.CONTROL_PREFIX.length()));
+                    }
+                }
+            } catch (IOException e) {
+                // Process ended
+            }
+        }, "shard-" + shardId + "-output");
+        reader.setDaemon(true);
+        reader.start();
+
+        String ready = awaitReply(shard, "ready ");
+        shard.address = new ShardAddress(shardId, "127.0.0.1", Integer.parseInt(ready));
+        shards.add(shard);
+        return shard.address;
+    }
+
+    /**
+     * Push a ring of all started shards to each of them, then to the router
+     * @return Number of sessions that changed shard
+     * @throws IOException if a shard does not answer
+     */
+    public synchronized int rebalance() throws IOException {
+        List<ShardAddress> addresses = new ArrayList<>();
+        for (ShardProcess shard : shards) {
+            addresses.add(shard.address);
+        }
+        ring = new HashRing(addresses, HashRing.DEFAULT_VIRTUAL_NODES);
+
+        int migrated = 0;
+        for (ShardProcess shard : shards) {
+            shard.commands.println("ring " + ring.toSpec());
+            migrated += Integer.parseInt(awaitReply(shard, "migrated "));
+        }
+        if (router != null) {
+            router.updateRing(ring);
+        }
+        return migrated;
+    }
+
+    /**
+     * Start the router in this process (after the first rebalance)
+     * @param port TCP port (0 picks a free port)
+     * @return The started router
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized ShardRouter startRouter(int port) throws IOException {
+        if (ring == null) {
+            throw new IllegalStateException("Start shards and rebalance first");
+        }
+        router = new ShardRouter(port, ring);
+        router.start();
+        return router;
+    }
+
+    public synchronized HashRing getRing() {
+        return ring;
+    }
+
+    private String awaitReply(ShardProcess shard, String prefix) throws IOException {
+        try {
+            String reply = shard.replies.poll(REPLY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (reply == null || !reply.startsWith(prefix)) {
+                throw new IOException("Shard did not answer '" + prefix.trim() + "': " + reply);
+            }
+            return reply.substring(prefix.length()).trim();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for a shard", e);
+        }
+    }
+
+    /**
+     * Stop the router and every shard process
+     */
+    @Override
+    public synchronized void close() {
+        if (router != null) {
+            router.stop();
+        }
+        for (ShardProcess shard : shards) {
+            shard.commands.println("stop");
+        }
+        for (ShardProcess shard : shards) {
+            try {
+                if (!shard.process.waitFor(5, TimeUnit.SECONDS)) {
+                    shard.process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                shard.process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+        shards.clear();
+    }
+
+    /**
+     * Run a cluster until standard input closes; "add id" adds a shard
+     * @param args shardCount [routerPort]
+     */
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 5555;
+        try (ClusterLauncher cluster = new ClusterLauncher()) {
+            for (int i = 0; i < count; i++) {
+                System.out.println("Started " + cluster.startShard("shard" + i));
+            }
+            cluster.rebalance();
+            System.out.println("Router listening on port " + cluster.startRouter(port).getPort());
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("add ")) {
+                    System.out.println("Started " + cluster.startShard(line.substring(4).trim()));
+                    System.out.println("Migrated " + cluster.rebalance() + " sessions");
+                }
+            }
+        }
+    }
+}
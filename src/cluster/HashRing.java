@@ -0,0 +1,138 @@
+package cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable consistent-hash ring mapping session IDs to shards.
+ *
+ * Every shard is placed at many points (virtual nodes) so load stays
+ * even with few shards, and adding a shard only moves the sessions that
+ * now fall on its points, about 1/N of them. Points are kept in sorted
+ * arrays; a lookup is one hash and one binary search.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public final class HashRing {
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final List<ShardAddress> shards;
+    private final int virtualNodes;
+    private final long[] points;
+    private final ShardAddress[] owners;
+
+    /**
+     * Constructor for HashRing
+     * @param shards Shards on the ring (at least one)
+     * @param virtualNodes Points per shard
+     */
+    public HashRing(List<ShardAddress> shards, int virtualNodes) {
+        if (shards.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A ring needs at least one shard and one point per shard");
+        }
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.virtualNodes = virtualNodes;
+
+        int count = shards.size() * virtualNodes;
+        long[] hashes = new long[count];
+        int[] order = new int[count];
+        for (int s = 0; s < shards.size(); s++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                hashes[s * virtualNodes + v] = hash(shards.get(s).getId() + "#" + v);
+            }
+        }
+
+        // Sort the points, carrying each one's shard along
+        Integer[] indices = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        this.points = new long[count];
+        this.owners = new ShardAddress[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = indices[i];
+            points[i] = hashes[order[i]];
+            owners[i] = shards.get(order[i] / virtualNodes);
+        }
+    }
+
+    /**
+     * Parse a ring specification "id@host:port,id@host:port,..."
+     * @param spec The specification
+     * @param virtualNodes Points per shard
+     * @return The ring
+     */
+    public static HashRing parse(String spec, int virtualNodes) {
+        List<ShardAddress> shards = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            if (!part.trim().isEmpty()) {
+                shards.add(ShardAddress.parse(part.trim()));
+            }
+        }
+        return new HashRing(shards, virtualNodes);
+    }
+
+    /**
+     * Find the shard owning a key: the first point at or after the key's hash
+     * @param key Session ID
+     * @return Owning shard
+     */
+    public ShardAddress ownerOf(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public List<ShardAddress> getShards() {
+        return shards;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    /**
+     * Write the ring as "id@host:port,..."
+     * @return Specification accepted by {@link #parse}
+     */
+    public String toSpec() {
+        StringBuilder spec = new StringBuilder();
+        for (ShardAddress shard : shards) {
+            if (spec.length() > 0) {
+                spec.append(',');
+            }
+            spec.append(shard);
+        }
+        return spec.toString();
+    }
+
+    /**
+     * 64-bit FNV-1a followed by the MurmurHash3 finalizer, which spreads
+     * short, similar keys ("a#1", "a#2") evenly over the ring
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "HashRing[" + toSpec() + ", " + virtualNodes + " points each]";
+    }
+}
@@ -0,0 +1,76 @@
+package cluster;
+
+import java.util.Objects;
+
+/**
+ * Identity and TCP address of one server process in a cluster.
+ * Written as "id@host:port" in ring specifications.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public final class ShardAddress {
+    private final String id;
+    private final String host;
+    private final int port;
+
+    /**
+     * Constructor for ShardAddress
+     * @param id Stable shard name; placement on the ring depends only on it
+     * @param host Host the shard listens on
+     * @param port TCP port of the shard's game server
+     */
+    public ShardAddress(String id, String host, int port) {
+        if (id == null || id.isEmpty() || id.contains("@") || id.contains(",")) {
+            throw new IllegalArgumentException("Invalid shard id: " + id);
+        }
+        this.id = id;
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Parse "id@host:port"
+     * @param text The address
+     * @return The shard address
+     */
+    public static ShardAddress parse(String text) {
+        int at = text.indexOf('@');
+        int colon = text.lastIndexOf(':');
+        if (at <= 0 || colon < at) {
+            throw new IllegalArgumentException("Expected id@host:port, got " + text);
+        }
+        return new ShardAddress(text.substring(0, at), text.substring(at + 1, colon),
+                Integer.parseInt(text.substring(colon + 1)));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        ShardAddress other = (ShardAddress) obj;
+        return port == other.port && id.equals(other.id) && host.equals(other.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, host, port);
+    }
+
+    @Override
+    public String toString() {
+        return id + "@" + host + ":" + port;
+    }
+}
@@ -0,0 +1,179 @@
+package cluster;
+
+import network.MessageWriter;
+import network.Protocol;
+import network.TrioClient;
+import network.TrioNioServer;
+import server.GameServer;
+import server.GameSession;
+import server.SessionManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One server process of a sharded cluster: a GameServer and its
+ * TrioNioServer, holding only the sessions the hash ring assigns to it.
+ *
+ * New session IDs are drawn so that they hash to this shard. When the
+ * ring changes, every session now owned by another shard is frozen,
+ * sent there over the ordinary protocol (MIGRATE) and, once adopted,
+ * dropped here; its clients get MOVED and join again through the router.
+ *
+ * Run as a process: java cluster.ShardNode shardId [port]. It prints
+ * "@shard ready port" and then follows commands on standard input:
+ * "ring spec" (answered by "@shard migrated n") and "stop".
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class ShardNode {
+    /** Prefix of the lines the process prints for its launcher */
+    public static final String CONTROL_PREFIX = "@shard ";
+
+    private static final long MIGRATION_TIMEOUT_MILLIS = 5000;
+
+    private final String shardId;
+    private final String host;
+    private final GameServer gameServer;
+    private final TrioNioServer server;
+    private volatile HashRing ring;
+
+    /**
+     * Constructor for ShardNode; starts serving at once and owns every
+     * session until it is given a ring
+     * @param shardId Shard name on the ring
+     * @param host Host other shards and the router reach this one on
+     * @param port TCP port (0 picks a free port)
+     * @throws IOException if the port cannot be bound
+     */
+    public ShardNode(String shardId, String host, int port) throws IOException {
+        this.shardId = shardId;
+        this.host = host;
+        this.gameServer = new GameServer();
+        this.server = new TrioNioServer(gameServer, port);
+        gameServer.getSessionManager().setOwnership(this::owns);
+        server.start();
+    }
+
+    /**
+     * Get this shard's address
+     * @return Address to put on the ring
+     */
+    public ShardAddress getAddress() {
+        return new ShardAddress(shardId, host, server.getPort());
+    }
+
+    /**
+     * Tell whether a session ID belongs to this shard
+     * @param sessionId The session ID
+     * @return true if the current ring maps it here (always true without a ring)
+     */
+    public boolean owns(String sessionId) {
+        HashRing current = ring;
+        return current == null || current.ownerOf(sessionId).getId().equals(shardId);
+    }
+
+    /**
+     * Switch to a new ring and hand over the sessions it assigns elsewhere
+     * @param newRing The new ring
+     * @return Number of sessions migrated
+     */
+    public synchronized int updateRing(HashRing newRing) {
+        this.ring = newRing;
+        int migrated = 0;
+        for (GameSession session : gameServer.getSessionManager().getSessions()) {
+            ShardAddress owner = newRing.ownerOf(session.getSessionId());
+            if (!owner.getId().equals(shardId) && migrate(session.getSessionId(), owner)) {
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+
+    /**
+     * Move one session to its new owner; on failure it is loaded back here
+     * @return true if the owner adopted it
+     */
+    private boolean migrate(String sessionId, ShardAddress owner) {
+        SessionManager sessions = gameServer.getSessionManager();
+        byte[] data;
+        try {
+            data = sessions.detachSession(sessionId).get(MIGRATION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false; // Closed meanwhile: nothing to move
+        }
+
+        boolean adopted;
+        try (TrioClient client = new TrioClient(owner.getHost(), owner.getPort())) {
+            client.send(new MessageWriter(Protocol.MIGRATE).putString(sessionId).putBytes(data).toFrame());
+            client.expect(Protocol.MIGRATED);
+            adopted = true;
+        } catch (IOException e) {
+            System.err.println("Cannot migrate session " + sessionId + " to " + owner + ": " + e.getMessage());
+            adopted = false;
+        }
+
+        // Either way the detached session is done; its clients must join again
+        // (told before the release, which would drop the session without a word)
+        server.evictSession(sessionId);
+        sessions.releaseSession(sessionId);
+        if (!adopted) {
+            sessions.adoptSession(sessionId, data).join();
+        }
+        return adopted;
+    }
+
+    public GameServer getGameServer() {
+        return gameServer;
+    }
+
+    public HashRing getRing() {
+        return ring;
+    }
+
+    /**
+     * Stop serving and shut the game server down
+     */
+    public void stop() {
+        server.stop();
+        gameServer.shutdown();
+    }
+
+    /**
+     * Run a shard as a process controlled through standard input
+     * @param args shardId [port [host]]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java cluster.ShardNode shardId [port [host]]");
+            System.exit(2);
+        }
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        String host = args.length > 2 ? args[2] : "127.0.0.1";
+        ShardNode node = new ShardNode(args[0], host, port);
+        System.out.println(CONTROL_PREFIX + "ready " + node.getAddress().getPort());
+        System.out.flush();
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.startsWith("ring ")) {
+                int migrated = node.updateRing(HashRing.parse(line.substring(5), HashRing.DEFAULT_VIRTUAL_NODES));
+                System.out.println(CONTROL_PREFIX + "migrated " + migrated);
+                System.out.flush();
+            } else if (line.equals("stop")) {
+                break;
+            }
+        }
+        node.stop();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,253 @@
+package cluster;
+
+import network.Protocol;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thin front door of a sharded cluster.
+ *
+ * Clients connect here and speak the ordinary protocol. The router only
+ * looks at the type of each frame: JOIN, RESUME and SPECTATE go to the
+ * shard owning the session ID, CREATE to the next shard in turn, and
+ * everything else to the shard the client is currently attached to.
+ * Whole frames from that shard are copied back unchanged. When a client
+ * joins a session on another shard, the router switches its upstream
+ * connection; a client told MOVED simply joins again and lands on the
+ * new owner.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class ShardRouter {
+    private final ServerSocket serverSocket;
+    private final ExecutorService threads;
+    private final AtomicInteger nextShard;
+    private volatile HashRing ring;
+    private volatile boolean running;
+
+    /**
+     * Constructor for ShardRouter
+     * @param port TCP port (0 picks a free port)
+     * @param ring Initial ring
+     * @throws IOException if the port cannot be bound
+     */
+    public ShardRouter(int port, HashRing ring) throws IOException {
+        this.ring = ring;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(port), 1024);
+        this.nextShard = new AtomicInteger();
+        this.threads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "shard-router");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start accepting clients
+     */
+    public void start() {
+        running = true;
+        threads.execute(this::acceptLoop);
+    }
+
+    /**
+     * Stop accepting clients and drop the open connections
+     */
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        threads.shutdownNow();
+    }
+
+    /**
+     * Route by a new ring from now on (after the shards have migrated)
+     * @param ring The new ring
+     */
+    public void updateRing(HashRing ring) {
+        this.ring = ring;
+    }
+
+    public HashRing getRing() {
+        return ring;
+    }
+
+    /**
+     * Get the bound port
+     * @return Local port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket client = serverSocket.accept();
+                client.setTcpNoDelay(true);
+                threads.execute(() -> route(client));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Router accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Forward one client's frames for as long as it stays connected
+     */
+    private void route(Socket client) {
+        Upstream upstream = null;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+            OutputStream out = client.getOutputStream();
+            while (true) {
+                byte[] frame = readFrame(in, Protocol.MAX_FRAME_LENGTH);
+                if (frame == null) {
+                    return;
+                }
+                byte type = frame[4];
+                if (type == Protocol.MIGRATE) {
+                    write(out, Protocol.encodeError("Migrations go directly to a shard"));
+                    continue;
+                }
+
+                ShardAddress target = targetFor(type, frame, upstream);
+                if (upstream == null || !upstream.shard.equals(target)) {
+                    if (upstream != null) {
+                        upstream.close();
+                    }
+                    try {
+                        upstream = new Upstream(target, out);
+                    } catch (IOException e) {
+                        upstream = null;
+                        write(out, Protocol.encodeError("Shard " + target.getId() + " unavailable"));
+                        continue;
+                    }
+                }
+                upstream.send(frame);
+            }
+        } catch (IOException e) {
+            // Client went away
+        } finally {
+            if (upstream != null) {
+                upstream.close();
+            }
+            try {
+                client.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    private ShardAddress targetFor(byte type, byte[] frame, Upstream upstream) {
+        HashRing current = ring;
+        if (type == Protocol.JOIN || type == Protocol.SPECTATE || type == Protocol.RESUME) {
+            String sessionId = Protocol.readString(ByteBuffer.wrap(frame, 5, frame.length - 5));
+            return current.ownerOf(sessionId);
+        }
+        if (upstream != null && current.getShards().contains(upstream.shard)) {
+            return upstream.shard;
+        }
+        // CREATE before any JOIN, or the shard left the ring
+        List<ShardAddress> shards = current.getShards();
+        return shards.get(Math.floorMod(nextShard.getAndIncrement(), shards.size()));
+    }
+
+    /**
+     * Read one whole frame, length prefix included
+     * @return The frame, or null at end of stream
+     */
+    private static byte[] readFrame(DataInputStream in, int maxLength) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 1 || length > maxLength) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        byte[] frame = new byte[4 + length];
+        ByteBuffer.wrap(frame).putInt(length);
+        in.readFully(frame, 4, length);
+        return frame;
+    }
+
+    private static void write(OutputStream out, byte[] frame) throws IOException {
+        synchronized (out) {
+            out.write(frame);
+            out.flush();
+        }
+    }
+
+    /**
+     * Connection to the shard a client is attached to, with a thread
+     * copying the shard's frames back to the client
+     */
+    private class Upstream {
+        final ShardAddress shard;
+        final Socket socket;
+        final OutputStream toShard;
+
+        Upstream(ShardAddress shard, OutputStream toClient) throws IOException {
+            this.shard = shard;
+            this.socket = new Socket();
+            this.socket.connect(new InetSocketAddress(shard.getHost(), shard.getPort()), 2000);
+            this.socket.setTcpNoDelay(true);
+            this.toShard = new BufferedOutputStream(socket.getOutputStream());
+            DataInputStream fromShard = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            threads.execute(() -> pump(fromShard, toClient));
+        }
+
+        void send(byte[] frame) throws IOException {
+            toShard.write(frame);
+            toShard.flush();
+        }
+
+        /**
+         * Copy whole frames, so a switch of upstream never interleaves
+         * a partial frame with the next shard's output
+         */
+        private void pump(DataInputStream fromShard, OutputStream toClient) {
+            try {
+                byte[] frame;
+                while ((frame = readFrame(fromShard, Integer.MAX_VALUE - 4)) != null) {
+                    write(toClient, frame);
+                }
+            } catch (SocketException e) {
+                // Closed by a switch of upstream or by the client leaving
+            } catch (IOException e) {
+                System.err.println("Router lost shard " + shard.getId() + ": " + e.getMessage());
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
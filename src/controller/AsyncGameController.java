@@ -0,0 +1,132 @@
+package controller;
+
+import enums.Difficulty;
+import enums.GameMode;
+import model.Move;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Non-blocking front for a GameController.
+ *
+ * Every call returns at once with a future; the commands run one at a
+ * time, in call order, on the given executor, so the controller is
+ * never touched by two threads at once and callers can queue several
+ * commands and compose their results without waiting. Refused commands
+ * complete the future exceptionally; refused turns complete it with a
+ * rejected TurnResult.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class AsyncGameController {
+    private final GameController controller;
+    private final Executor executor;
+
+    /** Completes when the last queued command has run; guarded by this */
+    private CompletableFuture<?> tail;
+
+    /**
+     * Constructor for AsyncGameController, around a new game
+     * @param executor Threads the commands run on
+     */
+    public AsyncGameController(Executor executor) {
+        this(new GameController(), executor);
+    }
+
+    /**
+     * Constructor for AsyncGameController
+     * @param controller Controller to drive (no longer touched directly afterwards)
+     * @param executor Threads the commands run on
+     */
+    public AsyncGameController(GameController controller, Executor executor) {
+        this.controller = controller;
+        this.executor = executor;
+        this.tail = CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Run any command on the controller after those already queued
+     * @param command The command
+     * @return Future completed with the command's result, or exceptionally if it throws
+     */
+    public synchronized <T> CompletableFuture<T> submit(Function<GameController, T> command) {
+        CompletableFuture<T> result = tail.handleAsync((ignored, error) -> command.apply(controller), executor);
+        tail = result;
+        return result;
+    }
+
+    /**
+     * Configure and deal a new game
+     * @return Future completed once the game is ready to start, or
+     *         exceptionally with IllegalArgumentException for an invalid configuration
+     */
+    public CompletableFuture<Void> initializeGame(int numPlayers, GameMode mode, Difficulty difficulty,
+                                                  List<String> playerNames) {
+        return submit(gc -> {
+            String error = GameController.checkConfiguration(numPlayers, mode, playerNames);
+            if (error != null) {
+                throw new IllegalArgumentException(error);
+            }
+            if (!gc.initializeGame(numPlayers, mode, difficulty, playerNames)) {
+                throw new IllegalStateException("Game could not be initialized");
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Start the initialized game
+     * @return Future completed once the first turn can be played
+     */
+    public CompletableFuture<Void> startGame() {
+        return submit(gc -> {
+            gc.startGame();
+            return null;
+        });
+    }
+
+    /**
+     * Play a classic turn (2 hand cards, 1 hall card)
+     * @param cardIndices Indices of the 3 cards
+     * @return Future completed with the outcome
+     */
+    public CompletableFuture<TurnResult> playTurn(int[] cardIndices) {
+        int[] indices = cardIndices == null ? null : cardIndices.clone();
+        return submit(gc -> gc.playTurn(indices));
+    }
+
+    /**
+     * Play a flexible move
+     * @param move Cards picked from hands and/or the lecture hall
+     * @return Future completed with the outcome
+     */
+    public CompletableFuture<TurnResult> playMove(Move move) {
+        return submit(gc -> gc.playMove(move));
+    }
+
+    /**
+     * Let a bot play the current player's turn
+     * @param bot The bot
+     * @param deadlineMillis Hard time budget for the bot's search
+     * @return Future completed with the outcome
+     */
+    public CompletableFuture<TurnResult> playBotTurn(Bot bot, long deadlineMillis) {
+        return submit(gc -> gc.playBotTurn(bot, deadlineMillis));
+    }
+
+    /**
+     * Check whether the game has been won
+     * @return Future completed with true once the game is over
+     */
+    public CompletableFuture<Boolean> checkVictory() {
+        return submit(gc -> {
+            if (gc.isGameRunning()) {
+                gc.checkVictory();
+            }
+            return !gc.isGameRunning();
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package controller;
+
+import model.Move;
+
+/**
+ * Holds the best move a bot has found so far.
+ * The bot thread publishes improvements while it searches; the turn
+ * thread reads whatever is there once the deadline passes.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class BestMove {
+    private volatile Move move;
+    private volatile int score;
+    private final long deadlineNanos;
+
+    /**
+     * Constructor for BestMove
+     * @param deadlineNanos System.nanoTime() value after which the bot should stop
+     */
+    public BestMove(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+        this.score = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Offer a candidate; kept only if it scores higher than the current best
+     * @param candidate The candidate move
+     * @param candidateScore Bot-specific score, higher is better
+     */
+    public synchronized void offer(Move candidate, int candidateScore) {
+        if (candidate != null && (move == null || candidateScore > score)) {
+            move = candidate;
+            score = candidateScore;
+        }
+    }
+
+    /**
+     * Get the best move found so far
+     * @return Best move, or null if none offered yet
+     */
+    public Move get() {
+        return move;
+    }
+
+    /**
+     * Check if the bot should stop searching
+     * @return true once the deadline has passed or the thread was interrupted
+     */
+    public boolean isExpired() {
+        return Thread.currentThread().isInterrupted() || System.nanoTime() - deadlineNanos >= 0;
+    }
+}
@@ -0,0 +1,20 @@
+package controller;
+
+/**
+ * A computer player.
+ * Implementations search the view and publish candidates into
+ * {@link BestMove}; they should check {@link BestMove#isExpired()}
+ * regularly and return as soon as it is true.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public interface Bot {
+
+    /**
+     * Search for a move
+     * @param view Snapshot of the table
+     * @param best Receives candidate moves
+     */
+    void think(BotView view, BestMove best);
+}
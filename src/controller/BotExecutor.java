@@ -0,0 +1,178 @@
+package controller;
+
+import model.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs bot searches with a hard per-move deadline.
+ * All bots share one small pool of daemon threads sized to the machine,
+ * so thousands of concurrent bot turns queue up instead of each taking
+ * a platform thread. When a bot overruns it is interrupted and the best
+ * move it published so far (or a default move) is played instead.
+ *
+ * A bot that ignores the interrupt keeps its worker busy: the pool then
+ * grows by one thread to replace it, and shrinks back once that bot
+ * returns. At most {@link #MAX_STUCK_WORKERS} workers are replaced, so
+ * a bot that never returns costs threads, but a bounded number of them.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Stuck workers replaced
+ */
+public class BotExecutor {
+    /** Workers stuck in an overrun bot that are replaced by new threads */
+    public static final int MAX_STUCK_WORKERS = 16;
+
+    private static final BotExecutor SHARED =
+            new BotExecutor(Runtime.getRuntime().availableProcessors());
+
+    // Search states
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+    private static final int ABANDONED = 3;
+
+    private final int threads;
+    private final ThreadPoolExecutor pool;
+    private int stuckWorkers; // Guarded by this
+
+    /**
+     * Constructor for BotExecutor
+     * @param threads Number of worker threads
+     */
+    public BotExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "bot-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.threads = Math.max(1, threads);
+        this.pool = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), factory);
+    }
+
+    /**
+     * Get the executor shared by all games in this JVM
+     * @return Shared executor
+     */
+    public static BotExecutor getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Let a bot choose a move, waiting at most until the deadline
+     * @param bot The bot
+     * @param game The game (read on the calling thread only)
+     * @param player The bot's student
+     * @param deadlineMillis Time budget for this move
+     * @return Chosen move, best-so-far move, or the default move (null if
+     *         fewer than three cards are within reach)
+     */
+    public Move computeMove(Bot bot, Game game, Student player, long deadlineMillis) {
+        BotView view = new BotView(game, player);
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        BestMove best = new BestMove(deadlineNanos);
+
+        AtomicInteger state = new AtomicInteger(QUEUED);
+        Future<?> search = pool.submit(() -> {
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                return; // Timed out while queued
+            }
+            try {
+                bot.think(view, best);
+            } finally {
+                if (!state.compareAndSet(RUNNING, DONE)) {
+                    release(); // Returned after its turn was played
+                }
+            }
+        });
+        try {
+            search.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            abandon(search, state, player);
+        } catch (InterruptedException e) {
+            abandon(search, state, player);
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.out.println("⚠️  Bot " + player.getName() + " failed: " + e.getMessage());
+        }
+
+        Move move = best.get();
+        if (move == null || move.resolveCards(game, player) == null) {
+            move = view.getDefaultMove();
+        }
+        return move;
+    }
+
+    /**
+     * Stop waiting for a search; replace its worker if the bot is still running
+     */
+    private void abandon(Future<?> search, AtomicInteger state, Student player) {
+        search.cancel(true);
+        if (state.compareAndSet(QUEUED, ABANDONED)) {
+            return; // Never started
+        }
+        synchronized (this) { // Its release() cannot run before it is counted
+            if (!state.compareAndSet(RUNNING, ABANDONED)) {
+                return; // Just finished
+            }
+            stuckWorkers++;
+            resize();
+            if (stuckWorkers > MAX_STUCK_WORKERS) {
+                System.out.println("⚠️  Bot " + player.getName() + " overran its deadline: "
+                        + stuckWorkers + " bot workers stuck, " + MAX_STUCK_WORKERS + " replaced");
+            }
+        }
+    }
+
+    /**
+     * A worker left running by an abandoned search is free again
+     */
+    private synchronized void release() {
+        stuckWorkers--;
+        resize();
+    }
+
+    /**
+     * Keep the configured number of threads free of stuck bots
+     */
+    private void resize() {
+        int size = threads + Math.min(stuckWorkers, MAX_STUCK_WORKERS);
+        if (size > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(size);
+            pool.setCorePoolSize(size);
+        } else if (size < pool.getMaximumPoolSize()) {
+            pool.setCorePoolSize(size);
+            pool.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * Get the number of workers still running a bot whose turn was already played
+     * @return Stuck worker count
+     */
+    public synchronized int getStuckWorkers() {
+        return stuckWorkers;
+    }
+
+    /**
+     * Get the number of worker threads the pool keeps
+     * @return Configured threads plus replacements for stuck ones
+     */
+    public int getPoolSize() {
+        return pool.getMaximumPoolSize();
+    }
+
+    /**
+     * Stop accepting new bot searches
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
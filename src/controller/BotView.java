@@ -0,0 +1,122 @@
+package controller;
+
+import model.*;
+import enums.GameMode;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only copy of the table as seen by a bot.
+ * Built on the game thread before the bot starts thinking, so a bot
+ * running on another thread never touches the live model.
+ * Like a player, a bot sees its whole hand but only the first and
+ * last cards of the other hands.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Hidden cards
+ */
+public class BotView {
+    private final String playerName;
+    private final GameMode gameMode;
+    private final List<Card> ownHand;
+    private final List<Card> lectureHall;
+    private final Map<String, VisibleHand> otherHands;
+
+    /**
+     * Capture the table for the given player
+     * @param game The game
+     * @param player The bot's student
+     */
+    public BotView(Game game, Student player) {
+        this.playerName = player.getName();
+        this.gameMode = game.getGameMode();
+        this.ownHand = Collections.unmodifiableList(player.getHand().getAllCards());
+        this.lectureHall = Collections.unmodifiableList(game.getLectureHall().getAllCards());
+
+        Map<String, VisibleHand> others = new LinkedHashMap<>();
+        for (Student student : game.getStudents()) {
+            if (!student.equals(player)) {
+                others.put(student.getName(), new VisibleHand(student.getHand()));
+            }
+        }
+        this.otherHands = Collections.unmodifiableMap(others);
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public GameMode getGameMode() {
+        return gameMode;
+    }
+
+    public List<Card> getOwnHand() {
+        return ownHand;
+    }
+
+    public List<Card> getLectureHall() {
+        return lectureHall;
+    }
+
+    /**
+     * Other players' hands, keyed by player name in seating order
+     * @return Map of player name to the visible part of the hand
+     */
+    public Map<String, VisibleHand> getOtherHands() {
+        return otherHands;
+    }
+
+    /**
+     * Fallback move when the bot has nothing better: first cards available,
+     * own hand first, then the lecture hall
+     * @return A move that always resolves against this table
+     */
+    public Move getDefaultMove() {
+        String[] sources = new String[3];
+        int[] positions = new int[3];
+        int picked = 0;
+
+        for (int i = 0; i < ownHand.size() && picked < 3; i++) {
+            sources[picked] = Move.HAND;
+            positions[picked++] = i;
+        }
+        for (int i = 0; i < lectureHall.size() && picked < 3; i++) {
+            sources[picked] = Move.HALL;
+            positions[picked++] = i;
+        }
+        if (picked < 3) {
+            return null;
+        }
+        return new Move(sources, new String[3], positions);
+    }
+
+    /**
+     * What a player sees of another player's hand: its size and its
+     * first and last cards (positions 0 and size - 1)
+     */
+    public static final class VisibleHand {
+        private final int size;
+        private final Card firstCard;
+        private final Card lastCard;
+
+        private VisibleHand(Hand hand) {
+            this.size = hand.getSize();
+            this.firstCard = hand.getFirstCard();
+            this.lastCard = hand.getLastCard();
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public Card getFirstCard() {
+            return firstCard;
+        }
+
+        public Card getLastCard() {
+            return lastCard;
+        }
+    }
+}
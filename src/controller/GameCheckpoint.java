@@ -0,0 +1,127 @@
+package controller;
+
+import enums.GameState;
+import model.Game;
+import model.GameCodec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Saved game in progress: the controller's state plus the whole table,
+ * including whose turn it is.
+ *
+ * The schema is versioned. A new version may add fields but each
+ * version keeps its own read branch, so a build reads every checkpoint
+ * written by older builds and refuses newer ones with a clear error.
+ *
+ * Layout: int magic, short version, then for version 1:
+ * byte state, game in {@link GameCodec} form.
+ * Version 2 adds, after the state: long start time (epoch milliseconds,
+ * 0 if unknown), int moves played.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Game timing
+ */
+public final class GameCheckpoint {
+    public static final String EXTENSION = ".triosave";
+    public static final int VERSION = 2;
+
+    private static final int MAGIC = 0x5452434B; // "TRCK"
+
+    private GameCheckpoint() {
+    }
+
+    /**
+     * Encode a game in progress
+     * @param controller The controller (must be called by the thread that owns it)
+     * @return Encoded checkpoint
+     */
+    public static byte[] encode(GameController controller) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(controller.getGameState().ordinal());
+            out.writeLong(controller.getStartedAtMillis());
+            out.writeInt(controller.getMovesPlayed());
+            GameCodec.write(controller.getGame(), out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode checkpoint", e); // Not thrown by in-memory streams
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a checkpoint of this or an older version
+     * @param data Bytes produced by {@link #encode}
+     * @return Controller ready to continue the game
+     * @throws IOException if the data is not a checkpoint this build can read
+     */
+    public static GameController decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a saved game");
+            }
+            int version = in.readUnsignedShort();
+            switch (version) {
+                case 1:
+                    return readVersion1(in);
+                case 2:
+                    return readVersion2(in);
+                default:
+                    throw new IOException("Saved game version " + version + " needs a newer version of the game");
+            }
+        }
+    }
+
+    private static GameController readVersion1(DataInputStream in) throws IOException {
+        GameState state = readState(in);
+        Game game = GameCodec.read(in);
+        return GameController.restore(game, state);
+    }
+
+    private static GameController readVersion2(DataInputStream in) throws IOException {
+        GameState state = readState(in);
+        long startedAtMillis = in.readLong();
+        int movesPlayed = in.readInt();
+        GameController controller = GameController.restore(GameCodec.read(in), state);
+        controller.resumeTiming(startedAtMillis, movesPlayed);
+        return controller;
+    }
+
+    private static GameState readState(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= GameState.values().length) {
+            throw new IOException("Invalid game state " + ordinal);
+        }
+        return GameState.values()[ordinal];
+    }
+
+    /**
+     * Save a game to a file; the file is replaced only once fully written
+     * @param controller The controller
+     * @param file Target file
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(GameController controller, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, encode(controller));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load a game saved by {@link #save}
+     * @param file The saved game
+     * @return Controller ready to continue the game
+     * @throws IOException if the file cannot be read or is not a saved game
+     */
+    public static GameController load(Path file) throws IOException {
+        return decode(Files.readAllBytes(file));
+    }
+}
@@ -2,20 +2,31 @@ package controller;
 
 import model.*;
 import enums.*;
+import stats.GameMetrics;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Main game controller - manages the overall game flow and state.
  * Coordinates between model components and handles game logic.
  *
+ * Servers run many games at once, so only the boolean execute* methods
+ * print (for the console); the play* methods, startGame, checkVictory
+ * and endGame return what happened instead.
+ *
  * @author Dana SLEIMAN
- * @version 1.0
+ * @version 1.5 - Silent cores
  */
 public class GameController {
     private Game game;
     private GameStateMachine stateMachine;
     private TurnController turnController;
     private boolean gameRunning;
+    private GameMetrics metrics;
+    private long startedAtMillis; // 0 if the start time is unknown
+    private long lastMoveNanos;
+    private boolean hasLastMove; // False until this controller saw a start or a move
+    private int movesPlayed;
 
     /**
      * Constructor for GameController
@@ -23,9 +34,107 @@ public class GameController {
     public GameController() {
         this.game = new Game();
         this.stateMachine = new GameStateMachine();
+        this.stateMachine.setTransitionListener(state -> game.recordStateChange(state));
         this.gameRunning = false;
     }
 
+    /**
+     * Rebuild a controller from the events of its game
+     * @param events Events recorded by {@link #setEventListener}, oldest first
+     * @return Controller in the state the last event left it
+     */
+    public static GameController replay(List<GameEvent> events) {
+        GameState state = GameState.SETUP;
+        for (GameEvent event : events) {
+            if (event instanceof GameEvent.StateChanged) {
+                state = ((GameEvent.StateChanged) event).getState();
+            }
+        }
+        return restore(Game.replay(events), state);
+    }
+
+    /**
+     * Continue a saved game with the events recorded after it was saved
+     * @param saved Controller restored from a checkpoint (its game is reused)
+     * @param events Events recorded since the checkpoint, oldest first
+     * @return Controller in the state the last event left it
+     */
+    public static GameController replay(GameController saved, List<GameEvent> events) {
+        GameState state = saved.getGameState();
+        for (GameEvent event : events) {
+            if (event instanceof GameEvent.StateChanged) {
+                state = ((GameEvent.StateChanged) event).getState();
+            }
+            saved.game.apply(event);
+        }
+        GameController controller = restore(saved.game, state);
+        int moves = 0;
+        for (GameEvent event : events) {
+            if (event.getType() == GameEvent.Type.REVEALED) {
+                moves++; // One per move
+            }
+        }
+        controller.resumeTiming(saved.startedAtMillis, saved.movesPlayed + moves);
+        return controller;
+    }
+
+    /**
+     * Rebuild a controller around a restored game
+     * @param game Game restored from its saved form
+     * @param state State the game was saved in
+     * @return Controller ready to continue the game
+     */
+    public static GameController restore(Game game, GameState state) {
+        GameController controller = new GameController();
+        controller.game = game;
+        controller.turnController = new TurnController(game);
+        if (state != GameState.SETUP) {
+            controller.stateMachine.transitionTo(GameState.PLAYING);
+            controller.gameRunning = true;
+        }
+        if (state == GameState.GAME_OVER) {
+            controller.stateMachine.transitionTo(GameState.GAME_OVER);
+            controller.gameRunning = false;
+        }
+        return controller;
+    }
+
+    /**
+     * Carry over when a restored game began and how many moves it had,
+     * so its length is still recorded when it ends
+     * @param startedAtMillis Epoch milliseconds, 0 if unknown (the game is then not recorded)
+     * @param movesPlayed Moves played before it was saved
+     */
+    void resumeTiming(long startedAtMillis, int movesPlayed) {
+        this.startedAtMillis = startedAtMillis;
+        this.movesPlayed = movesPlayed;
+    }
+
+    long getStartedAtMillis() {
+        return startedAtMillis;
+    }
+
+    int getMovesPlayed() {
+        return movesPlayed;
+    }
+
+    /**
+     * Record the events of the game from now on.
+     * Set it before {@link #initializeGame} to record the whole game.
+     * @param listener Receives each event before it is applied
+     */
+    public void setEventListener(GameEventListener listener) {
+        game.setEventListener(listener);
+    }
+
+    /**
+     * Time the turns and games played from now on
+     * @param metrics Where to record, or null to stop
+     */
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * Initialize a new game with player configuration
      * @param numPlayers Number of players (2-6)
@@ -35,33 +144,39 @@ public class GameController {
      * @return true if initialization successful
      */
     public boolean initializeGame(int numPlayers, GameMode mode, Difficulty difficulty, List<String> playerNames) {
+        return initializeGame(numPlayers, mode, difficulty, playerNames, new Random().nextLong());
+    }
+
+    /**
+     * Initialize a new game dealt from a known shuffle
+     * @param numPlayers Number of players (2-6)
+     * @param mode Game mode
+     * @param difficulty Difficulty level
+     * @param playerNames List of player names
+     * @param seed Seed of the shuffle
+     * @return true if initialization successful
+     */
+    public boolean initializeGame(int numPlayers, GameMode mode, Difficulty difficulty,
+                                  List<String> playerNames, long seed) {
         try {
             // Validate inputs
-            if (numPlayers < 2 || numPlayers > 6) {
-                System.out.println("Error: Must have 2-6 players");
-                return false;
-            }
-
-            if (playerNames == null || playerNames.size() != numPlayers) {
-                System.out.println("Error: Player names don't match player count");
-                return false;
-            }
-
-            // Team mode requires even number of players
-            if (mode.isTeamMode() && numPlayers % 2 != 0) {
-                System.out.println("Error: Team mode requires even number of players");
+            String error = checkConfiguration(numPlayers, mode, playerNames);
+            if (error != null) {
+                System.out.println("Error: " + error);
                 return false;
             }
 
             // Configure and initialize game
             game.configure(numPlayers, mode, difficulty, playerNames);
-            game.initialize();
+            game.initialize(seed);
 
             // Initialize turn controller
             this.turnController = new TurnController(game);
 
             // Set initial state
-            stateMachine.transitionTo(GameState.SETUP);
+            if (stateMachine.getCurrentState() != GameState.SETUP) {
+                stateMachine.transitionTo(GameState.SETUP);
+            }
 
             return true;
 
@@ -72,46 +187,194 @@ public class GameController {
     }
 
     /**
-     * Start the game - transition to PLAYING state
+     * Validate a game configuration
+     * @param numPlayers Number of players (2-6)
+     * @param mode Game mode
+     * @param playerNames List of player names
+     * @return Error message, or null if the configuration is valid
+     */
+    public static String checkConfiguration(int numPlayers, GameMode mode, List<String> playerNames) {
+        if (numPlayers < 2 || numPlayers > 6) {
+            return "Must have 2-6 players";
+        }
+        if (playerNames == null || playerNames.size() != numPlayers) {
+            return "Player names don't match player count";
+        }
+        // Team mode requires even number of players
+        if (mode.isTeamMode() && numPlayers % 2 != 0) {
+            return "Team mode requires even number of players";
+        }
+        return null;
+    }
+
+    /**
+     * Start the game - transition to PLAYING state; prints nothing
+     * @return Announcement for the players, or null if the game was not set up
      */
-    public void startGame() {
+    public String startGame() {
         if (stateMachine.getCurrentState() == GameState.SETUP) {
             stateMachine.transitionTo(GameState.PLAYING);
             gameRunning = true;
-            game.startGame();
-            System.out.println("\n🎮 Game started!");
-            System.out.println("Mode: " + game.getGameMode().getDisplayName());
-            System.out.println("Players: " + game.getNumberOfPlayers());
-            System.out.println("First player: " + getCurrentPlayer().getName());
+            startedAtMillis = System.currentTimeMillis();
+            lastMoveNanos = System.nanoTime();
+            hasLastMove = true;
+            movesPlayed = 0;
+            return game.startGame() + "\n\n🎮 Game started!"
+                    + "\nMode: " + game.getGameMode().getDisplayName()
+                    + "\nPlayers: " + game.getNumberOfPlayers()
+                    + "\nFirst player: " + getCurrentPlayer().getName();
         }
+        return null;
     }
 
     /**
-     * Execute a player's turn
+     * Execute a player's turn, printing the selection and its outcome
      * @param cardIndices Indices of 3 cards selected (2 from hand, 1 from hall)
      * @return true if turn was successful
      */
     public boolean executeTurn(int[] cardIndices) {
-        if (!gameRunning || stateMachine.getCurrentState() != GameState.PLAYING) {
-            System.out.println("Game is not in playing state");
-            return false;
+        if (isPlaying() && turnController.checkSelection(cardIndices) == null) {
+            turnController.displaySelection(cardIndices);
+        }
+        TurnResult result = playTurn(cardIndices);
+        if (result.isPlayed()) {
+            turnController.displayOutcome(result.isValid());
+        }
+        return report(result);
+    }
+
+    /**
+     * Execute a flexible move for the current player
+     * @param move Cards picked from hands and/or the lecture hall
+     * @return true if the move formed a valid trio
+     */
+    public boolean executeMove(Move move) {
+        return report(playMove(move));
+    }
+
+    /**
+     * Let a bot play the current player's turn
+     * @param bot The bot playing for the current player
+     * @param deadlineMillis Hard time budget for the bot's search
+     * @return true if the bot formed a valid trio
+     */
+    public boolean executeBotTurn(Bot bot, long deadlineMillis) {
+        return report(playBotTurn(bot, deadlineMillis));
+    }
+
+    /**
+     * Play a classic turn and describe its outcome
+     * @param cardIndices Indices of 3 cards selected (2 from hand, 1 from hall)
+     * @return The outcome, or a rejection if the turn could not be played
+     */
+    public TurnResult playTurn(int[] cardIndices) {
+        long start = System.nanoTime();
+        if (!isPlaying()) {
+            return TurnResult.rejected("Game is not in playing state");
+        }
+        String error = turnController.checkSelection(cardIndices);
+        if (error != null) {
+            return TurnResult.rejected(error);
+        }
+
+        Student player = getCurrentPlayer();
+        int ectsBefore = player.getEctsCredits();
+        return finishTurn(player, ectsBefore, turnController.playTurn(cardIndices), start);
+    }
+
+    /**
+     * Play a flexible move and describe its outcome
+     * @param move Cards picked from hands and/or the lecture hall
+     * @return The outcome, or a rejection if the move could not be played
+     */
+    public TurnResult playMove(Move move) {
+        long start = System.nanoTime();
+        if (!isPlaying()) {
+            return TurnResult.rejected("Game is not in playing state");
+        }
+        Student player = getCurrentPlayer();
+        if (move == null || move.resolveCards(game, player) == null) {
+            return TurnResult.rejected("❌ Error: Invalid card selection");
+        }
+
+        int ectsBefore = player.getEctsCredits();
+        return finishTurn(player, ectsBefore, turnController.playMove(move), start);
+    }
+
+    /**
+     * Let a bot play the current player's turn and describe its outcome
+     * @param bot The bot playing for the current player
+     * @param deadlineMillis Hard time budget for the bot's search
+     * @return The outcome (a pass if the bot has no three cards to pick),
+     *         or a rejection if the game is not running
+     */
+    public TurnResult playBotTurn(Bot bot, long deadlineMillis) {
+        if (!isPlaying()) {
+            return TurnResult.rejected("Game is not in playing state");
         }
+        Move move = BotExecutor.getShared().computeMove(bot, game, getCurrentPlayer(), deadlineMillis);
+        if (move == null) {
+            game.advanceTurn(); // Fewer than three cards to pick from: pass instead of stalling
+            return TurnResult.played(false, 0, false,
+                    game.getTurnManager().getCurrentPlayerIndex(), getCurrentPlayer().getName());
+        }
+        return playMove(move);
+    }
 
-        // Delegate to TurnController
-        boolean success = turnController.executeTurn(cardIndices);
+    private boolean isPlaying() {
+        return gameRunning && stateMachine.getCurrentState() == GameState.PLAYING;
+    }
 
-        if (success) {
-            // Check victory after successful turn
+    /**
+     * Check victory after a valid trio and capture the outcome
+     */
+    private TurnResult finishTurn(Student player, int ectsBefore, boolean valid, long startNanos) {
+        if (valid) {
             checkVictory();
         }
+        boolean victory = stateMachine.getCurrentState() == GameState.GAME_OVER;
+        TurnResult result = TurnResult.played(valid, player.getEctsCredits() - ectsBefore, victory,
+                game.getTurnManager().getCurrentPlayerIndex(), getCurrentPlayer().getName());
+        movesPlayed++;
+        if (metrics != null) {
+            recordMetrics(startNanos, victory);
+        }
+        return result;
+    }
 
-        return success;
+    /**
+     * Record how long the turn took, the wait before it and, if it won, the game's length
+     */
+    private void recordMetrics(long startNanos, boolean victory) {
+        long now = System.nanoTime();
+        metrics.recordTurn(now - startNanos);
+        if (hasLastMove) { // Not the first move since a restore: that wait is unknown
+            metrics.recordMoveInterval((startNanos - lastMoveNanos) / 1_000_000);
+        }
+        lastMoveNanos = now;
+        hasLastMove = true;
+        if (victory && startedAtMillis != 0) {
+            metrics.recordGame(movesPlayed, System.currentTimeMillis() - startedAtMillis);
+        }
+    }
+
+    /**
+     * Print a rejection or a win, as the boolean turn methods always have
+     */
+    private boolean report(TurnResult result) {
+        if (!result.isPlayed()) {
+            System.out.println(result.getRejection());
+        } else if (result.isVictory()) {
+            System.out.println(announceWinner(game.checkVictoryConditions()));
+        }
+        return result.isValid();
     }
 
     /**
-     * Check if any player/team has won
+     * Check if any player/team has won; prints nothing
+     * @return The winning student, or null if the game goes on
      */
-    public void checkVictory() {
+    public Student checkVictory() {
         stateMachine.transitionTo(GameState.CHECKING_VICTORY);
 
         Student winner = game.checkVictoryConditions();
@@ -120,37 +383,41 @@ public class GameController {
             // Someone won!
             stateMachine.transitionTo(GameState.GAME_OVER);
             gameRunning = false;
-            announceWinner(winner);
         } else {
             // No winner yet, continue playing
             stateMachine.transitionTo(GameState.PLAYING);
         }
+        return winner;
     }
 
     /**
-     * Announce the winner and end the game
+     * Describe the winner and the final scores
      * @param winner The winning student
+     * @return Announcement for the players
      */
-    private void announceWinner(Student winner) {
-        System.out.println("\n╔════════════════════════════════════════╗");
-        System.out.println("║          🎓 GRADUATION! 🎓             ║");
-        System.out.println("╚════════════════════════════════════════╝");
+    private String announceWinner(Student winner) {
+        StringBuilder text = new StringBuilder();
+        text.append("\n╔════════════════════════════════════════╗\n");
+        text.append("║          🎓 GRADUATION! 🎓             ║\n");
+        text.append("╚════════════════════════════════════════╝\n");
 
         if (game.getGameMode().isTeamMode() && winner.getTeam() != null) {
             Team team = winner.getTeam();
-            System.out.println("\n🏆 " + team.getTeamName() + " has graduated!");
-            System.out.println("Team ECTS: " + team.getTeamScore());
-            System.out.println("Members:");
+            text.append("\n🏆 ").append(team.getTeamName()).append(" has graduated!\n");
+            text.append("Team ECTS: ").append(team.getTeamScore()).append("\n");
+            text.append("Members:\n");
             for (Student member : team.getMembers()) {
-                System.out.println("  - " + member.getName() + " (" + member.getEctsCredits() + " ECTS)");
+                text.append("  - ").append(member.getName())
+                        .append(" (").append(member.getEctsCredits()).append(" ECTS)\n");
             }
         } else {
-            System.out.println("\n🏆 " + winner.getName() + " has graduated!");
-            System.out.println("ECTS Credits: " + winner.getEctsCredits());
-            System.out.println("Trios completed: " + winner.getTrioCount());
+            text.append("\n🏆 ").append(winner.getName()).append(" has graduated!\n");
+            text.append("ECTS Credits: ").append(winner.getEctsCredits()).append("\n");
+            text.append("Trios completed: ").append(winner.getTrioCount()).append("\n");
         }
 
-        game.endGame();
+        text.append(game.endGame());
+        return text.toString();
     }
 
     /**
@@ -202,11 +469,12 @@ public class GameController {
     }
 
     /**
-     * Force end the game
+     * Force end the game; prints nothing
+     * @return Game over report with the final scores
      */
-    public void endGame() {
+    public String endGame() {
         gameRunning = false;
         stateMachine.transitionTo(GameState.GAME_OVER);
-        game.endGame();
+        return game.endGame();
     }
 }
@@ -1,6 +1,7 @@
 package controller;
 
 import enums.GameState;
+import java.util.function.Consumer;
 
 /**
  * Manages game state transitions.
@@ -11,6 +12,7 @@ import enums.GameState;
  */
 public class GameStateMachine {
     private GameState currentState;
+    private Consumer<GameState> transitionListener;
 
     /**
      * Constructor - initializes to SETUP state
@@ -19,6 +21,14 @@ public class GameStateMachine {
         this.currentState = GameState.SETUP;
     }
 
+    /**
+     * Set who is told of each valid transition, before it takes effect
+     * @param transitionListener Receives the new state, or null
+     */
+    public void setTransitionListener(Consumer<GameState> transitionListener) {
+        this.transitionListener = transitionListener;
+    }
+
     /**
      * Transition to a new state
      * @param newState The state to transition to
@@ -26,6 +36,9 @@ public class GameStateMachine {
      */
     public boolean transitionTo(GameState newState) {
         if (isValidTransition(currentState, newState)) {
+            if (transitionListener != null) {
+                transitionListener.accept(newState);
+            }
             GameState oldState = currentState;
             currentState = newState;
 
@@ -0,0 +1,89 @@
+package controller;
+
+import model.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Straightforward bot: looks at every card it is allowed to see
+ * (its whole hand, the lecture hall and the first/last card of the
+ * other hands) and plays the best complete trio, PFE first.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class SimpleBot implements Bot {
+
+    /**
+     * A visible card and where to pick it from
+     */
+    private static class Pick {
+        final Card card;
+        final String source;
+        final String playerName;
+        final int position;
+
+        Pick(Card card, String source, String playerName, int position) {
+            this.card = card;
+            this.source = source;
+            this.playerName = playerName;
+            this.position = position;
+        }
+    }
+
+    @Override
+    public void think(BotView view, BestMove best) {
+        best.offer(view.getDefaultMove(), 0);
+
+        Map<String, List<Pick>> byCourse = new LinkedHashMap<>();
+        collect(byCourse, view.getOwnHand(), Move.HAND, null);
+        collect(byCourse, view.getLectureHall(), Move.HALL, null);
+        for (Map.Entry<String, BotView.VisibleHand> other : view.getOtherHands().entrySet()) {
+            BotView.VisibleHand hand = other.getValue();
+            if (hand.getSize() > 0) {
+                add(byCourse, hand.getFirstCard(), Move.OTHER_PLAYER, other.getKey(), 0);
+            }
+            if (hand.getSize() > 1) {
+                add(byCourse, hand.getLastCard(), Move.OTHER_PLAYER, other.getKey(), hand.getSize() - 1);
+            }
+        }
+
+        for (List<Pick> picks : byCourse.values()) {
+            if (best.isExpired()) {
+                return;
+            }
+            if (picks.size() < 3) {
+                continue;
+            }
+
+            Pick a = picks.get(0);
+            Pick b = picks.get(1);
+            Pick c = picks.get(2);
+            if (!TrioValidator.validateTrio(a.card, b.card, c.card, view.getGameMode())) {
+                continue;
+            }
+
+            Move move = new Move(
+                    new String[]{a.source, b.source, c.source},
+                    new String[]{a.playerName, b.playerName, c.playerName},
+                    new int[]{a.position, b.position, c.position});
+            best.offer(move, TrioValidator.calculateEcts(a.card, b.card, c.card, view.getGameMode()));
+        }
+    }
+
+    /**
+     * Group visible cards by course code
+     */
+    private void collect(Map<String, List<Pick>> byCourse, List<Card> cards, String source, String playerName) {
+        for (int i = 0; i < cards.size(); i++) {
+            add(byCourse, cards.get(i), source, playerName, i);
+        }
+    }
+
+    private void add(Map<String, List<Pick>> byCourse, Card card, String source, String playerName, int position) {
+        byCourse.computeIfAbsent(card.getCourseCode(), k -> new ArrayList<>())
+                .add(new Pick(card, source, playerName, position));
+    }
+}
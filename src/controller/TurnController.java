@@ -9,8 +9,11 @@ import java.util.List;
  * Handles the execution of individual turns.
  * Manages card selection, trio formation, and turn progression.
  *
+ * playTurn and playMove only play; the execute methods also print the
+ * selection and its outcome for the console.
+ *
  * @author Dana SLEIMAN
- * @version 1.0
+ * @version 1.1 - Silent turns
  */
 public class TurnController {
     private Game game;
@@ -24,35 +27,38 @@ public class TurnController {
     }
 
     /**
-     * Execute a turn with selected cards
+     * Execute a turn with selected cards, printing the selection and its outcome
      * @param cardIndices Array of 3 indices: [handIndex1, handIndex2, hallIndex]
      * @return true if turn was successful
      */
     public boolean executeTurn(int[] cardIndices) {
-        if (cardIndices == null || cardIndices.length != 3) {
-            System.out.println("❌ Error: Must select exactly 3 cards");
+        String error = checkSelection(cardIndices);
+        if (error != null) {
+            System.out.println(error);
             return false;
         }
+        displaySelection(cardIndices);
+        boolean success = playTurn(cardIndices);
+        displayOutcome(success);
+        return success;
+    }
 
-        Student currentPlayer = game.getTurnManager().getCurrentStudent();
-
-        // Extract indices
-        int handIndex1 = cardIndices[0];
-        int handIndex2 = cardIndices[1];
-        int hallIndex = cardIndices[2];
-
-        // Validate indices
-        if (!validateIndices(currentPlayer, handIndex1, handIndex2, hallIndex)) {
+    /**
+     * Play a turn with selected cards without printing anything
+     * @param cardIndices Array of 3 indices: [handIndex1, handIndex2, hallIndex]
+     * @return true if the cards formed a valid trio (the turn passes otherwise)
+     */
+    public boolean playTurn(int[] cardIndices) {
+        if (checkSelection(cardIndices) != null) {
             return false;
         }
+        Student currentPlayer = game.getTurnManager().getCurrentStudent();
 
         // Get the actual cards
-        Card handCard1 = currentPlayer.getHand().getCard(handIndex1);
-        Card handCard2 = currentPlayer.getHand().getCard(handIndex2);
-        Card hallCard = game.getLectureHall().getCard(hallIndex);
-
+        Card handCard1 = currentPlayer.getHand().getCard(cardIndices[0]);
+        Card handCard2 = currentPlayer.getHand().getCard(cardIndices[1]);
+        Card hallCard = game.getLectureHall().getCard(cardIndices[2]);
         if (handCard1 == null || handCard2 == null || hallCard == null) {
-            System.out.println("❌ Error: Invalid card selection");
             return false;
         }
 
@@ -62,67 +68,142 @@ public class TurnController {
         selectedCards.add(handCard2);
         selectedCards.add(hallCard);
 
-        // Display selection
+        boolean success = game.playTurn(currentPlayer, selectedCards);
+        if (!success) {
+            game.advanceTurn(); // Player gets a bonus turn only after a valid trio
+        }
+        return success;
+    }
+
+    /**
+     * Print the cards a selection picks (indices already checked)
+     * @param cardIndices Array of 3 indices: [handIndex1, handIndex2, hallIndex]
+     */
+    void displaySelection(int[] cardIndices) {
+        Student currentPlayer = game.getTurnManager().getCurrentStudent();
+        Card handCard1 = currentPlayer.getHand().getCard(cardIndices[0]);
+        Card handCard2 = currentPlayer.getHand().getCard(cardIndices[1]);
+        Card hallCard = game.getLectureHall().getCard(cardIndices[2]);
         System.out.println("\n📋 Selected cards:");
         System.out.println("  From hand: " + handCard1.getCourseCode() + ", " + handCard2.getCourseCode());
         System.out.println("  From hall: " + hallCard.getCourseCode());
+    }
 
-        // Attempt to play the turn
-        boolean success = game.playTurn(currentPlayer, selectedCards);
-
+    /**
+     * Print the outcome of a classic turn, after it was played
+     * @param success true if the trio was valid
+     */
+    void displayOutcome(boolean success) {
         if (success) {
             System.out.println("✅ Valid trio! Turn successful!");
-            // Player gets bonus turn, don't advance
         } else {
             System.out.println("❌ Invalid trio. Turn passes to next player.");
-            advanceTurn();
+            displayTurnPassed();
         }
+    }
 
-        return success;
+    /**
+     * Execute a flexible move (cards from hand, other players or hall),
+     * printing why it cannot be played
+     * @param move The move to play for the current player
+     * @return true if the move formed a valid trio
+     */
+    public boolean executeMove(Move move) {
+        if (move == null) {
+            System.out.println("❌ Error: No move to play");
+            return false;
+        }
+        if (move.resolveCards(game, game.getTurnManager().getCurrentStudent()) == null) {
+            System.out.println("❌ Error: Invalid card selection");
+            return false;
+        }
+        return playMove(move);
+    }
+
+    /**
+     * Play a flexible move without printing anything
+     * @param move The move to play for the current player
+     * @return true if the move formed a valid trio (false if it cannot be played)
+     */
+    public boolean playMove(Move move) {
+        if (move == null) {
+            return false;
+        }
+        Student currentPlayer = game.getTurnManager().getCurrentStudent();
+        List<Card> selectedCards = move.resolveCards(game, currentPlayer);
+        if (selectedCards == null) {
+            return false;
+        }
+
+        // Game passes the turn itself when the trio is invalid
+        return game.playFlexibleTurn(currentPlayer, selectedCards,
+                move.getSources(), move.getPlayerNames());
+    }
+
+    /**
+     * Let a bot play the current player's turn.
+     * Never waits longer than the deadline: a bot that overruns is
+     * interrupted and its best-so-far move (or a default move) is played.
+     * With fewer than three cards within reach the turn is passed.
+     * @param bot The bot playing for the current player
+     * @param deadlineMillis Time budget for the move
+     * @return true if the move formed a valid trio
+     */
+    public boolean executeBotTurn(Bot bot, long deadlineMillis) {
+        Student currentPlayer = game.getTurnManager().getCurrentStudent();
+        Move move = BotExecutor.getShared().computeMove(bot, game, currentPlayer, deadlineMillis);
+        if (move == null) {
+            advanceTurn(); // Fewer than three cards to pick from: pass instead of stalling
+            return false;
+        }
+        return executeMove(move);
     }
 
     /**
-     * Validate the selected card indices
-     * @param player The current player
-     * @param handIndex1 First hand card index
-     * @param handIndex2 Second hand card index
-     * @param hallIndex Lecture hall card index
-     * @return true if all indices are valid
+     * Validate the selected card indices for the current player
+     * @param cardIndices Array of 3 indices: [handIndex1, handIndex2, hallIndex]
+     * @return Error message, or null if all indices are valid
      */
-    private boolean validateIndices(Student player, int handIndex1, int handIndex2, int hallIndex) {
+    String checkSelection(int[] cardIndices) {
+        if (cardIndices == null || cardIndices.length != 3) {
+            return "❌ Error: Must select exactly 3 cards";
+        }
+        Student player = game.getTurnManager().getCurrentStudent();
+        int handIndex1 = cardIndices[0];
+        int handIndex2 = cardIndices[1];
+        int hallIndex = cardIndices[2];
+
         // Validate hand indices
         int handSize = player.getHand().getSize();
         if (handIndex1 < 0 || handIndex1 >= handSize) {
-            System.out.println("❌ Error: Hand index 1 out of range (0-" + (handSize-1) + ")");
-            return false;
+            return "❌ Error: Hand index 1 out of range (0-" + (handSize-1) + ")";
         }
         if (handIndex2 < 0 || handIndex2 >= handSize) {
-            System.out.println("❌ Error: Hand index 2 out of range (0-" + (handSize-1) + ")");
-            return false;
+            return "❌ Error: Hand index 2 out of range (0-" + (handSize-1) + ")";
         }
         if (handIndex1 == handIndex2) {
-            System.out.println("❌ Error: Cannot select the same hand card twice");
-            return false;
+            return "❌ Error: Cannot select the same hand card twice";
         }
 
         // Validate lecture hall index
         int hallSize = game.getLectureHall().getCardCount();
         if (hallIndex < 0 || hallIndex >= hallSize) {
-            System.out.println("❌ Error: Hall index out of range (0-" + (hallSize-1) + ")");
-            return false;
+            return "❌ Error: Hall index out of range (0-" + (hallSize-1) + ")";
         }
 
-        return true;
+        return null;
     }
 
     /**
      * Advance to the next player's turn
      */
     public void advanceTurn() {
-        game.getTurnManager().nextTurn();
-        Student nextPlayer = game.getTurnManager().getCurrentStudent();
+        game.advanceTurn();
+        displayTurnPassed();
+    }
 
-        System.out.println("\n🔄 Turn passed to: " + nextPlayer.getName());
+    private void displayTurnPassed() {
+        System.out.println("\n🔄 Turn passed to: " + game.getTurnManager().getCurrentStudent().getName());
         System.out.println("Round: " + game.getTurnManager().getRoundNumber());
     }
 
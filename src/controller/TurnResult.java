@@ -0,0 +1,107 @@
+package controller;
+
+/**
+ * Outcome of one turn: whether it formed a valid trio, what it earned
+ * and who plays next. A turn that could not be played at all (game not
+ * running, cards that do not exist) is a rejection and changed nothing.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public final class TurnResult {
+    private final boolean valid;
+    private final int ectsAwarded;
+    private final boolean bonusTurn;
+    private final boolean victory;
+    private final int nextPlayerIndex;
+    private final String nextPlayerName;
+    private final String rejection;
+
+    private TurnResult(boolean valid, int ectsAwarded, boolean bonusTurn, boolean victory,
+                       int nextPlayerIndex, String nextPlayerName, String rejection) {
+        this.valid = valid;
+        this.ectsAwarded = ectsAwarded;
+        this.bonusTurn = bonusTurn;
+        this.victory = victory;
+        this.nextPlayerIndex = nextPlayerIndex;
+        this.nextPlayerName = nextPlayerName;
+        this.rejection = rejection;
+    }
+
+    /**
+     * Result of a turn that was played
+     * @param valid true if the cards formed a trio
+     * @param ectsAwarded ECTS the player gained
+     * @param victory true if the turn ended the game
+     * @param nextPlayerIndex Seat whose turn it is now
+     * @param nextPlayerName Name of that player
+     * @return The result (a valid trio that does not win gives a bonus turn)
+     */
+    static TurnResult played(boolean valid, int ectsAwarded, boolean victory,
+                             int nextPlayerIndex, String nextPlayerName) {
+        return new TurnResult(valid, ectsAwarded, valid && !victory, victory,
+                nextPlayerIndex, nextPlayerName, null);
+    }
+
+    /**
+     * Result of a turn that could not be played
+     * @param reason Why it was refused
+     * @return The result
+     */
+    static TurnResult rejected(String reason) {
+        return new TurnResult(false, 0, false, false, -1, null, reason);
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public int getEctsAwarded() {
+        return ectsAwarded;
+    }
+
+    public boolean isBonusTurn() {
+        return bonusTurn;
+    }
+
+    public boolean isVictory() {
+        return victory;
+    }
+
+    /**
+     * Get the seat whose turn it is after this one
+     * @return Player index, or -1 for a rejected turn
+     */
+    public int getNextPlayerIndex() {
+        return nextPlayerIndex;
+    }
+
+    public String getNextPlayerName() {
+        return nextPlayerName;
+    }
+
+    /**
+     * Tell whether the turn was played at all
+     * @return false if it was rejected without changing the game
+     */
+    public boolean isPlayed() {
+        return rejection == null;
+    }
+
+    /**
+     * Get why the turn was refused
+     * @return The reason, or null if the turn was played
+     */
+    public String getRejection() {
+        return rejection;
+    }
+
+    @Override
+    public String toString() {
+        if (rejection != null) {
+            return "TurnResult[rejected: " + rejection + "]";
+        }
+        return "TurnResult[valid=" + valid + ", ects=" + ectsAwarded + ", bonusTurn=" + bonusTurn
+                + ", victory=" + victory + ", next=" + nextPlayerName + "]";
+    }
+}
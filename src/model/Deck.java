@@ -5,6 +5,7 @@ import enums.Difficulty;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Represents the deck of 36 cards in Trio_UTBM.
@@ -14,6 +15,28 @@ import java.util.List;
  * @version 2.0 - Added ID system
  */
 public class Deck {
+    /** Highest card ID in the deck */
+    public static final int MAX_CARD_ID = 12;
+
+    // Course table indexed by card ID (index 0 unused)
+    private static final String[] COURSE_CODES = {
+            null, "PFE", "EN21", "MQ51", "MQ41", "MQ18", "GI41", "GI28", "GI21",
+            "AP4B", "SY48", "IA41", "SY41"
+    };
+    private static final Branch[] BRANCHES = {
+            null, Branch.SPECIAL, Branch.ENERGY_ENGINEERING,
+            Branch.MECHANICAL_ENGINEERING, Branch.MECHANICAL_ENGINEERING, Branch.MECHANICAL_ENGINEERING,
+            Branch.INDUSTRIAL_ENGINEERING, Branch.INDUSTRIAL_ENGINEERING, Branch.INDUSTRIAL_ENGINEERING,
+            Branch.COMPUTER_SCIENCE, Branch.COMPUTER_SCIENCE, Branch.COMPUTER_SCIENCE, Branch.COMPUTER_SCIENCE
+    };
+    private static final Card[] CARDS_BY_ID = new Card[MAX_CARD_ID + 1];
+
+    static {
+        for (int id = 1; id <= MAX_CARD_ID; id++) {
+            CARDS_BY_ID[id] = new Card(COURSE_CODES[id], BRANCHES[id], id);
+        }
+    }
+
     private List<Card> cards;
     private Difficulty difficulty;
 
@@ -27,6 +50,16 @@ public class Deck {
         initialize();
     }
 
+    /**
+     * Rebuild a partly dealt deck (used when restoring a saved game)
+     * @param difficulty The difficulty level
+     * @param remaining Cards left to deal, in dealing order
+     */
+    Deck(Difficulty difficulty, List<Card> remaining) {
+        this.difficulty = difficulty;
+        this.cards = new ArrayList<>(remaining);
+    }
+
     /**
      * Initialize the deck with 36 cards with IDs:
      * SY41 → ID: 12, IA41 → ID: 11, SY48 → ID: 10, AP4B → ID: 9
@@ -37,27 +70,23 @@ public class Deck {
      * Each course appears 3 times, total 36 cards
      */
     private void initialize() {
-        // Computer Science courses (IDs: 12, 11, 10, 9)
-        addCourseCards("SY41", Branch.COMPUTER_SCIENCE, 12, 3);
-        addCourseCards("IA41", Branch.COMPUTER_SCIENCE, 11, 3);
-        addCourseCards("SY48", Branch.COMPUTER_SCIENCE, 10, 3);
-        addCourseCards("AP4B", Branch.COMPUTER_SCIENCE, 9, 3);
-
-        // Industrial Engineering courses (IDs: 8, 7, 6)
-        addCourseCards("GI21", Branch.INDUSTRIAL_ENGINEERING, 8, 3);
-        addCourseCards("GI28", Branch.INDUSTRIAL_ENGINEERING, 7, 3);
-        addCourseCards("GI41", Branch.INDUSTRIAL_ENGINEERING, 6, 3);
-
-        // Mechanical Engineering courses (IDs: 5, 4, 3)
-        addCourseCards("MQ18", Branch.MECHANICAL_ENGINEERING, 5, 3);
-        addCourseCards("MQ41", Branch.MECHANICAL_ENGINEERING, 4, 3);
-        addCourseCards("MQ51", Branch.MECHANICAL_ENGINEERING, 3, 3);
-
-        // Energy Engineering courses (ID: 2)
-        addCourseCards("EN21", Branch.ENERGY_ENGINEERING, 2, 3);
-
-        // PFE - Final Project (ID: 1)
-        addCourseCards("PFE", Branch.SPECIAL, 1, 3);
+        for (int id = MAX_CARD_ID; id >= 1; id--) {
+            addCourseCards(COURSE_CODES[id], BRANCHES[id], id, 3);
+        }
+    }
+
+    /**
+     * Get the card with the given deck ID.
+     * Every course has a unique ID in the deck, so the ID alone is
+     * enough to identify a card (used by the binary codecs).
+     * @param id The card ID (1-12)
+     * @return The card, or null if the ID is unknown
+     */
+    public static Card cardForId(int id) {
+        if (id < 1 || id > MAX_CARD_ID) {
+            return null;
+        }
+        return CARDS_BY_ID[id];
     }
 
     /**
@@ -80,6 +109,27 @@ public class Deck {
         Collections.shuffle(cards);
     }
 
+    /**
+     * Shuffle the deck with a given source of randomness
+     * @param random Source of the shuffle; the same seed gives the same order
+     */
+    public void shuffle(Random random) {
+        Collections.shuffle(cards, random);
+    }
+
+    /**
+     * Get the IDs of the next cards to be dealt
+     * @param count Number of cards (at most the remaining count)
+     * @return Their IDs, in dealing order
+     */
+    int[] topCardIds(int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = cards.get(i).getId();
+        }
+        return ids;
+    }
+
     /**
      * Deal one card from the deck
      * @return The top card, or null if deck is empty
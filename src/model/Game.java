@@ -2,15 +2,21 @@ package model;
 
 import enums.Difficulty;
 import enums.GameMode;
+import enums.GameState;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Main game manager for Trio_UTBM.
  * FLEXIBLE RULES: Take ANY 3 cards from anywhere!
  *
+ * Every change to the game is recorded as a {@link GameEvent} and only
+ * then applied, so the events of a game are enough to rebuild it
+ * ({@link #replay}).
+ *
  * @author Acil HAMIEH, Dana SLEIMAN
- * @version 3.0 - Flexible card selection
+ * @version 3.2 - Silent start and end
  */
 public class Game {
     private List<Student> students;
@@ -22,6 +28,7 @@ public class Game {
     private GameMode gameMode;
     private Difficulty difficulty;
     private int numberOfPlayers;
+    private GameEventListener eventListener;
 
     /**
      * Constructor for Game
@@ -33,10 +40,74 @@ public class Game {
         this.scoreBoard = new ScoreBoard();
     }
 
+    /**
+     * Rebuild a game from its events
+     * @param events Events of the game, oldest first
+     * @return The game as it was after the last event
+     */
+    public static Game replay(List<GameEvent> events) {
+        Game game = new Game();
+        for (GameEvent event : events) {
+            game.apply(event);
+        }
+        return game;
+    }
+
+    /**
+     * Set who receives the events of this game (before they are applied)
+     * @param eventListener The listener, or null to stop recording
+     */
+    public void setEventListener(GameEventListener eventListener) {
+        this.eventListener = eventListener;
+    }
+
+    /**
+     * Record an event, then apply it
+     */
+    private void emit(GameEvent event) {
+        if (eventListener != null) {
+            eventListener.onEvent(event);
+        }
+        apply(event);
+    }
+
+    /**
+     * Apply an event to the game without recording it
+     * @param event The next event of this game
+     * @throws IllegalStateException if the event does not follow from the current state
+     */
+    public void apply(GameEvent event) {
+        switch (event.getType()) {
+            case CREATED:
+                GameEvent.Created created = (GameEvent.Created) event;
+                setUp(created.numPlayers, created.mode, created.difficulty, created.names);
+                break;
+            case DEALT:
+                deal(((GameEvent.Dealt) event).seed);
+                break;
+            case TRIO_FORMED:
+                applyTrio((GameEvent.TrioFormed) event);
+                break;
+            case REFILLED:
+                applyRefill((GameEvent.Refilled) event);
+                break;
+            case TURN_ADVANCED:
+                GameEvent.TurnAdvanced advanced = (GameEvent.TurnAdvanced) event;
+                turnManager.restore(advanced.nextSeat, advanced.round);
+                break;
+            default:
+                break; // Reveals and state changes do not change the table
+        }
+    }
+
     /**
      * Configure the game with players and settings
      */
     public void configure(int numPlayers, GameMode mode, Difficulty difficulty, List<String> playerNames) {
+        emit(new GameEvent.Created(numPlayers, mode, difficulty, playerNames));
+    }
+
+    private void setUp(int numPlayers, GameMode mode, Difficulty difficulty, List<String> playerNames) {
         this.numberOfPlayers = numPlayers;
         this.gameMode = mode;
         this.difficulty = difficulty;
@@ -71,8 +142,20 @@ public class Game {
      * Initialize the game - create deck, shuffle, and deal cards
      */
     public void initialize() {
+        initialize(new Random().nextLong());
+    }
+
+    /**
+     * Initialize the game with a known shuffle
+     * @param seed Seed of the shuffle; the same seed deals the same table
+     */
+    public void initialize(long seed) {
+        emit(new GameEvent.Dealt(seed));
+    }
+
+    private void deal(long seed) {
         deck = new Deck(difficulty);
-        deck.shuffle();
+        deck.shuffle(new Random(seed));
 
         int cardsPerPlayer;
         int lectureHallSize;
@@ -120,10 +203,14 @@ public class Game {
         }
     }
 
-    public void startGame() {
-        System.out.println("Game started!");
-        System.out.println("Mode: " + gameMode.getDisplayName());
-        System.out.println("Players: " + numberOfPlayers);
+    /**
+     * Describe the game that is starting; prints nothing
+     * @return Announcement for the players
+     */
+    public String startGame() {
+        return "Game started!\n"
+                + "Mode: " + gameMode.getDisplayName() + "\n"
+                + "Players: " + numberOfPlayers;
     }
 
     public Student getNeighbor(Student student) {
@@ -150,17 +237,22 @@ public class Game {
         // Track which players need refilling
         List<Student> playersToRefill = new ArrayList<>();
         playersToRefill.add(currentPlayer);
+        int seat = students.indexOf(currentPlayer);
+        int[] owners = new int[3];
+        int[] cardIds = new int[3];
 
         // Validate each card is from its claimed source
         for (int i = 0; i < 3; i++) {
             Card card = selectedCards.get(i);
             String source = sources[i];
+            cardIds[i] = card.getId();
 
             if (source.equals("hand")) {
                 if (!currentPlayer.getHand().contains(card)) {
                     System.out.println("ERROR: Card not in player's hand!");
                     return false;
                 }
+                owners[i] = seat;
             } else if (source.equals("other_player")) {
                 Student otherPlayer = findStudentByName(playerNames[i]);
                 if (otherPlayer == null || !otherPlayer.getHand().contains(card)) {
@@ -170,50 +262,28 @@ public class Game {
                 if (!playersToRefill.contains(otherPlayer)) {
                     playersToRefill.add(otherPlayer);
                 }
+                owners[i] = students.indexOf(otherPlayer);
             } else if (source.equals("hall")) {
                 if (!lectureHall.contains(card)) {
                     System.out.println("ERROR: Card not in lecture hall!");
                     return false;
                 }
+                owners[i] = GameEvent.HALL;
+            } else {
+                System.out.println("ERROR: Unknown card source!");
+                return false;
             }
         }
 
+        emit(new GameEvent.Revealed(seat, owners, cardIds));
+
         // Validate trio
         Trio trio = new Trio(selectedCards.get(0), selectedCards.get(1), selectedCards.get(2));
         boolean isValid = validateTrio(trio);
 
         if (isValid) {
-            int ects = trio.calculateEcts(gameMode);
-
-            currentPlayer.addEcts(ects);
-            currentPlayer.addCompletedTrio(trio);
-
-            scoreBoard.updateScore(currentPlayer, ects);
-            scoreBoard.recordTrio(currentPlayer, trio);
-
-            if (gameMode.isTeamMode() && currentPlayer.getTeam() != null) {
-                Team team = currentPlayer.getTeam();
-                team.addCompletedTrio(trio);
-                scoreBoard.updateTeamScore(team, ects);
-                scoreBoard.recordTeamTrio(team, trio);
-            }
-
-            // Remove cards from their sources
-            for (int i = 0; i < 3; i++) {
-                Card card = selectedCards.get(i);
-                String source = sources[i];
-
-                if (source.equals("hand")) {
-                    currentPlayer.getHand().removeCard(card);
-                } else if (source.equals("other_player")) {
-                    Student otherPlayer = findStudentByName(playerNames[i]);
-                    if (otherPlayer != null) {
-                        otherPlayer.getHand().removeCard(card);
-                    }
-                } else if (source.equals("hall")) {
-                    lectureHall.removeCard(card);
-                }
-            }
+            // Credit the player and take the cards from their sources
+            emit(new GameEvent.TrioFormed(seat, owners, cardIds, trio.calculateEcts(gameMode)));
 
             // Refill all affected players
             for (Student player : playersToRefill) {
@@ -227,14 +297,97 @@ public class Game {
         }
 
         // Invalid trio
-        turnManager.nextTurn();
+        advanceTurn();
         return false;
     }
 
+    /**
+     * Pass the turn to the next player
+     */
+    public void advanceTurn() {
+        int next = turnManager.getCurrentPlayerIndex() + 1;
+        int round = turnManager.getRoundNumber();
+        if (next >= students.size()) {
+            next = 0;
+            round++;
+        }
+        emit(new GameEvent.TurnAdvanced(next, round));
+    }
+
+    /**
+     * Record a state change of the controller driving this game
+     * @param state The new state
+     */
+    public void recordStateChange(GameState state) {
+        emit(new GameEvent.StateChanged(state));
+    }
+
+    private void applyTrio(GameEvent.TrioFormed event) {
+        Card[] cards = new Card[3];
+        for (int i = 0; i < 3; i++) {
+            cards[i] = Deck.cardForId(event.cards[i]);
+        }
+        awardTrio(students.get(event.seat), new Trio(cards[0], cards[1], cards[2]));
+
+        for (int i = 0; i < 3; i++) {
+            if (event.owners[i] == GameEvent.HALL) {
+                lectureHall.removeCard(cards[i]);
+            } else {
+                students.get(event.owners[i]).getHand().removeCard(cards[i]);
+            }
+        }
+    }
+
+    private void applyRefill(GameEvent.Refilled event) {
+        for (int id : event.cards) {
+            Card card = deck.dealCard();
+            if (card == null || card.getId() != id) {
+                throw new IllegalStateException("Refill does not match the deck: expected card " + id);
+            }
+            if (event.seat == GameEvent.HALL) {
+                lectureHall.addCard(card);
+            } else {
+                students.get(event.seat).getHand().addCard(card);
+            }
+        }
+    }
+
+    /**
+     * Credit a valid trio to a player (and their team)
+     * @param student The player who formed the trio
+     * @param trio The trio
+     */
+    void awardTrio(Student student, Trio trio) {
+        int ects = trio.calculateEcts(gameMode);
+
+        student.addEcts(ects);
+        student.addCompletedTrio(trio);
+
+        scoreBoard.updateScore(student, ects);
+        scoreBoard.recordTrio(student, trio);
+
+        if (gameMode.isTeamMode() && student.getTeam() != null) {
+            Team team = student.getTeam();
+            team.addCompletedTrio(trio);
+            scoreBoard.updateTeamScore(team, ects);
+            scoreBoard.recordTeamTrio(team, trio);
+        }
+    }
+
+    /**
+     * Replace the deck (used when restoring a saved game)
+     * @param deck The remaining deck
+     */
+    void restoreDeck(Deck deck) {
+        this.deck = deck;
+    }
+
     /**
      * Find student by name
+     * @param name The student's name
+     * @return The student, or null if no player has this name
      */
-    private Student findStudentByName(String name) {
+    public Student findStudentByName(String name) {
         if (name == null) return null;
         for (Student student : students) {
             if (student.getName().equals(name)) {
@@ -285,11 +438,9 @@ public class Game {
                 targetSize = 9;
         }
 
-        while (lectureHall.getCardCount() < targetSize && !deck.isEmpty()) {
-            Card card = deck.dealCard();
-            if (card != null) {
-                lectureHall.addCard(card);
-            }
+        int count = Math.min(targetSize - lectureHall.getCardCount(), deck.getRemainingCount());
+        if (count > 0) {
+            emit(new GameEvent.Refilled(GameEvent.HALL, deck.topCardIds(count)));
         }
     }
 
@@ -315,11 +466,9 @@ public class Game {
                 targetSize = 5;
         }
 
-        while (student.getHand().getSize() < targetSize && !deck.isEmpty()) {
-            Card card = deck.dealCard();
-            if (card != null) {
-                student.getHand().addCard(card);
-            }
+        int count = Math.min(targetSize - student.getHand().getSize(), deck.getRemainingCount());
+        if (count > 0) {
+            emit(new GameEvent.Refilled(students.indexOf(student), deck.topCardIds(count)));
         }
     }
 
@@ -340,23 +489,29 @@ public class Game {
         return null;
     }
 
-    public void endGame() {
-        System.out.println("\n=== GAME OVER ===");
-        System.out.println(scoreBoard.toString());
+    /**
+     * Describe the final scores; prints nothing
+     * @return Game over report with the scoreboard and the winner
+     */
+    public String endGame() {
+        StringBuilder report = new StringBuilder();
+        report.append("\n=== GAME OVER ===\n");
+        report.append(scoreBoard.toString());
 
         if (!gameMode.isTeamMode()) {
             Student winner = scoreBoard.getWinner();
             if (winner != null) {
-                System.out.println("\nWinner: " + winner.getName() + " with " +
-                        winner.getEctsCredits() + " ECTS!");
+                report.append("\n\nWinner: ").append(winner.getName()).append(" with ")
+                        .append(winner.getEctsCredits()).append(" ECTS!");
             }
         } else {
             Team winner = scoreBoard.getWinningTeam();
             if (winner != null) {
-                System.out.println("\nWinning Team: " + winner.getTeamName() + " with " +
-                        winner.getTeamScore() + " ECTS!");
+                report.append("\n\nWinning Team: ").append(winner.getTeamName()).append(" with ")
+                        .append(winner.getTeamScore()).append(" ECTS!");
             }
         }
+        return report.toString();
     }
 
     // Getters
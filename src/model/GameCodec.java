@@ -0,0 +1,176 @@
+package model;
+
+import enums.Difficulty;
+import enums.GameMode;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of a Game.
+ *
+ * Cards are stored as their deck ID in one byte, so a whole table fits
+ * in a couple of hundred bytes. Scores are not stored: each player's
+ * completed trios are, and decoding credits them again, which rebuilds
+ * ECTS, team scores and the score board exactly as play did.
+ *
+ * Layout: int magic, byte format, byte mode, byte difficulty, byte players,
+ * then per player [UTF name, byte n, n × card, byte t, t × 3 cards],
+ * then [byte n, n × card] for the hall and the deck (dealing order),
+ * then int currentPlayerIndex, int roundNumber.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public final class GameCodec {
+    private static final int MAGIC = 0x5452494F; // "TRIO"
+    private static final int FORMAT = 1;
+
+    private GameCodec() {
+    }
+
+    /**
+     * Encode a configured and dealt game
+     * @param game The game (must be called by the thread that owns it)
+     * @return Encoded bytes
+     */
+    public static byte[] encode(Game game) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(game, out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode game", e); // Not thrown by in-memory streams
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Write a game to a stream
+     * @param game The game
+     * @param out Target stream
+     * @throws IOException on write error
+     */
+    public static void write(Game game, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT);
+        out.writeByte(game.getGameMode().ordinal());
+        out.writeByte(game.getDifficulty().ordinal());
+
+        List<Student> students = game.getStudents();
+        out.writeByte(students.size());
+        for (Student student : students) {
+            out.writeUTF(student.getName());
+            writeCards(out, student.getHand().getAllCards());
+            List<Trio> trios = student.getCompletedTrios();
+            out.writeByte(trios.size());
+            for (Trio trio : trios) {
+                out.writeByte(trio.getCard1().getId());
+                out.writeByte(trio.getCard2().getId());
+                out.writeByte(trio.getCard3().getId());
+            }
+        }
+
+        writeCards(out, game.getLectureHall().getAllCards());
+        writeCards(out, game.getDeck().getCards());
+        out.writeInt(game.getTurnManager().getCurrentPlayerIndex());
+        out.writeInt(game.getTurnManager().getRoundNumber());
+    }
+
+    /**
+     * Decode a game
+     * @param data Bytes produced by {@link #encode}
+     * @return The restored game
+     * @throws IOException if the data is not a valid encoded game
+     */
+    public static Game decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Read a game from a stream
+     * @param in Source stream
+     * @return The restored game
+     * @throws IOException on read error or invalid data
+     */
+    public static Game read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an encoded game");
+        }
+        int format = in.readUnsignedByte();
+        if (format < 1 || format > FORMAT) {
+            throw new IOException("Unsupported game format " + format);
+        }
+        GameMode mode = readEnum(GameMode.values(), in.readUnsignedByte());
+        Difficulty difficulty = readEnum(Difficulty.values(), in.readUnsignedByte());
+        int numPlayers = in.readUnsignedByte();
+
+        List<String> names = new ArrayList<>();
+        List<List<Card>> hands = new ArrayList<>();
+        List<List<Card>> trios = new ArrayList<>();
+        for (int i = 0; i < numPlayers; i++) {
+            names.add(in.readUTF());
+            hands.add(readCards(in, in.readUnsignedByte()));
+            trios.add(readCards(in, in.readUnsignedByte() * 3));
+        }
+        List<Card> hall = readCards(in, in.readUnsignedByte());
+        List<Card> deck = readCards(in, in.readUnsignedByte());
+        int currentPlayerIndex = in.readInt();
+        int roundNumber = in.readInt();
+        if (currentPlayerIndex < 0 || currentPlayerIndex >= numPlayers) {
+            throw new IOException("Invalid current player " + currentPlayerIndex);
+        }
+
+        Game game = new Game();
+        game.configure(numPlayers, mode, difficulty, names);
+        List<Student> students = game.getStudents();
+        for (int i = 0; i < numPlayers; i++) {
+            Student student = students.get(i);
+            for (Card card : hands.get(i)) {
+                student.getHand().addCard(card);
+            }
+            List<Card> cards = trios.get(i);
+            for (int c = 0; c < cards.size(); c += 3) {
+                game.awardTrio(student, new Trio(cards.get(c), cards.get(c + 1), cards.get(c + 2)));
+            }
+        }
+        for (Card card : hall) {
+            game.getLectureHall().addCard(card);
+        }
+        game.restoreDeck(new Deck(difficulty, deck));
+        game.getTurnManager().restore(currentPlayerIndex, roundNumber);
+        return game;
+    }
+
+    private static void writeCards(DataOutputStream out, List<Card> cards) throws IOException {
+        out.writeByte(cards.size());
+        for (Card card : cards) {
+            out.writeByte(card.getId());
+        }
+    }
+
+    private static List<Card> readCards(DataInputStream in, int count) throws IOException {
+        List<Card> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = in.readUnsignedByte();
+            Card card = Deck.cardForId(id);
+            if (card == null) {
+                throw new IOException("Invalid card ID " + id);
+            }
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    private static <E> E readEnum(E[] values, int ordinal) throws IOException {
+        if (ordinal >= values.length) {
+            throw new IOException("Invalid enum value " + ordinal);
+        }
+        return values[ordinal];
+    }
+}
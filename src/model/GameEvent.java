@@ -0,0 +1,278 @@
+package model;
+
+import enums.Difficulty;
+import enums.GameMode;
+import enums.GameState;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable record of one change to a Game.
+ *
+ * Game records each event before applying it, so the events of a game,
+ * folded in order from the first one, rebuild it exactly (see
+ * {@link Game#replay}). Cards are kept as their deck IDs; the dealing
+ * order follows from the seed of {@link Dealt}, and every later card
+ * taken from the deck is listed in the event that takes it.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public abstract class GameEvent {
+    /** Seat value used for the lecture hall */
+    public static final int HALL = -1;
+
+    /**
+     * Kind of event, in the order of their codes
+     */
+    public enum Type {
+        CREATED, DEALT, REVEALED, TRIO_FORMED, REFILLED, TURN_ADVANCED, STATE_CHANGED
+    }
+
+    private GameEvent() {
+    }
+
+    public abstract Type getType();
+
+    /**
+     * Players seated, mode and difficulty chosen
+     */
+    public static final class Created extends GameEvent {
+        final int numPlayers;
+        final GameMode mode;
+        final Difficulty difficulty;
+        final List<String> names;
+
+        public Created(int numPlayers, GameMode mode, Difficulty difficulty, List<String> names) {
+            this.numPlayers = numPlayers;
+            this.mode = mode;
+            this.difficulty = difficulty;
+            this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        }
+
+        @Override
+        public Type getType() {
+            return Type.CREATED;
+        }
+
+        public int getNumPlayers() {
+            return numPlayers;
+        }
+
+        public GameMode getMode() {
+            return mode;
+        }
+
+        public Difficulty getDifficulty() {
+            return difficulty;
+        }
+
+        public List<String> getNames() {
+            return names;
+        }
+
+        @Override
+        public String toString() {
+            return "Created[" + mode + ", " + difficulty + ", " + names + "]";
+        }
+    }
+
+    /**
+     * Deck shuffled with a seed, then hands and hall dealt from it
+     */
+    public static final class Dealt extends GameEvent {
+        final long seed;
+
+        public Dealt(long seed) {
+            this.seed = seed;
+        }
+
+        @Override
+        public Type getType() {
+            return Type.DEALT;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        @Override
+        public String toString() {
+            return "Dealt[seed=" + seed + "]";
+        }
+    }
+
+    /**
+     * Three cards picked by the current player and shown, before they
+     * are judged. Each card comes with the seat it was taken from, or
+     * {@link #HALL}.
+     */
+    public static class Revealed extends GameEvent {
+        final int seat;
+        final int[] owners;
+        final int[] cards;
+
+        public Revealed(int seat, int[] owners, int[] cards) {
+            if (owners.length != 3 || cards.length != 3) {
+                throw new IllegalArgumentException("A move reveals exactly 3 cards");
+            }
+            this.seat = seat;
+            this.owners = owners.clone();
+            this.cards = cards.clone();
+        }
+
+        @Override
+        public Type getType() {
+            return Type.REVEALED;
+        }
+
+        /**
+         * @return Seat of the player who picked the cards
+         */
+        public int getSeat() {
+            return seat;
+        }
+
+        /**
+         * @return Seat each card was taken from, or {@link #HALL}
+         */
+        public int[] getOwners() {
+            return owners.clone();
+        }
+
+        /**
+         * @return Deck IDs of the 3 cards
+         */
+        public int[] getCards() {
+            return cards.clone();
+        }
+
+        /**
+         * @param index Position of the card (0-2)
+         * @return Deck ID of that card, without copying the array
+         */
+        public int getCard(int index) {
+            return cards[index];
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "[seat=" + seat + ", from=" + Arrays.toString(owners)
+                    + ", cards=" + Arrays.toString(cards) + "]";
+        }
+    }
+
+    /**
+     * The revealed cards formed a valid trio: they leave their places
+     * and the player is credited
+     */
+    public static final class TrioFormed extends Revealed {
+        final int ects;
+
+        public TrioFormed(int seat, int[] owners, int[] cards, int ects) {
+            super(seat, owners, cards);
+            this.ects = ects;
+        }
+
+        @Override
+        public Type getType() {
+            return Type.TRIO_FORMED;
+        }
+
+        public int getEcts() {
+            return ects;
+        }
+    }
+
+    /**
+     * Cards dealt from the deck into a hand or the hall
+     */
+    public static final class Refilled extends GameEvent {
+        final int seat;
+        final int[] cards;
+
+        public Refilled(int seat, int[] cards) {
+            this.seat = seat;
+            this.cards = cards.clone();
+        }
+
+        @Override
+        public Type getType() {
+            return Type.REFILLED;
+        }
+
+        /**
+         * @return Seat refilled, or {@link #HALL}
+         */
+        public int getSeat() {
+            return seat;
+        }
+
+        public int[] getCards() {
+            return cards.clone();
+        }
+
+        @Override
+        public String toString() {
+            return "Refilled[seat=" + seat + ", cards=" + Arrays.toString(cards) + "]";
+        }
+    }
+
+    /**
+     * The turn passed to the next player
+     */
+    public static final class TurnAdvanced extends GameEvent {
+        final int nextSeat;
+        final int round;
+
+        public TurnAdvanced(int nextSeat, int round) {
+            this.nextSeat = nextSeat;
+            this.round = round;
+        }
+
+        @Override
+        public Type getType() {
+            return Type.TURN_ADVANCED;
+        }
+
+        public int getNextSeat() {
+            return nextSeat;
+        }
+
+        public int getRound() {
+            return round;
+        }
+
+        @Override
+        public String toString() {
+            return "TurnAdvanced[next=" + nextSeat + ", round=" + round + "]";
+        }
+    }
+
+    /**
+     * The controller's state machine moved to a new state
+     */
+    public static final class StateChanged extends GameEvent {
+        final GameState state;
+
+        public StateChanged(GameState state) {
+            this.state = state;
+        }
+
+        @Override
+        public Type getType() {
+            return Type.STATE_CHANGED;
+        }
+
+        public GameState getState() {
+            return state;
+        }
+
+        @Override
+        public String toString() {
+            return "StateChanged[" + state + "]";
+        }
+    }
+}
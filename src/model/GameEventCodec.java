@@ -0,0 +1,183 @@
+package model;
+
+import enums.Difficulty;
+import enums.GameMode;
+import enums.GameState;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of game events.
+ *
+ * Each event is a type byte followed by its fields; seats are signed
+ * bytes (the hall is -1) and cards are their deck ID in one byte, so a
+ * move rarely takes more than a dozen bytes.
+ *
+ * Layout of a batch: short count, then count × event.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public final class GameEventCodec {
+
+    private GameEventCodec() {
+    }
+
+    /**
+     * Encode a batch of events
+     * @param events Events, oldest first
+     * @return Encoded bytes
+     */
+    public static byte[] encode(List<GameEvent> events) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * events.size() + 2);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(events.size());
+            for (GameEvent event : events) {
+                write(event, out);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode events", e); // Not thrown by in-memory streams
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a batch of events
+     * @param data Bytes produced by {@link #encode}
+     * @return The events, oldest first
+     * @throws IOException if the data is not a valid batch
+     */
+    public static List<GameEvent> decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int count = in.readUnsignedShort();
+            List<GameEvent> events = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                events.add(read(in));
+            }
+            return events;
+        }
+    }
+
+    /**
+     * Write one event to a stream
+     * @param event The event
+     * @param out Target stream
+     * @throws IOException on write error
+     */
+    public static void write(GameEvent event, DataOutputStream out) throws IOException {
+        out.writeByte(event.getType().ordinal());
+        switch (event.getType()) {
+            case CREATED:
+                GameEvent.Created created = (GameEvent.Created) event;
+                out.writeByte(created.numPlayers);
+                out.writeByte(created.mode.ordinal());
+                out.writeByte(created.difficulty.ordinal());
+                out.writeByte(created.names.size());
+                for (String name : created.names) {
+                    out.writeUTF(name);
+                }
+                break;
+            case DEALT:
+                out.writeLong(((GameEvent.Dealt) event).seed);
+                break;
+            case REVEALED:
+            case TRIO_FORMED:
+                GameEvent.Revealed revealed = (GameEvent.Revealed) event;
+                out.writeByte(revealed.seat);
+                for (int i = 0; i < 3; i++) {
+                    out.writeByte(revealed.owners[i]);
+                    out.writeByte(revealed.cards[i]);
+                }
+                if (event instanceof GameEvent.TrioFormed) {
+                    out.writeShort(((GameEvent.TrioFormed) event).ects);
+                }
+                break;
+            case REFILLED:
+                GameEvent.Refilled refilled = (GameEvent.Refilled) event;
+                out.writeByte(refilled.seat);
+                out.writeByte(refilled.cards.length);
+                for (int card : refilled.cards) {
+                    out.writeByte(card);
+                }
+                break;
+            case TURN_ADVANCED:
+                GameEvent.TurnAdvanced advanced = (GameEvent.TurnAdvanced) event;
+                out.writeByte(advanced.nextSeat);
+                out.writeInt(advanced.round);
+                break;
+            case STATE_CHANGED:
+                out.writeByte(((GameEvent.StateChanged) event).state.ordinal());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown event " + event);
+        }
+    }
+
+    /**
+     * Read one event from a stream
+     * @param in Source stream
+     * @return The event
+     * @throws IOException on read error or invalid data
+     */
+    public static GameEvent read(DataInputStream in) throws IOException {
+        GameEvent.Type type = readEnum(GameEvent.Type.values(), in.readUnsignedByte());
+        switch (type) {
+            case CREATED:
+                int numPlayers = in.readUnsignedByte();
+                GameMode mode = readEnum(GameMode.values(), in.readUnsignedByte());
+                Difficulty difficulty = readEnum(Difficulty.values(), in.readUnsignedByte());
+                int count = in.readUnsignedByte();
+                List<String> names = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    names.add(in.readUTF());
+                }
+                return new GameEvent.Created(numPlayers, mode, difficulty, names);
+            case DEALT:
+                return new GameEvent.Dealt(in.readLong());
+            case REVEALED:
+            case TRIO_FORMED:
+                int seat = in.readByte();
+                int[] owners = new int[3];
+                int[] cards = new int[3];
+                for (int i = 0; i < 3; i++) {
+                    owners[i] = in.readByte();
+                    cards[i] = readCard(in);
+                }
+                return type == GameEvent.Type.REVEALED
+                        ? new GameEvent.Revealed(seat, owners, cards)
+                        : new GameEvent.TrioFormed(seat, owners, cards, in.readShort());
+            case REFILLED:
+                int refilledSeat = in.readByte();
+                int[] dealt = new int[in.readUnsignedByte()];
+                for (int i = 0; i < dealt.length; i++) {
+                    dealt[i] = readCard(in);
+                }
+                return new GameEvent.Refilled(refilledSeat, dealt);
+            case TURN_ADVANCED:
+                int nextSeat = in.readByte();
+                return new GameEvent.TurnAdvanced(nextSeat, in.readInt());
+            default:
+                return new GameEvent.StateChanged(readEnum(GameState.values(), in.readUnsignedByte()));
+        }
+    }
+
+    private static int readCard(DataInputStream in) throws IOException {
+        int id = in.readUnsignedByte();
+        if (Deck.cardForId(id) == null) {
+            throw new IOException("Invalid card ID " + id);
+        }
+        return id;
+    }
+
+    private static <E> E readEnum(E[] values, int ordinal) throws IOException {
+        if (ordinal >= values.length) {
+            throw new IOException("Invalid enum value " + ordinal);
+        }
+        return values[ordinal];
+    }
+}
@@ -0,0 +1,12 @@
+package model;
+
+/**
+ * Receives the events of a Game as they are recorded, before they are
+ * applied. Called on the thread that changes the game.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public interface GameEventListener {
+    void onEvent(GameEvent event);
+}
@@ -0,0 +1,36 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only, in-memory list of a game's events.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class GameEventLog implements GameEventListener {
+    private final List<GameEvent> events;
+
+    public GameEventLog() {
+        this.events = new ArrayList<>();
+    }
+
+    @Override
+    public void onEvent(GameEvent event) {
+        events.add(event);
+    }
+
+    /**
+     * Get the events recorded so far
+     * @return Read-only view, oldest first
+     */
+    public List<GameEvent> getEvents() {
+        return Collections.unmodifiableList(events);
+    }
+
+    public int size() {
+        return events.size();
+    }
+}
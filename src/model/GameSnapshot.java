@@ -0,0 +1,202 @@
+package model;
+
+import enums.Difficulty;
+import enums.GameMode;
+import enums.GameState;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of a game at one point in time.
+ * Readers on any thread can use it freely while the game itself keeps
+ * being mutated by its owner. Cards are immutable, so they are shared
+ * rather than copied.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public final class GameSnapshot {
+    private final long version;
+    private final GameState state;
+    private final GameMode gameMode;
+    private final Difficulty difficulty;
+    private final List<PlayerState> players;
+    private final List<TeamState> teams;
+    private final List<Card> lectureHall;
+    private final int deckRemaining;
+    private final int currentPlayerIndex;
+    private final int roundNumber;
+
+    /**
+     * Immutable state of one player
+     */
+    public static final class PlayerState {
+        private final String name;
+        private final int ectsCredits;
+        private final int trioCount;
+        private final String teamName;
+        private final List<Card> hand;
+
+        PlayerState(Student student) {
+            this.name = student.getName();
+            this.ectsCredits = student.getEctsCredits();
+            this.trioCount = student.getTrioCount();
+            this.teamName = student.getTeam() != null ? student.getTeam().getTeamName() : null;
+            this.hand = shared(student.getHand().getAllCards());
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getEctsCredits() {
+            return ectsCredits;
+        }
+
+        public int getTrioCount() {
+            return trioCount;
+        }
+
+        public String getTeamName() {
+            return teamName;
+        }
+
+        public List<Card> getHand() {
+            return hand;
+        }
+    }
+
+    /**
+     * Immutable state of one team
+     */
+    public static final class TeamState {
+        private final String teamName;
+        private final int teamScore;
+        private final int trioCount;
+
+        TeamState(Team team) {
+            this.teamName = team.getTeamName();
+            this.teamScore = team.getTeamScore();
+            this.trioCount = team.getTrioCount();
+        }
+
+        public String getTeamName() {
+            return teamName;
+        }
+
+        public int getTeamScore() {
+            return teamScore;
+        }
+
+        public int getTrioCount() {
+            return trioCount;
+        }
+    }
+
+    /**
+     * Capture the current state of a game
+     * @param game The game (must be called by the thread that owns it)
+     * @param state Current state of the game's state machine
+     * @param version Monotonic version number of this snapshot
+     * @return The snapshot
+     */
+    public static GameSnapshot capture(Game game, GameState state, long version) {
+        return new GameSnapshot(game, state, version);
+    }
+
+    private GameSnapshot(Game game, GameState state, long version) {
+        this.version = version;
+        this.state = state;
+        this.gameMode = game.getGameMode();
+        this.difficulty = game.getDifficulty();
+
+        List<PlayerState> playerStates = new ArrayList<>();
+        for (Student student : game.getStudents()) {
+            playerStates.add(new PlayerState(student));
+        }
+        this.players = Collections.unmodifiableList(playerStates);
+
+        List<TeamState> teamStates = new ArrayList<>();
+        for (Team team : game.getTeams()) {
+            teamStates.add(new TeamState(team));
+        }
+        this.teams = Collections.unmodifiableList(teamStates);
+
+        this.lectureHall = shared(game.getLectureHall().getAllCards());
+        this.deckRemaining = game.getDeck() != null ? game.getDeck().getRemainingCount() : 0;
+
+        TurnManager turnManager = game.getTurnManager();
+        this.currentPlayerIndex = turnManager != null ? turnManager.getCurrentPlayerIndex() : 0;
+        this.roundNumber = turnManager != null ? turnManager.getRoundNumber() : 1;
+    }
+
+    /**
+     * Swap cards for the shared instances from Deck, so a snapshot
+     * does not keep its game's own card objects alive
+     */
+    private static List<Card> shared(List<Card> cards) {
+        for (int i = 0; i < cards.size(); i++) {
+            Card shared = Deck.cardForId(cards.get(i).getId());
+            if (cards.get(i).equals(shared)) {
+                cards.set(i, shared);
+            }
+        }
+        return Collections.unmodifiableList(cards);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    public GameMode getGameMode() {
+        return gameMode;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public List<PlayerState> getPlayers() {
+        return players;
+    }
+
+    public List<TeamState> getTeams() {
+        return teams;
+    }
+
+    public List<Card> getLectureHall() {
+        return lectureHall;
+    }
+
+    public int getDeckRemaining() {
+        return deckRemaining;
+    }
+
+    public int getCurrentPlayerIndex() {
+        return currentPlayerIndex;
+    }
+
+    /**
+     * Get the player whose turn it is
+     * @return Current player's state, or null if there are no players
+     */
+    public PlayerState getCurrentPlayer() {
+        return players.isEmpty() ? null : players.get(currentPlayerIndex);
+    }
+
+    public int getRoundNumber() {
+        return roundNumber;
+    }
+
+    @Override
+    public String toString() {
+        PlayerState current = getCurrentPlayer();
+        return "Snapshot v" + version + " (" + state + ", round " + roundNumber +
+                ", current: " + (current != null ? current.getName() : "None") + ")";
+    }
+}
@@ -0,0 +1,120 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes one flexible turn: three card picks, each taken from
+ * the current player's hand, another player's hand or the lecture hall.
+ * Picks are stored by position so a move can be sent over the wire
+ * or replayed against the same game state.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class Move {
+    public static final String HAND = "hand";
+    public static final String OTHER_PLAYER = "other_player";
+    public static final String HALL = "hall";
+
+    private final String[] sources;
+    private final String[] playerNames;
+    private final int[] positions;
+
+    /**
+     * Constructor for Move
+     * @param sources Source of each pick: "hand", "other_player" or "hall"
+     * @param playerNames Owner name for "other_player" picks (null otherwise)
+     * @param positions Position of each pick inside its source
+     */
+    public Move(String[] sources, String[] playerNames, int[] positions) {
+        if (sources == null || playerNames == null || positions == null
+                || sources.length != 3 || playerNames.length != 3 || positions.length != 3) {
+            throw new IllegalArgumentException("A move must contain exactly 3 picks");
+        }
+        this.sources = sources.clone();
+        this.playerNames = playerNames.clone();
+        this.positions = positions.clone();
+    }
+
+    /**
+     * Classic move: two cards from own hand and one from the lecture hall
+     * @param handIndex1 First hand position
+     * @param handIndex2 Second hand position
+     * @param hallIndex Lecture hall position
+     * @return The move
+     */
+    public static Move fromHandAndHall(int handIndex1, int handIndex2, int hallIndex) {
+        return new Move(new String[]{HAND, HAND, HALL},
+                new String[]{null, null, null},
+                new int[]{handIndex1, handIndex2, hallIndex});
+    }
+
+    /**
+     * Resolve the picks against the current game state
+     * @param game The game
+     * @param player The player making the move
+     * @return The 3 selected cards, or null if a pick does not exist
+     */
+    public List<Card> resolveCards(Game game, Student player) {
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Card card = null;
+            if (HAND.equals(sources[i])) {
+                card = player.getHand().getCard(positions[i]);
+            } else if (OTHER_PLAYER.equals(sources[i])) {
+                Student other = game.findStudentByName(playerNames[i]);
+                if (other != null && !other.equals(player)) {
+                    card = other.getHand().getCard(positions[i]);
+                }
+            } else if (HALL.equals(sources[i])) {
+                card = game.getLectureHall().getCard(positions[i]);
+            }
+            if (card == null) {
+                return null;
+            }
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    public String[] getSources() {
+        return sources.clone();
+    }
+
+    public String[] getPlayerNames() {
+        return playerNames.clone();
+    }
+
+    public int[] getPositions() {
+        return positions.clone();
+    }
+
+    public String getSource(int pick) {
+        return sources[pick];
+    }
+
+    public String getPlayerName(int pick) {
+        return playerNames[pick];
+    }
+
+    public int getPosition(int pick) {
+        return positions[pick];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Move[");
+        for (int i = 0; i < 3; i++) {
+            sb.append(sources[i]);
+            if (playerNames[i] != null) {
+                sb.append(":").append(playerNames[i]);
+            }
+            sb.append("#").append(positions[i]);
+            if (i < 2) {
+                sb.append(", ");
+            }
+        }
+        return sb.append("]").toString();
+    }
+}
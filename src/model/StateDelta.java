@@ -0,0 +1,277 @@
+package model;
+
+import enums.GameState;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Difference between two consecutive snapshots of the same game:
+ * cards removed from and added to each hand and the lecture hall,
+ * changed scores and the new turn position. Applying it to the older
+ * snapshot's table gives the newer one, which is much smaller to send
+ * than a full snapshot. It also keeps the newer hands, so a viewer who
+ * only sees the ends of a hand can be sent what it now shows.
+ *
+ * Removals take the first matching card of the source; hand additions
+ * are re-sorted like {@link Hand}, hall additions are appended like
+ * {@link LectureHall}.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Hands kept for partial viewers
+ */
+public final class StateDelta {
+    /** Seat value used for the lecture hall in {@link SourceChange} */
+    public static final int HALL = -1;
+
+    private final long fromVersion;
+    private final long toVersion;
+    private final GameState state;
+    private final int currentPlayerIndex;
+    private final int previousPlayerIndex;
+    private final int roundNumber;
+    private final int deckRemaining;
+    private final List<SourceChange> sourceChanges;
+    private final List<ScoreChange> scoreChanges;
+    private final List<ScoreChange> teamChanges;
+    private final List<List<Card>> hands; // Newer hand of every seat, shared with its snapshot
+    private final boolean empty;
+
+    /**
+     * Cards leaving and entering one hand (or the hall)
+     */
+    public static final class SourceChange {
+        private final int seat;
+        private final List<Card> removed;
+        private final List<Card> added;
+
+        SourceChange(int seat, List<Card> removed, List<Card> added) {
+            this.seat = seat;
+            this.removed = Collections.unmodifiableList(removed);
+            this.added = Collections.unmodifiableList(added);
+        }
+
+        /**
+         * @return Player seat, or {@link StateDelta#HALL}
+         */
+        public int getSeat() {
+            return seat;
+        }
+
+        public List<Card> getRemoved() {
+            return removed;
+        }
+
+        public List<Card> getAdded() {
+            return added;
+        }
+    }
+
+    /**
+     * New score of one player or team
+     */
+    public static final class ScoreChange {
+        private final int index;
+        private final int ects;
+        private final int trios;
+
+        ScoreChange(int index, int ects, int trios) {
+            this.index = index;
+            this.ects = ects;
+            this.trios = trios;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getEcts() {
+            return ects;
+        }
+
+        public int getTrios() {
+            return trios;
+        }
+    }
+
+    /**
+     * Compute the delta between two snapshots of the same game
+     * @param previous Older snapshot
+     * @param next Newer snapshot
+     * @return The delta
+     */
+    public static StateDelta between(GameSnapshot previous, GameSnapshot next) {
+        return new StateDelta(previous, next);
+    }
+
+    private StateDelta(GameSnapshot previous, GameSnapshot next) {
+        this.fromVersion = previous.getVersion();
+        this.toVersion = next.getVersion();
+        this.state = next.getState();
+        this.currentPlayerIndex = next.getCurrentPlayerIndex();
+        this.previousPlayerIndex = previous.getCurrentPlayerIndex();
+        this.roundNumber = next.getRoundNumber();
+        this.deckRemaining = next.getDeckRemaining();
+
+        List<SourceChange> sources = new ArrayList<>();
+        List<ScoreChange> scores = new ArrayList<>();
+        List<List<Card>> newHands = new ArrayList<>();
+        for (int seat = 0; seat < next.getPlayers().size(); seat++) {
+            GameSnapshot.PlayerState before = previous.getPlayers().get(seat);
+            GameSnapshot.PlayerState after = next.getPlayers().get(seat);
+            newHands.add(after.getHand());
+
+            List<Card> removed = new ArrayList<>();
+            List<Card> added = new ArrayList<>();
+            diffCounts(before.getHand(), after.getHand(), removed, added);
+            if (!removed.isEmpty() || !added.isEmpty()) {
+                sources.add(new SourceChange(seat, removed, added));
+            }
+
+            if (before.getEctsCredits() != after.getEctsCredits() || before.getTrioCount() != after.getTrioCount()) {
+                scores.add(new ScoreChange(seat, after.getEctsCredits(), after.getTrioCount()));
+            }
+        }
+
+        SourceChange hall = diffHall(previous.getLectureHall(), next.getLectureHall());
+        if (hall != null) {
+            sources.add(hall);
+        }
+
+        List<ScoreChange> teams = new ArrayList<>();
+        for (int i = 0; i < next.getTeams().size(); i++) {
+            GameSnapshot.TeamState before = previous.getTeams().get(i);
+            GameSnapshot.TeamState after = next.getTeams().get(i);
+            if (before.getTeamScore() != after.getTeamScore() || before.getTrioCount() != after.getTrioCount()) {
+                teams.add(new ScoreChange(i, after.getTeamScore(), after.getTrioCount()));
+            }
+        }
+
+        this.sourceChanges = Collections.unmodifiableList(sources);
+        this.scoreChanges = Collections.unmodifiableList(scores);
+        this.teamChanges = Collections.unmodifiableList(teams);
+        this.hands = Collections.unmodifiableList(newHands);
+        this.empty = sources.isEmpty() && scores.isEmpty() && teams.isEmpty()
+                && previous.getState() == state
+                && previous.getCurrentPlayerIndex() == currentPlayerIndex
+                && previous.getRoundNumber() == roundNumber
+                && previous.getDeckRemaining() == deckRemaining;
+    }
+
+    /**
+     * Multiset difference of two sorted hands, by card ID
+     */
+    private static void diffCounts(List<Card> before, List<Card> after, List<Card> removed, List<Card> added) {
+        int[] counts = new int[Deck.MAX_CARD_ID + 1];
+        for (Card card : before) {
+            counts[card.getId()]++;
+        }
+        for (Card card : after) {
+            counts[card.getId()]--;
+        }
+        for (int id = 1; id <= Deck.MAX_CARD_ID; id++) {
+            for (int i = 0; i < counts[id]; i++) {
+                removed.add(Deck.cardForId(id));
+            }
+            for (int i = 0; i < -counts[id]; i++) {
+                added.add(Deck.cardForId(id));
+            }
+        }
+    }
+
+    /**
+     * The hall keeps its order: cards are removed in place and refills
+     * are appended, so the survivors must be a prefix of the new hall.
+     * Falls back to replacing the whole hall if that does not hold.
+     */
+    private static SourceChange diffHall(List<Card> before, List<Card> after) {
+        List<Card> survivors = new ArrayList<>(before);
+        List<Card> removed = new ArrayList<>();
+        List<Card> added = new ArrayList<>();
+        diffCounts(before, after, removed, added);
+        if (removed.isEmpty() && added.isEmpty()) {
+            return null;
+        }
+
+        for (Card card : removed) {
+            survivors.remove(card);
+        }
+        boolean prefix = survivors.size() <= after.size()
+                && survivors.equals(after.subList(0, survivors.size()));
+        if (!prefix) {
+            return new SourceChange(HALL, new ArrayList<>(before), new ArrayList<>(after));
+        }
+        return new SourceChange(HALL, removed, new ArrayList<>(after.subList(survivors.size(), after.size())));
+    }
+
+    /**
+     * Check if nothing visible changed between the two snapshots
+     * @return true if the delta carries no change
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    public long getFromVersion() {
+        return fromVersion;
+    }
+
+    public long getToVersion() {
+        return toVersion;
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    public int getCurrentPlayerIndex() {
+        return currentPlayerIndex;
+    }
+
+    /**
+     * Get whose turn it was in the older snapshot
+     * @return Seat index
+     */
+    public int getPreviousPlayerIndex() {
+        return previousPlayerIndex;
+    }
+
+    public int getPlayerCount() {
+        return hands.size();
+    }
+
+    /**
+     * Get a hand as it is in the newer snapshot
+     * @param seat Player seat
+     * @return Cards, highest ID first
+     */
+    public List<Card> getHand(int seat) {
+        return hands.get(seat);
+    }
+
+    public int getRoundNumber() {
+        return roundNumber;
+    }
+
+    public int getDeckRemaining() {
+        return deckRemaining;
+    }
+
+    public List<SourceChange> getSourceChanges() {
+        return sourceChanges;
+    }
+
+    public List<ScoreChange> getScoreChanges() {
+        return scoreChanges;
+    }
+
+    public List<ScoreChange> getTeamChanges() {
+        return teamChanges;
+    }
+
+    @Override
+    public String toString() {
+        return "Delta v" + fromVersion + " → v" + toVersion + " (" + sourceChanges.size() +
+                " sources, " + scoreChanges.size() + " scores)";
+    }
+}
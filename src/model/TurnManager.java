@@ -71,6 +71,16 @@ public class TurnManager {
         return students != null ? students.size() : 0;
     }
 
+    /**
+     * Put the turn back where a saved game left it
+     * @param currentPlayerIndex Index of the player whose turn it is
+     * @param roundNumber Current round
+     */
+    void restore(int currentPlayerIndex, int roundNumber) {
+        this.currentPlayerIndex = currentPlayerIndex;
+        this.roundNumber = roundNumber;
+    }
+
     /**
      * Reset the turn manager to initial state
      */
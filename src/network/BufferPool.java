@@ -0,0 +1,66 @@
+package network;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of fixed-size direct buffers for socket I/O.
+ * Direct buffers are expensive to allocate and are only reclaimed by
+ * the GC, so they are recycled instead of created per read or write.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class BufferPool {
+    private final Queue<ByteBuffer> free;
+    private final int bufferSize;
+    private final int maxPooled;
+    private final AtomicInteger pooled;
+
+    /**
+     * Constructor for BufferPool
+     * @param bufferSize Size of each buffer in bytes
+     * @param maxPooled Maximum number of idle buffers kept
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.free = new ConcurrentLinkedQueue<>();
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        this.pooled = new AtomicInteger();
+    }
+
+    /**
+     * Take a cleared buffer from the pool, allocating one if needed
+     * @return A direct buffer ready for writing
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Return a buffer to the pool
+     * @param buffer Buffer obtained from {@link #acquire()}
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != bufferSize) {
+            return;
+        }
+        if (pooled.incrementAndGet() <= maxPooled) {
+            free.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,67 @@
+package network;
+
+import server.TokenBucket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State of one client connection on TrioNioServer.
+ * Read-side fields belong to the selector thread; outbound frames may
+ * be queued from any thread.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+class Connection {
+    /** Seat of a client that joined a hotseat server without a name and plays whoever's turn it is */
+    static final int ANY_SEAT = -2;
+
+    final SocketChannel channel;
+    final SelectionKey key;
+    final ByteBuffer readBuffer;
+    final Queue<byte[]> outbound;
+    final AtomicBoolean flushQueued;
+
+    /** Move rate limit for this client */
+    final TokenBucket limiter;
+    /** Moves posted to the session and not answered yet */
+    final AtomicInteger inFlight;
+
+    /** Direct buffer holding bytes the socket did not accept yet */
+    ByteBuffer pendingWrite;
+
+    // Selector-thread state
+    String sessionId;
+    String playerName;
+    final List<int[]> selection;
+
+    /** Seat whose hand this client sees in full, {@link #ANY_SEAT} or {@link Protocol#SPECTATOR} */
+    volatile int seat = Protocol.SPECTATOR;
+
+    /** Set while watching a session; deltas then come from its ring */
+    SessionFanout spectating;
+    /** Next ring sequence (session version) this spectator needs */
+    long nextEvent;
+
+    Connection(SocketChannel channel, SelectionKey key, ByteBuffer readBuffer, TokenBucket limiter) {
+        this.channel = channel;
+        this.key = key;
+        this.readBuffer = readBuffer;
+        this.outbound = new ConcurrentLinkedQueue<>();
+        this.flushQueued = new AtomicBoolean(false);
+        this.limiter = limiter;
+        this.inFlight = new AtomicInteger();
+        this.selection = new ArrayList<>();
+    }
+
+    boolean isJoined() {
+        return sessionId != null;
+    }
+}
@@ -0,0 +1,409 @@
+package network;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import controller.GameController;
+import controller.TurnResult;
+import enums.Difficulty;
+import enums.GameMode;
+import model.*;
+import server.GameServer;
+import server.GameSession;
+import server.MoveThrottle;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP/JSON front end for GameServer, built on the JDK HttpServer.
+ *
+ *   POST   /sessions?mode=INDIVIDUAL_SIMPLE&difficulty=NORMAL&players=Dana,Acil
+ *   GET    /sessions/{id}?player=Dana           current state, as Dana sees it
+ *   GET    /sessions/{id}?since=N&wait=25000    long poll for a version newer than N
+ *   POST   /sessions/{id}/moves?picks=hand:0,hand:1,hall:4   (other player: other:Name:2)
+ *   DELETE /sessions/{id}
+ *   GET    /stats                               move throttling counters
+ *
+ * A state shows one player's hand in full (the one named by
+ * {@code player}, on any request that returns a state) and only the
+ * first and last cards of the others, the hidden cards being null.
+ * Without {@code player} every hand is shown that way.
+ *
+ * Long polls do not hold a thread while they wait: the exchange is
+ * parked on the session and answered when the next version is
+ * published or the wait expires. Moves over the session's rate limit
+ * or beyond its mailbox bound get 429 with a Retry-After header.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Hidden cards
+ */
+public class HttpGateway {
+    private static final long MAX_WAIT_MILLIS = 60_000;
+
+    private final GameServer gameServer;
+    private final HttpServer httpServer;
+    private final ExecutorService requestExecutor;
+    private final ScheduledExecutorService timeouts;
+
+    /**
+     * Body of a JSON response
+     */
+    private interface JsonBody {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    /**
+     * Constructor for HttpGateway
+     * @param gameServer Server hosting the sessions
+     * @param port HTTP port (0 picks a free port)
+     * @throws IOException if the port cannot be bound
+     */
+    public HttpGateway(GameServer gameServer, int port) throws IOException {
+        this.gameServer = gameServer;
+        this.httpServer = HttpServer.create(new InetSocketAddress(port), 1024);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.requestExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        httpServer.setExecutor(requestExecutor);
+        httpServer.createContext("/sessions", this::handle);
+        httpServer.createContext("/stats", this::stats);
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    public void stop() {
+        httpServer.stop(0);
+        timeouts.shutdownNow();
+        requestExecutor.shutdownNow();
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Route a request under /sessions
+     */
+    private void handle(HttpExchange exchange) {
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+
+            // path = ["", "sessions", id?, "moves"?]
+            if (path.length == 2 && method.equals("POST")) {
+                createSession(exchange, query);
+                return;
+            }
+            if (path.length < 3) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+
+            GameSession session = gameServer.getSessionManager().getSession(path[2]);
+            if (session == null) {
+                sendError(exchange, 404, "Unknown session " + path[2]);
+            } else if (path.length == 3 && method.equals("GET")) {
+                getState(exchange, session, query);
+            } else if (path.length == 3 && method.equals("DELETE")) {
+                gameServer.getSessionManager().closeSession(session.getSessionId());
+                send(exchange, 200, json -> json.beginObject().name("closed").value(true).endObject());
+            } else if (path.length == 4 && path[3].equals("moves") && method.equals("POST")) {
+                submitMove(exchange, session, query);
+            } else {
+                sendError(exchange, 404, "Not found");
+            }
+        } catch (RuntimeException e) {
+            sendError(exchange, 400, "Bad request: " + e.getMessage());
+        }
+    }
+
+    private void stats(HttpExchange exchange) {
+        MoveThrottle throttle = gameServer.getMoveThrottle();
+        send(exchange, 200, json -> json.beginObject()
+                .name("sessions").value(gameServer.getSessionManager().getSessionCount())
+                .name("movesAdmitted").value(throttle.getAdmitted())
+                .name("throttledByConnection").value(throttle.getThrottledByConnection())
+                .name("throttledBySession").value(throttle.getThrottledBySession())
+                .name("rejectedQueueFull").value(throttle.getRejectedQueueFull())
+                .endObject());
+    }
+
+    private void createSession(HttpExchange exchange, Map<String, String> query) {
+        GameMode mode = GameMode.valueOf(query.getOrDefault("mode", "INDIVIDUAL_SIMPLE"));
+        Difficulty difficulty = Difficulty.valueOf(query.getOrDefault("difficulty", "NORMAL"));
+        List<String> names = Arrays.asList(query.getOrDefault("players", "").split(","));
+        if (query.containsKey("player") && !names.contains(query.get("player"))) {
+            sendError(exchange, 400, "No player named " + query.get("player"));
+            return;
+        }
+
+        gameServer.getSessionManager().createSession(names.size(), mode, difficulty, names)
+                .whenCompleteAsync((session, error) -> {
+                    if (error != null) {
+                        sendError(exchange, 400, "Invalid game configuration");
+                    } else {
+                        GameSnapshot snapshot = session.getSnapshot();
+                        send(exchange, 201, json -> writeState(json, session.getSessionId(), snapshot,
+                                viewerOf(snapshot, query)));
+                    }
+                }, requestExecutor);
+    }
+
+    private void getState(HttpExchange exchange, GameSession session, Map<String, String> query) {
+        GameSnapshot current = session.getSnapshot();
+        int viewer = viewerOf(current, query);
+        if (!query.containsKey("since")) {
+            send(exchange, 200, json -> writeState(json, session.getSessionId(), current, viewer));
+            return;
+        }
+
+        long since = Long.parseLong(query.get("since"));
+        long wait = Math.min(MAX_WAIT_MILLIS, Long.parseLong(query.getOrDefault("wait", "25000")));
+        CompletableFuture<GameSnapshot> newer = session.awaitNewerThan(since);
+        if (!newer.isDone()) {
+            timeouts.schedule(() -> newer.complete(null), wait, TimeUnit.MILLISECONDS);
+        }
+
+        // Answer on a request thread, never on the session's mailbox thread
+        newer.whenCompleteAsync((snapshot, error) -> {
+            if (snapshot == null) {
+                sendEmpty(exchange, 204);
+            } else {
+                send(exchange, 200, json -> writeState(json, session.getSessionId(), snapshot, viewer));
+            }
+        }, requestExecutor);
+    }
+
+    private void submitMove(HttpExchange exchange, GameSession session, Map<String, String> query) {
+        String[] picks = query.getOrDefault("picks", "").split(",");
+        if (picks.length != 3) {
+            sendError(exchange, 400, "Exactly 3 picks are required");
+            return;
+        }
+
+        // HTTP has no lasting connection, so only the session budget applies
+        MoveThrottle throttle = gameServer.getMoveThrottle();
+        int verdict = throttle.admit(null, 0, session);
+        if (verdict != MoveThrottle.ADMITTED) {
+            long retryAfter = throttle.getRetryAfterMillis(verdict, null, session);
+            exchange.getResponseHeaders().set("Retry-After", Long.toString((retryAfter + 999) / 1000));
+            send(exchange, 429, json -> json.beginObject()
+                    .name("error").value("Too many moves: " + MoveThrottle.describe(verdict))
+                    .name("retryAfterMillis").value(retryAfter)
+                    .endObject());
+            return;
+        }
+
+        session.submit(controller -> playPicks(controller, picks))
+                .whenCompleteAsync((body, error) -> {
+                    if (error != null) {
+                        sendError(exchange, 409, error.getCause() != null
+                                ? error.getCause().getMessage() : error.getMessage());
+                    } else {
+                        send(exchange, 200, body);
+                    }
+                }, requestExecutor);
+    }
+
+    /**
+     * Apply picks on the session's mailbox thread
+     * @return JSON body describing the outcome
+     */
+    private JsonBody playPicks(GameController controller, String[] picks) {
+        if (!controller.isGameRunning()) {
+            throw new IllegalStateException("Game is not in playing state");
+        }
+
+        String[] sources = new String[3];
+        String[] playerNames = new String[3];
+        int[] positions = new int[3];
+        for (int i = 0; i < 3; i++) {
+            String[] parts = picks[i].split(":");
+            if (parts[0].equals("hand") && parts.length == 2) {
+                sources[i] = Move.HAND;
+            } else if (parts[0].equals("hall") && parts.length == 2) {
+                sources[i] = Move.HALL;
+            } else if (parts[0].equals("other") && parts.length == 3) {
+                sources[i] = Move.OTHER_PLAYER;
+                playerNames[i] = parts[1];
+            } else {
+                throw new IllegalArgumentException("Invalid pick " + picks[i]);
+            }
+            positions[i] = Integer.parseInt(parts[parts.length - 1]);
+        }
+
+        TurnResult result = controller.playMove(new Move(sources, playerNames, positions));
+        if (!result.isPlayed()) {
+            throw new IllegalArgumentException("Invalid card selection");
+        }
+
+        return json -> json.beginObject()
+                .name("valid").value(result.isValid())
+                .name("ects").value(result.getEctsAwarded())
+                .name("bonusTurn").value(result.isBonusTurn())
+                .name("victory").value(result.isVictory())
+                .name("nextPlayer").value(result.getNextPlayerName())
+                .endObject();
+    }
+
+    /**
+     * Find the seat named by a request's {@code player} parameter
+     * @return Seat index, or {@link Protocol#SPECTATOR} if none is named
+     */
+    private static int viewerOf(GameSnapshot snapshot, Map<String, String> query) {
+        String player = query.get("player");
+        if (player == null) {
+            return Protocol.SPECTATOR;
+        }
+        for (int seat = 0; seat < snapshot.getPlayers().size(); seat++) {
+            if (snapshot.getPlayers().get(seat).getName().equals(player)) {
+                return seat;
+            }
+        }
+        throw new IllegalArgumentException("No player named " + player);
+    }
+
+    /**
+     * Write a snapshot as JSON, as one player sees it
+     * @param viewer Seat whose hand is written in full, or {@link Protocol#SPECTATOR}
+     */
+    static void writeState(JsonWriter json, String sessionId, GameSnapshot snapshot, int viewer) throws IOException {
+        json.beginObject()
+                .name("sessionId").value(sessionId)
+                .name("version").value(snapshot.getVersion())
+                .name("state").value(snapshot.getState().name())
+                .name("mode").value(snapshot.getGameMode().name())
+                .name("difficulty").value(snapshot.getDifficulty().name())
+                .name("round").value(snapshot.getRoundNumber())
+                .name("currentPlayer").value(snapshot.getCurrentPlayerIndex())
+                .name("deckRemaining").value(snapshot.getDeckRemaining());
+
+        json.name("players").beginArray();
+        for (int seat = 0; seat < snapshot.getPlayers().size(); seat++) {
+            GameSnapshot.PlayerState player = snapshot.getPlayers().get(seat);
+            json.beginObject()
+                    .name("name").value(player.getName())
+                    .name("ects").value(player.getEctsCredits())
+                    .name("trios").value(player.getTrioCount())
+                    .name("team").value(player.getTeamName())
+                    .name("hand");
+            writeCards(json, player.getHand(), seat != viewer);
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("teams").beginArray();
+        for (GameSnapshot.TeamState team : snapshot.getTeams()) {
+            json.beginObject()
+                    .name("name").value(team.getTeamName())
+                    .name("ects").value(team.getTeamScore())
+                    .endObject();
+        }
+        json.endArray();
+
+        json.name("lectureHall");
+        writeCards(json, snapshot.getLectureHall(), false);
+        json.endObject();
+    }
+
+    private static void writeCards(JsonWriter json, List<Card> cards, boolean onlyEnds) throws IOException {
+        json.beginArray();
+        for (int i = 0; i < cards.size(); i++) {
+            if (onlyEnds && i != 0 && i != cards.size() - 1) {
+                json.nullValue();
+                continue;
+            }
+            Card card = cards.get(i);
+            json.beginObject()
+                    .name("code").value(card.getCourseCode())
+                    .name("id").value(card.getId())
+                    .name("branch").value(card.getBranch().name())
+                    .endObject();
+        }
+        json.endArray();
+    }
+
+    private void send(HttpExchange exchange, int status, JsonBody body) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, 0);
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+                JsonWriter json = new JsonWriter(writer);
+                body.write(json);
+                json.flush();
+            }
+        } catch (IOException e) {
+            // Client went away
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sendEmpty(HttpExchange exchange, int status) {
+        try {
+            exchange.sendResponseHeaders(status, -1);
+        } catch (IOException e) {
+            // Client went away
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) {
+        send(exchange, status, json -> json.beginObject().name("error").value(message).endObject());
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    /**
+     * Run the gateway standalone
+     * Usage: java network.HttpGateway [port]
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        HttpGateway gateway = new HttpGateway(new GameServer(), port);
+        gateway.start();
+        System.out.println("🌐 Trio HTTP gateway listening on port " + gateway.getPort());
+    }
+}
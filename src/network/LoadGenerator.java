@@ -0,0 +1,525 @@
+package network;
+
+import enums.Difficulty;
+import enums.GameMode;
+import server.GameServer;
+import stats.Histogram;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Synthetic load for capacity testing: many concurrent clients, each
+ * playing full games against TrioNioServer with a simple bot.
+ *
+ * All clients run as small state machines on one selector thread, so
+ * thousands of connections cost a few kilobytes each rather than a
+ * thread each. New clients arrive at a fixed rate until the target
+ * count is reached; every client then keeps creating a game of a mode
+ * drawn from the mix, joining it and playing it to the end, waiting
+ * about the think time before each move. Move round trips and game
+ * lengths go into histograms.
+ *
+ * Usage: java network.LoadGenerator [clients] [arrivalsPerSecond] [thinkMillis]
+ *        [seconds] [mix] [host:port]
+ * where mix is e.g. INDIVIDUAL_SIMPLE:3,TEAM_SIMPLE:1. Without host:port
+ * a server is started in this process on a loopback port. Clients join
+ * without a name and play every seat, so the server must be a hotseat one
+ * (see {@link TrioNioServer#setHotseat}).
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class LoadGenerator {
+    /** Moves after which a game that does not end is abandoned */
+    private static final int MAX_MOVES_PER_GAME = 400;
+    private static final long HIGHEST_LATENCY_MICROS = 60_000_000;
+
+    // Client phases
+    private static final int CONNECTING = 0;
+    private static final int CREATING = 1;
+    private static final int JOINING = 2;
+    private static final int THINKING = 3;
+    private static final int WAITING = 4;
+
+    /**
+     * Figures gathered during a run
+     */
+    public static class Report {
+        private final Histogram moveLatencyMicros = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        private final Histogram gameMillis = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        private final Map<GameMode, Integer> gamesByMode = new EnumMap<>(GameMode.class);
+        private int clients;
+        private long moves;
+        private long games;
+        private long throttled;
+        private long errors;
+        private long elapsedNanos;
+
+        /**
+         * Get the move round-trip times (SELECT ×3 + FORM_TRIO until RESULT)
+         * @return Histogram in microseconds
+         */
+        public Histogram getMoveLatencyMicros() {
+            return moveLatencyMicros;
+        }
+
+        /**
+         * Get the lengths of completed games
+         * @return Histogram in milliseconds
+         */
+        public Histogram getGameMillis() {
+            return gameMillis;
+        }
+
+        public int getClients() {
+            return clients;
+        }
+
+        public long getMoves() {
+            return moves;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public Map<GameMode, Integer> getGamesByMode() {
+            return gamesByMode;
+        }
+
+        public long getThrottled() {
+            return throttled;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getMovesPerSecond() {
+            return moves / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            Histogram latency = moveLatencyMicros;
+            return String.format("Clients:     %d%n"
+                            + "Moves:       %d (%.0f/s)%n"
+                            + "Games:       %d %s%n"
+                            + "Throttled:   %d, errors: %d%n"
+                            + "Move RTT µs: p50 %d, p90 %d, p99 %d, p99.9 %d, max %d%n"
+                            + "Game ms:     p50 %d, p99 %d",
+                    clients, moves, getMovesPerSecond(), games, gamesByMode, throttled, errors,
+                    latency.getValueAtPercentile(50), latency.getValueAtPercentile(90),
+                    latency.getValueAtPercentile(99), latency.getValueAtPercentile(99.9), latency.getMax(),
+                    gameMillis.getValueAtPercentile(50), gameMillis.getValueAtPercentile(99));
+        }
+    }
+
+    /**
+     * One simulated player connection
+     */
+    private static class VirtualClient {
+        final SocketChannel channel;
+        final ByteBuffer readBuffer;
+        final RemoteTable table;
+        ByteBuffer pendingWrite;
+        SelectionKey key;
+        int phase;
+        GameMode mode;
+        long sentAt;
+        long wakeAt;
+        long gameStartedAt;
+        int movesThisGame;
+
+        VirtualClient(SocketChannel channel) {
+            this.channel = channel;
+            this.readBuffer = ByteBuffer.allocate(16 * 1024);
+            this.table = new RemoteTable();
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final int clientCount;
+    private final double arrivalsPerSecond;
+    private final long thinkMillis;
+    private final GameMode[] mixTable;
+    private final Random random;
+
+    /**
+     * Constructor for LoadGenerator
+     * @param address Server to load
+     * @param clientCount Concurrent clients to reach
+     * @param arrivalsPerSecond Rate at which new clients connect
+     * @param thinkMillis Mean pause before each move (0 plays back to back)
+     * @param mix Relative weight of each game mode (INDIVIDUAL modes seat 3 players, TEAM modes 4)
+     */
+    public LoadGenerator(InetSocketAddress address, int clientCount, double arrivalsPerSecond,
+                         long thinkMillis, Map<GameMode, Integer> mix) {
+        if (clientCount < 1 || arrivalsPerSecond <= 0 || thinkMillis < 0) {
+            throw new IllegalArgumentException("Need at least one client, a positive arrival rate and no negative think time");
+        }
+        this.address = address;
+        this.clientCount = clientCount;
+        this.arrivalsPerSecond = arrivalsPerSecond;
+        this.thinkMillis = thinkMillis;
+        this.random = new Random(42);
+
+        List<GameMode> table = new ArrayList<>();
+        for (Map.Entry<GameMode, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                table.add(entry.getKey());
+            }
+        }
+        if (table.isEmpty()) {
+            throw new IllegalArgumentException("The game mode mix is empty");
+        }
+        this.mixTable = table.toArray(new GameMode[0]);
+    }
+
+    /**
+     * Parse a mix such as "INDIVIDUAL_SIMPLE:3,TEAM_SIMPLE:1" (weight defaults to 1)
+     * @param spec The mix
+     * @return Weight per mode
+     */
+    public static Map<GameMode, Integer> parseMix(String spec) {
+        Map<GameMode, Integer> mix = new EnumMap<>(GameMode.class);
+        for (String part : spec.split(",")) {
+            String[] fields = part.trim().split(":");
+            mix.merge(GameMode.valueOf(fields[0].trim()),
+                    fields.length > 1 ? Integer.parseInt(fields[1].trim()) : 1, Integer::sum);
+        }
+        return mix;
+    }
+
+    /**
+     * Run the load and close every client at the end
+     * @param durationMillis Length of the run, ramp-up included
+     * @return The figures gathered
+     * @throws IOException if the selector cannot be opened
+     */
+    public Report run(long durationMillis) throws IOException {
+        Report report = new Report();
+        List<VirtualClient> clients = new ArrayList<>(clientCount);
+        PriorityQueue<VirtualClient> timers = new PriorityQueue<>((a, b) -> Long.compare(a.wakeAt, b.wakeAt));
+        long start = System.nanoTime();
+        long end = start + durationMillis * 1_000_000L;
+        double arrivalGap = 1e9 / arrivalsPerSecond;
+
+        try (Selector selector = Selector.open()) {
+            while (true) {
+                long now = System.nanoTime();
+                if (now >= end) {
+                    break;
+                }
+
+                // Arrivals due by now
+                while (clients.size() < clientCount && start + (long) (clients.size() * arrivalGap) <= now) {
+                    clients.add(connect(selector, report));
+                }
+
+                // Thinking clients whose pause is over
+                while (!timers.isEmpty() && timers.peek().wakeAt <= now) {
+                    VirtualClient client = timers.poll();
+                    if (client.phase == THINKING && client.channel.isOpen()) {
+                        try {
+                            sendMove(client);
+                        } catch (IOException e) {
+                            fail(client, report);
+                        }
+                    }
+                }
+
+                long wake = end;
+                if (clients.size() < clientCount) {
+                    wake = Math.min(wake, start + (long) (clients.size() * arrivalGap));
+                }
+                if (!timers.isEmpty()) {
+                    wake = Math.min(wake, timers.peek().wakeAt);
+                }
+                long timeoutMillis = Math.max(1, (wake - System.nanoTime()) / 1_000_000);
+                selector.select(timeoutMillis);
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    VirtualClient client = (VirtualClient) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            client.channel.finishConnect();
+                            key.interestOps(SelectionKey.OP_READ);
+                            createGame(client);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(client);
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            read(client, report, timers);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        fail(client, report);
+                    }
+                }
+            }
+        } finally {
+            for (VirtualClient client : clients) {
+                client.channel.close();
+            }
+        }
+
+        report.clients = clients.size();
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Drop a client after an error; it is not replaced
+     */
+    private void fail(VirtualClient client, Report report) throws IOException {
+        report.errors++;
+        client.key.cancel();
+        client.channel.close();
+    }
+
+    private VirtualClient connect(Selector selector, Report report) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        VirtualClient client = new VirtualClient(channel);
+        client.phase = CONNECTING;
+        if (channel.connect(address)) {
+            client.key = channel.register(selector, SelectionKey.OP_READ, client);
+            createGame(client);
+        } else {
+            client.key = channel.register(selector, SelectionKey.OP_CONNECT, client);
+        }
+        return client;
+    }
+
+    private void createGame(VirtualClient client) throws IOException {
+        client.mode = mixTable[random.nextInt(mixTable.length)];
+        int players = client.mode.isTeamMode() ? 4 : 3;
+        MessageWriter out = new MessageWriter(Protocol.CREATE)
+                .putByte(client.mode.ordinal())
+                .putByte(Difficulty.NORMAL.ordinal())
+                .putByte(players);
+        for (int i = 0; i < players; i++) {
+            out.putString("Bot " + (i + 1));
+        }
+        client.phase = CREATING;
+        write(client, out.toFrame());
+    }
+
+    private void read(VirtualClient client, Report report, PriorityQueue<VirtualClient> timers) throws IOException {
+        ByteBuffer buffer = client.readBuffer;
+        if (client.channel.read(buffer) < 0) {
+            throw new IOException("Server closed the connection");
+        }
+        buffer.flip();
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt(buffer.position());
+            if (length < 1 || length > buffer.capacity() - 4) {
+                throw new IOException("Invalid frame length " + length);
+            }
+            if (buffer.remaining() < 4 + length) {
+                break;
+            }
+            buffer.getInt();
+            byte type = buffer.get();
+            int next = buffer.position() + length - 1;
+            ByteBuffer payload = buffer.slice(buffer.position(), length - 1);
+            buffer.position(next);
+            handleFrame(client, type, payload, report, timers);
+        }
+        buffer.compact();
+    }
+
+    private void handleFrame(VirtualClient client, byte type, ByteBuffer payload,
+                             Report report, PriorityQueue<VirtualClient> timers) throws IOException {
+        switch (type) {
+            case Protocol.CREATED:
+                client.phase = JOINING;
+                write(client, new MessageWriter(Protocol.JOIN)
+                        .putString(Protocol.readString(payload)).putString("").toFrame());
+                break;
+            case Protocol.STATE:
+                client.table.applyState(payload);
+                if (client.phase == JOINING) {
+                    client.gameStartedAt = System.nanoTime();
+                    client.movesThisGame = 0;
+                    think(client, timers);
+                }
+                break;
+            case Protocol.DELTA:
+                if (!client.table.applyDelta(payload)) {
+                    write(client, new MessageWriter(Protocol.RESYNC).toFrame());
+                }
+                break;
+            case Protocol.RESULT:
+                report.moves++;
+                report.moveLatencyMicros.recordValue((System.nanoTime() - client.sentAt) / 1000);
+                boolean victory = payload.get(3) != 0;
+                if (victory) {
+                    report.games++;
+                    report.gamesByMode.merge(client.mode, 1, Integer::sum);
+                    report.gameMillis.recordValue((System.nanoTime() - client.gameStartedAt) / 1_000_000);
+                    createGame(client);
+                } else if (client.movesThisGame >= MAX_MOVES_PER_GAME) {
+                    createGame(client);
+                } else {
+                    think(client, timers);
+                }
+                break;
+            case Protocol.THROTTLED:
+                report.throttled++;
+                payload.get();
+                client.phase = THINKING;
+                client.wakeAt = System.nanoTime() + payload.getInt() * 1_000_000L;
+                timers.add(client);
+                break;
+            case Protocol.ERROR:
+                if (client.phase != WAITING && client.phase != THINKING) {
+                    throw new IOException(Protocol.readString(payload));
+                }
+                report.errors++;
+                createGame(client); // Game over or refused move: start afresh
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void think(VirtualClient client, PriorityQueue<VirtualClient> timers) throws IOException {
+        client.phase = THINKING;
+        if (thinkMillis == 0) {
+            sendMove(client);
+            return;
+        }
+        // Uniform around the mean, so clients do not move in lockstep
+        long pause = (long) (thinkMillis * 1_000_000L * (0.5 + random.nextDouble()));
+        client.wakeAt = System.nanoTime() + pause;
+        timers.add(client);
+    }
+
+    private void sendMove(VirtualClient client) throws IOException {
+        ByteBuffer frames = ByteBuffer.allocate(64);
+        for (int[] pick : pickMove(client.table)) {
+            frames.put(new MessageWriter(Protocol.SELECT).putByte(pick[0]).putByte(pick[1]).putByte(pick[2]).toFrame());
+        }
+        frames.put(new MessageWriter(Protocol.FORM_TRIO).toFrame());
+        client.phase = WAITING;
+        client.movesThisGame++;
+        client.sentAt = System.nanoTime();
+        write(client, Arrays.copyOf(frames.array(), frames.position()));
+    }
+
+    /**
+     * Bot move from the client's view of the table: the first three
+     * visible copies of one card (whole own hand, whole hall, ends of
+     * the other hands), or else any three visible cards as a plain reveal
+     */
+    static int[][] pickMove(RemoteTable table) {
+        Map<Integer, List<int[]>> byCard = new HashMap<>();
+        List<int[]> reachable = new ArrayList<>();
+        int current = table.getCurrentPlayerIndex();
+        List<RemoteTable.Seat> players = table.getPlayers();
+
+        List<Integer> hand = players.get(current).getHand();
+        for (int i = 0; i < hand.size(); i++) {
+            reach(byCard, reachable, hand.get(i), new int[]{Protocol.SOURCE_HAND, 0, i});
+        }
+        List<Integer> hall = table.getLectureHall();
+        for (int i = 0; i < hall.size(); i++) {
+            reach(byCard, reachable, hall.get(i), new int[]{Protocol.SOURCE_HALL, 0, i});
+        }
+        for (int seat = 0; seat < players.size(); seat++) {
+            List<Integer> other = players.get(seat).getHand();
+            if (seat == current || other.isEmpty()) {
+                continue;
+            }
+            reach(byCard, reachable, other.get(0), new int[]{Protocol.SOURCE_OTHER_PLAYER, seat, 0});
+            if (other.size() > 1) {
+                int last = other.size() - 1;
+                reach(byCard, reachable, other.get(last), new int[]{Protocol.SOURCE_OTHER_PLAYER, seat, last});
+            }
+        }
+
+        for (List<int[]> picks : byCard.values()) {
+            if (picks.size() >= 3) {
+                return new int[][]{picks.get(0), picks.get(1), picks.get(2)};
+            }
+        }
+        // Late in a game the hall may hold a single card: take whatever is within reach
+        return reachable.subList(0, Math.min(3, reachable.size())).toArray(new int[0][]);
+    }
+
+    private static void reach(Map<Integer, List<int[]>> byCard, List<int[]> reachable, int card, int[] pick) {
+        reachable.add(pick);
+        byCard.computeIfAbsent(card, k -> new ArrayList<>()).add(pick);
+    }
+
+    private void write(VirtualClient client, byte[] frame) throws IOException {
+        if (client.pendingWrite != null) {
+            ByteBuffer joined = ByteBuffer.allocate(client.pendingWrite.remaining() + frame.length);
+            joined.put(client.pendingWrite).put(frame).flip();
+            client.pendingWrite = joined;
+        } else {
+            client.pendingWrite = ByteBuffer.wrap(frame);
+        }
+        flush(client);
+    }
+
+    private void flush(VirtualClient client) throws IOException {
+        client.channel.write(client.pendingWrite);
+        if (client.pendingWrite.hasRemaining()) {
+            client.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } else {
+            client.pendingWrite = null;
+            client.key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        double arrivals = args.length > 1 ? Double.parseDouble(args[1]) : 500;
+        long think = args.length > 2 ? Long.parseLong(args[2]) : 100;
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 30;
+        Map<GameMode, Integer> mix = parseMix(args.length > 4 ? args[4] : "INDIVIDUAL_SIMPLE:3,TEAM_SIMPLE:1");
+
+        GameServer gameServer = null;
+        TrioNioServer server = null;
+        InetSocketAddress address;
+        if (args.length > 5) {
+            String[] hostPort = args[5].split(":");
+            address = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+        } else {
+            gameServer = new GameServer(Runtime.getRuntime().availableProcessors());
+            server = new TrioNioServer(gameServer, 0);
+            server.setHotseat(true);
+            server.start();
+            address = new InetSocketAddress("127.0.0.1", server.getPort());
+        }
+
+        Report report = new LoadGenerator(address, clients, arrivals, think, mix).run(seconds * 1000);
+
+        if (server != null) {
+            server.stop();
+            gameServer.shutdown();
+        }
+        System.out.println("\n═══════════ LOAD GENERATOR ═══════════");
+        System.out.println(report);
+    }
+}
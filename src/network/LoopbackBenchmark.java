@@ -0,0 +1,119 @@
+package network;
+
+import enums.Difficulty;
+import enums.GameMode;
+import server.GameServer;
+import server.MoveThrottle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures move throughput and round-trip latency of TrioNioServer
+ * over loopback. Each client thread owns one game and plays the same
+ * simple move repeatedly, waiting for the RESULT of each move.
+ *
+ * Usage: java network.LoopbackBenchmark [clients] [movesPerClient]
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class LoopbackBenchmark {
+    private static final int[][] MOVE = {
+            {Protocol.SOURCE_HAND, 0, 0},
+            {Protocol.SOURCE_HAND, 0, 1},
+            {Protocol.SOURCE_HALL, 0, 0}
+    };
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int movesPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        // Measures the server itself, so moves are not rate limited
+        GameServer gameServer = new GameServer(Runtime.getRuntime().availableProcessors(), MoveThrottle.unlimited());
+        TrioNioServer server = new TrioNioServer(gameServer, 0);
+        server.setHotseat(true); // Each client plays every seat of its game
+        server.start();
+
+        long[][] latencies = new long[clients][];
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int index = c;
+            Thread thread = new Thread(() -> {
+                try {
+                    latencies[index] = runClient(server.getPort(), movesPerClient);
+                } catch (Exception e) {
+                    System.out.println("Client " + index + " failed: " + e.getMessage());
+                    latencies[index] = new long[0];
+                }
+            });
+            threads.add(thread);
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        server.stop();
+        gameServer.shutdown();
+
+        int total = 0;
+        for (long[] clientLatencies : latencies) {
+            total += clientLatencies.length;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (long[] clientLatencies : latencies) {
+            System.arraycopy(clientLatencies, 0, all, offset, clientLatencies.length);
+            offset += clientLatencies.length;
+        }
+        Arrays.sort(all);
+
+        System.out.println("\n═══════════ LOOPBACK BENCHMARK ═══════════");
+        System.out.println("Clients:     " + clients);
+        System.out.println("Moves:       " + total);
+        System.out.printf("Throughput:  %.0f moves/s%n", total / (elapsed / 1e9));
+        System.out.printf("p50 latency: %.1f µs%n", percentile(all, 50) / 1e3);
+        System.out.printf("p99 latency: %.1f µs%n", percentile(all, 99) / 1e3);
+        System.out.printf("max latency: %.1f µs%n", (all.length > 0 ? all[all.length - 1] : 0) / 1e3);
+    }
+
+    /**
+     * Play moves on one connection, starting a new game whenever one ends
+     * @return Round-trip latency of each move in nanoseconds
+     */
+    private static long[] runClient(int port, int moves) throws Exception {
+        long[] latencies = new long[moves];
+        List<String> names = Arrays.asList("Bot A", "Bot B");
+
+        try (TrioClient client = new TrioClient("127.0.0.1", port)) {
+            client.join(client.createGame(GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL, names), "");
+
+            for (int i = 0; i < moves; i++) {
+                long start = System.nanoTime();
+                client.sendMove(MOVE);
+                TrioClient.Frame result = client.expect(Protocol.RESULT);
+                latencies[i] = System.nanoTime() - start;
+
+                boolean victory = result.getPayload().get(3) != 0;
+                if (victory) {
+                    client.join(client.createGame(GameMode.INDIVIDUAL_SIMPLE, Difficulty.NORMAL, names), "");
+                }
+            }
+        }
+        return latencies;
+    }
+
+    private static long percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
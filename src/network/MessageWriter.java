@@ -0,0 +1,99 @@
+package network;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Builds one length-prefixed protocol frame:
+ * [int length][byte type][payload], where length covers type + payload.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class MessageWriter {
+    private byte[] buffer;
+    private int position;
+
+    /**
+     * Start a frame of the given message type
+     * @param type Message type (see {@link Protocol})
+     */
+    public MessageWriter(byte type) {
+        this.buffer = new byte[64];
+        this.position = 4;
+        putByte(type);
+    }
+
+    public MessageWriter putByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    public MessageWriter putShort(int value) {
+        ensureCapacity(2);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    public MessageWriter putInt(int value) {
+        ensureCapacity(4);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    public MessageWriter putLong(long value) {
+        putInt((int) (value >>> 32));
+        return putInt((int) value);
+    }
+
+    /**
+     * Write a string as [short length][UTF-8 bytes]; null is written as empty
+     * @param value The string
+     * @return this writer
+     */
+    public MessageWriter putString(String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        putShort(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+        return this;
+    }
+
+    /**
+     * Write raw bytes as [short length][bytes]
+     * @param value The bytes
+     * @return this writer
+     */
+    public MessageWriter putBytes(byte[] value) {
+        putShort(value.length);
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, buffer, position, value.length);
+        position += value.length;
+        return this;
+    }
+
+    /**
+     * Finish the frame
+     * @return Encoded frame including its length prefix
+     */
+    public byte[] toFrame() {
+        int length = position - 4;
+        buffer[0] = (byte) (length >>> 24);
+        buffer[1] = (byte) (length >>> 16);
+        buffer[2] = (byte) (length >>> 8);
+        buffer[3] = (byte) length;
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package network;
+
+import controller.TurnResult;
+import model.Card;
+import model.GameSnapshot;
+import model.StateDelta;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Binary protocol spoken between TrioNioServer and its clients.
+ *
+ * Every frame is [int length][byte type][payload]. Strings are
+ * [short length][UTF-8], cards are their deck ID (1-12) in one byte.
+ *
+ * STATE and DELTA are encoded for one viewer: a player sees their own
+ * hand and only the first and last cards of the others, the cards in
+ * between being sent as {@link #HIDDEN_CARD}. A client that joined
+ * without a name sees the hand of whoever's turn it is, and spectators
+ * see every hand that way.
+ *
+ * Client → server:
+ *   CREATE     byte mode, byte difficulty, byte count, count × string name
+ *   JOIN       string sessionId, string playerName ("" = play for whoever's turn it is)
+ *   SELECT     byte source, byte seat (other_player only), byte position
+ *   FORM_TRIO  (empty) - plays the 3 selected cards
+ *   CLEAR      (empty) - forgets the current selection
+ *   RESYNC     (empty) - asks for a full STATE
+ *   SPECTATE   string sessionId - watch a game without a seat
+ *   MIGRATE    string sessionId, bytes session - another server hands over a session
+ *   RESUME     string sessionId, string playerName, long lastVersion - JOIN again after
+ *              a dropped connection, receiving only the versions missed since lastVersion
+ *
+ * Server → client:
+ *   CREATED    string sessionId
+ *   JOINED     string sessionId
+ *   STATE      full table (see {@link #encodeState}), sent on JOIN, SPECTATE and
+ *              RESYNC, and to spectators that fell too far behind
+ *   DELTA      changes between two versions (see {@link #encodeDelta})
+ *   RESULT     byte valid, byte ects, byte bonusTurn, byte victory, byte nextPlayer
+ *   ERROR      string message
+ *   MIGRATED   string sessionId - the handed-over session is now served here
+ *   MOVED      string sessionId - the session moved to another server; join it again
+ *              through the router
+ *   RESUMED    string sessionId, int deltas - answer to RESUME: that many DELTA frames
+ *              follow with the missed versions, or a STATE follows when deltas is -1
+ *              (the gap is no longer in the session's event log)
+ *   THROTTLED  byte reason (see MoveThrottle), int retryAfterMillis - the move was
+ *              dropped before reaching the game; resend it after the delay
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Hidden cards
+ */
+public final class Protocol {
+    // Client → server
+    public static final byte CREATE = 0x01;
+    public static final byte JOIN = 0x02;
+    public static final byte SELECT = 0x03;
+    public static final byte FORM_TRIO = 0x04;
+    public static final byte CLEAR = 0x05;
+    public static final byte RESYNC = 0x06;
+    public static final byte SPECTATE = 0x07;
+    public static final byte MIGRATE = 0x08;
+    public static final byte RESUME = 0x09;
+
+    // Server → client
+    public static final byte CREATED = 0x41;
+    public static final byte JOINED = 0x42;
+    public static final byte STATE = 0x43;
+    public static final byte RESULT = 0x44;
+    public static final byte ERROR = 0x45;
+    public static final byte DELTA = 0x46;
+    public static final byte THROTTLED = 0x47;
+    public static final byte MIGRATED = 0x48;
+    public static final byte MOVED = 0x49;
+    public static final byte RESUMED = 0x4A;
+
+    // Card sources for SELECT
+    public static final byte SOURCE_HAND = 0;
+    public static final byte SOURCE_OTHER_PLAYER = 1;
+    public static final byte SOURCE_HALL = 2;
+
+    /** Seat byte used for the lecture hall in DELTA source changes */
+    public static final int SEAT_HALL = 0xFF;
+
+    /** Card ID sent in place of a card the viewer may not see */
+    public static final int HIDDEN_CARD = 0;
+
+    /** Viewer seat of a client that sees no hand in full */
+    public static final int SPECTATOR = -1;
+
+    /** Largest frame accepted from a client */
+    public static final int MAX_FRAME_LENGTH = 4096;
+
+    private Protocol() {
+    }
+
+    /**
+     * Encode a full table snapshot as one viewer sees it
+     * @param snapshot The snapshot
+     * @param viewer Seat whose hand is sent in full, or {@link #SPECTATOR}
+     * @return STATE frame
+     */
+    public static byte[] encodeState(GameSnapshot snapshot, int viewer) {
+        MessageWriter out = new MessageWriter(STATE);
+        out.putLong(snapshot.getVersion())
+                .putByte(snapshot.getState().ordinal())
+                .putByte(snapshot.getGameMode().ordinal())
+                .putByte(snapshot.getDifficulty().ordinal())
+                .putByte(snapshot.getCurrentPlayerIndex())
+                .putShort(snapshot.getRoundNumber())
+                .putByte(snapshot.getDeckRemaining());
+
+        out.putByte(snapshot.getPlayers().size());
+        for (int seat = 0; seat < snapshot.getPlayers().size(); seat++) {
+            GameSnapshot.PlayerState player = snapshot.getPlayers().get(seat);
+            out.putString(player.getName())
+                    .putByte(player.getEctsCredits())
+                    .putByte(player.getTrioCount())
+                    .putString(player.getTeamName());
+            putHand(out, player.getHand(), seat == viewer);
+        }
+
+        out.putByte(snapshot.getTeams().size());
+        for (GameSnapshot.TeamState team : snapshot.getTeams()) {
+            out.putString(team.getTeamName()).putByte(team.getTeamScore());
+        }
+
+        putCards(out, snapshot.getLectureHall());
+        return out.toFrame();
+    }
+
+    /**
+     * Encode the changes between two versions as one viewer sees them:
+     * long from, long to, byte state, byte currentPlayer, short round, byte deckRemaining,
+     * byte n, n × (byte seat, cards removed, cards added) - the hall and the viewer's own hand,
+     * byte n, n × (byte seat, cards hand) - other hands that changed, replaced as now seen,
+     * byte n, n × (byte seat, byte ects, byte trios),
+     * byte n, n × (byte team, byte ects, byte trios)
+     * A hand also goes in the second list when the viewer starts or stops
+     * seeing it in full (a nameless client when the turn passes).
+     * @param delta The delta
+     * @param viewer Seat seeing its hand in full in the newer version, or {@link #SPECTATOR}
+     * @param previousViewer Same for the older version
+     * @return DELTA frame
+     */
+    public static byte[] encodeDelta(StateDelta delta, int viewer, int previousViewer) {
+        MessageWriter out = new MessageWriter(DELTA);
+        out.putLong(delta.getFromVersion())
+                .putLong(delta.getToVersion())
+                .putByte(delta.getState().ordinal())
+                .putByte(delta.getCurrentPlayerIndex())
+                .putShort(delta.getRoundNumber())
+                .putByte(delta.getDeckRemaining());
+
+        boolean ownHand = viewer != SPECTATOR && viewer == previousViewer;
+        int changes = 0;
+        for (StateDelta.SourceChange change : delta.getSourceChanges()) {
+            if (change.getSeat() == StateDelta.HALL || (ownHand && change.getSeat() == viewer)) {
+                changes++;
+            }
+        }
+        out.putByte(changes);
+        for (StateDelta.SourceChange change : delta.getSourceChanges()) {
+            if (change.getSeat() == StateDelta.HALL || (ownHand && change.getSeat() == viewer)) {
+                out.putByte(change.getSeat() == StateDelta.HALL ? SEAT_HALL : change.getSeat());
+                putCards(out, change.getRemoved());
+                putCards(out, change.getAdded());
+            }
+        }
+
+        int players = delta.getPlayerCount();
+        boolean[] replaced = new boolean[players];
+        for (StateDelta.SourceChange change : delta.getSourceChanges()) {
+            if (change.getSeat() != StateDelta.HALL && !(ownHand && change.getSeat() == viewer)) {
+                replaced[change.getSeat()] = true;
+            }
+        }
+        if (viewer != previousViewer) {
+            for (int seat : new int[]{viewer, previousViewer}) {
+                if (seat >= 0 && seat < players) {
+                    replaced[seat] = true;
+                }
+            }
+        }
+        changes = 0;
+        for (boolean hand : replaced) {
+            changes += hand ? 1 : 0;
+        }
+        out.putByte(changes);
+        for (int seat = 0; seat < players; seat++) {
+            if (replaced[seat]) {
+                out.putByte(seat);
+                putHand(out, delta.getHand(seat), seat == viewer);
+            }
+        }
+
+        putScores(out, delta.getScoreChanges());
+        putScores(out, delta.getTeamChanges());
+        return out.toFrame();
+    }
+
+    /**
+     * Encode the outcome of a FORM_TRIO command
+     * @param result Outcome of a turn that was played
+     */
+    public static byte[] encodeResult(TurnResult result) {
+        return new MessageWriter(RESULT)
+                .putByte(result.isValid() ? 1 : 0)
+                .putByte(result.getEctsAwarded())
+                .putByte(result.isBonusTurn() ? 1 : 0)
+                .putByte(result.isVictory() ? 1 : 0)
+                .putByte(result.getNextPlayerIndex())
+                .toFrame();
+    }
+
+    public static byte[] encodeError(String message) {
+        return new MessageWriter(ERROR).putString(message).toFrame();
+    }
+
+    public static byte[] encodeThrottled(int reason, long retryAfterMillis) {
+        return new MessageWriter(THROTTLED)
+                .putByte(reason)
+                .putInt((int) Math.min(Integer.MAX_VALUE, retryAfterMillis))
+                .toFrame();
+    }
+
+    public static byte[] encodeSessionMessage(byte type, String sessionId) {
+        return new MessageWriter(type).putString(sessionId).toFrame();
+    }
+
+    public static byte[] encodeResumed(String sessionId, int deltas) {
+        return new MessageWriter(RESUMED).putString(sessionId).putInt(deltas).toFrame();
+    }
+
+    /**
+     * Read a [short length][UTF-8] string
+     * @param in Buffer positioned at the string
+     * @return The string
+     */
+    public static String readString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a [short length][bytes] field
+     * @param in Buffer positioned at the field
+     * @return The bytes
+     */
+    public static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static void putScores(MessageWriter out, List<StateDelta.ScoreChange> scores) {
+        out.putByte(scores.size());
+        for (StateDelta.ScoreChange score : scores) {
+            out.putByte(score.getIndex()).putByte(score.getEcts()).putByte(score.getTrios());
+        }
+    }
+
+    /**
+     * Write a hand, hiding all but its ends unless the viewer owns it
+     */
+    private static void putHand(MessageWriter out, List<Card> hand, boolean owner) {
+        if (owner) {
+            putCards(out, hand);
+            return;
+        }
+        out.putByte(hand.size());
+        for (int i = 0; i < hand.size(); i++) {
+            out.putByte(i == 0 || i == hand.size() - 1 ? hand.get(i).getId() : HIDDEN_CARD);
+        }
+    }
+
+    private static void putCards(MessageWriter out, List<Card> cards) {
+        out.putByte(cards.size());
+        for (Card card : cards) {
+            out.putByte(card.getId());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package network;
+
+import enums.Difficulty;
+import enums.GameMode;
+import enums.GameState;
+import model.Deck;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Client-side copy of a table, kept up to date from STATE and DELTA
+ * frames. Cards are held as their deck IDs (1-12); a card the client
+ * may not see is {@link Protocol#HIDDEN_CARD}, at its position.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Hidden cards
+ */
+public class RemoteTable {
+    private long version = -1;
+    private GameState state;
+    private GameMode gameMode;
+    private Difficulty difficulty;
+    private int currentPlayerIndex;
+    private int roundNumber;
+    private int deckRemaining;
+    private final List<Seat> players = new ArrayList<>();
+    private final List<Seat> teams = new ArrayList<>();
+    private final List<Integer> lectureHall = new ArrayList<>();
+
+    /**
+     * One player or team as known by the client
+     */
+    public static class Seat {
+        private final String name;
+        private final String teamName;
+        private int ects;
+        private int trios;
+        private final List<Integer> hand = new ArrayList<>();
+
+        Seat(String name, String teamName) {
+            this.name = name;
+            this.teamName = teamName;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getTeamName() {
+            return teamName;
+        }
+
+        public int getEcts() {
+            return ects;
+        }
+
+        public int getTrios() {
+            return trios;
+        }
+
+        /**
+         * @return Card IDs, highest first (like {@link model.Hand}); only
+         *         the ends are known unless this is the client's hand
+         */
+        public List<Integer> getHand() {
+            return hand;
+        }
+    }
+
+    /**
+     * Replace the table with a full STATE payload
+     * @param in STATE payload (after the type byte)
+     */
+    public void applyState(ByteBuffer in) {
+        version = in.getLong();
+        state = GameState.values()[in.get()];
+        gameMode = GameMode.values()[in.get()];
+        difficulty = Difficulty.values()[in.get()];
+        currentPlayerIndex = in.get();
+        roundNumber = in.getShort() & 0xFFFF;
+        deckRemaining = in.get();
+
+        players.clear();
+        int playerCount = in.get();
+        for (int i = 0; i < playerCount; i++) {
+            String name = Protocol.readString(in);
+            int ects = in.get();
+            int trios = in.get();
+            String teamName = Protocol.readString(in);
+            Seat seat = new Seat(name, teamName.isEmpty() ? null : teamName);
+            seat.ects = ects;
+            seat.trios = trios;
+            readCards(in, seat.hand, true);
+            players.add(seat);
+        }
+
+        teams.clear();
+        int teamCount = in.get();
+        for (int i = 0; i < teamCount; i++) {
+            Seat team = new Seat(Protocol.readString(in), null);
+            team.ects = in.get();
+            teams.add(team);
+        }
+
+        lectureHall.clear();
+        readCards(in, lectureHall, false);
+    }
+
+    /**
+     * Apply a DELTA payload
+     * @param in DELTA payload (after the type byte)
+     * @return false if the delta does not follow the current version
+     *         (the caller should send RESYNC); stale deltas are ignored
+     */
+    public boolean applyDelta(ByteBuffer in) {
+        long from = in.getLong();
+        long to = in.getLong();
+        if (to <= version) {
+            return true; // Already covered by a newer STATE
+        }
+        if (from != version) {
+            return false;
+        }
+
+        version = to;
+        state = GameState.values()[in.get()];
+        currentPlayerIndex = in.get();
+        roundNumber = in.getShort() & 0xFFFF;
+        deckRemaining = in.get();
+
+        int sourceCount = in.get();
+        List<Integer> cards = new ArrayList<>();
+        for (int i = 0; i < sourceCount; i++) {
+            int seat = in.get() & 0xFF;
+            List<Integer> target = seat == Protocol.SEAT_HALL ? lectureHall : players.get(seat).hand;
+
+            cards.clear();
+            readCards(in, cards, false);
+            for (Integer id : cards) {
+                target.remove(id);
+            }
+
+            cards.clear();
+            readCards(in, cards, false);
+            target.addAll(cards);
+            if (seat != Protocol.SEAT_HALL) {
+                target.sort(Collections.reverseOrder());
+            }
+        }
+
+        // Hands seen only in part come whole, as they are now seen
+        int handCount = in.get();
+        for (int i = 0; i < handCount; i++) {
+            List<Integer> hand = players.get(in.get()).hand;
+            hand.clear();
+            readCards(in, hand, true);
+        }
+
+        readScores(in, players);
+        readScores(in, teams);
+        return true;
+    }
+
+    private static void readScores(ByteBuffer in, List<Seat> seats) {
+        int count = in.get();
+        for (int i = 0; i < count; i++) {
+            Seat seat = seats.get(in.get());
+            seat.ects = in.get();
+            seat.trios = in.get();
+        }
+    }
+
+    private static void readCards(ByteBuffer in, List<Integer> target, boolean mayHide) {
+        int count = in.get();
+        for (int i = 0; i < count; i++) {
+            int id = in.get();
+            if (!(mayHide && id == Protocol.HIDDEN_CARD) && Deck.cardForId(id) == null) {
+                throw new IllegalArgumentException("Unknown card ID " + id);
+            }
+            target.add(id);
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    public GameMode getGameMode() {
+        return gameMode;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public int getCurrentPlayerIndex() {
+        return currentPlayerIndex;
+    }
+
+    public int getRoundNumber() {
+        return roundNumber;
+    }
+
+    public int getDeckRemaining() {
+        return deckRemaining;
+    }
+
+    public List<Seat> getPlayers() {
+        return players;
+    }
+
+    public List<Seat> getTeams() {
+        return teams;
+    }
+
+    public List<Integer> getLectureHall() {
+        return lectureHall;
+    }
+}
@@ -0,0 +1,74 @@
+package network;
+
+import model.StateDelta;
+import server.EventRing;
+import server.GameSession;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Everyone receiving one session's deltas on TrioNioServer.
+ * Players get each delta queued on their connection, encoded for their
+ * seat. Spectators can be far more numerous, so they are never touched
+ * by the mailbox thread: the delta goes once into the session's ring
+ * and the selector thread copies it to each spectator as its socket
+ * accepts more bytes.
+ *
+ * The recent deltas themselves are kept too, so a player who resumes
+ * can be sent the versions it missed encoded for its own seat.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Deltas kept for resume
+ */
+class SessionFanout {
+    final GameSession session;
+    final Set<Connection> players;
+    final EventRing ring;
+
+    /** Selector-thread only */
+    final List<Connection> spectators;
+
+    /** True while this fanout waits in the selector's dirty queue */
+    final AtomicBoolean dirty;
+
+    /** Mailbox-thread only: the last deltas, by version */
+    private final StateDelta[] recent;
+
+    SessionFanout(GameSession session, int ringSize) {
+        this.session = session;
+        this.players = ConcurrentHashMap.newKeySet();
+        this.ring = new EventRing(ringSize);
+        this.spectators = new ArrayList<>();
+        this.dirty = new AtomicBoolean(false);
+        this.recent = new StateDelta[ring.capacity()];
+    }
+
+    /**
+     * Keep a published delta for players who resume later
+     * @param delta The delta
+     */
+    void remember(StateDelta delta) {
+        recent[(int) (delta.getToVersion() & (recent.length - 1))] = delta;
+    }
+
+    /**
+     * Get the delta that produced a version
+     * @param version The version
+     * @return The delta, or null if it is no longer kept
+     */
+    StateDelta getDelta(long version) {
+        StateDelta delta = recent[(int) (version & (recent.length - 1))];
+        return delta != null && delta.getToVersion() == version ? delta : null;
+    }
+
+    /**
+     * Get how many deltas are kept
+     * @return Capacity
+     */
+    int capacity() {
+        return recent.length;
+    }
+}
@@ -0,0 +1,207 @@
+package network;
+
+import enums.Difficulty;
+import enums.GameMode;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+/**
+ * Simple blocking client for TrioNioServer, used by bots, tests and
+ * the benchmarks. Not thread-safe: one client per thread.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class TrioClient implements Closeable {
+    private final SocketChannel channel;
+    private final ByteBuffer readBuffer;
+    private final ByteBuffer writeBuffer;
+
+    /**
+     * A received frame: its type and payload
+     */
+    public static class Frame {
+        private final byte type;
+        private final ByteBuffer payload;
+
+        Frame(byte type, ByteBuffer payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        public ByteBuffer getPayload() {
+            return payload;
+        }
+    }
+
+    /**
+     * Connect to a server
+     * @param host Server host
+     * @param port Server port
+     * @throws IOException if the connection fails
+     */
+    public TrioClient(String host, int port) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        this.channel.socket().setTcpNoDelay(true);
+        this.readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+        this.readBuffer.flip();
+        this.writeBuffer = ByteBuffer.allocateDirect(4096);
+    }
+
+    /**
+     * Create a game and wait for its session ID
+     * @return Session ID
+     * @throws IOException on I/O error or if the server refuses
+     */
+    public String createGame(GameMode mode, Difficulty difficulty, List<String> names) throws IOException {
+        MessageWriter out = new MessageWriter(Protocol.CREATE)
+                .putByte(mode.ordinal())
+                .putByte(difficulty.ordinal())
+                .putByte(names.size());
+        for (String name : names) {
+            out.putString(name);
+        }
+        send(out.toFrame());
+        return Protocol.readString(expect(Protocol.CREATED).getPayload());
+    }
+
+    /**
+     * Join a session and wait for the first full state
+     * @param sessionId Session to join
+     * @param playerName Seat to play, or "" to watch (on a hotseat server: to play for whoever's turn it is)
+     * @return The STATE frame
+     * @throws IOException on I/O error or if the server refuses
+     */
+    public Frame join(String sessionId, String playerName) throws IOException {
+        send(new MessageWriter(Protocol.JOIN).putString(sessionId).putString(playerName).toFrame());
+        expect(Protocol.JOINED);
+        return expect(Protocol.STATE);
+    }
+
+    /**
+     * Rejoin a session after a dropped connection and bring a table up
+     * to date: only the versions after the table's are sent, or a full
+     * STATE when the server no longer holds them all
+     * @param sessionId Session to rejoin
+     * @param playerName Seat to play, or "" to watch (on a hotseat server: to play for whoever's turn it is)
+     * @param table Last known table, updated in place
+     * @return Number of deltas replayed, or -1 if a full state was needed
+     * @throws IOException on I/O error or if the server refuses
+     */
+    public int resume(String sessionId, String playerName, RemoteTable table) throws IOException {
+        send(new MessageWriter(Protocol.RESUME).putString(sessionId).putString(playerName)
+                .putLong(table.getVersion()).toFrame());
+        ByteBuffer resumed = expect(Protocol.RESUMED).getPayload();
+        Protocol.readString(resumed);
+        int deltas = resumed.getInt();
+        if (deltas < 0) {
+            table.applyState(expect(Protocol.STATE).getPayload());
+            return -1;
+        }
+        for (int i = 0; i < deltas; i++) {
+            if (!table.applyDelta(expect(Protocol.DELTA).getPayload())) {
+                throw new IOException("Replayed deltas do not follow version " + table.getVersion());
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * Watch a session without a seat and wait for the first full state
+     * @param sessionId Session to watch
+     * @return The STATE frame
+     * @throws IOException on I/O error or if the server refuses
+     */
+    public Frame spectate(String sessionId) throws IOException {
+        send(new MessageWriter(Protocol.SPECTATE).putString(sessionId).toFrame());
+        expect(Protocol.JOINED);
+        return expect(Protocol.STATE);
+    }
+
+    /**
+     * Send three SELECT messages and FORM_TRIO in one write
+     * @param picks Three picks of {source, seat, position}
+     * @throws IOException on I/O error
+     */
+    public void sendMove(int[][] picks) throws IOException {
+        writeBuffer.clear();
+        for (int[] pick : picks) {
+            writeBuffer.put(new MessageWriter(Protocol.SELECT)
+                    .putByte(pick[0]).putByte(pick[1]).putByte(pick[2]).toFrame());
+        }
+        writeBuffer.put(new MessageWriter(Protocol.FORM_TRIO).toFrame());
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+    }
+
+    /**
+     * Send one raw frame
+     * @param frame Encoded frame
+     * @throws IOException on I/O error
+     */
+    public void send(byte[] frame) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Read frames until one of the given type arrives
+     * @param type Wanted message type
+     * @return The frame
+     * @throws IOException on I/O error, or if an ERROR frame arrives first
+     */
+    public Frame expect(byte type) throws IOException {
+        while (true) {
+            Frame frame = readFrame();
+            if (frame.getType() == type) {
+                return frame;
+            }
+            if (frame.getType() == Protocol.ERROR) {
+                throw new IOException("Server error: " + Protocol.readString(frame.getPayload()));
+            }
+        }
+    }
+
+    /**
+     * Block until the next frame arrives
+     * @return The frame (payload is a private copy)
+     * @throws IOException on I/O error or end of stream
+     */
+    public Frame readFrame() throws IOException {
+        while (true) {
+            if (readBuffer.remaining() >= 4) {
+                int length = readBuffer.getInt(readBuffer.position());
+                if (readBuffer.remaining() >= 4 + length) {
+                    readBuffer.getInt();
+                    byte type = readBuffer.get();
+                    byte[] payload = new byte[length - 1];
+                    readBuffer.get(payload);
+                    return new Frame(type, ByteBuffer.wrap(payload));
+                }
+            }
+            readBuffer.compact();
+            int bytesRead = channel.read(readBuffer);
+            readBuffer.flip();
+            if (bytesRead < 0) {
+                throw new IOException("Connection closed by server");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,842 @@
+package network;
+
+import controller.GameController;
+import controller.TurnResult;
+import enums.Difficulty;
+import enums.GameMode;
+import model.*;
+import server.EventRing;
+import server.GameServer;
+import server.GameSession;
+import server.MoveThrottle;
+import server.SessionListener;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking TCP front end for GameServer.
+ *
+ * One selector thread accepts connections, reads and decodes frames and
+ * forwards game commands to the session mailboxes. Joining clients get
+ * one full STATE; after that every version reaches them as a DELTA
+ * encoded once per seat, since each player sees only the ends of the
+ * other hands (see {@link Protocol}). Replies and deltas produced on mailbox
+ * threads are queued on the connection and written by the selector
+ * thread: all frames queued during one loop iteration go out in a
+ * single write per connection, through pooled direct buffers.
+ *
+ * Spectators are served from a per-session EventRing instead: the
+ * mailbox thread only publishes the encoded delta and marks the session
+ * dirty, and the selector thread copies pending events into each
+ * spectator's buffer while its socket keeps up. A spectator lapped by
+ * the ring gets a fresh STATE and continues from there, so a slow
+ * viewer never holds back the game or the other viewers.
+ *
+ * Moves pass the GameServer's MoveThrottle before they are posted to a
+ * mailbox; a move over its connection's or session's budget is
+ * answered with THROTTLED right here and never reaches the game.
+ *
+ * In a sharded cluster another server may hand a session over with
+ * MIGRATE; a session handed away is evicted, and its players and
+ * spectators are told MOVED. A closed session is dropped the same
+ * way, without telling anyone: later moves are refused as on any
+ * closed game.
+ *
+ * Each session also keeps its recent deltas: a player who lost the
+ * connection sends RESUME with the last version it saw and gets just
+ * the deltas after it, encoded for its seat, or one STATE if they are
+ * no longer kept.
+ *
+ * A client joining without a name sees the game as a spectator does and
+ * cannot move. Only a hotseat server, for local play and tests, lets
+ * such a client see and play whoever's turn it is.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.8 - Hotseat only on request
+ */
+public class TrioNioServer implements Runnable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_RING_SIZE = 256;
+
+    private final GameServer gameServer;
+    private final BufferPool bufferPool;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Queue<Connection> flushQueue;
+    private final AtomicBoolean wakeupPending;
+    private final ConcurrentMap<String, SessionFanout> fanouts;
+    private final Queue<SessionFanout> dirtyFanouts;
+    private final Queue<String> evictions;
+    private final Queue<GameSession> closings;
+    private final SessionListener deltaBroadcaster;
+    private final int ringSize;
+    private volatile boolean hotseat;
+    private volatile boolean running;
+    private Thread loopThread;
+
+    /**
+     * Constructor for TrioNioServer
+     * @param gameServer Server hosting the sessions
+     * @param port TCP port (0 picks a free port)
+     * @throws IOException if the port cannot be bound
+     */
+    public TrioNioServer(GameServer gameServer, int port) throws IOException {
+        this(gameServer, port, DEFAULT_RING_SIZE);
+    }
+
+    /**
+     * Constructor for TrioNioServer
+     * @param gameServer Server hosting the sessions
+     * @param port TCP port (0 picks a free port)
+     * @param ringSize Versions kept per session for spectators
+     * @throws IOException if the port cannot be bound
+     */
+    public TrioNioServer(GameServer gameServer, int port, int ringSize) throws IOException {
+        this.gameServer = gameServer;
+        this.ringSize = ringSize;
+        this.bufferPool = new BufferPool(BUFFER_SIZE, 1024);
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(port), 1024);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.flushQueue = new ConcurrentLinkedQueue<>();
+        this.wakeupPending = new AtomicBoolean(false);
+        this.fanouts = new ConcurrentHashMap<>();
+        this.dirtyFanouts = new ConcurrentLinkedQueue<>();
+        this.evictions = new ConcurrentLinkedQueue<>();
+        this.closings = new ConcurrentLinkedQueue<>();
+
+        // Each version is encoded once per seat, then the same bytes go to every subscriber of that seat
+        this.deltaBroadcaster = new SessionListener() {
+            @Override
+            public void onStateChanged(GameSession session, GameSnapshot snapshot, StateDelta delta) {
+                if (delta != null) {
+                    publish(session.getSessionId(), delta);
+                }
+            }
+
+            @Override
+            public void onClosed(GameSession session) {
+                closings.offer(session);
+                if (wakeupPending.compareAndSet(false, true)) {
+                    selector.wakeup();
+                }
+            }
+        };
+    }
+
+    /**
+     * Let clients joining without a name play every seat, as on one
+     * shared screen; for local play and tests only, since such a client
+     * sees the hand of whoever's turn it is
+     * @param hotseat true to allow it
+     */
+    public void setHotseat(boolean hotseat) {
+        this.hotseat = hotseat;
+    }
+
+    /**
+     * Start the event loop on its own thread
+     */
+    public void start() {
+        running = true;
+        loopThread = new Thread(this, "trio-nio-loop");
+        loopThread.start();
+    }
+
+    /**
+     * Stop the event loop and close every connection
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        try {
+            if (loopThread != null) {
+                loopThread.join(2000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Get the bound port
+     * @return Local port
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Get the number of sessions this server broadcasts
+     * @return Sessions with a fanout
+     */
+    public int getFanoutCount() {
+        return fanouts.size();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                wakeupPending.set(false);
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isReadable()) {
+                            read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(connection);
+                        }
+                    }
+                }
+
+                String evicted;
+                while ((evicted = evictions.poll()) != null) {
+                    evict(evicted);
+                }
+
+                // Spectators of sessions that moved this tick
+                SessionFanout fanout;
+                while ((fanout = dirtyFanouts.poll()) != null) {
+                    fanout.dirty.set(false);
+                    for (int i = fanout.spectators.size() - 1; i >= 0; i--) {
+                        Connection spectator = fanout.spectators.get(i);
+                        if (spectator.pendingWrite == null && spectator.key.isValid()) {
+                            flush(spectator);
+                        }
+                    }
+                }
+
+                GameSession closed;
+                while ((closed = closings.poll()) != null) {
+                    retire(closed);
+                }
+
+                // One batched write per connection for everything queued this tick
+                Connection connection;
+                while ((connection = flushQueue.poll()) != null) {
+                    connection.flushQueued.set(false);
+                    if (connection.key.isValid()) {
+                        flush(connection);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️  NIO server stopped: " + e.getMessage());
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Queue a frame for a connection; safe from any thread
+     * @param connection Target connection
+     * @param frame Encoded frame
+     */
+    void send(Connection connection, byte[] frame) {
+        connection.outbound.offer(frame);
+        if (connection.flushQueued.compareAndSet(false, true)) {
+            flushQueue.offer(connection);
+            if (Thread.currentThread() != loopThread && wakeupPending.compareAndSet(false, true)) {
+                selector.wakeup();
+            }
+        }
+    }
+
+    /**
+     * Tell everyone on a session that it now lives on another server and
+     * stop serving it here; safe from any thread
+     * @param sessionId The session that moved
+     */
+    public void evictSession(String sessionId) {
+        evictions.offer(sessionId);
+        if (wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    private void evict(String sessionId) {
+        SessionFanout fanout = fanouts.remove(sessionId);
+        if (fanout == null) {
+            return;
+        }
+        fanout.session.removeListener(deltaBroadcaster);
+        byte[] moved = Protocol.encodeSessionMessage(Protocol.MOVED, sessionId);
+        List<Connection> connections = new ArrayList<>(fanout.players);
+        connections.addAll(fanout.spectators);
+        for (Connection connection : connections) {
+            connection.sessionId = null;
+            connection.playerName = null;
+            connection.seat = Protocol.SPECTATOR;
+            connection.spectating = null;
+            send(connection, moved);
+        }
+    }
+
+    /**
+     * Stop serving a closed session. Its connections keep their session
+     * ID (their moves are refused as on a closed game) and spectators
+     * still drain what the ring holds.
+     */
+    private void retire(GameSession session) {
+        SessionFanout fanout = fanouts.get(session.getSessionId());
+        if (fanout != null && fanout.session == session) { // Not a newer session adopted under the same ID
+            fanouts.remove(session.getSessionId(), fanout);
+        }
+        session.removeListener(deltaBroadcaster);
+    }
+
+    /**
+     * Send a delta to a session's players and publish it for its
+     * spectators; runs on the session's mailbox thread
+     */
+    private void publish(String sessionId, StateDelta delta) {
+        SessionFanout fanout = fanouts.get(sessionId);
+        if (fanout == null) {
+            return;
+        }
+        fanout.remember(delta);
+        byte[][] frames = new byte[delta.getPlayerCount() + 1][]; // One per seat, then nameless clients
+        for (Connection connection : fanout.players) {
+            int seat = connection.seat;
+            int slot = seat >= 0 ? seat : frames.length - 1;
+            if (frames[slot] == null) {
+                frames[slot] = encodeDelta(delta, seat);
+            }
+            send(connection, frames[slot]);
+        }
+        fanout.ring.publish(delta.getToVersion(), Protocol.encodeDelta(delta, Protocol.SPECTATOR, Protocol.SPECTATOR));
+        if (fanout.dirty.compareAndSet(false, true)) {
+            dirtyFanouts.offer(fanout);
+            if (wakeupPending.compareAndSet(false, true)) {
+                selector.wakeup();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key, bufferPool.acquire(),
+                    gameServer.getMoveThrottle().newConnectionLimiter()));
+        }
+    }
+
+    private void read(Connection connection) {
+        ByteBuffer buffer = connection.readBuffer;
+        int bytesRead;
+        try {
+            bytesRead = connection.channel.read(buffer);
+        } catch (IOException e) {
+            bytesRead = -1;
+        }
+        if (bytesRead < 0) {
+            close(connection);
+            return;
+        }
+
+        buffer.flip();
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt(buffer.position());
+            if (length <= 0 || length > Protocol.MAX_FRAME_LENGTH) {
+                close(connection);
+                return;
+            }
+            if (buffer.remaining() < 4 + length) {
+                break;
+            }
+            int frameEnd = buffer.position() + 4 + length;
+            buffer.position(buffer.position() + 4);
+            ByteBuffer frame = buffer.slice();
+            frame.limit(length);
+            buffer.position(frameEnd);
+            try {
+                handleFrame(connection, frame.get(), frame);
+            } catch (RuntimeException e) {
+                send(connection, Protocol.encodeError("Malformed message"));
+            }
+        }
+        buffer.compact();
+    }
+
+    private void handleFrame(Connection connection, byte type, ByteBuffer payload) {
+        switch (type) {
+            case Protocol.CREATE:
+                handleCreate(connection, payload);
+                break;
+            case Protocol.JOIN:
+                handleJoin(connection, payload);
+                break;
+            case Protocol.SELECT:
+                handleSelect(connection, payload);
+                break;
+            case Protocol.FORM_TRIO:
+                handleFormTrio(connection);
+                break;
+            case Protocol.CLEAR:
+                connection.selection.clear();
+                break;
+            case Protocol.RESYNC:
+                handleResync(connection);
+                break;
+            case Protocol.SPECTATE:
+                handleSpectate(connection, payload);
+                break;
+            case Protocol.MIGRATE:
+                handleMigrate(connection, payload);
+                break;
+            case Protocol.RESUME:
+                handleResume(connection, payload);
+                break;
+            default:
+                send(connection, Protocol.encodeError("Unknown message type " + type));
+        }
+    }
+
+    private void handleCreate(Connection connection, ByteBuffer payload) {
+        GameMode mode = GameMode.values()[payload.get()];
+        Difficulty difficulty = Difficulty.values()[payload.get()];
+        int count = payload.get();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            names.add(Protocol.readString(payload));
+        }
+
+        gameServer.getSessionManager().createSession(count, mode, difficulty, names)
+                .whenComplete((session, error) -> {
+                    if (error != null) {
+                        send(connection, Protocol.encodeError("Cannot create game: invalid configuration"));
+                    } else {
+                        send(connection, Protocol.encodeSessionMessage(Protocol.CREATED, session.getSessionId()));
+                    }
+                });
+    }
+
+    private void handleJoin(Connection connection, ByteBuffer payload) {
+        String sessionId = Protocol.readString(payload);
+        String playerName = Protocol.readString(payload);
+        GameSession session = gameServer.getSessionManager().getSession(sessionId);
+
+        if (session == null || session.getSnapshot() == null) {
+            send(connection, Protocol.encodeError("Unknown session " + sessionId));
+            return;
+        }
+        int seat = seatOf(session.getSnapshot(), playerName);
+        if (seat == Protocol.SPECTATOR && !playerName.isEmpty()) {
+            send(connection, Protocol.encodeError("No player named " + playerName));
+            return;
+        }
+
+        unsubscribe(connection);
+        connection.sessionId = sessionId;
+        connection.playerName = playerName.isEmpty() ? null : playerName;
+        connection.seat = seat;
+        connection.selection.clear();
+        fanoutFor(session).players.add(connection);
+
+        // Subscribed first, so no version between this snapshot and the next delta is lost
+        send(connection, Protocol.encodeSessionMessage(Protocol.JOINED, sessionId));
+        send(connection, encodeState(session.getSnapshot(), seat));
+    }
+
+    private void handleResume(Connection connection, ByteBuffer payload) {
+        String sessionId = Protocol.readString(payload);
+        String playerName = Protocol.readString(payload);
+        long lastVersion = payload.getLong();
+        GameSession session = gameServer.getSessionManager().getSession(sessionId);
+
+        if (session == null || session.getSnapshot() == null) {
+            send(connection, Protocol.encodeError("Unknown session " + sessionId));
+            return;
+        }
+        int seat = seatOf(session.getSnapshot(), playerName);
+        if (seat == Protocol.SPECTATOR && !playerName.isEmpty()) {
+            send(connection, Protocol.encodeError("No player named " + playerName));
+            return;
+        }
+
+        unsubscribe(connection);
+        connection.sessionId = sessionId;
+        connection.playerName = playerName.isEmpty() ? null : playerName;
+        connection.seat = seat;
+        connection.selection.clear();
+        SessionFanout fanout = fanoutFor(session);
+
+        // On the mailbox thread no version is published meanwhile, so the
+        // replay ends exactly where the live deltas begin
+        session.submit(controller -> {
+            if (!connection.channel.isOpen() || !sessionId.equals(connection.sessionId)) {
+                return null; // Gone or moved on before the replay ran
+            }
+            fanout.players.add(connection);
+            GameSnapshot snapshot = session.getSnapshot();
+            List<byte[]> missed = missedDeltas(fanout, lastVersion, snapshot.getVersion(), seat);
+            if (missed == null) {
+                send(connection, Protocol.encodeResumed(sessionId, -1));
+                send(connection, encodeState(snapshot, seat));
+            } else {
+                send(connection, Protocol.encodeResumed(sessionId, missed.size()));
+                for (byte[] event : missed) {
+                    send(connection, event);
+                }
+            }
+            return null;
+        }).whenComplete((ignored, error) -> {
+            if (error != null) {
+                send(connection, Protocol.encodeError("Cannot resume session " + sessionId));
+            }
+        });
+    }
+
+    /**
+     * Encode the deltas after a client's version for its seat
+     * @return The deltas in order, or null if some are no longer kept
+     */
+    private static List<byte[]> missedDeltas(SessionFanout fanout, long lastVersion, long currentVersion, int seat) {
+        if (lastVersion > currentVersion || currentVersion - lastVersion > fanout.capacity()) {
+            return null;
+        }
+        List<byte[]> missed = new ArrayList<>((int) (currentVersion - lastVersion));
+        for (long version = lastVersion + 1; version <= currentVersion; version++) {
+            StateDelta delta = fanout.getDelta(version);
+            if (delta == null) {
+                return null;
+            }
+            missed.add(encodeDelta(delta, seat));
+        }
+        return missed;
+    }
+
+    /**
+     * Encode a delta as seen from a connection's seat
+     */
+    private static byte[] encodeDelta(StateDelta delta, int seat) {
+        return Protocol.encodeDelta(delta, viewer(seat, delta.getCurrentPlayerIndex()),
+                viewer(seat, delta.getPreviousPlayerIndex()));
+    }
+
+    /**
+     * Encode a snapshot as seen from a connection's seat
+     */
+    private static byte[] encodeState(GameSnapshot snapshot, int seat) {
+        return Protocol.encodeState(snapshot, viewer(seat, snapshot.getCurrentPlayerIndex()));
+    }
+
+    /**
+     * Get whose hand a connection sees in full
+     * @param seat The connection's seat
+     * @param currentPlayer Whose turn it is
+     * @return Seat index, or {@link Protocol#SPECTATOR}
+     */
+    private static int viewer(int seat, int currentPlayer) {
+        return seat == Connection.ANY_SEAT ? currentPlayer : seat;
+    }
+
+    private void handleSpectate(Connection connection, ByteBuffer payload) {
+        String sessionId = Protocol.readString(payload);
+        GameSession session = gameServer.getSessionManager().getSession(sessionId);
+
+        if (session == null || session.getSnapshot() == null) {
+            send(connection, Protocol.encodeError("Unknown session " + sessionId));
+            return;
+        }
+
+        unsubscribe(connection);
+        SessionFanout fanout = fanoutFor(session);
+        connection.sessionId = sessionId;
+        connection.playerName = null;
+        connection.seat = Protocol.SPECTATOR;
+        connection.selection.clear();
+        connection.spectating = fanout;
+        fanout.spectators.add(connection);
+
+        // The ring is published after the snapshot, so reading from version + 1 loses nothing
+        GameSnapshot snapshot = session.getSnapshot();
+        connection.nextEvent = snapshot.getVersion() + 1;
+        send(connection, Protocol.encodeSessionMessage(Protocol.JOINED, sessionId));
+        send(connection, Protocol.encodeState(snapshot, Protocol.SPECTATOR));
+    }
+
+    private void handleMigrate(Connection connection, ByteBuffer payload) {
+        String sessionId = Protocol.readString(payload);
+        byte[] data = Protocol.readBytes(payload);
+        gameServer.getSessionManager().adoptSession(sessionId, data)
+                .whenComplete((session, error) -> send(connection, error != null
+                        ? Protocol.encodeError("Cannot adopt session " + sessionId)
+                        : Protocol.encodeSessionMessage(Protocol.MIGRATED, sessionId)));
+    }
+
+    private SessionFanout fanoutFor(GameSession session) {
+        SessionFanout fanout = fanouts.computeIfAbsent(session.getSessionId(), id -> {
+            session.addListener(deltaBroadcaster);
+            return new SessionFanout(session, ringSize);
+        });
+        if (session.isClosed()) {
+            retire(session); // Closed before the listener was added, so no close notice will come
+        }
+        return fanout;
+    }
+
+    private void handleResync(Connection connection) {
+        GameSession session = connection.isJoined()
+                ? gameServer.getSessionManager().getSession(connection.sessionId) : null;
+        if (session == null) {
+            send(connection, Protocol.encodeError("Join a game first"));
+            return;
+        }
+        send(connection, encodeState(session.getSnapshot(), connection.seat));
+    }
+
+    private void handleSelect(Connection connection, ByteBuffer payload) {
+        if (connection.selection.size() >= 3) {
+            send(connection, Protocol.encodeError("3 cards already selected"));
+            return;
+        }
+        connection.selection.add(new int[]{payload.get(), payload.get(), payload.get()});
+    }
+
+    private void handleFormTrio(Connection connection) {
+        if (!connection.isJoined()) {
+            send(connection, Protocol.encodeError("Join a game first"));
+            return;
+        }
+        if (connection.spectating != null || connection.seat == Protocol.SPECTATOR) {
+            connection.selection.clear();
+            send(connection, Protocol.encodeError("Spectators cannot play"));
+            return;
+        }
+        if (connection.selection.size() != 3) {
+            send(connection, Protocol.encodeError("Select exactly 3 cards"));
+            return;
+        }
+
+        GameSession session = gameServer.getSessionManager().getSession(connection.sessionId);
+        if (session == null) {
+            send(connection, Protocol.encodeError("Game is closed"));
+            return;
+        }
+
+        // Shed overload here, before it costs the session anything
+        MoveThrottle throttle = gameServer.getMoveThrottle();
+        int verdict = throttle.admit(connection.limiter, connection.inFlight.get(), session);
+        if (verdict != MoveThrottle.ADMITTED) {
+            connection.selection.clear();
+            send(connection, Protocol.encodeThrottled(verdict,
+                    throttle.getRetryAfterMillis(verdict, connection.limiter, session)));
+            return;
+        }
+
+        List<int[]> picks = new ArrayList<>(connection.selection);
+        String playerName = connection.playerName;
+        connection.selection.clear();
+
+        connection.inFlight.incrementAndGet();
+        session.submit(controller -> playSelection(controller, picks, playerName))
+                .whenComplete((reply, error) -> {
+                    connection.inFlight.decrementAndGet();
+                    if (error != null) {
+                        send(connection, Protocol.encodeError("Move failed"));
+                        return;
+                    }
+                    send(connection, reply);
+                });
+    }
+
+    /**
+     * Apply a selection on the session's mailbox thread
+     * @return RESULT or ERROR frame
+     */
+    private byte[] playSelection(GameController controller, List<int[]> picks, String playerName) {
+        if (!controller.isGameRunning()) {
+            return Protocol.encodeError("Game is not in playing state");
+        }
+
+        Game game = controller.getGame();
+        Student current = controller.getCurrentPlayer();
+        if (playerName != null && !current.getName().equals(playerName)) {
+            return Protocol.encodeError("Not your turn");
+        }
+
+        String[] sources = new String[3];
+        String[] playerNames = new String[3];
+        int[] positions = new int[3];
+        List<Student> students = game.getStudents();
+        for (int i = 0; i < 3; i++) {
+            int[] pick = picks.get(i);
+            positions[i] = pick[2];
+            if (pick[0] == Protocol.SOURCE_HAND) {
+                sources[i] = Move.HAND;
+            } else if (pick[0] == Protocol.SOURCE_HALL) {
+                sources[i] = Move.HALL;
+            } else if (pick[0] == Protocol.SOURCE_OTHER_PLAYER && pick[1] >= 0 && pick[1] < students.size()) {
+                sources[i] = Move.OTHER_PLAYER;
+                playerNames[i] = students.get(pick[1]).getName();
+            } else {
+                return Protocol.encodeError("Invalid card source");
+            }
+        }
+
+        TurnResult result = controller.playMove(new Move(sources, playerNames, positions));
+        if (!result.isPlayed()) {
+            return Protocol.encodeError("Invalid card selection");
+        }
+        return Protocol.encodeResult(result);
+    }
+
+    /**
+     * Find the seat a JOIN or RESUME asks for
+     * @return Seat index, {@link Connection#ANY_SEAT} for "" on a hotseat server,
+     *         or {@link Protocol#SPECTATOR} for "" otherwise and for unknown names
+     */
+    private int seatOf(GameSnapshot snapshot, String playerName) {
+        if (playerName.isEmpty()) {
+            return hotseat ? Connection.ANY_SEAT : Protocol.SPECTATOR;
+        }
+        for (int seat = 0; seat < snapshot.getPlayers().size(); seat++) {
+            if (snapshot.getPlayers().get(seat).getName().equals(playerName)) {
+                return seat;
+            }
+        }
+        return Protocol.SPECTATOR;
+    }
+
+    /**
+     * Write as many queued frames (and ring events for spectators) as the socket accepts
+     */
+    private void flush(Connection connection) {
+        try {
+            while (true) {
+                ByteBuffer buffer = connection.pendingWrite;
+                if (buffer == null) {
+                    if (connection.outbound.isEmpty() && !hasRingEvents(connection)) {
+                        break;
+                    }
+                    buffer = bufferPool.acquire();
+                    byte[] frame;
+                    while ((frame = connection.outbound.peek()) != null && frame.length <= buffer.remaining()) {
+                        buffer.put(connection.outbound.poll());
+                    }
+                    if (connection.spectating != null && connection.outbound.isEmpty()) {
+                        fillFromRing(connection, buffer);
+                    }
+                    buffer.flip();
+                    connection.pendingWrite = buffer;
+                }
+
+                connection.channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                connection.pendingWrite = null;
+                bufferPool.release(buffer);
+            }
+            connection.key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            close(connection);
+        }
+    }
+
+    private boolean hasRingEvents(Connection connection) {
+        return connection.spectating != null
+                && connection.nextEvent <= connection.spectating.ring.getLastSequence();
+    }
+
+    /**
+     * Copy the spectator's pending ring events into its write buffer.
+     * A spectator that was lapped gets the current STATE instead and
+     * resumes from that version.
+     */
+    private void fillFromRing(Connection connection, ByteBuffer buffer) {
+        SessionFanout fanout = connection.spectating;
+        EventRing ring = fanout.ring;
+        while (connection.nextEvent <= ring.getLastSequence()) {
+            byte[] event = ring.isOverrun(connection.nextEvent) ? null : ring.get(connection.nextEvent);
+            if (event == null) {
+                GameSnapshot snapshot = fanout.session.getSnapshot();
+                byte[] state = Protocol.encodeState(snapshot, Protocol.SPECTATOR);
+                if (state.length > buffer.remaining()) {
+                    return;
+                }
+                buffer.put(state);
+                connection.nextEvent = snapshot.getVersion() + 1;
+                continue;
+            }
+            if (event.length > buffer.remaining()) {
+                return;
+            }
+            buffer.put(event);
+            connection.nextEvent++;
+        }
+    }
+
+    private void unsubscribe(Connection connection) {
+        if (connection.sessionId != null) {
+            SessionFanout fanout = fanouts.get(connection.sessionId);
+            if (fanout != null) {
+                fanout.players.remove(connection);
+                fanout.spectators.remove(connection);
+            }
+        }
+        connection.seat = Protocol.SPECTATOR;
+        connection.spectating = null;
+    }
+
+    private void close(Connection connection) {
+        unsubscribe(connection);
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        bufferPool.release(connection.readBuffer);
+        if (connection.pendingWrite != null) {
+            bufferPool.release(connection.pendingWrite);
+            connection.pendingWrite = null;
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                close((Connection) key.attachment());
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            // Shutting down anyway
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package replay;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Layout of a {@code .trioreplay} file.
+ *
+ * A game is fully determined by its shuffle seed and its moves, so a
+ * replay stores just those; everything a move causes (scores, refills,
+ * the next turn) is worked out again on reading.
+ *
+ * Header: int magic, byte format, byte mode, byte difficulty, byte n,
+ * n × UTF name, long seed, varint keyframe interval.
+ * Body, one tagged item after another:
+ * <ul>
+ *   <li>PLAY, then 3 picks of one byte each (see {@link #pick})</li>
+ *   <li>PASS: the turn passed without a move</li>
+ *   <li>KEYFRAME, varint move count, varint n, n bytes: byte state then
+ *       the game in {@link model.GameCodec} form, as it stood after
+ *       that many moves</li>
+ *   <li>FORCED_END: the game was stopped before anyone graduated</li>
+ *   <li>END, then the index: varint move count, varint k, k × (varint
+ *       move count, varint byte offset of the keyframe)</li>
+ * </ul>
+ * Trailer: long offset of the index, int end magic. Readers that only
+ * stream stop at END; seeking readers start from the trailer.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public final class ReplayFormat {
+    public static final String EXTENSION = ".trioreplay";
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 16;
+
+    static final int MAGIC = 0x54524950; // "TRIP"
+    static final int END_MAGIC = 0x54524945; // "TRIE"
+    static final int FORMAT = 1;
+    static final int TRAILER_BYTES = 12;
+
+    static final int PLAY = 0;
+    static final int PASS = 1;
+    static final int KEYFRAME = 2;
+    static final int FORCED_END = 3;
+    static final int END = 4;
+
+    /** Pick owner for the lecture hall; seats are stored as seat + 1 */
+    static final int HALL_OWNER = 0;
+    /** Card IDs run from 1 to 12 */
+    private static final int CARD_RADIX = 13;
+
+    private ReplayFormat() {
+    }
+
+    /**
+     * Pack one pick into a byte
+     * @param owner Seat the card was taken from, or GameEvent.HALL
+     * @param cardId Deck ID of the card
+     * @return (owner + 1) × 13 + card ID, below 128 for up to 8 seats
+     */
+    static int pick(int owner, int cardId) {
+        return (owner + 1) * CARD_RADIX + cardId;
+    }
+
+    static int pickOwner(int pick) {
+        return pick / CARD_RADIX - 1;
+    }
+
+    static int pickCard(int pick) {
+        return pick % CARD_RADIX;
+    }
+
+    /**
+     * Write an unsigned LEB128 varint
+     * @param out Target stream
+     * @param value Value (not negative)
+     * @throws IOException on write error
+     */
+    static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Read an unsigned LEB128 varint
+     * @param in Source stream
+     * @return The value
+     * @throws IOException on read error or a varint over 64 bits
+     */
+    static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated replay");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint too long");
+    }
+
+    static int readVarintInt(DataInputStream in) throws IOException {
+        long value = readVarint(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Value out of range " + value);
+        }
+        return (int) value;
+    }
+}
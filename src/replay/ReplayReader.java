@@ -0,0 +1,350 @@
+package replay;
+
+import controller.GameController;
+import enums.Difficulty;
+import enums.GameMode;
+import enums.GameState;
+import model.Card;
+import model.Deck;
+import model.Game;
+import model.GameCodec;
+import model.GameEvent;
+import model.Student;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plays a {@code .trioreplay} file back one move at a time.
+ *
+ * The reader streams: it holds one game and the bytes of the current
+ * item, whatever the length of the replay. {@link #open(Path, int)}
+ * uses the index at the end of a file to start from the nearest
+ * keyframe, so reaching any move costs at most one keyframe interval
+ * of moves.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class ReplayReader implements Closeable {
+    private final DataInputStream in;
+    private final GameMode mode;
+    private final Difficulty difficulty;
+    private final List<String> playerNames;
+    private final long seed;
+    private final int keyframeInterval;
+    private Game game;
+    private GameState state;
+    private int position;
+    private int moveCount;
+    private boolean ended;
+
+    /**
+     * Start reading a replay from its first byte
+     * @param in Source stream (closed with the reader)
+     * @throws IOException if the stream does not start with a replay header
+     */
+    public ReplayReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 8192));
+        if (this.in.readInt() != ReplayFormat.MAGIC) {
+            throw new IOException("Not a replay");
+        }
+        int format = this.in.readUnsignedByte();
+        if (format != ReplayFormat.FORMAT) {
+            throw new IOException("Unsupported replay format " + format);
+        }
+        this.mode = readEnum(GameMode.values(), this.in.readUnsignedByte());
+        this.difficulty = readEnum(Difficulty.values(), this.in.readUnsignedByte());
+        int players = this.in.readUnsignedByte();
+        List<String> names = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            names.add(this.in.readUTF());
+        }
+        this.playerNames = Collections.unmodifiableList(names);
+        this.seed = this.in.readLong();
+        this.keyframeInterval = ReplayFormat.readVarintInt(this.in);
+
+        List<GameEvent> deal = new ArrayList<>();
+        deal.add(new GameEvent.Created(players, mode, difficulty, names));
+        deal.add(new GameEvent.Dealt(seed));
+        this.game = Game.replay(deal);
+        this.state = GameState.PLAYING;
+        this.moveCount = -1;
+    }
+
+    /**
+     * Open a replay file positioned after the given number of moves
+     * @param file The replay file
+     * @param move Moves to play (clamped to the length of the replay)
+     * @return Reader whose game stands after that many moves
+     * @throws IOException if the file is not a complete replay
+     */
+    public static ReplayReader open(Path file, int move) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ReplayReader reader = new ReplayReader(Channels.newInputStream(channel));
+            long[] keyframe = findKeyframe(channel, move);
+            reader.moveCount = (int) keyframe[0];
+            if (keyframe[1] >= 0) {
+                channel.position(keyframe[2]);
+                reader = new ReplayReader(reader, Channels.newInputStream(channel));
+                if (ReplayFormat.readVarintInt(reader.in) != ReplayFormat.KEYFRAME) {
+                    throw new IOException("Replay index does not point to a keyframe");
+                }
+                reader.readKeyframe();
+            }
+            reader.seek(move);
+            return reader;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Same replay, read from another position in the file
+     */
+    private ReplayReader(ReplayReader header, InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in, 8192));
+        this.mode = header.mode;
+        this.difficulty = header.difficulty;
+        this.playerNames = header.playerNames;
+        this.seed = header.seed;
+        this.keyframeInterval = header.keyframeInterval;
+        this.game = header.game;
+        this.state = header.state;
+        this.moveCount = header.moveCount;
+    }
+
+    /**
+     * Find the last keyframe at or before a move in the file's index
+     * @return {moves in the replay, keyframe move, keyframe byte offset};
+     *         the keyframe move is -1 to start from the deal
+     */
+    private static long[] findKeyframe(FileChannel channel, int move) throws IOException {
+        long size = channel.size();
+        ByteBuffer trailer = readAt(channel, size - ReplayFormat.TRAILER_BYTES, ReplayFormat.TRAILER_BYTES);
+        long indexOffset = trailer.getLong();
+        if (trailer.getInt() != ReplayFormat.END_MAGIC || indexOffset < 0 || indexOffset >= size) {
+            throw new IOException("Replay has no index (incomplete file?)");
+        }
+
+        ByteBuffer index = readAt(channel, indexOffset, (int) (size - ReplayFormat.TRAILER_BYTES - indexOffset));
+        DataInputStream entries = new DataInputStream(new ByteArrayInputStream(index.array()));
+        long[] best = {ReplayFormat.readVarint(entries), -1, -1};
+        int count = ReplayFormat.readVarintInt(entries);
+        for (int i = 0; i < count; i++) {
+            long keyMove = ReplayFormat.readVarint(entries);
+            long offset = ReplayFormat.readVarint(entries);
+            if (keyMove > move) {
+                break;
+            }
+            best[1] = keyMove;
+            best[2] = offset;
+        }
+        return best;
+    }
+
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        if (position < 0) {
+            throw new IOException("Replay too short");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Replay too short");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Play the next move
+     * @return false once the replay has ended
+     * @throws IOException if the replay is damaged or does not match its game
+     */
+    public boolean next() throws IOException {
+        while (!ended) {
+            int tag = ReplayFormat.readVarintInt(in);
+            switch (tag) {
+                case ReplayFormat.PLAY:
+                    play(in.readUnsignedByte(), in.readUnsignedByte(), in.readUnsignedByte());
+                    position++;
+                    return true;
+                case ReplayFormat.PASS:
+                    game.advanceTurn();
+                    position++;
+                    return true;
+                case ReplayFormat.KEYFRAME:
+                    readKeyframe();
+                    break;
+                case ReplayFormat.FORCED_END:
+                    state = GameState.GAME_OVER;
+                    break;
+                case ReplayFormat.END:
+                    ended = true;
+                    break;
+                default:
+                    throw new IOException("Invalid replay item " + tag);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Play forward until the given number of moves (or the end)
+     * @param move Target move count; earlier moves cannot be reached
+     * @return true if the replay reached that move
+     * @throws IOException if the replay is damaged
+     */
+    public boolean seek(int move) throws IOException {
+        while (position < move) {
+            if (!next()) {
+                return false;
+            }
+        }
+        return position == move;
+    }
+
+    /**
+     * Load a keyframe; when reading from a seek it sets the position,
+     * when streaming it is skipped past
+     */
+    private void readKeyframe() throws IOException {
+        int move = ReplayFormat.readVarintInt(in);
+        byte[] frame = new byte[ReplayFormat.readVarintInt(in)];
+        in.readFully(frame);
+        if (move == position) {
+            return; // Already there by playing
+        }
+        try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(frame))) {
+            state = readEnum(GameState.values(), data.readUnsignedByte());
+            game = GameCodec.read(data);
+        }
+        position = move;
+    }
+
+    /**
+     * Replay one set of picks for the current player
+     */
+    private void play(int pick1, int pick2, int pick3) throws IOException {
+        Student player = game.getTurnManager().getCurrentStudent();
+        List<Student> students = game.getStudents();
+        int seat = students.indexOf(player);
+        int[] picks = {pick1, pick2, pick3};
+        List<Card> cards = new ArrayList<>(3);
+        String[] sources = new String[3];
+        String[] names = new String[3];
+        for (int i = 0; i < 3; i++) {
+            int owner = ReplayFormat.pickOwner(picks[i]);
+            Card card = Deck.cardForId(ReplayFormat.pickCard(picks[i]));
+            boolean present;
+            if (owner == GameEvent.HALL) {
+                sources[i] = "hall";
+                present = card != null && game.getLectureHall().contains(card);
+            } else if (owner == seat) {
+                sources[i] = "hand";
+                present = card != null && player.getHand().contains(card);
+            } else if (owner >= 0 && owner < students.size()) {
+                sources[i] = "other_player";
+                names[i] = students.get(owner).getName();
+                present = card != null && students.get(owner).getHand().contains(card);
+            } else {
+                present = false;
+            }
+            if (!present) {
+                throw new IOException("Replay does not match its game at move " + (position + 1));
+            }
+            cards.add(card);
+        }
+
+        if (game.playFlexibleTurn(player, cards, sources, names) && game.checkVictoryConditions() != null) {
+            state = GameState.GAME_OVER;
+        }
+    }
+
+    /**
+     * Get the game as it stands after the moves read so far.
+     * It belongs to the reader and changes with the next move.
+     * @return The game
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Build a controller that continues from the current position
+     * @return Controller over a copy of the current game
+     */
+    public GameController toController() {
+        try {
+            return GameController.restore(GameCodec.decode(GameCodec.encode(game)), state);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot copy game", e); // Our own encoding always decodes
+        }
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    /**
+     * Get the number of moves played so far
+     * @return Current position
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Get the number of moves in the whole replay, read from its index
+     * @return Move count, or -1 when reading a stream from its start
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public GameMode getMode() {
+        return mode;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public List<String> getPlayerNames() {
+        return playerNames;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static <E> E readEnum(E[] values, int ordinal) throws IOException {
+        if (ordinal >= values.length) {
+            throw new IOException("Invalid enum value " + ordinal);
+        }
+        return values[ordinal];
+    }
+}
@@ -0,0 +1,207 @@
+package replay;
+
+import enums.GameState;
+import model.Game;
+import model.GameCodec;
+import model.GameEvent;
+import model.GameEventListener;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a game's events into the {@code .trioreplay} format.
+ *
+ * Attach it as the game's event listener before the game is created
+ * (or feed it the events of a log or journal). It folds the events
+ * into its own copy of the game to produce keyframes, so it never
+ * touches the live game. Nothing is written until the shuffle is known.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class ReplayWriter implements GameEventListener, Closeable {
+    private final DataOutputStream out;
+    private final int keyframeInterval;
+    private final Game shadow;
+    private final List<long[]> keyframes;
+    private GameEvent.Created created;
+    private GameState state;
+    private boolean started;
+    private boolean revealPending;
+    private int moves;
+    private int lastKeyframe;
+    private IOException failure;
+
+    /**
+     * Constructor with the default keyframe interval
+     * @param out Target stream (closed with the writer)
+     */
+    public ReplayWriter(OutputStream out) {
+        this(out, ReplayFormat.DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Constructor for ReplayWriter
+     * @param out Target stream (closed with the writer)
+     * @param keyframeInterval Moves between two keyframes
+     */
+    public ReplayWriter(OutputStream out, int keyframeInterval) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be positive");
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 8192));
+        this.keyframeInterval = keyframeInterval;
+        this.shadow = new Game();
+        this.keyframes = new ArrayList<>();
+        this.state = GameState.SETUP;
+    }
+
+    /**
+     * Take the next event of the game.
+     * A write error is kept and reported by {@link #close()}; the game
+     * itself is never interrupted.
+     */
+    @Override
+    public void onEvent(GameEvent event) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            record(event);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void record(GameEvent event) throws IOException {
+        switch (event.getType()) {
+            case CREATED:
+                if (created != null) {
+                    throw new IOException("A replay holds a single game");
+                }
+                created = (GameEvent.Created) event;
+                break;
+            case DEALT:
+                if (created == null || started) {
+                    throw new IOException("Unexpected deal");
+                }
+                writeHeader(((GameEvent.Dealt) event).getSeed());
+                break;
+            case REVEALED:
+                beginMove();
+                GameEvent.Revealed revealed = (GameEvent.Revealed) event;
+                int[] owners = revealed.getOwners();
+                int[] cards = revealed.getCards();
+                ReplayFormat.writeVarint(out, ReplayFormat.PLAY);
+                for (int i = 0; i < 3; i++) {
+                    out.writeByte(ReplayFormat.pick(owners[i], cards[i]));
+                }
+                revealPending = true;
+                moves++;
+                break;
+            case TRIO_FORMED:
+                revealPending = false;
+                break;
+            case TURN_ADVANCED:
+                if (revealPending) {
+                    revealPending = false; // Follows from the failed reveal
+                } else {
+                    beginMove();
+                    ReplayFormat.writeVarint(out, ReplayFormat.PASS);
+                    moves++;
+                }
+                break;
+            case STATE_CHANGED:
+                GameState next = ((GameEvent.StateChanged) event).getState();
+                if (next == GameState.GAME_OVER && state != GameState.CHECKING_VICTORY && started) {
+                    ReplayFormat.writeVarint(out, ReplayFormat.FORCED_END);
+                }
+                state = next;
+                break;
+            default:
+                break; // Refills follow from the moves
+        }
+        shadow.apply(event);
+    }
+
+    private void writeHeader(long seed) throws IOException {
+        out.writeInt(ReplayFormat.MAGIC);
+        out.writeByte(ReplayFormat.FORMAT);
+        out.writeByte(created.getMode().ordinal());
+        out.writeByte(created.getDifficulty().ordinal());
+        if (created.getNumPlayers() != created.getNames().size()) {
+            throw new IOException("Player count does not match the names");
+        }
+        out.writeByte(created.getNumPlayers());
+        for (String name : created.getNames()) {
+            out.writeUTF(name);
+        }
+        out.writeLong(seed);
+        ReplayFormat.writeVarint(out, keyframeInterval);
+        started = true;
+    }
+
+    /**
+     * Write a keyframe of the state left by the previous move when one is due
+     */
+    private void beginMove() throws IOException {
+        if (!started) {
+            throw new IOException("Move before the deal");
+        }
+        if (moves > 0 && moves % keyframeInterval == 0 && lastKeyframe != moves) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            try (DataOutputStream frame = new DataOutputStream(bytes)) {
+                frame.writeByte(state.ordinal());
+                GameCodec.write(shadow, frame);
+            }
+            keyframes.add(new long[]{moves, out.size()});
+            ReplayFormat.writeVarint(out, ReplayFormat.KEYFRAME);
+            ReplayFormat.writeVarint(out, moves);
+            ReplayFormat.writeVarint(out, bytes.size());
+            bytes.writeTo(out);
+            lastKeyframe = moves;
+        }
+    }
+
+    /**
+     * Get the number of moves recorded so far
+     * @return Move count
+     */
+    public int getMoveCount() {
+        return moves;
+    }
+
+    /**
+     * Write the index and trailer, then close the stream
+     * @throws IOException if the replay could not be written completely
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            if (!started) {
+                throw new IOException("No game was dealt");
+            }
+            ReplayFormat.writeVarint(out, ReplayFormat.END);
+            long indexOffset = out.size();
+            ReplayFormat.writeVarint(out, moves);
+            ReplayFormat.writeVarint(out, keyframes.size());
+            for (long[] keyframe : keyframes) {
+                ReplayFormat.writeVarint(out, keyframe[0]);
+                ReplayFormat.writeVarint(out, keyframe[1]);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(ReplayFormat.END_MAGIC);
+        } finally {
+            out.close();
+        }
+    }
+}
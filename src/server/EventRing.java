@@ -0,0 +1,88 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Preallocated ring of encoded events for one session, in the style of
+ * a disruptor. A single writer publishes events under increasing
+ * sequence numbers and never waits for readers; each reader keeps its
+ * own cursor and reads at its own pace. A reader that falls more than
+ * one ring behind finds its next event overwritten and has to resync
+ * from a snapshot instead of holding the writer back.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class EventRing {
+    private static final long WRITING = -1;
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final AtomicReferenceArray<byte[]> events;
+    private volatile long lastSequence;
+
+    /**
+     * Constructor for EventRing
+     * @param capacity Number of events kept (rounded up to a power of two)
+     */
+    public EventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.events = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, WRITING);
+        }
+        this.lastSequence = 0;
+    }
+
+    /**
+     * Publish an event (single writer only)
+     * @param sequence Sequence number, greater than the last one published
+     * @param event Encoded event, shared by every reader
+     */
+    public void publish(long sequence, byte[] event) {
+        int slot = (int) (sequence & mask);
+        sequences.set(slot, WRITING);
+        events.set(slot, event);
+        sequences.set(slot, sequence);
+        lastSequence = sequence;
+    }
+
+    /**
+     * Read one event
+     * @param sequence Wanted sequence number
+     * @return The event, or null if it is not published yet or was already overwritten
+     */
+    public byte[] get(long sequence) {
+        int slot = (int) (sequence & mask);
+        if (sequences.get(slot) != sequence) {
+            return null;
+        }
+        byte[] event = events.get(slot);
+        // The writer may have reused the slot while we were reading it
+        return sequences.get(slot) == sequence ? event : null;
+    }
+
+    /**
+     * Check if a reader positioned at the given sequence has been lapped
+     * @param nextSequence The reader's next sequence
+     * @return true if that event is no longer in the ring
+     */
+    public boolean isOverrun(long nextSequence) {
+        return lastSequence - nextSequence >= capacity();
+    }
+
+    /**
+     * Get the sequence of the newest event
+     * @return Last published sequence, 0 if none
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,77 @@
+package server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps hibernated sessions as small files in one directory.
+ * Files are written under a temporary name and moved into place, so a
+ * crash never leaves a half-written session behind.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Non-destructive read
+ */
+public class FileHibernationStore implements HibernationStore {
+    private static final String EXTENSION = ".session";
+
+    private final Path directory;
+    private final AtomicLong storedBytes;
+
+    /**
+     * Constructor for FileHibernationStore
+     * @param directory Directory for session files (created if missing)
+     * @throws IOException if the directory cannot be created
+     */
+    public FileHibernationStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.storedBytes = new AtomicLong();
+    }
+
+    @Override
+    public void save(String sessionId, byte[] data) throws IOException {
+        Path target = fileFor(sessionId);
+        Path temp = directory.resolve(sessionId + EXTENSION + ".tmp");
+        long previous = Files.exists(target) ? Files.size(target) : 0;
+        Files.write(temp, data);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        storedBytes.addAndGet(data.length - previous);
+    }
+
+    @Override
+    public byte[] load(String sessionId) throws IOException {
+        byte[] data = read(sessionId);
+        Files.delete(fileFor(sessionId));
+        storedBytes.addAndGet(-data.length);
+        return data;
+    }
+
+    @Override
+    public byte[] read(String sessionId) throws IOException {
+        return Files.readAllBytes(fileFor(sessionId));
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        try {
+            Path file = fileFor(sessionId);
+            long size = Files.exists(file) ? Files.size(file) : 0;
+            if (Files.deleteIfExists(file)) {
+                storedBytes.addAndGet(-size);
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️  Cannot delete hibernated session " + sessionId + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long getStoredBytes() {
+        return storedBytes.get();
+    }
+
+    private Path fileFor(String sessionId) {
+        return directory.resolve(sessionId + EXTENSION);
+    }
+}
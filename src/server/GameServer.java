@@ -0,0 +1,345 @@
+package server;
+
+import controller.GameController;
+import stats.GameMetrics;
+import stats.HistogramLogWriter;
+import stats.LiveStats;
+import stats.ProfileStore;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many concurrent games in one JVM.
+ * Owns the worker pool, the session manager and matchmaking; network
+ * front ends attach to it to reach sessions.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class GameServer {
+    /** Wait before matchmaking fills empty seats with bots */
+    public static final long DEFAULT_BACKFILL_MILLIS = 10_000;
+
+    /** Sessions used within this delay are never hibernated */
+    public static final long DEFAULT_MIN_IDLE_MILLIS = 60_000;
+
+    private final ExecutorService workers;
+    private final SessionManager sessionManager;
+    private final MoveThrottle moveThrottle;
+    private final MatchmakingService matchmaking;
+    private final LiveStats liveStats;
+    private final GameMetrics metrics;
+    private SessionGovernor governor;
+    private Journal journal;
+    private SessionRecovery recovery;
+    private JournalCompactor compactor;
+    private ProfileStore profiles;
+    private ExecutorService profileWriter;
+    private HistogramLogWriter metricsLog;
+    private ScheduledExecutorService metricsLogger;
+
+    /**
+     * Constructor using one worker per CPU
+     */
+    public GameServer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for GameServer
+     * @param workerThreads Number of worker threads shared by all sessions
+     */
+    public GameServer(int workerThreads) {
+        this(workerThreads, new MoveThrottle());
+    }
+
+    /**
+     * Constructor for GameServer
+     * @param workerThreads Number of worker threads shared by all sessions
+     * @param moveThrottle Admission control applied by the network front ends
+     */
+    public GameServer(int workerThreads, MoveThrottle moveThrottle) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "session-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerThreads), factory);
+        this.moveThrottle = moveThrottle;
+        this.sessionManager = new SessionManager(workers, moveThrottle);
+        this.liveStats = new LiveStats();
+        this.sessionManager.setLiveStats(liveStats);
+        this.metrics = new GameMetrics();
+        this.sessionManager.setMetrics(metrics);
+        this.matchmaking = new MatchmakingService(sessionManager, DEFAULT_BACKFILL_MILLIS);
+    }
+
+    /**
+     * Get the session manager
+     * @return Session manager
+     */
+    public SessionManager getSessionManager() {
+        return sessionManager;
+    }
+
+    /**
+     * Get the move admission control (and its counters)
+     * @return Move throttle
+     */
+    public MoveThrottle getMoveThrottle() {
+        return moveThrottle;
+    }
+
+    /**
+     * Get the matchmaking service
+     * @return Matchmaking service
+     */
+    public MatchmakingService getMatchmaking() {
+        return matchmaking;
+    }
+
+    /**
+     * Get the statistics of the moves played on this server
+     * @return Live statistics, read with {@link LiveStats#snapshot()}
+     */
+    public LiveStats getLiveStats() {
+        return liveStats;
+    }
+
+    /**
+     * Get the latency and length distributions of the games played on this server
+     * @return Game metrics
+     */
+    public GameMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Append the metrics of each interval to a log, for offline analysis
+     * @param file The interval log (appended to if it exists)
+     * @param intervalMillis Length of an interval
+     * @throws IOException if the log cannot be opened
+     */
+    public synchronized void startMetricsLog(Path file, long intervalMillis) throws IOException {
+        if (metricsLog != null) {
+            return;
+        }
+        HistogramLogWriter log = new HistogramLogWriter(file);
+        ScheduledExecutorService logger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-logger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.scheduleAtFixedRate(() -> {
+            try {
+                metrics.writeIntervals(log);
+            } catch (IOException e) {
+                System.out.println("⚠️  Cannot write metrics log: " + e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        metricsLog = log;
+        metricsLogger = logger;
+    }
+
+    /**
+     * Keep resident games within a heap budget by hibernating idle ones
+     * @param store Where hibernated games go
+     * @param heapBudgetBytes Heap allowed for resident games
+     * @return The running governor
+     */
+    public synchronized SessionGovernor startHibernation(HibernationStore store, long heapBudgetBytes) {
+        if (governor == null) {
+            governor = new SessionGovernor(sessionManager, store, heapBudgetBytes, DEFAULT_MIN_IDLE_MILLIS);
+            governor.start(1000);
+        }
+        return governor;
+    }
+
+    /**
+     * Make every move durable before it is acknowledged, by journaling
+     * the events of the sessions created from now on.
+     * Sessions still open in the journal (the server stopped without
+     * closing them) are rebuilt and resumed first.
+     * @param directory Directory of the journal segments
+     * @param commitIntervalMicros Minimum time between two syncs
+     * @return The open journal
+     * @throws IOException if the journal cannot be opened or is corrupt before its tail
+     */
+    public Journal startJournal(Path directory, long commitIntervalMicros) throws IOException {
+        return startJournal(directory, Journal.DEFAULT_SEGMENT_BYTES, commitIntervalMicros);
+    }
+
+    /**
+     * Journal the sessions, with a given segment size
+     * @param directory Directory of the journal segments
+     * @param segmentBytes Size after which a new segment is started
+     * @param commitIntervalMicros Minimum time between two syncs
+     * @return The open journal
+     * @throws IOException if the journal cannot be opened or is corrupt before its tail
+     * @see #startJournal(Path, long)
+     */
+    public synchronized Journal startJournal(Path directory, long segmentBytes, long commitIntervalMicros) throws IOException {
+        if (journal == null) {
+            Journal opened = new Journal(directory, segmentBytes, commitIntervalMicros); // Cuts a torn tail
+            SessionRecovery recovered;
+            try {
+                recovered = SessionRecovery.recover(directory, workers);
+            } catch (IOException | RuntimeException e) {
+                opened.close();
+                throw e;
+            }
+            journal = opened;
+            sessionManager.setJournal(journal);
+
+            List<CompletableFuture<GameSession>> resumed = new ArrayList<>();
+            for (Map.Entry<String, GameController> entry : recovered.getSessions().entrySet()) {
+                resumed.add(sessionManager.resumeSession(entry.getKey(), entry.getValue(),
+                        recovered.getStartSequence(entry.getKey())));
+            }
+            CompletableFuture.allOf(resumed.toArray(new CompletableFuture<?>[0])).join();
+            recovery = recovered;
+            if (recovered.getRecords() > 0) {
+                System.out.println("♻️  Journal: " + recovered);
+            }
+        }
+        return journal;
+    }
+
+    /**
+     * Keep the journal small by periodically checkpointing the sessions
+     * and deleting the segments they no longer need
+     * @param bytesPerSecond Checkpoint bytes written per second at most
+     * @param periodMillis Time between two passes
+     * @return The running compactor
+     * @throws IllegalStateException if no journal was started
+     */
+    public synchronized JournalCompactor startCompaction(long bytesPerSecond, long periodMillis) {
+        if (journal == null) {
+            throw new IllegalStateException("Start the journal first");
+        }
+        if (compactor == null) {
+            compactor = new JournalCompactor(sessionManager, journal, bytesPerSecond);
+            compactor.start(periodMillis);
+        }
+        return compactor;
+    }
+
+    /**
+     * Get the report of the sessions rebuilt when the journal was started
+     * @return Recovery report, or null if no journal was started
+     */
+    public synchronized SessionRecovery getRecovery() {
+        return recovery;
+    }
+
+    /**
+     * Keep a profile of every player, updated at the end of each game
+     * of the sessions created from now on. Profiles are written on a
+     * thread of their own so that game ends never wait for the disk.
+     * @param directory Directory of the profile segments
+     * @return The open profile store
+     * @throws IOException if the store cannot be opened
+     */
+    public synchronized ProfileStore startProfiles(Path directory) throws IOException {
+        if (profiles == null) {
+            ProfileStore store = new ProfileStore(directory);
+            ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "profile-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sessionManager.setGameOverHandler(game -> {
+                ProfileStore.Outcome outcome = ProfileStore.Outcome.of(game, System.currentTimeMillis());
+                if (outcome != null) {
+                    writer.execute(() -> {
+                        try {
+                            store.recordGame(outcome);
+                        } catch (IOException e) {
+                            System.out.println("⚠️  Cannot update profiles: " + e.getMessage());
+                        }
+                    });
+                }
+            });
+            profiles = store;
+            profileWriter = writer;
+        }
+        return profiles;
+    }
+
+    /**
+     * Get the player profiles
+     * @return Profile store, or null if profiles were not started
+     */
+    public synchronized ProfileStore getProfileStore() {
+        return profiles;
+    }
+
+    /**
+     * Stop every session and the workers. With a journal, open games are
+     * left in it and resumed by the next {@link #startJournal}; without
+     * one, they are ended.
+     */
+    public void shutdown() {
+        matchmaking.shutdown();
+        boolean journaled;
+        synchronized (this) {
+            if (governor != null) {
+                governor.stop();
+            }
+            if (compactor != null) {
+                compactor.stop();
+            }
+            journaled = journal != null;
+        }
+        for (GameSession session : sessionManager.getSessions()) {
+            if (journaled) {
+                sessionManager.stopSession(session.getSessionId());
+            } else {
+                sessionManager.closeSession(session.getSessionId());
+            }
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (journal != null) {
+                journal.close(); // Syncs what the last commands appended
+            }
+            if (profiles != null) {
+                profileWriter.shutdown();
+                try {
+                    profileWriter.awaitTermination(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                profiles.close();
+            }
+            if (metricsLog != null) {
+                metricsLogger.shutdown();
+                try {
+                    metricsLogger.awaitTermination(5, TimeUnit.SECONDS);
+                    metrics.writeIntervals(metricsLog); // The last, partial interval
+                    metricsLog.close();
+                } catch (IOException e) {
+                    System.out.println("⚠️  Cannot write metrics log: " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,585 @@
+package server;
+
+import controller.GameCheckpoint;
+import controller.GameController;
+import enums.GameState;
+import model.Game;
+import model.GameEvent;
+import model.GameSnapshot;
+import model.StateDelta;
+import stats.GameMetrics;
+import stats.LiveStats;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One hosted game: a GameController behind a single-writer mailbox.
+ * Every command that may change the game goes through the mailbox;
+ * after each one that changes the table the session publishes a new
+ * immutable snapshot plus the delta from the previous one, and all
+ * reads are served from the latest snapshot without touching the game.
+ *
+ * An idle session can be hibernated: its game is encoded into a
+ * HibernationStore and dropped from the heap, leaving only the
+ * snapshot for readers. The next command restores it first, so
+ * callers never see the difference.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 2.7 - Metrics
+ */
+public class GameSession {
+    private final String sessionId;
+    private GameController controller;
+    private final SessionMailbox mailbox;
+    private final long createdAt;
+    private final Queue<VersionWaiter> waiters;
+    private final List<SessionListener> listeners;
+    private final TokenBucket moveLimiter;
+    private volatile GameSnapshot snapshot;
+    private volatile long lastActivity;
+    private volatile boolean closed;
+    private volatile boolean hibernated;
+    private HibernationStore hibernationStore;
+    private long version;
+    private Journal journal;
+    private final List<GameEvent> journalBatch;
+    private volatile long journalStart;
+    private volatile int checkpointBytes;
+    private Consumer<Game> gameOverHandler;
+    private LiveStats liveStats;
+    private LiveStats.GameTracker tracker;
+    private GameMetrics metrics;
+
+    /**
+     * A reader waiting for a version newer than the one it has
+     */
+    private static class VersionWaiter {
+        final long version;
+        final CompletableFuture<GameSnapshot> future;
+
+        VersionWaiter(long version, CompletableFuture<GameSnapshot> future) {
+            this.version = version;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Constructor for GameSession
+     * @param sessionId Unique session ID
+     * @param pool Shared worker pool
+     */
+    public GameSession(String sessionId, Executor pool) {
+        this(sessionId, pool, null);
+    }
+
+    /**
+     * Constructor for GameSession
+     * @param sessionId Unique session ID
+     * @param pool Shared worker pool
+     * @param moveLimiter Rate limit shared by every client of this session (null for none)
+     */
+    public GameSession(String sessionId, Executor pool, TokenBucket moveLimiter) {
+        this.sessionId = sessionId;
+        this.moveLimiter = moveLimiter;
+        this.controller = new GameController();
+        this.mailbox = new SessionMailbox(pool);
+        this.createdAt = System.currentTimeMillis();
+        this.lastActivity = createdAt;
+        this.waiters = new ConcurrentLinkedQueue<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.journalBatch = new ArrayList<>();
+        this.journalStart = Long.MAX_VALUE;
+    }
+
+    /**
+     * Record this session's events from now on; call before the first command
+     * @param journal Journal shared by the server's sessions
+     */
+    void setJournal(Journal journal) {
+        this.journal = journal;
+        instrument();
+    }
+
+    /**
+     * Count this session's moves in server-wide statistics; call before the first command
+     * @param liveStats Statistics shared by the server's sessions
+     */
+    void setLiveStats(LiveStats liveStats) {
+        this.liveStats = liveStats;
+        instrument();
+    }
+
+    /**
+     * Time this session's turns and game; call before the first command
+     * @param metrics Metrics shared by the server's sessions
+     */
+    void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+        instrument();
+    }
+
+    /**
+     * Be told when this session's game ends; call before the first command
+     * @param handler Called on the mailbox thread with the finished game
+     */
+    void setGameOverHandler(Consumer<Game> handler) {
+        this.gameOverHandler = handler;
+    }
+
+    /**
+     * Hook the current controller to the journal, statistics and metrics
+     */
+    private void instrument() {
+        if (controller != null && metrics != null) {
+            controller.setMetrics(metrics);
+        }
+        if (controller == null || (journal == null && liveStats == null)) {
+            return;
+        }
+        if (liveStats == null) {
+            controller.setEventListener(journalBatch::add);
+            return;
+        }
+        if (tracker == null) {
+            tracker = liveStats.track(controller.getGame().getGameMode()); // Kept across rehydrations
+        }
+        if (journal == null) {
+            controller.setEventListener(tracker);
+        } else {
+            controller.setEventListener(event -> {
+                journalBatch.add(event);
+                tracker.onEvent(event);
+            });
+        }
+    }
+
+    /**
+     * Run a command against this session's game.
+     * Commands run one at a time in submission order; the new state is
+     * published before the returned future completes.
+     * @param command The command
+     * @return Future completed with the command's result
+     */
+    public <T> CompletableFuture<T> submit(Function<GameController, T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new IllegalStateException("Session " + sessionId + " is closed"));
+            return result;
+        }
+
+        mailbox.post(() -> {
+            lastActivity = System.currentTimeMillis();
+            if (hibernated && !rehydrate()) {
+                result.completeExceptionally(new IllegalStateException("Session " + sessionId + " cannot be restored"));
+                return;
+            }
+            T value;
+            try {
+                value = command.apply(controller);
+            } catch (RuntimeException e) {
+                publish();
+                reply(result, null, e);
+                return;
+            }
+            publish();
+            reply(result, value, null);
+        });
+        return result;
+    }
+
+    /**
+     * Complete a command once the events it produced are on disk (mailbox thread only)
+     */
+    private <T> void reply(CompletableFuture<T> result, T value, Throwable error) {
+        if (journalBatch.isEmpty()) {
+            complete(result, value, error);
+            return;
+        }
+        markJournalStart();
+        CompletableFuture<Long> durable = journal.append(sessionId, SessionRecovery.eventsRecord(journalBatch));
+        journalBatch.clear();
+        durable.whenComplete((sequence, journalError) ->
+                complete(result, value, journalError != null ? journalError : error));
+    }
+
+    /**
+     * Note where this session's history begins, before its first record (mailbox thread only)
+     */
+    private void markJournalStart() {
+        if (journalStart == Long.MAX_VALUE) {
+            journalStart = journal.getNextSequence(); // Its record can only get this sequence or a later one
+        }
+    }
+
+    private static <T> void complete(CompletableFuture<T> result, T value, Throwable error) {
+        if (error != null) {
+            result.completeExceptionally(error);
+        } else {
+            result.complete(value);
+        }
+    }
+
+    /**
+     * Capture and publish the current state (mailbox thread only).
+     * Commands that changed nothing visible do not create a new version.
+     */
+    private void publish() {
+        if (controller.getGame().getTurnManager() == null) {
+            return; // Not configured yet
+        }
+        GameSnapshot previous = snapshot;
+        GameSnapshot published = GameSnapshot.capture(controller.getGame(), controller.getGameState(), version + 1);
+        StateDelta delta = previous != null ? StateDelta.between(previous, published) : null;
+        if (delta != null && delta.isEmpty()) {
+            return;
+        }
+        version++;
+        snapshot = published;
+        if (gameOverHandler != null && previous != null && previous.getState() != GameState.GAME_OVER
+                && published.getState() == GameState.GAME_OVER) {
+            try {
+                gameOverHandler.accept(controller.getGame());
+            } catch (RuntimeException e) {
+                System.out.println("⚠️  Game over handler failed: " + e.getMessage());
+            }
+        }
+
+        for (SessionListener listener : listeners) {
+            try {
+                listener.onStateChanged(this, published, delta);
+            } catch (RuntimeException e) {
+                System.out.println("⚠️  Session listener failed: " + e.getMessage());
+            }
+        }
+
+        Iterator<VersionWaiter> it = waiters.iterator();
+        while (it.hasNext()) {
+            VersionWaiter waiter = it.next();
+            if (waiter.future.isDone() || waiter.version < published.getVersion()) {
+                it.remove();
+                waiter.future.complete(published);
+            }
+        }
+    }
+
+    /**
+     * Register a listener for new versions
+     * @param listener The listener
+     */
+    public void addListener(SessionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregister a listener
+     * @param listener The listener
+     */
+    public void removeListener(SessionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Wait for a state newer than the given version without holding a thread.
+     * The caller may complete the future itself (e.g. with null on timeout).
+     * @param knownVersion Version the reader already has
+     * @return Future completed with the first snapshot newer than knownVersion
+     */
+    public CompletableFuture<GameSnapshot> awaitNewerThan(long knownVersion) {
+        GameSnapshot current = snapshot;
+        if (current != null && current.getVersion() > knownVersion) {
+            return CompletableFuture.completedFuture(current);
+        }
+
+        CompletableFuture<GameSnapshot> future = new CompletableFuture<>();
+        VersionWaiter waiter = new VersionWaiter(knownVersion, future);
+        waiters.add(waiter);
+        future.whenComplete((result, error) -> waiters.remove(waiter));
+
+        // A version may have been published while we registered
+        current = snapshot;
+        if (current != null && current.getVersion() > knownVersion) {
+            future.complete(current);
+        }
+        return future;
+    }
+
+    /**
+     * Get the latest published state; safe from any thread
+     * @return Latest snapshot, or null before the game is set up
+     */
+    public GameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Move the game out of the heap into a store; runs after pending commands
+     * @param store Where to keep the encoded game
+     * @return Future completed with true if the session was hibernated
+     */
+    CompletableFuture<Boolean> hibernate(HibernationStore store) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        mailbox.post(() -> {
+            if (closed || hibernated || snapshot == null) {
+                result.complete(false);
+                return;
+            }
+            try {
+                store.save(sessionId, GameCheckpoint.encode(controller));
+            } catch (IOException e) {
+                System.out.println("⚠️  Cannot hibernate session " + sessionId + ": " + e.getMessage());
+                result.complete(false);
+                return;
+            }
+            hibernationStore = store;
+            hibernated = true;
+            controller = null;
+            result.complete(true);
+        });
+        return result;
+    }
+
+    /**
+     * Bring a hibernated game back (mailbox thread only)
+     * @return true if the game was restored
+     */
+    private boolean rehydrate() {
+        try {
+            controller = GameCheckpoint.decode(hibernationStore.load(sessionId));
+        } catch (IOException | RuntimeException e) {
+            System.out.println("⚠️  Cannot restore session " + sessionId + ": " + e.getMessage());
+            return false;
+        }
+        instrument();
+        hibernated = false;
+        hibernationStore = null;
+        return true;
+    }
+
+    /**
+     * Stop accepting commands and hand over the encoded game, for moving
+     * the session to another server; runs after pending commands
+     * @return Future completed with the encoded session
+     */
+    CompletableFuture<byte[]> detach() {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        mailbox.post(() -> {
+            try {
+                if (hibernated && !rehydrate()) {
+                    throw new IOException("cannot restore hibernated game");
+                }
+                byte[] data = GameCheckpoint.encode(controller);
+                closed = true;
+                result.complete(data);
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Load an encoded game into this new session and publish its first version
+     * @param data Bytes from {@link #detach()}
+     * @return Future completed once the game is in place
+     */
+    CompletableFuture<Void> restore(byte[] data) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        mailbox.post(() -> {
+            try {
+                controller = GameCheckpoint.decode(data);
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            instrument();
+            publish();
+            if (journal == null) {
+                result.complete(null);
+                return;
+            }
+            // The journal has none of this game's history: start it from the whole game
+            markJournalStart();
+            journal.append(sessionId, SessionRecovery.checkpointRecord(data))
+                    .whenComplete((sequence, error) -> complete(result, null, error));
+        });
+        return result;
+    }
+
+    /**
+     * Take over a game rebuilt from the journal and publish its first version
+     * @param recovered Controller rebuilt by {@link SessionRecovery}
+     * @param startSequence Where its history begins in the journal
+     * @return Future completed once the game is in place
+     */
+    CompletableFuture<Void> resume(GameController recovered, long startSequence) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        journalStart = startSequence;
+        mailbox.post(() -> {
+            controller = recovered;
+            instrument();
+            publish();
+            result.complete(null);
+        });
+        return result;
+    }
+
+    /**
+     * Journal the whole game, so that the records before it are no longer
+     * needed to recover the session; runs after pending commands
+     * @return Future completed with the checkpoint's size once it is on disk,
+     *         0 if there was nothing to write
+     */
+    CompletableFuture<Integer> checkpoint() {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        mailbox.post(() -> {
+            if (journal == null || closed || snapshot == null) {
+                result.complete(0);
+                return;
+            }
+            byte[] data;
+            try {
+                data = hibernated ? hibernationStore.read(sessionId) : GameCheckpoint.encode(controller);
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            markJournalStart();
+            journal.append(sessionId, SessionRecovery.checkpointRecord(data)).whenComplete((sequence, error) -> {
+                if (error == null) {
+                    journalStart = sequence; // Later records follow it, earlier ones are covered by it
+                    checkpointBytes = data.length;
+                }
+                complete(result, data.length, error);
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Get the first journal record needed to recover this session
+     * @return Its sequence, or Long.MAX_VALUE if the session needs none
+     */
+    long getJournalStart() {
+        return journalStart;
+    }
+
+    /**
+     * Get the size of the last checkpoint this session journaled
+     * @return Checkpoint size in bytes, 0 if none yet
+     */
+    int getCheckpointBytes() {
+        return checkpointBytes;
+    }
+
+    /**
+     * Mark the session closed; later commands are rejected and, once the
+     * queued ones ran, listeners are told
+     * @return Future completed once the end of the session is journaled
+     */
+    CompletableFuture<Void> close() {
+        closed = true;
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        // After the commands already queued, drop any hibernated copy and end the session's history
+        mailbox.post(() -> {
+            release();
+            if (journal == null) {
+                result.complete(null);
+                return;
+            }
+            journal.append(sessionId, SessionRecovery.closedRecord()).whenComplete((sequence, error) -> {
+                journalStart = Long.MAX_VALUE; // Nothing of this session is needed any more
+                result.complete(null);
+            });
+        });
+        wakeWaiters();
+        return result;
+    }
+
+    /**
+     * Stop the session on this server without ending it: later commands
+     * are rejected, but its journal history stays open, so the next server
+     * started on the journal resumes it
+     * @return Future completed once the queued commands ran
+     */
+    CompletableFuture<Void> stop() {
+        closed = true;
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        mailbox.post(() -> {
+            release();
+            result.complete(null);
+        });
+        wakeWaiters();
+        return result;
+    }
+
+    /**
+     * Tell listeners the session is gone and drop any hibernated copy (mailbox thread only)
+     */
+    private void release() {
+        for (SessionListener listener : listeners) {
+            try {
+                listener.onClosed(this);
+            } catch (RuntimeException e) {
+                System.out.println("⚠️  Session listener failed: " + e.getMessage());
+            }
+        }
+        if (hibernated) {
+            hibernationStore.delete(sessionId);
+        }
+    }
+
+    /**
+     * Answer every pending wait with the last published state
+     */
+    private void wakeWaiters() {
+        VersionWaiter waiter;
+        while ((waiter = waiters.poll()) != null) {
+            waiter.future.complete(snapshot);
+        }
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Check whether the game is currently out of the heap
+     * @return true while hibernated
+     */
+    public boolean isHibernated() {
+        return hibernated;
+    }
+
+    /**
+     * Get the rate limit for moves sent to this session
+     * @return The session's bucket, or null if unlimited
+     */
+    public TokenBucket getMoveLimiter() {
+        return moveLimiter;
+    }
+
+    public int getPendingCommands() {
+        return mailbox.getPendingCount();
+    }
+}
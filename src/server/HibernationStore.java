@@ -0,0 +1,48 @@
+package server;
+
+import java.io.IOException;
+
+/**
+ * Where hibernated sessions are kept while they are not in memory.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Non-destructive read
+ */
+public interface HibernationStore {
+
+    /**
+     * Store a session's encoded state, replacing any previous one
+     * @param sessionId The session ID
+     * @param data Encoded session
+     * @throws IOException if the state cannot be stored
+     */
+    void save(String sessionId, byte[] data) throws IOException;
+
+    /**
+     * Take a session's encoded state back out of the store
+     * @param sessionId The session ID
+     * @return Encoded session
+     * @throws IOException if nothing is stored for it or it cannot be read
+     */
+    byte[] load(String sessionId) throws IOException;
+
+    /**
+     * Copy a session's encoded state, leaving it in the store
+     * @param sessionId The session ID
+     * @return Encoded session
+     * @throws IOException if nothing is stored for it or it cannot be read
+     */
+    byte[] read(String sessionId) throws IOException;
+
+    /**
+     * Drop a session's stored state, if any
+     * @param sessionId The session ID
+     */
+    void delete(String sessionId);
+
+    /**
+     * Get the space used by stored sessions
+     * @return Stored bytes
+     */
+    long getStoredBytes();
+}
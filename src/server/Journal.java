@@ -0,0 +1,510 @@
+package server;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log shared by all sessions, kept as numbered segment files.
+ *
+ * Appends from any thread are queued; one writer thread takes everything
+ * queued at most once per commit interval, writes it with a single
+ * channel write and a single fsync, and only then completes the appends.
+ * The cost of a sync is thus shared by every record of its batch.
+ *
+ * Record layout: int body length, int CRC32C of the body, then the body:
+ * long sequence, short n, n bytes of UTF-8 session ID, payload.
+ * A segment is named after the sequence of its first record. On open,
+ * a torn or corrupt tail of the last segment is cut off. Sealed segments
+ * whose records are no longer needed can be deleted from the front.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Segment deletion
+ */
+public class Journal implements Closeable {
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_COMMIT_INTERVAL_MICROS = 1000;
+
+    private static final String EXTENSION = ".journal";
+    private static final int HEADER_BYTES = 8;
+    private static final int FIXED_BODY_BYTES = 10;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long commitIntervalNanos;
+    private final Thread writer;
+    private final CRC32C crc;
+    private final LongAdder records;
+    private final LongAdder commits;
+
+    // Guarded by this
+    private List<Pending> queue;
+    private long nextSequence;
+    private boolean closed;
+    private IOException failure;
+
+    // Writer thread state
+    private FileChannel segment;
+    private long segmentSize;
+    private ByteBuffer buffer;
+    private volatile long durableSequence;
+    private volatile long segmentStart;
+
+    /**
+     * Reads journal records in order
+     */
+    public interface RecordVisitor {
+        void onRecord(long sequence, String sessionId, byte[] payload);
+    }
+
+    /**
+     * An append waiting for its batch to be synced
+     */
+    private static class Pending {
+        final long sequence;
+        final byte[] sessionId;
+        final byte[] payload;
+        final CompletableFuture<Long> future;
+
+        Pending(long sequence, byte[] sessionId, byte[] payload) {
+            this.sequence = sequence;
+            this.sessionId = sessionId;
+            this.payload = payload;
+            this.future = new CompletableFuture<>();
+        }
+
+        int size() {
+            return HEADER_BYTES + FIXED_BODY_BYTES + sessionId.length + payload.length;
+        }
+    }
+
+    /**
+     * Open a journal with the default segment size and commit interval
+     * @param directory Directory of the segment files (created if missing)
+     * @throws IOException if the journal cannot be opened
+     */
+    public Journal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_COMMIT_INTERVAL_MICROS);
+    }
+
+    /**
+     * Open a journal, continuing after the records already in it
+     * @param directory Directory of the segment files (created if missing)
+     * @param segmentBytes Size after which a new segment is started
+     * @param commitIntervalMicros Minimum time between two syncs (0 to sync as soon as the last one ends)
+     * @throws IOException if the journal cannot be opened
+     */
+    public Journal(Path directory, long segmentBytes, long commitIntervalMicros) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.commitIntervalNanos = TimeUnit.MICROSECONDS.toNanos(commitIntervalMicros);
+        this.crc = new CRC32C();
+        this.records = new LongAdder();
+        this.commits = new LongAdder();
+        this.queue = new ArrayList<>();
+        this.buffer = ByteBuffer.allocateDirect(256 * 1024);
+        openTail();
+
+        this.writer = new Thread(this::writeLoop, "journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Append a record
+     * @param sessionId Session the record belongs to
+     * @param payload Record contents
+     * @return Future completed with the record's sequence once it is on disk,
+     *         or failed if it could not be written
+     */
+    public CompletableFuture<Long> append(String sessionId, byte[] payload) {
+        byte[] id = sessionId.getBytes(StandardCharsets.UTF_8);
+        if (id.length > Short.MAX_VALUE || payload.length > MAX_RECORD_BYTES) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Record too large"));
+        }
+        Pending pending;
+        synchronized (this) {
+            if (failure != null) {
+                return CompletableFuture.failedFuture(failure);
+            }
+            if (closed) {
+                return CompletableFuture.failedFuture(new IOException("Journal is closed"));
+            }
+            pending = new Pending(nextSequence++, id, payload);
+            queue.add(pending);
+            if (queue.size() == 1) {
+                notifyAll();
+            }
+        }
+        return pending.future;
+    }
+
+    private void writeLoop() {
+        List<Pending> spare = new ArrayList<>();
+        long lastCommit = System.nanoTime() - commitIntervalNanos;
+        while (true) {
+            List<Pending> batch;
+            synchronized (this) {
+                while (queue.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                if (queue.isEmpty()) {
+                    break; // Closed and drained
+                }
+            }
+
+            // Let the batch grow until the interval since the last sync is over
+            long wait = lastCommit + commitIntervalNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            synchronized (this) {
+                batch = queue;
+                queue = spare;
+            }
+
+            try {
+                commit(batch);
+                lastCommit = System.nanoTime();
+                durableSequence = batch.get(batch.size() - 1).sequence;
+                records.add(batch.size());
+                commits.increment();
+                for (Pending pending : batch) {
+                    pending.future.complete(pending.sequence);
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                }
+                for (Pending pending : batch) {
+                    pending.future.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+            spare = batch;
+        }
+        closeSegment();
+    }
+
+    /**
+     * Write a batch and sync it (writer thread only)
+     */
+    private void commit(List<Pending> batch) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        buffer.clear();
+        for (Pending pending : batch) {
+            int size = pending.size();
+            if (segmentSize + buffer.position() + size > segmentBytes && segmentSize + buffer.position() > 0) {
+                writeBuffer();
+                segment.force(false);
+                startSegment(pending.sequence);
+            }
+            if (size > buffer.remaining()) {
+                writeBuffer();
+                if (size > buffer.capacity()) {
+                    buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(size) * 2);
+                }
+            }
+            encode(pending);
+        }
+        writeBuffer();
+        segment.force(false);
+    }
+
+    private void encode(Pending pending) {
+        int start = buffer.position();
+        buffer.putInt(pending.size() - HEADER_BYTES).putInt(0)
+                .putLong(pending.sequence)
+                .putShort((short) pending.sessionId.length).put(pending.sessionId)
+                .put(pending.payload);
+        ByteBuffer body = buffer.duplicate();
+        body.position(start + HEADER_BYTES).limit(buffer.position());
+        crc.reset();
+        crc.update(body);
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segmentSize += segment.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Find where the journal ends and open its last segment for appending
+     */
+    private void openTail() throws IOException {
+        List<Path> segments = listSegments(directory);
+        if (segments.isEmpty()) {
+            nextSequence = 1;
+            startSegment(1);
+            return;
+        }
+
+        Path last = segments.get(segments.size() - 1);
+        long[] end = {firstSequenceOf(last) - 1};
+        long validBytes = scan(last, (sequence, sessionId, payload) -> end[0] = sequence, false);
+        nextSequence = end[0] + 1;
+        durableSequence = end[0];
+        segmentStart = firstSequenceOf(last);
+        segment = FileChannel.open(last, StandardOpenOption.WRITE);
+        if (segment.size() > validBytes) {
+            System.out.println("⚠️  Journal: dropping " + (segment.size() - validBytes) + " torn bytes from " + last.getFileName());
+            segment.truncate(validBytes);
+            segment.force(true);
+        }
+        segment.position(validBytes);
+        segmentSize = validBytes;
+    }
+
+    private void startSegment(long firstSequence) throws IOException {
+        closeSegment();
+        Path path = directory.resolve(String.format("%020d%s", firstSequence, EXTENSION));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        segmentSize = 0;
+        segmentStart = firstSequence;
+    }
+
+    private void closeSegment() {
+        if (segment != null) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                System.out.println("⚠️  Journal: cannot close segment: " + e.getMessage());
+            }
+            segment = null;
+        }
+    }
+
+    /**
+     * Read every record of a journal directory in order.
+     * A torn tail in the last segment ends the journal; damage anywhere
+     * else is an error.
+     * @param directory Directory of the segment files
+     * @param visitor Receives each record
+     * @return Number of records read
+     * @throws IOException on read error or a corrupt segment
+     */
+    public static long read(Path directory, RecordVisitor visitor) throws IOException {
+        long[] count = {0};
+        RecordVisitor counting = (sequence, sessionId, payload) -> {
+            count[0]++;
+            visitor.onRecord(sequence, sessionId, payload);
+        };
+        List<Path> segments = listSegments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            scan(segments.get(i), counting, i < segments.size() - 1);
+        }
+        return count[0];
+    }
+
+    /**
+     * Read the valid records at the start of a segment
+     * @return Number of bytes they take
+     */
+    private static long scan(Path path, RecordVisitor visitor, boolean mustBeComplete) throws IOException {
+        CRC32C check = new CRC32C();
+        long offset = 0;
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 64 * 1024))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return offset; // Clean end
+                }
+                String problem = null;
+                byte[] body = null;
+                if (length < FIXED_BODY_BYTES || length > MAX_RECORD_BYTES + Short.MAX_VALUE + FIXED_BODY_BYTES) {
+                    problem = "invalid length";
+                } else {
+                    try {
+                        int expected = in.readInt();
+                        body = new byte[length];
+                        in.readFully(body);
+                        check.reset();
+                        check.update(body, 0, length);
+                        if ((int) check.getValue() != expected) {
+                            problem = "checksum mismatch";
+                        }
+                    } catch (EOFException e) {
+                        problem = "torn record";
+                    }
+                }
+                if (problem != null) {
+                    if (mustBeComplete) {
+                        throw new IOException("Corrupt journal segment " + path.getFileName() + " at " + offset + ": " + problem);
+                    }
+                    return offset;
+                }
+
+                ByteBuffer record = ByteBuffer.wrap(body);
+                long sequence = record.getLong();
+                int idLength = record.getShort();
+                if (idLength < 0 || idLength > record.remaining()) {
+                    throw new IOException("Corrupt journal record in " + path.getFileName() + " at " + offset);
+                }
+                String sessionId = new String(body, record.position(), idLength, StandardCharsets.UTF_8);
+                record.position(record.position() + idLength);
+                byte[] payload = new byte[record.remaining()];
+                record.get(payload);
+                visitor.onRecord(sequence, sessionId, payload);
+                offset += HEADER_BYTES + length;
+            }
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+                    .sorted()
+                    .forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private static long firstSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - EXTENSION.length()));
+    }
+
+    /**
+     * Delete the sealed segments holding only records older than a sequence.
+     * The segment being written is never deleted.
+     * @param sequence First sequence still needed
+     * @return Number of segments deleted
+     * @throws IOException if a segment cannot be deleted
+     */
+    public int deleteSegmentsBefore(long sequence) throws IOException {
+        List<Path> segments = listSegments(directory);
+        int deleted = 0;
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (firstSequenceOf(segments.get(i + 1)) > sequence) {
+                break;
+            }
+            Files.delete(segments.get(i));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Stop accepting appends, sync what is queued and close the files
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Get the sequence of the last record known to be on disk
+     * @return Durable sequence, 0 if none
+     */
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * Get the sequence the next append will get at the earliest
+     * @return Lower bound of the next record's sequence
+     */
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Get the first sequence of the segment being written; every record
+     * before it is in a sealed segment
+     * @return First sequence of the last segment
+     */
+    public long getSegmentStart() {
+        return segmentStart;
+    }
+
+    /**
+     * Get the number of segment files
+     * @return Segment count
+     * @throws IOException if the directory cannot be listed
+     */
+    public int getSegmentCount() throws IOException {
+        return listSegments(directory).size();
+    }
+
+    /**
+     * Get the bytes the journal takes on disk
+     * @return Size of all segments
+     * @throws IOException if the directory cannot be listed
+     */
+    public long getDiskBytes() throws IOException {
+        long bytes = 0;
+        for (Path segment : listSegments(directory)) {
+            try {
+                bytes += Files.size(segment);
+            } catch (NoSuchFileException e) {
+                // Deleted since it was listed
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Get the number of records written since the journal was opened
+     * @return Record count
+     */
+    public long getRecordCount() {
+        return records.sum();
+    }
+
+    /**
+     * Get the number of syncs since the journal was opened
+     * @return Commit count (each one covers a whole batch)
+     */
+    public long getCommitCount() {
+        return commits.sum();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+}
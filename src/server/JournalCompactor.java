@@ -0,0 +1,165 @@
+package server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the journal from growing without bound.
+ *
+ * Each pass journals a checkpoint of every session whose history still
+ * begins in a sealed segment; once all of them have one, no session
+ * needs those segments any more and they are deleted. Disk usage and
+ * recovery time then depend on the number of live sessions, not on
+ * how long the server has been up.
+ *
+ * Checkpoints are paced by a byte rate on the compactor thread, before
+ * they are posted to the sessions, so moves never wait for compaction;
+ * a checkpoint only costs its session the time to encode its game.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class JournalCompactor {
+    /** Checkpoint bandwidth used unless told otherwise */
+    public static final long DEFAULT_BYTES_PER_SECOND = 4L * 1024 * 1024;
+
+    private static final int BYTES_PER_TOKEN = 64;
+    private static final int DEFAULT_CHECKPOINT_BYTES = 128; // Charged for a session's first checkpoint
+
+    private final SessionManager sessionManager;
+    private final Journal journal;
+    private final TokenBucket bandwidth;
+    private final LongAdder checkpoints;
+    private final LongAdder checkpointBytes;
+    private final LongAdder deletedSegments;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor for JournalCompactor
+     * @param sessionManager Sessions whose history is in the journal
+     * @param journal The journal to compact
+     * @param bytesPerSecond Checkpoint bytes written per second at most
+     */
+    public JournalCompactor(SessionManager sessionManager, Journal journal, long bytesPerSecond) {
+        this.sessionManager = sessionManager;
+        this.journal = journal;
+        double tokensPerSecond = Math.max(1, bytesPerSecond / (double) BYTES_PER_TOKEN);
+        this.bandwidth = new TokenBucket(tokensPerSecond, (int) Math.max(16, Math.min(tokensPerSecond / 10, 1024)));
+        this.checkpoints = new LongAdder();
+        this.checkpointBytes = new LongAdder();
+        this.deletedSegments = new LongAdder();
+    }
+
+    /**
+     * Compact periodically on a background thread
+     * @param periodMillis Time between passes
+     */
+    public synchronized void start(long periodMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::compactQuietly, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Checkpoint the sessions that still need sealed segments, then delete
+     * the segments no session needs
+     * @return Number of segments deleted
+     * @throws IOException if a segment cannot be deleted
+     * @throws InterruptedException if interrupted while pacing checkpoints
+     */
+    public int compact() throws IOException, InterruptedException {
+        long sealedEnd = journal.getSegmentStart();
+        List<CompletableFuture<Integer>> written = new ArrayList<>();
+        for (GameSession session : sessionManager.getJournaledSessions()) {
+            if (session.getJournalStart() < sealedEnd) {
+                int estimate = session.getCheckpointBytes();
+                pace(estimate > 0 ? estimate : DEFAULT_CHECKPOINT_BYTES);
+                written.add(session.checkpoint());
+            }
+        }
+        for (CompletableFuture<Integer> checkpoint : written) {
+            try {
+                int bytes = checkpoint.join();
+                if (bytes > 0) {
+                    checkpoints.increment();
+                    checkpointBytes.add(bytes);
+                }
+            } catch (RuntimeException e) {
+                System.out.println("⚠️  Checkpoint failed: " + e.getMessage()); // That session keeps its segments
+            }
+        }
+
+        // Sessions created meanwhile start after their creation, past this point
+        long needed = journal.getNextSequence();
+        for (GameSession session : sessionManager.getJournaledSessions()) {
+            needed = Math.min(needed, session.getJournalStart());
+        }
+        int deleted = journal.deleteSegmentsBefore(needed);
+        deletedSegments.add(deleted);
+        return deleted;
+    }
+
+    /**
+     * Wait until the bandwidth allows writing some bytes
+     */
+    private void pace(int bytes) throws InterruptedException {
+        for (int tokens = (bytes + BYTES_PER_TOKEN - 1) / BYTES_PER_TOKEN; tokens > 0; tokens--) {
+            while (!bandwidth.tryAcquire()) {
+                Thread.sleep(Math.max(1, bandwidth.getRetryAfterMillis()));
+            }
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("⚠️  Journal compaction failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the number of checkpoints journaled so far
+     * @return Checkpoint count
+     */
+    public long getCheckpointCount() {
+        return checkpoints.sum();
+    }
+
+    /**
+     * Get the bytes of checkpoints journaled so far
+     * @return Checkpoint bytes
+     */
+    public long getCheckpointBytes() {
+        return checkpointBytes.sum();
+    }
+
+    /**
+     * Get the number of segments deleted so far
+     * @return Deleted segment count
+     */
+    public long getDeletedSegments() {
+        return deletedSegments.sum();
+    }
+}
@@ -0,0 +1,393 @@
+package server;
+
+import controller.Bot;
+import controller.SimpleBot;
+import enums.Difficulty;
+import enums.GameMode;
+import enums.GameState;
+import model.GameSnapshot;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gathers waiting players into games.
+ *
+ * There is one lock-free queue per (mode, player count, difficulty)
+ * bucket, preallocated so enqueueing never takes a lock. A table is
+ * formed as soon as a bucket holds enough players; only one thread at
+ * a time forms tables for a bucket, the others simply leave it to that
+ * thread. Players who have waited longer than the backfill timeout are
+ * seated with bots in the empty seats.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class MatchmakingService {
+    private static final long BOT_DEADLINE_MILLIS = 200;
+    private static final long SWEEP_MILLIS = 100;
+
+    private static final int WAITING = 0;
+    private static final int MATCHED = 1;
+    private static final int CANCELLED = 2;
+
+    /**
+     * A seat obtained from matchmaking
+     */
+    public static class Match {
+        private final GameSession session;
+        private final String playerName;
+
+        Match(GameSession session, String playerName) {
+            this.session = session;
+            this.playerName = playerName;
+        }
+
+        public GameSession getSession() {
+            return session;
+        }
+
+        /**
+         * Get the name the player was seated under (made unique within the game)
+         * @return Seat name
+         */
+        public String getPlayerName() {
+            return playerName;
+        }
+    }
+
+    /**
+     * A player waiting in a bucket
+     */
+    public static class Ticket {
+        private final String playerName;
+        private final long enqueuedAt;
+        private final CompletableFuture<Match> future;
+        private final AtomicInteger status;
+
+        Ticket(String playerName) {
+            this.playerName = playerName;
+            this.enqueuedAt = System.currentTimeMillis();
+            this.future = new CompletableFuture<>();
+            this.status = new AtomicInteger(WAITING);
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        /**
+         * Get the future completed once the player is seated
+         * @return Future completed with the match, or failed if the game could not start
+         */
+        public CompletableFuture<Match> getFuture() {
+            return future;
+        }
+
+        public boolean isWaiting() {
+            return status.get() == WAITING;
+        }
+    }
+
+    /**
+     * Waiting players for one (mode, player count, difficulty)
+     */
+    private static class Bucket {
+        final GameMode mode;
+        final int numPlayers;
+        final Difficulty difficulty;
+        final Queue<Ticket> queue;
+        final AtomicInteger waiting;
+        final AtomicBoolean forming;
+
+        /** Oldest tickets taken off the queue, not seated yet; only touched while forming */
+        final Deque<Ticket> held;
+
+        Bucket(GameMode mode, int numPlayers, Difficulty difficulty) {
+            this.mode = mode;
+            this.numPlayers = numPlayers;
+            this.difficulty = difficulty;
+            this.queue = new ConcurrentLinkedQueue<>();
+            this.waiting = new AtomicInteger();
+            this.forming = new AtomicBoolean(false);
+            this.held = new ArrayDeque<>();
+        }
+    }
+
+    private final SessionManager sessionManager;
+    private final long backfillTimeoutMillis;
+    private final Bucket[][][] buckets;
+    private final ScheduledExecutorService sweeper;
+    private final AtomicInteger tablesFormed;
+
+    /**
+     * Constructor for MatchmakingService
+     * @param sessionManager Where matched games are created
+     * @param backfillTimeoutMillis Wait after which empty seats go to bots (0 disables backfill)
+     */
+    public MatchmakingService(SessionManager sessionManager, long backfillTimeoutMillis) {
+        this.sessionManager = sessionManager;
+        this.backfillTimeoutMillis = backfillTimeoutMillis;
+        this.tablesFormed = new AtomicInteger();
+
+        this.buckets = new Bucket[GameMode.values().length][7][Difficulty.values().length];
+        for (GameMode mode : GameMode.values()) {
+            for (int players = 2; players <= 6; players++) {
+                if (mode.isTeamMode() && players % 2 != 0) {
+                    continue; // Team mode requires even number of players
+                }
+                for (Difficulty difficulty : Difficulty.values()) {
+                    buckets[mode.ordinal()][players][difficulty.ordinal()] = new Bucket(mode, players, difficulty);
+                }
+            }
+        }
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "matchmaking-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (backfillTimeoutMillis > 0) {
+            sweeper.scheduleWithFixedDelay(this::sweep, SWEEP_MILLIS, SWEEP_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Wait for a game
+     * @param playerName Player name
+     * @param mode Wanted game mode
+     * @param numPlayers Wanted table size (2-6, even in team modes)
+     * @param difficulty Wanted difficulty
+     * @return The ticket, whose future completes once the player is seated
+     */
+    public Ticket enqueue(String playerName, GameMode mode, int numPlayers, Difficulty difficulty) {
+        Bucket bucket = bucketFor(mode, numPlayers, difficulty);
+        if (playerName == null || playerName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Player name cannot be empty");
+        }
+
+        Ticket ticket = new Ticket(playerName.trim());
+        bucket.queue.offer(ticket);
+        bucket.waiting.incrementAndGet();
+        formTables(bucket, false);
+        return ticket;
+    }
+
+    /**
+     * Leave the queue
+     * @param ticket Ticket from {@link #enqueue}
+     * @return true if the player was still waiting
+     */
+    public boolean cancel(Ticket ticket) {
+        if (!ticket.status.compareAndSet(WAITING, CANCELLED)) {
+            return false;
+        }
+        // Still counted as waiting until the forming thread skips it
+        ticket.future.cancel(false);
+        return true;
+    }
+
+    /**
+     * Get the number of players waiting in a bucket
+     * @return Waiting players (approximate while others enqueue)
+     */
+    public int getWaitingCount(GameMode mode, int numPlayers, Difficulty difficulty) {
+        return bucketFor(mode, numPlayers, difficulty).waiting.get();
+    }
+
+    /**
+     * Get the number of tables formed so far
+     * @return Table count
+     */
+    public int getTablesFormed() {
+        return tablesFormed.get();
+    }
+
+    /**
+     * Stop the backfill sweeper; waiting tickets stay unmatched
+     */
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    private Bucket bucketFor(GameMode mode, int numPlayers, Difficulty difficulty) {
+        if (numPlayers < 2 || numPlayers > 6) {
+            throw new IllegalArgumentException("Must have 2-6 players");
+        }
+        if (mode.isTeamMode() && numPlayers % 2 != 0) {
+            throw new IllegalArgumentException("Team mode requires even number of players");
+        }
+        return buckets[mode.ordinal()][numPlayers][difficulty.ordinal()];
+    }
+
+    /**
+     * Form as many tables as the bucket allows. If another thread is
+     * already forming tables here, return at once: it re-checks the
+     * count before letting go.
+     * @param backfill true to also seat players who waited too long with bots
+     */
+    private void formTables(Bucket bucket, boolean backfill) {
+        while (bucket.waiting.get() >= bucket.numPlayers || (backfill && bucket.waiting.get() > 0)) {
+            if (!bucket.forming.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                List<Ticket> table;
+                while ((table = takeTable(bucket, backfill)) != null) {
+                    startGame(bucket, table);
+                }
+            } finally {
+                bucket.forming.set(false);
+            }
+            if (backfill) {
+                return;
+            }
+            // Loop again in case players arrived while the flag was still set
+        }
+    }
+
+    /**
+     * Claim the players for one table (forming thread only)
+     * @return The claimed tickets, or null if no table can be formed yet
+     */
+    private List<Ticket> takeTable(Bucket bucket, boolean backfill) {
+        while (true) {
+            bucket.held.removeIf(ticket -> dropIfCancelled(bucket, ticket));
+            while (bucket.held.size() < bucket.numPlayers) {
+                Ticket ticket = bucket.queue.poll();
+                if (ticket == null) {
+                    break;
+                }
+                if (!dropIfCancelled(bucket, ticket)) {
+                    bucket.held.addLast(ticket);
+                }
+            }
+
+            if (bucket.held.isEmpty()) {
+                return null;
+            }
+            boolean full = bucket.held.size() == bucket.numPlayers;
+            boolean expired = backfill
+                    && System.currentTimeMillis() - bucket.held.peekFirst().enqueuedAt >= backfillTimeoutMillis;
+            if (!full && !expired) {
+                return null;
+            }
+
+            List<Ticket> table = new ArrayList<>(bucket.held.size());
+            for (Ticket ticket : bucket.held) {
+                if (ticket.status.compareAndSet(WAITING, MATCHED)) {
+                    table.add(ticket);
+                }
+            }
+            if (table.size() < bucket.held.size()) {
+                // Someone cancelled meanwhile: release the others and try again
+                for (Ticket ticket : table) {
+                    ticket.status.set(WAITING);
+                }
+                continue;
+            }
+
+            bucket.held.clear();
+            bucket.waiting.addAndGet(-table.size());
+            return table;
+        }
+    }
+
+    private boolean dropIfCancelled(Bucket bucket, Ticket ticket) {
+        if (ticket.isWaiting()) {
+            return false;
+        }
+        bucket.waiting.decrementAndGet();
+        return true;
+    }
+
+    private void startGame(Bucket bucket, List<Ticket> table) {
+        List<String> names = new ArrayList<>();
+        Set<String> used = new HashSet<>();
+        for (Ticket ticket : table) {
+            names.add(uniqueName(ticket.playerName, used));
+        }
+        Set<String> botNames = new HashSet<>();
+        for (int bot = 1; names.size() < bucket.numPlayers; bot++) {
+            String name = uniqueName("Bot " + bot, used);
+            names.add(name);
+            botNames.add(name);
+        }
+        tablesFormed.incrementAndGet();
+
+        sessionManager.createSession(bucket.numPlayers, bucket.mode, bucket.difficulty, names)
+                .whenComplete((session, error) -> {
+                    if (error != null) {
+                        for (Ticket ticket : table) {
+                            ticket.future.completeExceptionally(error);
+                        }
+                        return;
+                    }
+                    if (!botNames.isEmpty()) {
+                        driveBots(session, botNames);
+                    }
+                    for (int i = 0; i < table.size(); i++) {
+                        table.get(i).future.complete(new Match(session, names.get(i)));
+                    }
+                });
+    }
+
+    private String uniqueName(String name, Set<String> used) {
+        String unique = name;
+        for (int suffix = 2; !used.add(unique); suffix++) {
+            unique = name + " (" + suffix + ")";
+        }
+        return unique;
+    }
+
+    /**
+     * Play the bots' turns as soon as they come up
+     */
+    private void driveBots(GameSession session, Set<String> botNames) {
+        Bot bot = new SimpleBot();
+        SessionListener driver = (s, snapshot, delta) -> playIfBotTurn(s, snapshot, botNames, bot);
+        session.addListener(driver);
+        // The first version was published before the listener existed
+        playIfBotTurn(session, session.getSnapshot(), botNames, bot);
+    }
+
+    private void playIfBotTurn(GameSession session, GameSnapshot snapshot, Set<String> botNames, Bot bot) {
+        if (snapshot == null || snapshot.getState() != GameState.PLAYING
+                || !botNames.contains(snapshot.getCurrentPlayer().getName())) {
+            return;
+        }
+        session.submit(controller -> {
+            // Re-checked here: the turn may have moved on since the snapshot
+            if (controller.isGameRunning() && botNames.contains(controller.getCurrentPlayer().getName())) {
+                controller.playBotTurn(bot, BOT_DEADLINE_MILLIS);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Seat players who waited past the timeout (sweeper thread)
+     */
+    private void sweep() {
+        for (Bucket[][] byCount : buckets) {
+            for (Bucket[] byDifficulty : byCount) {
+                for (Bucket bucket : byDifficulty) {
+                    if (bucket != null && bucket.waiting.get() > 0) {
+                        formTables(bucket, true);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for moves, applied by the network front ends
+ * before a command is posted to a session's mailbox.
+ *
+ * A move is shed when its connection has too many moves in flight or
+ * has used up its token bucket, when the session has used up its own
+ * bucket (shared by everyone at the table), or when the session's
+ * mailbox is already full. Shed moves never reach the game, so one
+ * noisy client costs its session and the other sessions nothing but
+ * the check itself.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class MoveThrottle {
+    public static final int ADMITTED = 0;
+    public static final int CONNECTION_LIMIT = 1;
+    public static final int SESSION_LIMIT = 2;
+    public static final int QUEUE_FULL = 3;
+
+    /** Suggested wait when a queue, not a rate, is the limit */
+    private static final long QUEUE_RETRY_MILLIS = 50;
+
+    private final double connectionRate;
+    private final int connectionBurst;
+    private final int maxInFlight;
+    private final double sessionRate;
+    private final int sessionBurst;
+    private final int maxPending;
+
+    private final LongAdder admitted;
+    private final LongAdder throttledByConnection;
+    private final LongAdder throttledBySession;
+    private final LongAdder rejectedQueueFull;
+
+    /**
+     * Constructor with limits suited to human players
+     */
+    public MoveThrottle() {
+        this(20, 40, 8, 50, 100, 64);
+    }
+
+    /**
+     * Constructor for MoveThrottle
+     * @param connectionRate Moves per second allowed per connection
+     * @param connectionBurst Moves a connection may send at once
+     * @param maxInFlight Moves per connection waiting for their result
+     * @param sessionRate Moves per second allowed per session
+     * @param sessionBurst Moves a session may receive at once
+     * @param maxPending Commands a session's mailbox may hold
+     */
+    public MoveThrottle(double connectionRate, int connectionBurst, int maxInFlight,
+                        double sessionRate, int sessionBurst, int maxPending) {
+        this.connectionRate = connectionRate;
+        this.connectionBurst = connectionBurst;
+        this.maxInFlight = maxInFlight;
+        this.sessionRate = sessionRate;
+        this.sessionBurst = sessionBurst;
+        this.maxPending = maxPending;
+        this.admitted = new LongAdder();
+        this.throttledByConnection = new LongAdder();
+        this.throttledBySession = new LongAdder();
+        this.rejectedQueueFull = new LongAdder();
+    }
+
+    /**
+     * Throttle without rate limits, for benchmarks; queues stay bounded
+     * @return The throttle
+     */
+    public static MoveThrottle unlimited() {
+        return new MoveThrottle(Double.POSITIVE_INFINITY, 1, Integer.MAX_VALUE,
+                Double.POSITIVE_INFINITY, 1, 1024);
+    }
+
+    public TokenBucket newConnectionLimiter() {
+        return new TokenBucket(connectionRate, connectionBurst);
+    }
+
+    public TokenBucket newSessionLimiter() {
+        return new TokenBucket(sessionRate, sessionBurst);
+    }
+
+    /**
+     * Decide whether a move may be posted to its session
+     * @param connectionLimiter The client's bucket, or null if the front end has no connections
+     * @param inFlight Moves this client already has waiting for a result
+     * @param session Target session
+     * @return ADMITTED, or the reason the move is shed
+     */
+    public int admit(TokenBucket connectionLimiter, int inFlight, GameSession session) {
+        int verdict;
+        if (inFlight >= maxInFlight || (connectionLimiter != null && !connectionLimiter.tryAcquire())) {
+            verdict = CONNECTION_LIMIT;
+            throttledByConnection.increment();
+        } else if (session.getPendingCommands() >= maxPending) {
+            verdict = QUEUE_FULL;
+            rejectedQueueFull.increment();
+        } else if (session.getMoveLimiter() != null && !session.getMoveLimiter().tryAcquire()) {
+            verdict = SESSION_LIMIT;
+            throttledBySession.increment();
+        } else {
+            verdict = ADMITTED;
+            admitted.increment();
+        }
+        return verdict;
+    }
+
+    /**
+     * Suggest when a shed move may be retried
+     * @param verdict Result of {@link #admit}
+     * @param connectionLimiter The client's bucket, or null
+     * @param session Target session
+     * @return Wait in milliseconds
+     */
+    public long getRetryAfterMillis(int verdict, TokenBucket connectionLimiter, GameSession session) {
+        if (verdict == CONNECTION_LIMIT && connectionLimiter != null) {
+            return Math.max(1, connectionLimiter.getRetryAfterMillis());
+        }
+        if (verdict == SESSION_LIMIT && session.getMoveLimiter() != null) {
+            return Math.max(1, session.getMoveLimiter().getRetryAfterMillis());
+        }
+        return QUEUE_RETRY_MILLIS;
+    }
+
+    public static String describe(int verdict) {
+        switch (verdict) {
+            case ADMITTED: return "admitted";
+            case CONNECTION_LIMIT: return "connection rate limit";
+            case SESSION_LIMIT: return "session rate limit";
+            case QUEUE_FULL: return "session queue full";
+            default: return "unknown";
+        }
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getThrottledByConnection() {
+        return throttledByConnection.sum();
+    }
+
+    public long getThrottledBySession() {
+        return throttledBySession.sum();
+    }
+
+    public long getRejectedQueueFull() {
+        return rejectedQueueFull.sum();
+    }
+
+    /**
+     * Get every move shed so far, whatever the reason
+     * @return Shed move count
+     */
+    public long getThrottled() {
+        return getThrottledByConnection() + getThrottledBySession() + getRejectedQueueFull();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MoveThrottle[admitted=%d, connection=%d, session=%d, queueFull=%d]",
+                getAdmitted(), getThrottledByConnection(), getThrottledBySession(), getRejectedQueueFull());
+    }
+}
@@ -0,0 +1,71 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps hibernated sessions in direct buffers outside the Java heap.
+ * Faster to wake than files, but lost when the process exits.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Non-destructive read
+ */
+public class OffHeapHibernationStore implements HibernationStore {
+    private final ConcurrentMap<String, ByteBuffer> buffers;
+    private final AtomicLong storedBytes;
+
+    /**
+     * Constructor for OffHeapHibernationStore
+     */
+    public OffHeapHibernationStore() {
+        this.buffers = new ConcurrentHashMap<>();
+        this.storedBytes = new AtomicLong();
+    }
+
+    @Override
+    public void save(String sessionId, byte[] data) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data).flip();
+        ByteBuffer previous = buffers.put(sessionId, buffer);
+        storedBytes.addAndGet(data.length - (previous != null ? previous.capacity() : 0));
+    }
+
+    @Override
+    public byte[] load(String sessionId) throws IOException {
+        ByteBuffer buffer = buffers.remove(sessionId);
+        if (buffer == null) {
+            throw new IOException("No hibernated state for session " + sessionId);
+        }
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        storedBytes.addAndGet(-data.length);
+        return data;
+    }
+
+    @Override
+    public byte[] read(String sessionId) throws IOException {
+        ByteBuffer buffer = buffers.get(sessionId);
+        if (buffer == null) {
+            throw new IOException("No hibernated state for session " + sessionId);
+        }
+        byte[] data = new byte[buffer.remaining()];
+        buffer.duplicate().get(data); // Own position, so concurrent reads never move the stored one
+        return data;
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        ByteBuffer buffer = buffers.remove(sessionId);
+        if (buffer != null) {
+            storedBytes.addAndGet(-buffer.capacity());
+        }
+    }
+
+    @Override
+    public long getStoredBytes() {
+        return storedBytes.get();
+    }
+}
@@ -0,0 +1,139 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the games held in memory within a heap budget.
+ *
+ * Each resident game is charged a fixed estimate of its object graph.
+ * When the resident games exceed the budget, the least recently used
+ * ones that have been idle long enough are hibernated to the store;
+ * they come back on their own with their next command.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class SessionGovernor {
+    /** Heap freed by hibernating one game (about 2.5 KB measured for 3 players, 3.2 KB for 6) */
+    public static final long ESTIMATED_SESSION_BYTES = 3 * 1024;
+
+    private final SessionManager sessionManager;
+    private final HibernationStore store;
+    private final long heapBudgetBytes;
+    private final long minIdleMillis;
+    private final LongAdder hibernations;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor for SessionGovernor
+     * @param sessionManager Sessions to govern
+     * @param store Where hibernated games go
+     * @param heapBudgetBytes Heap allowed for resident games
+     * @param minIdleMillis Sessions used more recently than this are never hibernated
+     */
+    public SessionGovernor(SessionManager sessionManager, HibernationStore store,
+                           long heapBudgetBytes, long minIdleMillis) {
+        this.sessionManager = sessionManager;
+        this.store = store;
+        this.heapBudgetBytes = heapBudgetBytes;
+        this.minIdleMillis = minIdleMillis;
+        this.hibernations = new LongAdder();
+    }
+
+    /**
+     * Check the budget periodically on a background thread
+     * @param periodMillis Time between checks
+     */
+    public synchronized void start(long periodMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-governor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::enforce, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Hibernate least recently used idle sessions until the resident ones fit the budget
+     * @return Number of sessions sent to hibernation
+     */
+    public int enforce() {
+        List<GameSession> resident = new ArrayList<>();
+        for (GameSession session : sessionManager.getSessions()) {
+            if (!session.isHibernated() && !session.isClosed()) {
+                resident.add(session);
+            }
+        }
+
+        int excess = resident.size() - getMaxResident();
+        if (excess <= 0) {
+            return 0;
+        }
+
+        resident.sort(Comparator.comparingLong(GameSession::getLastActivity));
+        long idleBefore = System.currentTimeMillis() - minIdleMillis;
+        int requested = 0;
+        for (GameSession session : resident) {
+            if (requested == excess || session.getLastActivity() > idleBefore) {
+                break; // Sorted: everything after is more recent
+            }
+            session.hibernate(store).thenAccept(done -> {
+                if (done) {
+                    hibernations.increment();
+                }
+            });
+            requested++;
+        }
+        return requested;
+    }
+
+    /**
+     * Get how many games may stay in memory
+     * @return Resident session limit
+     */
+    public int getMaxResident() {
+        return (int) Math.max(1, heapBudgetBytes / ESTIMATED_SESSION_BYTES);
+    }
+
+    /**
+     * Get the number of sessions currently hibernated
+     * @return Hibernated session count
+     */
+    public int getHibernatedCount() {
+        int count = 0;
+        for (GameSession session : sessionManager.getSessions()) {
+            if (session.isHibernated()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of hibernations performed so far
+     * @return Hibernation count
+     */
+    public long getHibernations() {
+        return hibernations.sum();
+    }
+
+    public HibernationStore getStore() {
+        return store;
+    }
+}
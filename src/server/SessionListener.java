@@ -0,0 +1,31 @@
+package server;
+
+import model.GameSnapshot;
+import model.StateDelta;
+
+/**
+ * Notified each time a session publishes a new version, and once
+ * when it is closed.
+ * Called on the session's mailbox thread, so implementations must be
+ * quick and must not block (queue I/O elsewhere).
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Close notice
+ */
+public interface SessionListener {
+
+    /**
+     * A new version was published
+     * @param session The session
+     * @param current The new version
+     * @param delta Changes since the previous version (null for the first version)
+     */
+    void onStateChanged(GameSession session, GameSnapshot current, StateDelta delta);
+
+    /**
+     * The session was closed; it will publish no more versions
+     * @param session The session
+     */
+    default void onClosed(GameSession session) {
+    }
+}
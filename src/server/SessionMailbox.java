@@ -0,0 +1,91 @@
+package server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-writer mailbox for one game session.
+ * Any number of threads may post commands; at most one pool thread
+ * drains the queue at a time, so the game behind it is only ever
+ * touched by one thread and needs no locks. A drain runs a bounded
+ * batch and then yields the pool thread so busy sessions cannot
+ * starve quiet ones.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Pending count drops when a command starts
+ */
+public class SessionMailbox {
+    private static final int BATCH_SIZE = 64;
+
+    private final Queue<Runnable> queue;
+    private final AtomicBoolean scheduled;
+    private final AtomicInteger pending;
+    private final Executor pool;
+
+    /**
+     * Constructor for SessionMailbox
+     * @param pool Shared pool used to drain the mailbox
+     */
+    public SessionMailbox(Executor pool) {
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean(false);
+        this.pending = new AtomicInteger();
+        this.pool = pool;
+    }
+
+    /**
+     * Post a command; it runs after every command posted before it
+     * @param command The command
+     */
+    public void post(Runnable command) {
+        pending.incrementAndGet();
+        queue.offer(command);
+        trySchedule();
+    }
+
+    /**
+     * Get the number of commands not yet started
+     * @return Pending command count
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Schedule a drain unless one is already scheduled or running
+     */
+    private void trySchedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            pool.execute(this::drain);
+        }
+    }
+
+    /**
+     * Process up to one batch of commands on the current pool thread
+     */
+    private void drain() {
+        try {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Runnable command = queue.poll();
+                if (command == null) {
+                    break;
+                }
+                pending.decrementAndGet(); // Before running: the command may complete its caller's future
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    System.out.println("⚠️  Session command failed: " + e.getMessage());
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            // A command may have arrived after our last poll
+            if (!queue.isEmpty()) {
+                trySchedule();
+            }
+        }
+    }
+}
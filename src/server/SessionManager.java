@@ -0,0 +1,322 @@
+package server;
+
+import controller.GameController;
+import enums.Difficulty;
+import enums.GameMode;
+import model.Game;
+import stats.GameMetrics;
+import stats.LiveStats;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Creates, looks up and tears down game sessions by ID.
+ * Sessions are independent: each one has its own game and its own
+ * mailbox, all drained by one shared worker pool.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class SessionManager {
+    private final ConcurrentMap<String, GameSession> sessions;
+    private final Executor pool;
+    private final MoveThrottle throttle;
+    private final AtomicLong nextId;
+    private volatile Predicate<String> ownership;
+    private volatile Journal journal;
+    private final Set<GameSession> journaled; // From creation until their end is journaled
+    private volatile Consumer<Game> gameOverHandler;
+    private volatile LiveStats liveStats;
+    private volatile GameMetrics metrics;
+
+    /**
+     * Constructor for SessionManager
+     * @param pool Shared worker pool for all sessions
+     */
+    public SessionManager(Executor pool) {
+        this(pool, null);
+    }
+
+    /**
+     * Constructor for SessionManager
+     * @param pool Shared worker pool for all sessions
+     * @param throttle Gives each session its move rate limit (null for none)
+     */
+    public SessionManager(Executor pool, MoveThrottle throttle) {
+        this.sessions = new ConcurrentHashMap<>();
+        this.pool = pool;
+        this.throttle = throttle;
+        this.nextId = new AtomicLong(1);
+        this.journaled = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Create a session and start its game
+     * @param numPlayers Number of players (2-6)
+     * @param mode Game mode
+     * @param difficulty Difficulty level
+     * @param playerNames Player names
+     * @return Future completed with the session, or failed if the configuration is invalid
+     */
+    public CompletableFuture<GameSession> createSession(int numPlayers, GameMode mode,
+                                                        Difficulty difficulty, List<String> playerNames) {
+        String sessionId = newSessionId();
+        GameSession session = newSession(sessionId);
+        List<String> names = new ArrayList<>(playerNames);
+
+        return session.submit(controller -> {
+            String error = GameController.checkConfiguration(numPlayers, mode, names);
+            if (error != null) {
+                throw new IllegalArgumentException(error);
+            }
+            if (!controller.initializeGame(numPlayers, mode, difficulty, names)) {
+                throw new IllegalArgumentException("Invalid game configuration");
+            }
+            controller.startGame();
+            return session;
+        }).whenComplete((started, error) -> {
+            if (error != null) {
+                discard(session);
+            }
+        }).thenApply(started -> {
+            sessions.put(sessionId, started);
+            return started;
+        });
+    }
+
+    private GameSession newSession(String sessionId) {
+        GameSession session = new GameSession(sessionId, pool,
+                throttle != null ? throttle.newSessionLimiter() : null);
+        Journal current = journal;
+        if (current != null) {
+            session.setJournal(current);
+            journaled.add(session);
+        }
+        GameMetrics timing = metrics;
+        if (timing != null) {
+            session.setMetrics(timing);
+        }
+        LiveStats stats = liveStats;
+        if (stats != null) {
+            session.setLiveStats(stats);
+        }
+        Consumer<Game> handler = gameOverHandler;
+        if (handler != null) {
+            session.setGameOverHandler(handler);
+        }
+        return session;
+    }
+
+    /**
+     * Journal the events of sessions created from now on
+     * @param journal Journal shared by all sessions, or null to stop journaling new ones
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Count the moves of sessions created from now on
+     * @param liveStats Statistics shared by all sessions, or null to stop counting new ones
+     */
+    public void setLiveStats(LiveStats liveStats) {
+        this.liveStats = liveStats;
+    }
+
+    /**
+     * Time the turns and games of sessions created from now on
+     * @param metrics Metrics shared by all sessions, or null to stop timing new ones
+     */
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Be told when a game of a session created from now on ends
+     * @param handler Called on the session's mailbox thread with the finished game, or null for none
+     */
+    public void setGameOverHandler(Consumer<Game> handler) {
+        this.gameOverHandler = handler;
+    }
+
+    /**
+     * Restrict new session IDs to those this server owns (when sessions
+     * are sharded over several servers); IDs then become random so that
+     * servers never hand out the same one
+     * @param ownership Test telling whether an ID belongs to this server, or null for sequential IDs
+     */
+    public void setOwnership(Predicate<String> ownership) {
+        this.ownership = ownership;
+    }
+
+    private String newSessionId() {
+        Predicate<String> owns = ownership;
+        if (owns == null) {
+            return Long.toString(nextId.getAndIncrement(), 36);
+        }
+        while (true) {
+            String candidate = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+            if (owns.test(candidate) && !sessions.containsKey(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * Freeze a session and encode it, to move it to another server.
+     * The session rejects commands from now on but stays registered
+     * until {@link #releaseSession} or {@link #adoptSession} is called.
+     * @param sessionId The session ID
+     * @return Future completed with the encoded session, or failed if unknown
+     */
+    public CompletableFuture<byte[]> detachSession(String sessionId) {
+        GameSession session = getSession(sessionId);
+        if (session == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown session " + sessionId));
+        }
+        return session.detach();
+    }
+
+    /**
+     * Take over a session moved from another server
+     * @param sessionId The session ID (kept as is)
+     * @param data Bytes produced by {@link #detachSession}
+     * @return Future completed with the session once its game is loaded
+     */
+    public CompletableFuture<GameSession> adoptSession(String sessionId, byte[] data) {
+        GameSession previous = sessions.get(sessionId);
+        if (previous != null && !previous.isClosed()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Session " + sessionId + " already exists"));
+        }
+        GameSession session = newSession(sessionId);
+        return session.restore(data).whenComplete((ignored, error) -> {
+            if (error != null) {
+                discard(session);
+            }
+        }).thenApply(ignored -> {
+            sessions.put(sessionId, session);
+            return session;
+        });
+    }
+
+    /**
+     * Bring back a session rebuilt from the journal after a restart
+     * @param sessionId The session ID (kept as is)
+     * @param controller Its rebuilt game
+     * @param startSequence Where its history begins in the journal
+     * @return Future completed with the session once its game is in place
+     */
+    CompletableFuture<GameSession> resumeSession(String sessionId, GameController controller, long startSequence) {
+        try {
+            long number = Long.parseLong(sessionId, 36);
+            nextId.accumulateAndGet(number + 1, Math::max); // New IDs must not reuse it
+        } catch (NumberFormatException e) {
+            // Not a sequential ID
+        }
+        GameSession session = newSession(sessionId);
+        return session.resume(controller, startSequence).thenApply(ignored -> {
+            sessions.put(sessionId, session);
+            return session;
+        });
+    }
+
+    /**
+     * Forget a session without ending its game (it now lives elsewhere)
+     * @param sessionId The session ID
+     * @return true if the session existed
+     */
+    public boolean releaseSession(String sessionId) {
+        GameSession session = sessions.remove(sessionId);
+        if (session == null) {
+            return false;
+        }
+        discard(session);
+        return true;
+    }
+
+    /**
+     * Look up a session
+     * @param sessionId The session ID
+     * @return The session, or null if unknown
+     */
+    public GameSession getSession(String sessionId) {
+        return sessionId == null ? null : sessions.get(sessionId);
+    }
+
+    /**
+     * Tear down a session; its game is ended after pending commands run
+     * @param sessionId The session ID
+     * @return true if the session existed
+     */
+    public boolean closeSession(String sessionId) {
+        GameSession session = sessions.remove(sessionId);
+        if (session == null) {
+            return false;
+        }
+        session.submit(controller -> {
+            if (controller.isGameRunning()) {
+                controller.endGame();
+            }
+            return null;
+        });
+        discard(session);
+        return true;
+    }
+
+    /**
+     * Take a session off this server without ending its game; its
+     * journal history stays open for the next server to resume
+     * @param sessionId The session ID
+     * @return true if the session existed
+     */
+    boolean stopSession(String sessionId) {
+        GameSession session = sessions.remove(sessionId);
+        if (session == null) {
+            return false;
+        }
+        session.stop(); // Still journaled: compaction must keep its history
+        return true;
+    }
+
+    /**
+     * Close a session and stop tracking its journal history once its end is recorded
+     */
+    private void discard(GameSession session) {
+        session.close().whenComplete((ignored, error) -> journaled.remove(session));
+    }
+
+    /**
+     * Get the number of live sessions
+     * @return Session count
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Get the sessions whose history is in the journal, including those
+     * still being created or closed (for journal compaction)
+     * @return Snapshot of the sessions
+     */
+    Collection<GameSession> getJournaledSessions() {
+        return new ArrayList<>(journaled);
+    }
+
+    /**
+     * Get all live sessions (for housekeeping)
+     * @return Snapshot of the sessions
+     */
+    public Collection<GameSession> getSessions() {
+        return new ArrayList<>(sessions.values());
+    }
+}
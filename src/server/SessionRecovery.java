@@ -0,0 +1,229 @@
+package server;
+
+import controller.GameCheckpoint;
+import controller.GameController;
+import model.GameEvent;
+import model.GameEventCodec;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rebuilds the sessions that were live when the server stopped, from
+ * the journal they wrote.
+ *
+ * Each journal record of a session is one of: a batch of events, a
+ * checkpoint of the whole game (written when the game arrives without
+ * its history, e.g. migrated from another server, or by the
+ * {@link JournalCompactor}), or the mark that the session was closed. Recovery reads the journal once, in order,
+ * keeping for each session its last checkpoint and the events after
+ * it; the games are then rebuilt in parallel on the given executor.
+ *
+ * Record layout: byte kind, then the events in {@link GameEventCodec}
+ * form, the {@link GameCheckpoint} bytes, or nothing.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public final class SessionRecovery {
+    public static final byte EVENTS = 0;
+    public static final byte CHECKPOINT = 1;
+    public static final byte CLOSED = 2;
+
+    private final Map<String, GameController> sessions;
+    private final Map<String, Long> startSequences;
+    private final long records;
+    private final int failed;
+    private final long elapsedNanos;
+
+    /**
+     * Journaled history of one session, from its last checkpoint
+     */
+    private static class History {
+        long start;
+        byte[] checkpoint;
+        final List<byte[]> events = new ArrayList<>();
+    }
+
+    private SessionRecovery(Map<String, GameController> sessions, Map<String, Long> startSequences,
+                            long records, int failed, long elapsedNanos) {
+        this.sessions = Collections.unmodifiableMap(sessions);
+        this.startSequences = startSequences;
+        this.records = records;
+        this.failed = failed;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Rebuild the live sessions of a journal.
+     * Open the journal for writing first, so that a torn tail is cut off.
+     * @param directory Directory of the journal segments
+     * @param executor Runs the rebuilds in parallel
+     * @return The rebuilt sessions and a report
+     * @throws IOException if the journal cannot be read or a segment other than the last is corrupt
+     */
+    public static SessionRecovery recover(Path directory, Executor executor) throws IOException {
+        long start = System.nanoTime();
+        Map<String, History> histories = new LinkedHashMap<>();
+        long records = Journal.read(directory, (sequence, sessionId, payload) -> {
+            byte kind = payload.length > 0 ? payload[0] : -1;
+            if (kind == CLOSED) {
+                histories.remove(sessionId);
+                return;
+            }
+            History history = histories.computeIfAbsent(sessionId, id -> new History());
+            if (history.start == 0) {
+                history.start = sequence;
+            }
+            if (kind == CHECKPOINT) {
+                history.start = sequence;
+                history.checkpoint = payload;
+                history.events.clear();
+            } else {
+                history.events.add(payload); // Checked when rebuilt
+            }
+        });
+
+        Map<String, GameController> sessions = new ConcurrentHashMap<>();
+        Map<String, Long> starts = new HashMap<>();
+        for (Map.Entry<String, History> entry : histories.entrySet()) {
+            starts.put(entry.getKey(), entry.getValue().start);
+        }
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<Void>> rebuilds = new ArrayList<>(histories.size());
+        for (Map.Entry<String, History> entry : histories.entrySet()) {
+            rebuilds.add(CompletableFuture.runAsync(() -> {
+                try {
+                    sessions.put(entry.getKey(), rebuild(entry.getValue()));
+                } catch (IOException | RuntimeException e) {
+                    failed.incrementAndGet();
+                    System.out.println("⚠️  Cannot recover session " + entry.getKey() + ": " + e.getMessage());
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(rebuilds.toArray(new CompletableFuture<?>[0])).join();
+        return new SessionRecovery(sessions, starts, records, failed.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * Fold a session's checkpoint and later events into a controller
+     */
+    private static GameController rebuild(History history) throws IOException {
+        List<GameEvent> events = new ArrayList<>();
+        for (byte[] payload : history.events) {
+            events.addAll(decodeEvents(payload));
+        }
+        if (history.checkpoint == null) {
+            return GameController.replay(events);
+        }
+        GameController saved = GameCheckpoint.decode(Arrays.copyOfRange(history.checkpoint, 1, history.checkpoint.length));
+        return GameController.replay(saved, events);
+    }
+
+    /**
+     * Encode a batch of events as a journal record
+     * @param events Events, oldest first
+     * @return Record payload
+     */
+    static byte[] eventsRecord(List<GameEvent> events) {
+        return withKind(EVENTS, GameEventCodec.encode(events));
+    }
+
+    /**
+     * Encode a checkpoint as a journal record
+     * @param checkpoint Bytes from {@link GameCheckpoint#encode}
+     * @return Record payload
+     */
+    static byte[] checkpointRecord(byte[] checkpoint) {
+        return withKind(CHECKPOINT, checkpoint);
+    }
+
+    /**
+     * Get the journal record marking a session closed
+     * @return Record payload
+     */
+    static byte[] closedRecord() {
+        return new byte[]{CLOSED};
+    }
+
+    private static byte[] withKind(byte kind, byte[] body) {
+        byte[] payload = new byte[body.length + 1];
+        payload[0] = kind;
+        System.arraycopy(body, 0, payload, 1, body.length);
+        return payload;
+    }
+
+    /**
+     * Decode the events of a journal record
+     * @param payload Record payload
+     * @return The events, or none if the record holds no events
+     * @throws IOException if the record is damaged
+     */
+    public static List<GameEvent> decodeEvents(byte[] payload) throws IOException {
+        if (payload.length == 0 || payload[0] > CLOSED || payload[0] < EVENTS) {
+            throw new IOException("Unknown journal record");
+        }
+        if (payload[0] != EVENTS) {
+            return Collections.emptyList();
+        }
+        return GameEventCodec.decode(Arrays.copyOfRange(payload, 1, payload.length));
+    }
+
+    /**
+     * Get the rebuilt sessions (every session not closed, finished games included)
+     * @return Controllers by session ID
+     */
+    public Map<String, GameController> getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Get where a session's history begins in the journal: the records
+     * before it can be deleted without losing the session
+     * @param sessionId The session ID
+     * @return Sequence of its last checkpoint, or of its first record if it has none
+     */
+    public long getStartSequence(String sessionId) {
+        return startSequences.getOrDefault(sessionId, Long.MAX_VALUE);
+    }
+
+    /**
+     * Get the number of journal records read
+     * @return Record count
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Get the number of sessions whose history could not be rebuilt
+     * @return Failed session count
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Get the time taken to read the journal and rebuild the sessions
+     * @return Elapsed time in milliseconds
+     */
+    public double getElapsedMillis() {
+        return elapsedNanos / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d sessions recovered from %d journal records in %.0f ms%s",
+                sessions.size(), records, getElapsedMillis(), failed > 0 ? " (" + failed + " failed)" : "");
+    }
+}
@@ -0,0 +1,64 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ * Instead of a token count refilled by a timer, the bucket keeps the
+ * time at which it will be full again and moves it forward by one
+ * token's worth on each grant; a single compare-and-set per request,
+ * safe from any thread.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class TokenBucket {
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * Constructor for TokenBucket
+     * @param tokensPerSecond Sustained rate (infinite for no limit)
+     * @param burst Tokens available at once when the bucket is full
+     */
+    public TokenBucket(double tokensPerSecond, int burst) {
+        if (tokensPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.nanosPerToken = Double.isInfinite(tokensPerSecond) ? 0 : (long) (1_000_000_000L / tokensPerSecond);
+        this.burstNanos = nanosPerToken * burst;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Take one token if available
+     * @return true if granted, false if the caller must slow down
+     */
+    public boolean tryAcquire() {
+        if (nanosPerToken == 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        while (true) {
+            long current = fullAt.get();
+            long base = current - now > 0 ? current : now;
+            long next = base + nanosPerToken;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Time until the next token is available
+     * @return Wait in milliseconds, 0 if a token is available now
+     */
+    public long getRetryAfterMillis() {
+        long wait = fullAt.get() + nanosPerToken - burstNanos - System.nanoTime();
+        return wait <= 0 ? 0 : (wait + 999_999) / 1_000_000;
+    }
+}
@@ -0,0 +1,66 @@
+package stats;
+
+/**
+ * Columns of a {@link GameArchive}, one file each.
+ * Every value is stored as a long; enums are stored by ordinal and
+ * booleans as 0 or 1.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public enum ArchiveColumn {
+    FINISHED_AT(0),
+    MODE(0),
+    PLAYERS(0),
+    WINNER_SEAT(0),
+    TURNS(0),
+    PFE_WIN(0),
+    TRIOS_PFE(1),
+    TRIOS_EN21(2),
+    TRIOS_MQ51(3),
+    TRIOS_MQ41(4),
+    TRIOS_MQ18(5),
+    TRIOS_GI41(6),
+    TRIOS_GI28(7),
+    TRIOS_GI21(8),
+    TRIOS_AP4B(9),
+    TRIOS_SY48(10),
+    TRIOS_IA41(11),
+    TRIOS_SY41(12);
+
+    private final int courseId;
+
+    ArchiveColumn(int courseId) {
+        this.courseId = courseId;
+    }
+
+    /**
+     * Get the column counting the trios of one course
+     * @param courseId Card ID of the course (1-12)
+     * @return The column
+     */
+    public static ArchiveColumn trios(int courseId) {
+        for (ArchiveColumn column : values()) {
+            if (column.courseId == courseId && courseId != 0) {
+                return column;
+            }
+        }
+        throw new IllegalArgumentException("No course with ID " + courseId);
+    }
+
+    /**
+     * Get the course counted by this column
+     * @return Card ID (1-12), or 0 for columns that are not trio counts
+     */
+    public int getCourseId() {
+        return courseId;
+    }
+
+    /**
+     * Get the name of the column's file in the archive directory
+     * @return File name
+     */
+    public String fileName() {
+        return name().toLowerCase() + ".col";
+    }
+}
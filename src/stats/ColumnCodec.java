@@ -0,0 +1,334 @@
+package stats;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Block encoding shared by {@link GameArchiveWriter} and {@link GameArchive}.
+ *
+ * A column file is a run of blocks. Each block starts with a header
+ * (int rows, byte encoding, long min, long max, int payload bytes) so a
+ * scan can skip or answer a block from its statistics alone. The payload
+ * uses whichever encoding is smallest for that block:
+ * run-length (varint run, zigzag value), delta (zigzag varint
+ * differences) or dictionary (sorted values, then bit-packed codes).
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+final class ColumnCodec {
+    static final int HEADER_BYTES = 25;
+    static final byte RLE = 0;
+    static final byte DELTA = 1;
+    static final byte DICTIONARY = 2;
+
+    private static final int MAX_DICTIONARY = 256;
+    private static final int TABLE_SIZE = 1024; // Open addressing, at most a quarter full
+
+    private ColumnCodec() {
+    }
+
+    /**
+     * Largest encoded size of a block
+     * @param rows Rows in the block
+     * @return Bytes, header included
+     */
+    static int maxBlockBytes(int rows) {
+        return HEADER_BYTES + rows * 11 + MAX_DICTIONARY * 10 + 16;
+    }
+
+    /**
+     * Encode a block, header included, with its smallest encoding
+     * @param values Values of the block
+     * @param rows Number of values used
+     * @param out Receives the block; needs {@link #maxBlockBytes} bytes free
+     */
+    static void encode(long[] values, int rows, ByteBuffer out) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        int rleBytes = 0;
+        int deltaBytes = 0;
+        long previous = 0;
+        int run = 0;
+        for (int i = 0; i < rows; i++) {
+            long value = values[i];
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            deltaBytes += varintLength(zigzag(value - previous));
+            if (run > 0 && value != previous) {
+                rleBytes += varintLength(run) + varintLength(zigzag(previous));
+                run = 0;
+            }
+            run++;
+            previous = value;
+        }
+        rleBytes += varintLength(run) + varintLength(zigzag(previous));
+
+        long[] dictionary = dictionary(values, rows);
+        int bits = dictionary == null ? 0 : Math.max(1, 32 - Integer.numberOfLeadingZeros(dictionary.length - 1));
+        int dictionaryBytes = Integer.MAX_VALUE;
+        if (dictionary != null) {
+            dictionaryBytes = varintLength(dictionary.length) + 1 + (int) (((long) rows * bits + 7) / 8) + 1;
+            long last = 0;
+            for (long value : dictionary) {
+                dictionaryBytes += varintLength(zigzag(value - last));
+                last = value;
+            }
+        }
+
+        byte encoding;
+        int payload;
+        if (dictionaryBytes < rleBytes && dictionaryBytes < deltaBytes) {
+            encoding = DICTIONARY;
+            payload = dictionaryBytes;
+        } else if (rleBytes <= deltaBytes) {
+            encoding = RLE;
+            payload = rleBytes;
+        } else {
+            encoding = DELTA;
+            payload = deltaBytes;
+        }
+
+        out.putInt(rows).put(encoding).putLong(min).putLong(max).putInt(payload);
+        int start = out.position();
+        switch (encoding) {
+            case RLE:
+                encodeRuns(values, rows, out);
+                break;
+            case DELTA:
+                encodeDeltas(values, rows, out);
+                break;
+            default:
+                encodeDictionary(values, rows, dictionary, bits, out);
+                break;
+        }
+        assert out.position() - start == payload : "Encoded size differs from its estimate";
+    }
+
+    private static void encodeRuns(long[] values, int rows, ByteBuffer out) {
+        int i = 0;
+        while (i < rows) {
+            long value = values[i];
+            int end = i + 1;
+            while (end < rows && values[end] == value) {
+                end++;
+            }
+            putVarint(out, end - i);
+            putVarint(out, zigzag(value));
+            i = end;
+        }
+    }
+
+    private static void encodeDeltas(long[] values, int rows, ByteBuffer out) {
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            putVarint(out, zigzag(values[i] - previous));
+            previous = values[i];
+        }
+    }
+
+    private static void encodeDictionary(long[] values, int rows, long[] dictionary, int bits, ByteBuffer out) {
+        putVarint(out, dictionary.length);
+        long last = 0;
+        for (long value : dictionary) {
+            putVarint(out, zigzag(value - last));
+            last = value;
+        }
+        out.put((byte) bits);
+
+        long pending = 0;
+        int pendingBits = 0;
+        for (int i = 0; i < rows; i++) {
+            pending |= (long) Arrays.binarySearch(dictionary, values[i]) << pendingBits;
+            pendingBits += bits;
+            while (pendingBits >= 8) {
+                out.put((byte) pending);
+                pending >>>= 8;
+                pendingBits -= 8;
+            }
+        }
+        if (pendingBits > 0) {
+            out.put((byte) pending);
+        }
+        out.put((byte) 0); // Padding: the decoder reads codes two bytes at a time
+    }
+
+    /**
+     * Distinct values of a block, sorted
+     * @return The values, or null if there are too many for a dictionary
+     */
+    private static long[] dictionary(long[] values, int rows) {
+        long[] table = new long[TABLE_SIZE];
+        boolean[] used = new boolean[TABLE_SIZE];
+        int distinct = 0;
+        for (int i = 0; i < rows; i++) {
+            long value = values[i];
+            int slot = (int) (value * 0x9E3779B97F4A7C15L >>> 54);
+            while (used[slot] && table[slot] != value) {
+                slot = (slot + 1) & (TABLE_SIZE - 1);
+            }
+            if (!used[slot]) {
+                if (++distinct > MAX_DICTIONARY) {
+                    return null;
+                }
+                used[slot] = true;
+                table[slot] = value;
+            }
+        }
+        long[] dictionary = new long[distinct];
+        int next = 0;
+        for (int slot = 0; slot < TABLE_SIZE; slot++) {
+            if (used[slot]) {
+                dictionary[next++] = table[slot];
+            }
+        }
+        Arrays.sort(dictionary);
+        return dictionary;
+    }
+
+    /**
+     * Decode the payload of a block
+     * @param buffer Buffer holding the block
+     * @param position Offset of the payload in the buffer
+     * @param encoding Encoding from the block header
+     * @param rows Rows from the block header
+     * @param out Receives the values
+     */
+    static void decode(ByteBuffer buffer, int position, byte encoding, int rows, long[] out) {
+        int pos = position;
+        switch (encoding) {
+            case RLE: {
+                int i = 0;
+                while (i < rows) {
+                    long run = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = buffer.get(pos++);
+                        run |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    long raw = 0;
+                    shift = 0;
+                    do {
+                        b = buffer.get(pos++);
+                        raw |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    long value = unzigzag(raw);
+                    int end = i + (int) run;
+                    Arrays.fill(out, i, end, value);
+                    i = end;
+                }
+                break;
+            }
+            case DELTA: {
+                long value = 0;
+                for (int i = 0; i < rows; i++) {
+                    long raw = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = buffer.get(pos++);
+                        raw |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    value += unzigzag(raw);
+                    out[i] = value;
+                }
+                break;
+            }
+            default: {
+                long size = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = buffer.get(pos++);
+                    size |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                long[] dictionary = new long[(int) size];
+                long last = 0;
+                for (int d = 0; d < dictionary.length; d++) {
+                    long raw = 0;
+                    shift = 0;
+                    do {
+                        b = buffer.get(pos++);
+                        raw |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    last += unzigzag(raw);
+                    dictionary[d] = last;
+                }
+                int bits = buffer.get(pos++);
+                int mask = (1 << bits) - 1;
+                for (int i = 0; i < rows; i++) {
+                    long bit = (long) i * bits;
+                    int at = pos + (int) (bit >>> 3);
+                    int pair = (buffer.get(at) & 0xFF) | (buffer.get(at + 1) & 0xFF) << 8;
+                    out[i] = dictionary[(pair >>> (int) (bit & 7)) & mask];
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Find the complete blocks at the start of a column file
+     * @param channel The column file
+     * @param maxBlocks Stop after this many blocks
+     * @return End offset of each complete, well-formed block
+     * @throws IOException if the file cannot be read
+     */
+    static long[] blockEnds(FileChannel channel, int maxBlocks) throws IOException {
+        long size = channel.size();
+        long[] ends = new long[16];
+        int count = 0;
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (count < maxBlocks && position + HEADER_BYTES <= size) {
+            header.clear();
+            while (header.hasRemaining() && channel.read(header, position + header.position()) >= 0) {
+                // Positional reads may return short
+            }
+            header.flip();
+            int rows = header.getInt();
+            byte encoding = header.get();
+            header.getLong();
+            header.getLong();
+            int payload = header.getInt();
+            long end = position + HEADER_BYTES + payload;
+            if (rows <= 0 || encoding < RLE || encoding > DICTIONARY || payload < 0 || end > size) {
+                break; // Torn or damaged tail
+            }
+            if (count == ends.length) {
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            ends[count++] = end;
+            position = end;
+        }
+        return Arrays.copyOf(ends, count);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long raw) {
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static int varintLength(long value) {
+        return value == 0 ? 1 : (63 - Long.numberOfLeadingZeros(value)) / 7 + 1;
+    }
+
+    private static void putVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+}
@@ -0,0 +1,390 @@
+package stats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Columnar store of finished games, read through memory mapping.
+ *
+ * Each {@link ArchiveColumn} is its own file, mapped the first time a
+ * scan needs it, so a scan over one or two columns touches only their
+ * bytes. Scans that filter or aggregate use the min/max statistics of
+ * each block to skip blocks, or to answer them without decoding.
+ * Only blocks committed by the manifest are visible. Not thread-safe:
+ * open one archive per scanning thread.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class GameArchive implements Closeable {
+    static final String MANIFEST = "archive.meta";
+
+    private static final int MAGIC = 0x5452434F; // "TRCO"
+    private static final int VERSION = 1;
+    private static final long MAX_REGION_BYTES = 1L << 30;
+
+    private final Path directory;
+    private final int blockCount;
+    private final long rowCount;
+    private final Map<ArchiveColumn, ColumnFile> columns;
+    private long[] first;
+    private long[] second;
+
+    /**
+     * Receives the values of two columns, row by row
+     */
+    public interface PairVisitor {
+        void visit(long first, long second);
+    }
+
+    /**
+     * Blocks of one mapped column file
+     */
+    private static final class ColumnFile {
+        final int[] rows;
+        final byte[] encodings;
+        final long[] mins;
+        final long[] maxs;
+        final int[] payloads;
+        final MappedByteBuffer[] regions; // Per block: the mapping holding it
+        final int[] offsets; // Per block: payload offset in its mapping
+
+        ColumnFile(int blocks) {
+            rows = new int[blocks];
+            encodings = new byte[blocks];
+            mins = new long[blocks];
+            maxs = new long[blocks];
+            payloads = new int[blocks];
+            regions = new MappedByteBuffer[blocks];
+            offsets = new int[blocks];
+        }
+    }
+
+    /**
+     * Open an archive for scanning
+     * @param directory Archive directory written by {@link GameArchiveWriter}
+     * @throws IOException if the directory holds no archive
+     */
+    public GameArchive(Path directory) throws IOException {
+        if (!Files.exists(directory.resolve(MANIFEST))) {
+            throw new NoSuchFileException(directory.resolve(MANIFEST).toString());
+        }
+        long[] manifest = readManifest(directory);
+        this.directory = directory;
+        this.blockCount = (int) manifest[0];
+        this.rowCount = manifest[1];
+        this.columns = new EnumMap<>(ArchiveColumn.class);
+        this.first = new long[0];
+        this.second = new long[0];
+    }
+
+    /**
+     * Get the number of games in the archive
+     * @return Row count
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Visit every value of a column
+     * @param column The column
+     * @param visitor Receives the values in row order
+     * @throws IOException if the column file is damaged
+     */
+    public void scan(ArchiveColumn column, LongConsumer visitor) throws IOException {
+        ColumnFile file = column(column);
+        for (int b = 0; b < blockCount; b++) {
+            long[] values = decode(file, b, true);
+            for (int i = 0, n = file.rows[b]; i < n; i++) {
+                visitor.accept(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Visit the values of two columns side by side
+     * @param first First column
+     * @param second Second column
+     * @param visitor Receives each row's pair of values
+     * @throws IOException if a column file is damaged
+     */
+    public void scan(ArchiveColumn first, ArchiveColumn second, PairVisitor visitor) throws IOException {
+        ColumnFile a = column(first);
+        ColumnFile b = column(second);
+        for (int block = 0; block < blockCount; block++) {
+            long[] as = decode(a, block, true);
+            long[] bs = decode(b, block, false);
+            for (int i = 0, n = a.rows[block]; i < n; i++) {
+                visitor.visit(as[i], bs[i]);
+            }
+        }
+    }
+
+    /**
+     * Count the rows whose value lies in a range
+     * @param column The column
+     * @param min Lowest value counted
+     * @param max Highest value counted
+     * @return Row count
+     * @throws IOException if the column file is damaged
+     */
+    public long count(ArchiveColumn column, long min, long max) throws IOException {
+        ColumnFile file = column(column);
+        long count = 0;
+        for (int b = 0; b < blockCount; b++) {
+            if (file.maxs[b] < min || file.mins[b] > max) {
+                continue;
+            }
+            if (file.mins[b] >= min && file.maxs[b] <= max) {
+                count += file.rows[b];
+                continue;
+            }
+            long[] values = decode(file, b, true);
+            for (int i = 0, n = file.rows[b]; i < n; i++) {
+                if (values[i] >= min && values[i] <= max) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Add up a column
+     * @param column The column
+     * @return Sum of its values
+     * @throws IOException if the column file is damaged
+     */
+    public long sum(ArchiveColumn column) throws IOException {
+        return sumWhere(column, Long.MIN_VALUE, Long.MAX_VALUE, column);
+    }
+
+    /**
+     * Add up one column over the rows where another lies in a range
+     * @param filter Column the range applies to
+     * @param min Lowest filter value kept
+     * @param max Highest filter value kept
+     * @param column Column added up
+     * @return Sum over the kept rows
+     * @throws IOException if a column file is damaged
+     */
+    public long sumWhere(ArchiveColumn filter, long min, long max, ArchiveColumn column) throws IOException {
+        ColumnFile keys = column(filter);
+        ColumnFile file = column(column);
+        long sum = 0;
+        for (int b = 0; b < blockCount; b++) {
+            if (keys.maxs[b] < min || keys.mins[b] > max) {
+                continue;
+            }
+            boolean all = keys.mins[b] >= min && keys.maxs[b] <= max;
+            if (all && file.mins[b] == file.maxs[b]) {
+                sum += file.mins[b] * file.rows[b];
+                continue;
+            }
+            long[] values = decode(file, b, true);
+            if (all) {
+                for (int i = 0, n = file.rows[b]; i < n; i++) {
+                    sum += values[i];
+                }
+            } else {
+                long[] filterValues = decode(keys, b, false);
+                for (int i = 0, n = file.rows[b]; i < n; i++) {
+                    if (filterValues[i] >= min && filterValues[i] <= max) {
+                        sum += values[i];
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Get the smallest value of a column, from the block statistics
+     * @param column The column
+     * @return Smallest value, or Long.MAX_VALUE for an empty archive
+     * @throws IOException if the column file is damaged
+     */
+    public long min(ArchiveColumn column) throws IOException {
+        ColumnFile file = column(column);
+        long min = Long.MAX_VALUE;
+        for (int b = 0; b < blockCount; b++) {
+            min = Math.min(min, file.mins[b]);
+        }
+        return min;
+    }
+
+    /**
+     * Get the largest value of a column, from the block statistics
+     * @param column The column
+     * @return Largest value, or Long.MIN_VALUE for an empty archive
+     * @throws IOException if the column file is damaged
+     */
+    public long max(ArchiveColumn column) throws IOException {
+        ColumnFile file = column(column);
+        long max = Long.MIN_VALUE;
+        for (int b = 0; b < blockCount; b++) {
+            max = Math.max(max, file.maxs[b]);
+        }
+        return max;
+    }
+
+    /**
+     * Get the bytes a column takes on disk
+     * @param column The column
+     * @return Size of its committed blocks
+     * @throws IOException if the column file is damaged
+     */
+    public long getColumnBytes(ArchiveColumn column) throws IOException {
+        ColumnFile file = column(column);
+        long bytes = 0;
+        for (int b = 0; b < blockCount; b++) {
+            bytes += ColumnCodec.HEADER_BYTES + file.payloads[b];
+        }
+        return bytes;
+    }
+
+    /**
+     * Decode one block into a reused buffer
+     * @param useFirst true for the first buffer, false for the second
+     */
+    private long[] decode(ColumnFile file, int block, boolean useFirst) {
+        int rows = file.rows[block];
+        long[] values = useFirst ? first : second;
+        if (values.length < rows) {
+            values = new long[rows];
+            if (useFirst) {
+                first = values;
+            } else {
+                second = values;
+            }
+        }
+        ColumnCodec.decode(file.regions[block], file.offsets[block], file.encodings[block], rows, values);
+        return values;
+    }
+
+    /**
+     * Map a column file and read its block headers, once
+     */
+    private ColumnFile column(ArchiveColumn column) throws IOException {
+        ColumnFile file = columns.get(column);
+        if (file != null) {
+            return file;
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(column.fileName()), StandardOpenOption.READ)) {
+            long[] ends = ColumnCodec.blockEnds(channel, blockCount);
+            if (ends.length < blockCount) {
+                throw new IOException("Column " + column + " is missing committed blocks");
+            }
+            file = new ColumnFile(blockCount);
+
+            // Map whole blocks, in as few mappings as fit under the region limit
+            long regionStart = 0;
+            int firstBlock = 0;
+            long rows = 0;
+            for (int b = 0; b <= blockCount; b++) {
+                boolean last = b == blockCount;
+                if (last || ends[b] - regionStart > MAX_REGION_BYTES) {
+                    if (b == firstBlock && !last) {
+                        throw new IOException("Block larger than a mapping in column " + column);
+                    }
+                    long regionEnd = b == 0 ? 0 : ends[b - 1];
+                    MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionEnd - regionStart);
+                    long blockStart = regionStart;
+                    for (int k = firstBlock; k < b; k++) {
+                        int at = (int) (blockStart - regionStart);
+                        file.rows[k] = region.getInt(at);
+                        file.encodings[k] = region.get(at + 4);
+                        file.mins[k] = region.getLong(at + 5);
+                        file.maxs[k] = region.getLong(at + 13);
+                        file.payloads[k] = region.getInt(at + 21);
+                        file.regions[k] = region;
+                        file.offsets[k] = at + ColumnCodec.HEADER_BYTES;
+                        rows += file.rows[k];
+                        blockStart = ends[k];
+                    }
+                    regionStart = regionEnd;
+                    firstBlock = b;
+                }
+            }
+            if (rows != rowCount) {
+                throw new IOException("Column " + column + " has " + rows + " rows, expected " + rowCount);
+            }
+        }
+        columns.put(column, file);
+        return file;
+    }
+
+    /**
+     * Read the committed size of an archive
+     * @return {block count, row count}, zeros if there is no manifest yet
+     */
+    static long[] readManifest(Path directory) throws IOException {
+        Path manifest = directory.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return new long[]{0, 0};
+        }
+        try (InputStream bytes = Files.newInputStream(manifest);
+             DataInputStream in = new DataInputStream(bytes)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a game archive: " + directory);
+            }
+            int version = in.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported game archive version " + version);
+            }
+            return new long[]{in.readInt(), in.readLong()};
+        }
+    }
+
+    /**
+     * Commit the blocks written so far by replacing the manifest
+     */
+    static void writeManifest(Path directory, int blockCount, long rowCount) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(blockCount);
+            out.writeLong(rowCount);
+        }
+        Path manifest = directory.resolve(MANIFEST);
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Release the mappings (the operating system unmaps them once collected)
+     */
+    @Override
+    public void close() {
+        columns.clear();
+    }
+}
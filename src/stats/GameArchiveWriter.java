@@ -0,0 +1,155 @@
+package stats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends finished games to a {@link GameArchive} directory.
+ *
+ * Rows are buffered per column and written as one block in every column
+ * file at once; the manifest is then replaced to commit the block. Rows
+ * not yet flushed, or blocks written after the last manifest, are lost
+ * on a crash and cut off when the archive is next opened for writing.
+ * Not thread-safe.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class GameArchiveWriter implements Closeable {
+    public static final int DEFAULT_BLOCK_ROWS = 65536;
+
+    private static final ArchiveColumn[] COLUMNS = ArchiveColumn.values();
+
+    private final Path directory;
+    private final int blockRows;
+    private final FileChannel[] channels;
+    private final long[][] buffers;
+    private final ByteBuffer block;
+    private int buffered;
+    private int blockCount;
+    private long rowCount;
+
+    /**
+     * Constructor with the default block size
+     * @param directory Archive directory (created if needed)
+     * @throws IOException if the archive cannot be opened
+     */
+    public GameArchiveWriter(Path directory) throws IOException {
+        this(directory, DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * Constructor for GameArchiveWriter
+     * @param directory Archive directory (created if needed)
+     * @param blockRows Rows per block
+     * @throws IOException if the archive cannot be opened
+     */
+    public GameArchiveWriter(Path directory, int blockRows) throws IOException {
+        if (blockRows < 1) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.blockRows = blockRows;
+        this.buffers = new long[COLUMNS.length][blockRows];
+        this.block = ByteBuffer.allocateDirect(ColumnCodec.maxBlockBytes(blockRows));
+        this.channels = new FileChannel[COLUMNS.length];
+
+        long[] manifest = GameArchive.readManifest(directory);
+        this.blockCount = (int) manifest[0];
+        this.rowCount = manifest[1];
+        try {
+            for (ArchiveColumn column : COLUMNS) {
+                FileChannel channel = FileChannel.open(directory.resolve(column.fileName()),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channels[column.ordinal()] = channel;
+                long[] ends = ColumnCodec.blockEnds(channel, blockCount);
+                if (ends.length < blockCount) {
+                    throw new IOException("Column " + column + " is missing committed blocks");
+                }
+                long end = blockCount == 0 ? 0 : ends[blockCount - 1];
+                channel.truncate(end); // Blocks written after the last commit
+                channel.position(end);
+            }
+        } catch (IOException | RuntimeException e) {
+            closeChannels();
+            throw e;
+        }
+    }
+
+    /**
+     * Add a finished game
+     * @param record The game
+     * @throws IOException if a full block cannot be written
+     */
+    public void append(GameRecord record) throws IOException {
+        for (ArchiveColumn column : COLUMNS) {
+            buffers[column.ordinal()][buffered] = record.get(column);
+        }
+        if (++buffered == blockRows) {
+            flush();
+        }
+    }
+
+    /**
+     * Write the buffered rows as a block and commit it
+     * @throws IOException if the block cannot be written
+     */
+    public void flush() throws IOException {
+        if (buffered == 0) {
+            return;
+        }
+        for (ArchiveColumn column : COLUMNS) {
+            FileChannel channel = channels[column.ordinal()];
+            block.clear();
+            ColumnCodec.encode(buffers[column.ordinal()], buffered, block);
+            block.flip();
+            while (block.hasRemaining()) {
+                channel.write(block);
+            }
+            channel.force(false);
+        }
+        blockCount++;
+        rowCount += buffered;
+        buffered = 0;
+        GameArchive.writeManifest(directory, blockCount, rowCount);
+    }
+
+    /**
+     * Get the number of games added, flushed or not
+     * @return Row count
+     */
+    public long getRowCount() {
+        return rowCount + buffered;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Flush the buffered rows and close the column files
+     * @throws IOException if the last block cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            closeChannels();
+        }
+    }
+
+    private void closeChannels() throws IOException {
+        for (FileChannel channel : channels) {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package stats;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Latency and length distributions of the games a process plays:
+ * how long each turn takes to process, the time between two moves of
+ * a game, how many turns a game lasts and how long it takes.
+ * Recording is safe from any thread and never allocates.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class GameMetrics {
+    private static final long MINUTE_NANOS = 60_000_000_000L;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private final LatencyRecorder turnNanos;
+    private final LatencyRecorder moveIntervalMillis;
+    private final LatencyRecorder turnsPerGame;
+    private final LatencyRecorder gameMillis;
+
+    /**
+     * Constructor for GameMetrics
+     */
+    public GameMetrics() {
+        this.turnNanos = new LatencyRecorder("turn-ns", MINUTE_NANOS, 2);
+        this.moveIntervalMillis = new LatencyRecorder("move-interval-ms", DAY_MILLIS, 2);
+        this.turnsPerGame = new LatencyRecorder("turns-per-game", 100_000, 3);
+        this.gameMillis = new LatencyRecorder("game-ms", DAY_MILLIS, 2);
+    }
+
+    /**
+     * Count the processing time of one turn
+     * @param nanos Time from the move arriving at the controller to its outcome
+     */
+    public void recordTurn(long nanos) {
+        turnNanos.recordValue(nanos);
+    }
+
+    /**
+     * Count the time a game waited between two moves
+     * @param millis Time since the game's previous move
+     */
+    public void recordMoveInterval(long millis) {
+        moveIntervalMillis.recordValue(millis);
+    }
+
+    /**
+     * Count one finished game
+     * @param turns Moves played in it
+     * @param millis Time from its start to its end
+     */
+    public void recordGame(int turns, long millis) {
+        turnsPerGame.recordValue(turns);
+        gameMillis.recordValue(millis);
+    }
+
+    public LatencyRecorder getTurnNanos() {
+        return turnNanos;
+    }
+
+    public LatencyRecorder getMoveIntervalMillis() {
+        return moveIntervalMillis;
+    }
+
+    public LatencyRecorder getTurnsPerGame() {
+        return turnsPerGame;
+    }
+
+    public LatencyRecorder getGameMillis() {
+        return gameMillis;
+    }
+
+    /**
+     * Get every recorder, in a fixed order
+     * @return The recorders
+     */
+    public List<LatencyRecorder> getRecorders() {
+        return Arrays.asList(turnNanos, moveIntervalMillis, turnsPerGame, gameMillis);
+    }
+
+    /**
+     * Append the interval of every recorder to a log
+     * @param log The interval log
+     * @throws IOException on write error
+     */
+    public void writeIntervals(HistogramLogWriter log) throws IOException {
+        for (LatencyRecorder recorder : getRecorders()) {
+            log.writeInterval(recorder);
+        }
+        log.flush();
+    }
+
+    /**
+     * Summarise every distribution
+     * @return One line of percentiles per recorder
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (LatencyRecorder recorder : getRecorders()) {
+            summary.append(recorder.getSummary()).append('\n');
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+}
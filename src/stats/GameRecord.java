@@ -0,0 +1,152 @@
+package stats;
+
+import enums.GameMode;
+import model.Game;
+import model.GameEvent;
+import model.Student;
+import model.Trio;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Summary of one finished game: one row of a {@link GameArchive}.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public final class GameRecord {
+    private final long finishedAt;
+    private final GameMode mode;
+    private final int players;
+    private final int winnerSeat;
+    private final int turns;
+    private final boolean pfeWin;
+    private final int[] trios; // Indexed by card ID, index 0 unused
+
+    /**
+     * Constructor for GameRecord
+     * @param finishedAt When the game ended (epoch milliseconds)
+     * @param mode Game mode
+     * @param players Number of players
+     * @param winnerSeat Seat of the winner, or -1 if nobody graduated
+     * @param turns Turns played
+     * @param pfeWin true if the winner formed a PFE trio
+     * @param trios Trios formed per course, indexed by card ID (1-12)
+     */
+    public GameRecord(long finishedAt, GameMode mode, int players, int winnerSeat, int turns,
+                      boolean pfeWin, int[] trios) {
+        if (trios.length != 13) {
+            throw new IllegalArgumentException("Need one trio count per card ID (1-12)");
+        }
+        this.finishedAt = finishedAt;
+        this.mode = mode;
+        this.players = players;
+        this.winnerSeat = winnerSeat;
+        this.turns = turns;
+        this.pfeWin = pfeWin;
+        this.trios = trios.clone();
+    }
+
+    /**
+     * Summarize a finished game
+     * @param game The game
+     * @param turns Turns played
+     * @param finishedAt When the game ended (epoch milliseconds)
+     * @return The record
+     */
+    public static GameRecord of(Game game, int turns, long finishedAt) {
+        List<Student> students = game.getStudents();
+        Student winner = game.checkVictoryConditions();
+        int[] trios = new int[13];
+        boolean pfeWin = false;
+        for (Student student : students) {
+            boolean winnerSide = winner != null && (student.equals(winner)
+                    || (student.isInTeam() && student.getTeam() == winner.getTeam()));
+            for (Trio trio : student.getCompletedTrios()) {
+                trios[trio.getCard1().getId()]++;
+                pfeWin |= winnerSide && trio.isPFETrio();
+            }
+        }
+        return new GameRecord(finishedAt, game.getGameMode(), students.size(),
+                winner == null ? -1 : students.indexOf(winner), turns, pfeWin, trios);
+    }
+
+    /**
+     * Summarize a finished game from its events
+     * @param events Events of the whole game, oldest first
+     * @param finishedAt When the game ended (epoch milliseconds)
+     * @return The record
+     */
+    public static GameRecord of(List<GameEvent> events, long finishedAt) {
+        int turns = 0;
+        for (GameEvent event : events) {
+            if (event.getType() == GameEvent.Type.REVEALED) {
+                turns++; // Each move reveals its cards, a valid one then forms a trio
+            }
+        }
+        return of(Game.replay(events), turns, finishedAt);
+    }
+
+    /**
+     * Get the value stored in a column
+     * @param column The column
+     * @return Value as stored
+     */
+    public long get(ArchiveColumn column) {
+        switch (column) {
+            case FINISHED_AT:
+                return finishedAt;
+            case MODE:
+                return mode.ordinal();
+            case PLAYERS:
+                return players;
+            case WINNER_SEAT:
+                return winnerSeat;
+            case TURNS:
+                return turns;
+            case PFE_WIN:
+                return pfeWin ? 1 : 0;
+            default:
+                return trios[column.getCourseId()];
+        }
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public GameMode getMode() {
+        return mode;
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+
+    public int getWinnerSeat() {
+        return winnerSeat;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public boolean isPfeWin() {
+        return pfeWin;
+    }
+
+    /**
+     * Get the trios formed for one course
+     * @param courseId Card ID (1-12)
+     * @return Trio count
+     */
+    public int getTrios(int courseId) {
+        return trios[courseId];
+    }
+
+    @Override
+    public String toString() {
+        return "GameRecord{" + mode + ", " + players + " players, winner seat " + winnerSeat
+                + ", " + turns + " turns, trios " + Arrays.toString(Arrays.copyOfRange(trios, 1, 13)) + "}";
+    }
+}
@@ -0,0 +1,262 @@
+package stats;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Fixed-precision latency histogram in the style of HdrHistogram.
+ *
+ * Values are counted in buckets whose width grows with the value, so
+ * every recorded value is kept to a fixed number of significant digits
+ * over the whole range while the memory stays a few thousand counters.
+ * Recording is one bit scan and one array increment and never
+ * allocates. Not thread-safe: keep one histogram per thread and
+ * {@link #add} them together to report, or record through a
+ * {@link LatencyRecorder}.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Encoding
+ */
+public class Histogram {
+    private final long highestTrackableValue;
+    private final int significantDigits;
+    private final int subBucketBits;
+    private final int subBucketCount;
+    private final int subBucketHalfCount;
+    private final long[] counts;
+
+    private long totalCount;
+    private long min;
+    private long max;
+    private double sum;
+
+    /**
+     * Constructor for Histogram
+     * @param highestTrackableValue Largest value kept exactly (larger ones are recorded as this)
+     * @param significantDigits Precision kept for every value (1-5)
+     */
+    public Histogram(long highestTrackableValue, int significantDigits) {
+        if (significantDigits < 1 || significantDigits > 5 || highestTrackableValue < 2) {
+            throw new IllegalArgumentException("Need 1-5 significant digits and a highest value of at least 2");
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.significantDigits = significantDigits;
+
+        // Enough linear sub-buckets that neighbours differ by less than one unit in the last digit
+        long needed = 2 * (long) Math.pow(10, significantDigits);
+        this.subBucketBits = 64 - Long.numberOfLeadingZeros(needed - 1);
+        this.subBucketCount = 1 << subBucketBits;
+        this.subBucketHalfCount = subBucketCount / 2;
+        this.counts = new long[indexFor(highestTrackableValue) + 1];
+        reset();
+    }
+
+    /**
+     * Count one value
+     * @param value The value (negative values count as 0)
+     */
+    public void recordValue(long value) {
+        long clamped = Math.max(0, Math.min(value, highestTrackableValue));
+        counts[indexFor(clamped)]++;
+        totalCount++;
+        sum += clamped;
+        if (clamped < min) {
+            min = clamped;
+        }
+        if (clamped > max) {
+            max = clamped;
+        }
+    }
+
+    /**
+     * Add all counts of another histogram with the same range and precision
+     * @param other The histogram to add
+     */
+    public void add(Histogram other) {
+        if (other.counts.length != counts.length || other.subBucketBits != subBucketBits) {
+            throw new IllegalArgumentException("Histograms have different layouts");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Make an independent histogram with the same values
+     * @return The copy
+     */
+    public Histogram copy() {
+        Histogram copy = new Histogram(highestTrackableValue, significantDigits);
+        copy.add(this);
+        return copy;
+    }
+
+    /**
+     * Write the histogram compactly: its layout, then only the non-empty
+     * buckets, each as the gap from the previous one and its count
+     * @param out Destination
+     * @throws IOException on write error
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeLong(highestTrackableValue);
+        out.writeByte(significantDigits);
+        out.writeLong(getMin());
+        out.writeLong(max);
+        out.writeDouble(sum);
+        int used = 0;
+        for (long count : counts) {
+            used += count != 0 ? 1 : 0;
+        }
+        writeVarLong(out, used);
+        int previous = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                writeVarLong(out, i - previous);
+                writeVarLong(out, counts[i]);
+                previous = i;
+            }
+        }
+    }
+
+    /**
+     * Read a histogram written by {@link #write}
+     * @param in Source
+     * @return The histogram
+     * @throws IOException on read error or damaged data
+     */
+    public static Histogram read(DataInputStream in) throws IOException {
+        long highest = in.readLong();
+        int digits = in.readByte();
+        if (digits < 1 || digits > 5 || highest < 2) {
+            throw new IOException("Not a histogram");
+        }
+        Histogram histogram = new Histogram(highest, digits);
+        long min = in.readLong();
+        histogram.max = in.readLong();
+        histogram.sum = in.readDouble();
+        long used = readVarLong(in);
+        int index = 0;
+        for (long i = 0; i < used; i++) {
+            index += (int) readVarLong(in);
+            if (index < 0 || index >= histogram.counts.length) {
+                throw new IOException("Histogram bucket out of range");
+            }
+            long count = readVarLong(in);
+            histogram.counts[index] += count;
+            histogram.totalCount += count;
+        }
+        histogram.min = histogram.totalCount == 0 ? Long.MAX_VALUE : min;
+        return histogram;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint too long");
+    }
+
+    /**
+     * Forget every recorded value
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Get the value below which a given share of the recorded values fall
+     * @param percentile Percentile (0-100)
+     * @return The value, to the histogram's precision (0 if empty)
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueAt(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    public int getSignificantDigits() {
+        return significantDigits;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * Values below the sub-bucket count are counted one by one; above,
+     * each doubling of the value gets another half-count of buckets,
+     * each twice as wide as the previous ones
+     */
+    private int indexFor(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (subBucketBits - 1);
+        int subBucket = (int) (value >>> shift);
+        return subBucketCount + (shift - 1) * subBucketHalfCount + (subBucket - subBucketHalfCount);
+    }
+
+    private long highestValueAt(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int shift = (index - subBucketCount) / subBucketHalfCount + 1;
+        long subBucket = (index - subBucketCount) % subBucketHalfCount + subBucketHalfCount;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1f p50=%d p90=%d p99=%d p99.9=%d max=%d",
+                totalCount, getMean(), getValueAtPercentile(50), getValueAtPercentile(90),
+                getValueAtPercentile(99), getValueAtPercentile(99.9), max);
+    }
+}
@@ -0,0 +1,145 @@
+package stats;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Text log of interval histograms, one line per recorder and interval,
+ * for offline analysis of how latencies moved over time.
+ *
+ * Layout, in the spirit of HdrHistogram's interval logs: comment lines
+ * start with '#', then a column header, then one line per interval:
+ * {@code Tag=<name>,<start s>,<length s>,<max>,<histogram>} where start
+ * is relative to the log's start time and the histogram is
+ * {@link Histogram#write} output in Base64.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class HistogramLogWriter implements Closeable {
+    private static final String HEADER = "\"Tag\",\"StartTimestamp\",\"Interval_Length\",\"Interval_Max\",\"Interval_Histogram\"";
+
+    private final BufferedWriter out;
+    private final long startMillis;
+
+    /**
+     * Reads interval log lines in order
+     */
+    public interface IntervalVisitor {
+        void onInterval(String tag, long startMillis, long lengthMillis, Histogram histogram);
+    }
+
+    /**
+     * Open a log, appending to it if it exists
+     * @param file The log file
+     * @throws IOException if the file cannot be opened
+     */
+    public HistogramLogWriter(Path file) throws IOException {
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.startMillis = System.currentTimeMillis();
+        out.write("#[Trio interval histograms]\n");
+        out.write(String.format(Locale.ROOT, "#[StartTime: %.3f (seconds since epoch), %s]%n",
+                startMillis / 1000.0, Instant.ofEpochMilli(startMillis)));
+        out.write(HEADER);
+        out.newLine();
+        out.flush();
+    }
+
+    /**
+     * Append the histogram of one interval
+     * @param tag Name of what was recorded (no commas)
+     * @param intervalStart Start of the interval (epoch milliseconds)
+     * @param intervalEnd End of the interval (epoch milliseconds)
+     * @param histogram Values recorded during the interval
+     * @throws IOException on write error
+     */
+    public synchronized void writeInterval(String tag, long intervalStart, long intervalEnd,
+                                           Histogram histogram) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream data = new DataOutputStream(bytes)) {
+            histogram.write(data);
+        }
+        out.write(String.format(Locale.ROOT, "Tag=%s,%.3f,%.3f,%d,%s%n", tag.replace(',', '_'),
+                (intervalStart - startMillis) / 1000.0, (intervalEnd - intervalStart) / 1000.0,
+                histogram.getMax(), Base64.getEncoder().encodeToString(bytes.toByteArray())));
+    }
+
+    /**
+     * Take the interval of a recorder and append it
+     * @param recorder The recorder
+     * @throws IOException on write error
+     */
+    public synchronized void writeInterval(LatencyRecorder recorder) throws IOException {
+        long start = recorder.getIntervalStart();
+        Histogram interval = recorder.takeInterval();
+        writeInterval(recorder.getName(), start, System.currentTimeMillis(), interval);
+    }
+
+    /**
+     * Push the lines written so far to the file
+     * @throws IOException on write error
+     */
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Read every interval of a log
+     * @param file The log file
+     * @param visitor Receives each interval (start as epoch milliseconds)
+     * @return Number of intervals read
+     * @throws IOException on read error or a damaged line
+     */
+    public static int read(Path file, IntervalVisitor visitor) throws IOException {
+        int intervals = 0;
+        long logStart = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("#[StartTime: ")) {
+                    int end = line.indexOf(' ', "#[StartTime: ".length());
+                    logStart = Math.round(Double.parseDouble(line.substring("#[StartTime: ".length(), end)) * 1000);
+                    continue;
+                }
+                if (line.isEmpty() || line.startsWith("#") || line.equals(HEADER)) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length != 5 || !fields[0].startsWith("Tag=")) {
+                    throw new IOException("Damaged interval line: " + line);
+                }
+                Histogram histogram;
+                try (DataInputStream data = new DataInputStream(
+                        new ByteArrayInputStream(Base64.getDecoder().decode(fields[4])))) {
+                    histogram = Histogram.read(data);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Damaged interval histogram: " + e.getMessage());
+                }
+                long start = logStart + Math.round(Double.parseDouble(fields[1]) * 1000);
+                long length = Math.round(Double.parseDouble(fields[2]) * 1000);
+                visitor.onInterval(fields[0].substring("Tag=".length()), start, length, histogram);
+                intervals++;
+            }
+        }
+        return intervals;
+    }
+}
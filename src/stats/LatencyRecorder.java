@@ -0,0 +1,162 @@
+package stats;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records values from any number of threads into per-thread histograms,
+ * merged when read.
+ *
+ * Each thread writes only to its own {@link Histogram}, so recording
+ * is a thread-local lookup, two uncontended atomic increments and a
+ * histogram update, with no lock and no allocation. A reader swaps
+ * every thread's histogram for an empty one, waits for writes already
+ * under way to end, and adds what it took to the interval and the
+ * running total: no value is lost or counted twice. The histograms of
+ * a thread that has ended are dropped once read, so short-lived
+ * recording threads do not pile up.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.1 - Ended threads dropped
+ */
+public class LatencyRecorder {
+    private final String name;
+    private final long highestTrackableValue;
+    private final int significantDigits;
+    private final List<Slot> slots;
+    private final ThreadLocal<Slot> local;
+
+    // Guarded by this
+    private final Histogram interval;
+    private final Histogram total;
+    private long intervalStart;
+
+    /**
+     * The histograms of one recording thread
+     */
+    private static final class Slot {
+        final Thread owner;
+        volatile Histogram active;
+        Histogram spare; // Reader only
+        final AtomicInteger writing = new AtomicInteger();
+
+        Slot(long highestTrackableValue, int significantDigits) {
+            this.owner = Thread.currentThread();
+            this.active = new Histogram(highestTrackableValue, significantDigits);
+            this.spare = new Histogram(highestTrackableValue, significantDigits);
+        }
+    }
+
+    /**
+     * Constructor for LatencyRecorder
+     * @param name What is recorded, with its unit (used as the tag in logs)
+     * @param highestTrackableValue Largest value kept exactly (larger ones are recorded as this)
+     * @param significantDigits Precision kept for every value (1-5)
+     */
+    public LatencyRecorder(String name, long highestTrackableValue, int significantDigits) {
+        this.name = name;
+        this.highestTrackableValue = highestTrackableValue;
+        this.significantDigits = significantDigits;
+        this.slots = new CopyOnWriteArrayList<>();
+        this.local = ThreadLocal.withInitial(this::newSlot);
+        this.interval = new Histogram(highestTrackableValue, significantDigits);
+        this.total = new Histogram(highestTrackableValue, significantDigits);
+        this.intervalStart = System.currentTimeMillis();
+    }
+
+    private Slot newSlot() {
+        Slot slot = new Slot(highestTrackableValue, significantDigits);
+        slots.add(slot);
+        return slot;
+    }
+
+    /**
+     * Count one value; safe from any thread
+     * @param value The value (negative values count as 0)
+     */
+    public void recordValue(long value) {
+        Slot slot = local.get();
+        slot.writing.incrementAndGet(); // Before reading active: a reader swapping it then waits for us
+        try {
+            slot.active.recordValue(value);
+        } finally {
+            slot.writing.decrementAndGet();
+        }
+    }
+
+    /**
+     * Move what every thread recorded since the last read into the interval and the total
+     */
+    private void collect() {
+        for (Slot slot : slots) {
+            boolean ended = !slot.owner.isAlive(); // Checked first: everything it recorded is then in active
+            Histogram taken = slot.active;
+            slot.spare.reset();
+            slot.active = slot.spare;
+            while (slot.writing.get() != 0) {
+                Thread.onSpinWait(); // A write into the taken histogram is ending
+            }
+            interval.add(taken);
+            total.add(taken);
+            slot.spare = taken;
+            if (ended) {
+                slots.remove(slot);
+            }
+        }
+    }
+
+    /**
+     * Take the values recorded since the previous interval was taken
+     * @return The interval's histogram (the caller owns it)
+     */
+    public synchronized Histogram takeInterval() {
+        collect();
+        Histogram taken = interval.copy();
+        interval.reset();
+        intervalStart = System.currentTimeMillis();
+        return taken;
+    }
+
+    /**
+     * Get every value recorded so far
+     * @return Copy of the running total
+     */
+    public synchronized Histogram getTotal() {
+        collect();
+        return total.copy();
+    }
+
+    /**
+     * Get when the current interval began
+     * @return Epoch milliseconds
+     */
+    public synchronized long getIntervalStart() {
+        return intervalStart;
+    }
+
+    /**
+     * Get the number of threads whose histograms are kept
+     * @return Recording threads not yet known to have ended
+     */
+    public int getThreadCount() {
+        return slots.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Summarise every value recorded so far
+     * @return Name, count and percentiles
+     */
+    public String getSummary() {
+        return name + ": " + getTotal();
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+}
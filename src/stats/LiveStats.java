@@ -0,0 +1,251 @@
+package stats;
+
+import enums.Branch;
+import enums.GameMode;
+import enums.GameState;
+import model.Deck;
+import model.GameEvent;
+import model.GameEventListener;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live statistics of every game a server hosts.
+ *
+ * Each game feeds its events to a {@link GameTracker}; the counters are
+ * LongAdders, so the many threads playing moves at once each add to
+ * their own cell and never contend. A move costs one increment (two
+ * when it forms a trio, one more when it ends a turn) and never
+ * allocates: totals that follow from others (per branch, PFE, invalid
+ * attempts) are only worked out when read.
+ * Reading sums the cells into a {@link Snapshot}, cheap enough to do
+ * every second.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class LiveStats {
+    /** Bonus-turn chains of this length or longer are counted together */
+    public static final int MAX_CHAIN = 8;
+
+    private static final int[] BRANCH_OF_COURSE = new int[Deck.MAX_CARD_ID + 1];
+    private static final boolean[] PFE_COURSE = new boolean[Deck.MAX_CARD_ID + 1]; // Same rule as Trio.isPFETrio
+
+    static {
+        for (int id = 1; id <= Deck.MAX_CARD_ID; id++) {
+            BRANCH_OF_COURSE[id] = Deck.cardForId(id).getBranch().ordinal();
+            PFE_COURSE[id] = Deck.cardForId(id).isPFE();
+        }
+    }
+
+    private final LongAdder[] triosByCourse; // Indexed by card ID, index 0 unused
+    private final LongAdder moves;
+    private final LongAdder[] chains; // Indexed by chain length, index 0 unused
+    private final LongAdder[] gamesFinished;
+
+    /**
+     * Constructor for LiveStats
+     */
+    public LiveStats() {
+        this.triosByCourse = adders(Deck.MAX_CARD_ID + 1);
+        this.moves = new LongAdder();
+        this.chains = adders(MAX_CHAIN + 1);
+        this.gamesFinished = adders(GameMode.values().length);
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Start following one game
+     * @param mode Mode of the game if already configured, or null to learn it from its events
+     * @return Listener to receive the game's events (one per game, on the thread playing it)
+     */
+    public GameTracker track(GameMode mode) {
+        return new GameTracker(mode);
+    }
+
+    /**
+     * Follows the events of one game: knows its mode and the trios its
+     * current player has formed in a row
+     */
+    public final class GameTracker implements GameEventListener {
+        private GameMode mode;
+        private int chain;
+        private boolean checkingVictory;
+
+        private GameTracker(GameMode mode) {
+            this.mode = mode;
+        }
+
+        @Override
+        public void onEvent(GameEvent event) {
+            switch (event.getType()) {
+                case CREATED:
+                    mode = ((GameEvent.Created) event).getMode();
+                    break;
+                case REVEALED:
+                    moves.increment(); // Every move, a trio then follows when valid
+                    break;
+                case TRIO_FORMED:
+                    int course = ((GameEvent.TrioFormed) event).getCard(0);
+                    if (course >= 1 && course <= Deck.MAX_CARD_ID) {
+                        triosByCourse[course].increment();
+                    }
+                    chain++;
+                    break;
+                case TURN_ADVANCED:
+                    endChain();
+                    break;
+                case STATE_CHANGED:
+                    GameState state = ((GameEvent.StateChanged) event).getState();
+                    if (state == GameState.GAME_OVER) {
+                        endChain();
+                        if (checkingVictory && mode != null) {
+                            gamesFinished[mode.ordinal()].increment(); // Won, not abandoned
+                        }
+                    }
+                    checkingVictory = state == GameState.CHECKING_VICTORY;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void endChain() {
+            if (chain > 0) {
+                chains[Math.min(chain, MAX_CHAIN)].increment();
+                chain = 0;
+            }
+        }
+    }
+
+    /**
+     * Read every counter
+     * @return Point-in-time totals (each counter is exact, the set is not atomic)
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Totals read from a LiveStats at one moment
+     */
+    public static final class Snapshot {
+        private final long[] triosByCourse;
+        private final long[] triosByBranch;
+        private final long pfeTrios;
+        private final long moves;
+        private final long invalidAttempts;
+        private final long[] chains;
+        private final long[] gamesFinished;
+
+        private Snapshot(LiveStats stats) {
+            this.triosByCourse = sums(stats.triosByCourse);
+            this.moves = stats.moves.sum();
+            this.chains = sums(stats.chains);
+            this.gamesFinished = sums(stats.gamesFinished);
+            this.triosByBranch = new long[Branch.values().length];
+            long trios = 0;
+            long pfe = 0;
+            for (int id = 1; id < triosByCourse.length; id++) {
+                triosByBranch[BRANCH_OF_COURSE[id]] += triosByCourse[id];
+                trios += triosByCourse[id];
+                if (PFE_COURSE[id]) {
+                    pfe += triosByCourse[id];
+                }
+            }
+            this.pfeTrios = pfe;
+            this.invalidAttempts = Math.max(0, moves - trios); // A trio may be counted before its move
+        }
+
+        private static long[] sums(LongAdder[] adders) {
+            long[] sums = new long[adders.length];
+            for (int i = 0; i < adders.length; i++) {
+                sums[i] = adders[i].sum();
+            }
+            return sums;
+        }
+
+        /**
+         * Get the trios formed for one course
+         * @param courseId Card ID (1-12)
+         * @return Trio count
+         */
+        public long getTrios(int courseId) {
+            return triosByCourse[courseId];
+        }
+
+        public long getTrios(Branch branch) {
+            return triosByBranch[branch.ordinal()];
+        }
+
+        /**
+         * Get the trios formed over all courses
+         * @return Trio count
+         */
+        public long getTotalTrios() {
+            long total = 0;
+            for (long count : triosByCourse) {
+                total += count;
+            }
+            return total;
+        }
+
+        public long getPfeTrios() {
+            return pfeTrios;
+        }
+
+        /**
+         * Get the moves judged (valid trios and invalid attempts)
+         * @return Move count
+         */
+        public long getMoves() {
+            return moves;
+        }
+
+        public long getInvalidAttempts() {
+            return invalidAttempts;
+        }
+
+        /**
+         * Get the turns in which a player formed some trios in a row
+         * @param length Trios in the turn (1 to {@link #MAX_CHAIN}, the last counting longer ones too)
+         * @return Number of such turns
+         */
+        public long getChains(int length) {
+            return chains[Math.min(length, MAX_CHAIN)];
+        }
+
+        /**
+         * Get the games won in one mode (abandoned games are not counted)
+         * @param mode Game mode
+         * @return Game count
+         */
+        public long getGamesFinished(GameMode mode) {
+            return gamesFinished[mode.ordinal()];
+        }
+
+        /**
+         * Get the games finished in every mode
+         * @return Game count
+         */
+        public long getTotalGamesFinished() {
+            long total = 0;
+            for (long count : gamesFinished) {
+                total += count;
+            }
+            return total;
+        }
+
+        @Override
+        public String toString() {
+            return moves + " moves, " + getTotalTrios() + " trios (" + pfeTrios + " PFE), "
+                    + invalidAttempts + " invalid, " + getTotalGamesFinished() + " games finished";
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package stats;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Statistics of one player across all the games they finished.
+ * Immutable: each finished game produces a new profile.
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public final class PlayerProfile {
+    public static final double INITIAL_RATING = 1500;
+
+    private final String name;
+    private final int gamesPlayed;
+    private final int wins;
+    private final long totalEcts;
+    private final double rating;
+    private final long lastPlayed;
+    private final int[] trios; // Indexed by card ID, index 0 unused
+
+    /**
+     * Constructor for PlayerProfile
+     * @param name Player name
+     * @param gamesPlayed Games finished
+     * @param wins Games won
+     * @param totalEcts ECTS earned over all games
+     * @param rating Skill rating
+     * @param lastPlayed End of the last game (epoch milliseconds)
+     * @param trios Trios formed per course, indexed by card ID (1-12)
+     */
+    public PlayerProfile(String name, int gamesPlayed, int wins, long totalEcts, double rating,
+                         long lastPlayed, int[] trios) {
+        if (trios.length != 13) {
+            throw new IllegalArgumentException("Need one trio count per card ID (1-12)");
+        }
+        this.name = name;
+        this.gamesPlayed = gamesPlayed;
+        this.wins = wins;
+        this.totalEcts = totalEcts;
+        this.rating = rating;
+        this.lastPlayed = lastPlayed;
+        this.trios = trios.clone();
+    }
+
+    /**
+     * Profile of a player who has not finished a game yet
+     * @param name Player name
+     * @return Empty profile
+     */
+    public static PlayerProfile newPlayer(String name) {
+        return new PlayerProfile(name, 0, 0, 0, INITIAL_RATING, 0, new int[13]);
+    }
+
+    /**
+     * Add one finished game
+     * @param won true if the player (or their team) won
+     * @param ects ECTS earned in the game
+     * @param gameTrios Trios formed in the game per course, indexed by card ID
+     * @param newRating Rating after the game
+     * @param finishedAt End of the game (epoch milliseconds)
+     * @return Updated profile
+     */
+    public PlayerProfile withGame(boolean won, int ects, int[] gameTrios, double newRating, long finishedAt) {
+        int[] total = trios.clone();
+        for (int id = 1; id < total.length; id++) {
+            total[id] += gameTrios[id];
+        }
+        return new PlayerProfile(name, gamesPlayed + 1, wins + (won ? 1 : 0), totalEcts + ects,
+                newRating, finishedAt, total);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeUTF(name);
+        out.writeInt(gamesPlayed);
+        out.writeInt(wins);
+        out.writeLong(totalEcts);
+        out.writeDouble(rating);
+        out.writeLong(lastPlayed);
+        for (int id = 1; id < trios.length; id++) {
+            out.writeInt(trios[id]);
+        }
+    }
+
+    static PlayerProfile read(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        int gamesPlayed = in.readInt();
+        int wins = in.readInt();
+        long totalEcts = in.readLong();
+        double rating = in.readDouble();
+        long lastPlayed = in.readLong();
+        int[] trios = new int[13];
+        for (int id = 1; id < trios.length; id++) {
+            trios[id] = in.readInt();
+        }
+        return new PlayerProfile(name, gamesPlayed, wins, totalEcts, rating, lastPlayed, trios);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public long getTotalEcts() {
+        return totalEcts;
+    }
+
+    public double getRating() {
+        return rating;
+    }
+
+    public long getLastPlayed() {
+        return lastPlayed;
+    }
+
+    /**
+     * Get the trios formed for one course over all games
+     * @param courseId Card ID (1-12)
+     * @return Trio count
+     */
+    public int getTrios(int courseId) {
+        return trios[courseId];
+    }
+
+    /**
+     * Get the trios formed over all games and courses
+     * @return Trio count
+     */
+    public int getTotalTrios() {
+        int total = 0;
+        for (int count : trios) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d games, %d wins, %d ECTS, %d trios, rating %.0f",
+                name, gamesPlayed, wins, totalEcts, getTotalTrios(), rating);
+    }
+}
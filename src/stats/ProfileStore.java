@@ -0,0 +1,675 @@
+package stats;
+
+import model.Game;
+import model.Student;
+import model.Trio;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Embedded, log-structured store of player profiles.
+ *
+ * Profiles are only ever appended to numbered segment files; an
+ * in-memory hash index maps each name to where its latest profile lies,
+ * so a lookup is one positional read. All the profiles changed by one
+ * game go in a single checksummed record followed by one sync: after a
+ * crash a game counts for every player or for none. A background
+ * thread rewrites the live profiles of the sealed segments once most
+ * of their bytes are outdated, and removes the old files.
+ *
+ * Record layout: int body length, int CRC32C of the body, then the
+ * body: short count, count × (int length, profile).
+ *
+ * @author Dana SLEIMAN, Acil HAMIEH
+ * @version 1.0
+ */
+public class ProfileStore implements Closeable {
+    public static final long DEFAULT_SEGMENT_BYTES = 8L * 1024 * 1024;
+    public static final long DEFAULT_COMPACTION_INTERVAL_MILLIS = 30_000;
+
+    private static final String EXTENSION = ".profiles";
+    private static final String COMPACTING = ".compacting";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final double RATING_K = 32;
+    private static final int COMPACTION_BATCH = 256;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Map<String, Location> index;
+    private final TreeMap<Long, Segment> segments; // Guarded by files
+    private final ReadWriteLock files; // Write-locked only to add or remove segment files
+    private final CRC32C crc; // Guarded by this
+    private final ScheduledExecutorService compactor;
+    private final Object compaction; // Held for a whole compaction
+    private Segment active; // Guarded by this
+
+    /**
+     * Where the latest profile of a player lies
+     */
+    private static final class Location {
+        final long segment;
+        final long offset;
+        final int length;
+
+        Location(long segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * One segment file and how much of it is still in use
+     */
+    private static final class Segment {
+        final long id;
+        final FileChannel channel;
+        long size;
+        long liveBytes;
+
+        Segment(long id, FileChannel channel, long size) {
+            this.id = id;
+            this.channel = channel;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Result of one finished game, taken from the game when it ends so
+     * that the profiles can be updated later on another thread
+     */
+    public static final class Outcome {
+        private final long finishedAt;
+        private final List<String> names;
+        private final int[] ects;
+        private final boolean[] won;
+        private final int[][] trios;
+
+        /**
+         * Constructor for Outcome, for results of games not played here (e.g. imported)
+         * @param finishedAt End of the game (epoch milliseconds)
+         * @param names Player names, in seat order
+         * @param ects ECTS earned per seat
+         * @param won Whether each seat is on the winning side
+         * @param trios Trios formed per seat, each indexed by card ID (1-12)
+         */
+        public Outcome(long finishedAt, List<String> names, int[] ects, boolean[] won, int[][] trios) {
+            if (ects.length != names.size() || won.length != names.size() || trios.length != names.size()) {
+                throw new IllegalArgumentException("Need one result per player");
+            }
+            this.finishedAt = finishedAt;
+            this.names = names;
+            this.ects = ects;
+            this.won = won;
+            this.trios = trios;
+        }
+
+        /**
+         * Read the result of a finished game
+         * @param game The game
+         * @param finishedAt End of the game (epoch milliseconds)
+         * @return The outcome, or null if nobody graduated (abandoned game)
+         */
+        public static Outcome of(Game game, long finishedAt) {
+            Student winner = game.checkVictoryConditions();
+            if (winner == null) {
+                return null;
+            }
+            List<Student> students = game.getStudents();
+            int n = students.size();
+            List<String> names = new ArrayList<>(n);
+            int[] ects = new int[n];
+            boolean[] won = new boolean[n];
+            int[][] trios = new int[n][13];
+            for (int i = 0; i < n; i++) {
+                Student student = students.get(i);
+                names.add(student.getName());
+                ects[i] = student.getEctsCredits();
+                won[i] = student.equals(winner) || (student.isInTeam() && student.getTeam() == winner.getTeam());
+                for (Trio trio : student.getCompletedTrios()) {
+                    trios[i][trio.getCard1().getId()]++;
+                }
+            }
+            return new Outcome(finishedAt, names, ects, won, trios);
+        }
+
+        /**
+         * Does seat a finish ahead of seat b: the winning side first, then by ECTS
+         * @return 1 if ahead, 0.5 if level, 0 if behind
+         */
+        double score(int a, int b) {
+            if (won[a] != won[b]) {
+                return won[a] ? 1 : 0;
+            }
+            return ects[a] == ects[b] ? 0.5 : ects[a] > ects[b] ? 1 : 0;
+        }
+    }
+
+    /**
+     * Open a store with the default segment size and compaction interval
+     * @param directory Directory of the segment files (created if missing)
+     * @throws IOException if the store cannot be opened
+     */
+    public ProfileStore(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_COMPACTION_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Open a store, loading the index from its segments
+     * @param directory Directory of the segment files (created if missing)
+     * @param segmentBytes Size after which a new segment is started
+     * @param compactionIntervalMillis Time between two background compaction checks (0 for none)
+     * @throws IOException if the store cannot be opened or a sealed segment is corrupt
+     */
+    public ProfileStore(Path directory, long segmentBytes, long compactionIntervalMillis) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.index = new ConcurrentHashMap<>();
+        this.segments = new TreeMap<>();
+        this.files = new ReentrantReadWriteLock();
+        this.crc = new CRC32C();
+        this.compaction = new Object();
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            closeSegments();
+            throw e;
+        }
+
+        if (compactionIntervalMillis > 0) {
+            compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "profile-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(this::compactQuietly, compactionIntervalMillis,
+                    compactionIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            compactor = null;
+        }
+    }
+
+    /**
+     * Read every segment in order to rebuild the index; cut a torn tail off the last one
+     */
+    private void load() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.forEach(paths::add);
+        }
+        paths.sort(null);
+        List<Path> segmentPaths = new ArrayList<>();
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            if (name.endsWith(COMPACTING)) {
+                Files.delete(path); // Compaction that did not finish
+            } else if (name.endsWith(EXTENSION)) {
+                segmentPaths.add(path);
+            }
+        }
+
+        for (int i = 0; i < segmentPaths.size(); i++) {
+            Path path = segmentPaths.get(i);
+            boolean last = i == segmentPaths.size() - 1;
+            long id = idOf(path);
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segment segment = new Segment(id, channel, 0);
+            segments.put(id, segment);
+            long valid = scan(segment, !last);
+            if (channel.size() > valid) {
+                System.out.println("⚠️  Profiles: dropping " + (channel.size() - valid) + " torn bytes from " + path.getFileName());
+                channel.truncate(valid);
+                channel.force(true);
+            }
+            segment.size = valid;
+        }
+
+        if (segments.isEmpty() || segments.lastEntry().getValue().size >= segmentBytes) {
+            startSegment(segments.isEmpty() ? 1 : segments.lastKey() + 1);
+        } else {
+            active = segments.lastEntry().getValue();
+        }
+    }
+
+    /**
+     * Index the valid records at the start of a segment
+     * @param mustBeComplete true to fail on damage instead of stopping there
+     * @return Number of bytes they take
+     */
+    private long scan(Segment segment, boolean mustBeComplete) throws IOException {
+        long size = segment.channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (offset + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(segment.channel, header, offset);
+            int length = header.getInt(0);
+            int expected = header.getInt(4);
+            String problem = null;
+            byte[] body = null;
+            if (length < 2 || length > MAX_RECORD_BYTES || offset + HEADER_BYTES + length > size) {
+                problem = "torn record";
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                readFully(segment.channel, buffer, offset + HEADER_BYTES);
+                body = buffer.array();
+                crc.reset();
+                crc.update(body, 0, length);
+                if ((int) crc.getValue() != expected) {
+                    problem = "checksum mismatch";
+                }
+            }
+            if (problem != null) {
+                if (mustBeComplete) {
+                    throw new IOException("Corrupt profile segment " + segment.id + " at " + offset + ": " + problem);
+                }
+                return offset;
+            }
+
+            ByteBuffer record = ByteBuffer.wrap(body);
+            int count = record.getShort() & 0xFFFF;
+            for (int i = 0; i < count; i++) {
+                int profileLength = record.getInt();
+                long profileOffset = offset + HEADER_BYTES + record.position();
+                PlayerProfile profile = decode(body, record.position(), profileLength);
+                record.position(record.position() + profileLength);
+                index(profile.getName(), new Location(segment.id, profileOffset, profileLength));
+            }
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    /**
+     * Point a name at its new location and move the live byte count along
+     */
+    private void index(String name, Location location) {
+        Location previous = index.put(name, location);
+        if (previous != null) {
+            Segment old = segments.get(previous.segment);
+            if (old != null) {
+                old.liveBytes -= previous.length;
+            }
+        }
+        segments.get(location.segment).liveBytes += location.length;
+    }
+
+    /**
+     * Look up a player's profile
+     * @param name Player name
+     * @return The profile, or null if the player never finished a game
+     * @throws IOException if the profile cannot be read
+     */
+    public PlayerProfile get(String name) throws IOException {
+        files.readLock().lock();
+        try {
+            Location location = index.get(name);
+            if (location == null) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(location.length);
+            readFully(segments.get(location.segment).channel, buffer, location.offset);
+            return decode(buffer.array(), 0, location.length);
+        } finally {
+            files.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add a finished game to the profile of everyone who played it,
+     * rating them against each other
+     * @param outcome Result of the game
+     * @return The updated profiles, in seat order
+     * @throws IOException if the profiles cannot be written
+     */
+    public synchronized List<PlayerProfile> recordGame(Outcome outcome) throws IOException {
+        int n = outcome.names.size();
+        Map<String, PlayerProfile> before = new HashMap<>();
+        for (String name : outcome.names) {
+            if (!before.containsKey(name)) {
+                PlayerProfile stored = get(name);
+                before.put(name, stored != null ? stored : PlayerProfile.newPlayer(name));
+            }
+        }
+
+        // Elo, each player against each other one, on the ratings before the game
+        Map<String, PlayerProfile> after = new HashMap<>(before);
+        List<PlayerProfile> updated = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            double rating = before.get(outcome.names.get(i)).getRating();
+            double change = 0;
+            for (int j = 0; j < n; j++) {
+                if (j != i) {
+                    double other = before.get(outcome.names.get(j)).getRating();
+                    double expected = 1 / (1 + Math.pow(10, (other - rating) / 400));
+                    change += outcome.score(i, j) - expected;
+                }
+            }
+            PlayerProfile current = after.get(outcome.names.get(i));
+            double newRating = current.getRating() + (n > 1 ? RATING_K * change / (n - 1) : 0);
+            PlayerProfile next = current.withGame(outcome.won[i], outcome.ects[i], outcome.trios[i],
+                    newRating, outcome.finishedAt);
+            after.put(next.getName(), next);
+            updated.add(next);
+        }
+        write(updated);
+        return updated;
+    }
+
+    /**
+     * Store profiles as they are (e.g. imported ones)
+     * @param profiles The profiles, written as one record
+     * @throws IOException if the profiles cannot be written
+     */
+    public synchronized void put(List<PlayerProfile> profiles) throws IOException {
+        write(profiles);
+    }
+
+    /**
+     * Append one record to the active segment, sync it, then index it
+     */
+    private void write(List<PlayerProfile> profiles) throws IOException {
+        if (profiles.isEmpty()) {
+            return;
+        }
+        if (active.size >= segmentBytes) {
+            files.writeLock().lock();
+            try {
+                startSegment(active.id + 1);
+            } finally {
+                files.writeLock().unlock();
+            }
+        }
+
+        byte[][] encoded = new byte[profiles.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = encode(profiles.get(i));
+        }
+        ByteBuffer record = record(encoded);
+        long start = active.size;
+        writeFully(active.channel, record, start);
+        active.channel.force(false);
+        active.size += record.limit();
+
+        files.readLock().lock();
+        try {
+            long offset = start + HEADER_BYTES + 2;
+            for (int i = 0; i < encoded.length; i++) {
+                offset += 4;
+                index(profiles.get(i).getName(), new Location(active.id, offset, encoded[i].length));
+                offset += encoded[i].length;
+            }
+        } finally {
+            files.readLock().unlock();
+        }
+    }
+
+    private ByteBuffer record(byte[][] profiles) {
+        int length = 2;
+        for (byte[] profile : profiles) {
+            length += 4 + profile.length;
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + length);
+        record.putInt(length).putInt(0).putShort((short) profiles.length);
+        for (byte[] profile : profiles) {
+            record.putInt(profile.length).put(profile);
+        }
+        CRC32C check = new CRC32C();
+        check.update(record.array(), HEADER_BYTES, length);
+        record.putInt(4, (int) check.getValue());
+        record.flip();
+        return record;
+    }
+
+    private void startSegment(long id) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", id, EXTENSION));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        active = new Segment(id, channel, 0);
+        segments.put(id, active);
+    }
+
+    /**
+     * Rewrite the live profiles of the sealed segments into one file,
+     * if at least half of their bytes are outdated
+     * @return true if segments were compacted
+     * @throws IOException if the compacted file cannot be written
+     */
+    public boolean compact() throws IOException {
+        synchronized (compaction) {
+            return compactSealed();
+        }
+    }
+
+    private boolean compactSealed() throws IOException {
+        List<Segment> sealed = new ArrayList<>();
+        synchronized (this) {
+            long size = 0;
+            long live = 0;
+            for (Segment segment : segments.values()) {
+                if (segment != active) {
+                    sealed.add(segment);
+                    size += segment.size;
+                    live += segment.liveBytes;
+                }
+            }
+            if (sealed.isEmpty() || live * 2 > size) {
+                return false;
+            }
+        }
+        Segment target = sealed.get(sealed.size() - 1);
+        Map<Long, Segment> byId = new HashMap<>();
+        for (Segment segment : sealed) {
+            byId.put(segment.id, segment);
+        }
+
+        // Copy the profiles that sealed segments still hold; appends go on in the active segment
+        Path temp = directory.resolve(String.format("%020d%s", target.id, COMPACTING));
+        Map<String, Location[]> moved = new HashMap<>();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long position = 0;
+            List<String> names = new ArrayList<>();
+            List<byte[]> batch = new ArrayList<>();
+            List<Location> origins = new ArrayList<>();
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                Location location = entry.getValue();
+                Segment segment = byId.get(location.segment);
+                if (segment == null) {
+                    continue;
+                }
+                ByteBuffer profile = ByteBuffer.allocate(location.length);
+                readFully(segment.channel, profile, location.offset); // Sealed segments never change
+                names.add(entry.getKey());
+                batch.add(profile.array());
+                origins.add(location);
+                if (batch.size() == COMPACTION_BATCH) {
+                    position = writeBatch(out, position, target.id, names, batch, origins, moved);
+                }
+            }
+            writeBatch(out, position, target.id, names, batch, origins, moved);
+            out.force(true);
+        }
+
+        // Swap: profiles updated meanwhile keep their newer location
+        synchronized (this) {
+            files.writeLock().lock();
+            try {
+                for (Segment segment : sealed) {
+                    segment.channel.close();
+                    segments.remove(segment.id);
+                }
+                Path targetPath = directory.resolve(String.format("%020d%s", target.id, EXTENSION));
+                Files.move(temp, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                for (Segment segment : sealed) {
+                    if (segment != target) {
+                        Files.delete(directory.resolve(String.format("%020d%s", segment.id, EXTENSION)));
+                    }
+                }
+                FileChannel channel = FileChannel.open(targetPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                Segment compacted = new Segment(target.id, channel, channel.size());
+                segments.put(target.id, compacted);
+                for (Map.Entry<String, Location[]> entry : moved.entrySet()) {
+                    Location[] change = entry.getValue();
+                    if (index.replace(entry.getKey(), change[0], change[1])) {
+                        compacted.liveBytes += change[1].length;
+                    }
+                }
+            } finally {
+                files.writeLock().unlock();
+            }
+        }
+        return true;
+    }
+
+    private long writeBatch(FileChannel out, long position, long segmentId, List<String> names,
+                            List<byte[]> batch, List<Location> origins, Map<String, Location[]> moved) throws IOException {
+        if (batch.isEmpty()) {
+            return position;
+        }
+        ByteBuffer record = record(batch.toArray(new byte[0][]));
+        writeFully(out, record, position);
+        long offset = position + HEADER_BYTES + 2;
+        for (int i = 0; i < batch.size(); i++) {
+            offset += 4;
+            moved.put(names.get(i), new Location[]{origins.get(i), new Location(segmentId, offset, batch.get(i).length)});
+            offset += batch.get(i).length;
+        }
+        long end = position + record.limit();
+        names.clear();
+        batch.clear();
+        origins.clear();
+        return end;
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("⚠️  Profile compaction failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the number of players with a profile
+     * @return Profile count
+     */
+    public int getProfileCount() {
+        return index.size();
+    }
+
+    /**
+     * Get the number of segment files
+     * @return Segment count
+     */
+    public int getSegmentCount() {
+        files.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            files.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the bytes the store takes on disk, outdated profiles included
+     * @return Size of all segments
+     */
+    public synchronized long getDiskBytes() {
+        long bytes = 0;
+        for (Segment segment : segments.values()) {
+            bytes += segment.size;
+        }
+        return bytes;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Stop compacting and close the segment files
+     */
+    @Override
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+            try {
+                compactor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            closeSegments();
+        }
+    }
+
+    private void closeSegments() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                System.out.println("⚠️  Profiles: cannot close segment " + segment.id + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static byte[] encode(PlayerProfile profile) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            profile.write(out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode profile", e); // Not thrown by in-memory streams
+        }
+        return bytes.toByteArray();
+    }
+
+    private static PlayerProfile decode(byte[] data, int offset, int length) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length))) {
+            return PlayerProfile.read(in);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Profile segment too short");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static long idOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - EXTENSION.length()));
+    }
+}
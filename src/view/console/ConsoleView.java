@@ -2,6 +2,9 @@ package view.console;
 
 import controller.*;
 import enums.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 /**
@@ -49,6 +52,9 @@ public class ConsoleView {
                     showAbout();
                     break;
                 case 4:
+                    loadGame();
+                    break;
+                case 5:
                     running = false;
                     System.out.println("\n👋 Thanks for playing Trio_UTBM!");
                     System.out.println("See you next time!\n");
@@ -103,11 +109,12 @@ public class ConsoleView {
         List<String> playerNames = menuView.getPlayerNames(numPlayers);
         if (playerNames == null || playerNames.isEmpty()) return;
 
-        // Initialize game
+        // Initialize game (on a fresh controller: a loaded or finished game may be in the old one)
+        gameController = new GameController();
         boolean success = gameController.initializeGame(numPlayers, mode, difficulty, playerNames);
 
         if (success) {
-            gameController.startGame();
+            System.out.println(gameController.startGame());
             runGameLoop();
         } else {
             System.out.println("\n❌ Failed to initialize game!");
@@ -130,7 +137,8 @@ public class ConsoleView {
             System.out.println("1. Form a Trio (select 3 cards)");
             System.out.println("2. View Scores");
             System.out.println("3. View Rules");
-            System.out.println("4. Quit Game");
+            System.out.println("4. Save Game");
+            System.out.println("5. Quit Game");
             System.out.print("\nChoice: ");
 
             String input = inputReader.readLine();
@@ -148,8 +156,12 @@ public class ConsoleView {
                     inputReader.waitForEnter();
                     break;
                 case "4":
+                    saveGame();
+                    inputReader.waitForEnter();
+                    break;
+                case "5":
                     if (confirmQuit()) {
-                        gameController.endGame();
+                        System.out.println(gameController.endGame());
                         return;
                     }
                     break;
@@ -164,6 +176,60 @@ public class ConsoleView {
         inputReader.waitForEnter();
     }
 
+    /**
+     * Save the game in progress to a file
+     */
+    private void saveGame() {
+        Path file = askSaveFile("Save as");
+        try {
+            GameCheckpoint.save(gameController, file);
+            System.out.println("\n💾 Game saved to " + file);
+        } catch (IOException e) {
+            System.out.println("\n❌ Could not save the game: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load a saved game and continue it
+     */
+    private void loadGame() {
+        Path file = askSaveFile("Load from");
+        GameController loaded;
+        try {
+            loaded = GameCheckpoint.load(file);
+        } catch (IOException e) {
+            System.out.println("\n❌ Could not load the game: " + e.getMessage());
+            inputReader.waitForEnter();
+            return;
+        }
+        if (!loaded.isGameRunning()) {
+            System.out.println("\n⚠️  This game is already over.");
+            inputReader.waitForEnter();
+            return;
+        }
+
+        gameController = loaded;
+        System.out.println("\n💾 Game loaded. " + gameController.getCurrentPlayer().getName() + " plays next.");
+        runGameLoop();
+    }
+
+    /**
+     * Ask for a saved game file name
+     * @param prompt What the file is for
+     * @return The file (the extension is added if missing)
+     */
+    private Path askSaveFile(String prompt) {
+        String defaultName = "trio" + GameCheckpoint.EXTENSION;
+        System.out.print("\n" + prompt + " [" + defaultName + "]: ");
+        String name = inputReader.readLine().trim();
+        if (name.isEmpty()) {
+            name = defaultName;
+        } else if (!name.endsWith(GameCheckpoint.EXTENSION)) {
+            name += GameCheckpoint.EXTENSION;
+        }
+        return Paths.get(name);
+    }
+
     /**
      * Execute a player's turn
      */
@@ -23,7 +23,7 @@ public class MenuView {
 
     /**
      * Show main menu and get user choice
-     * @return Menu choice (1-4)
+     * @return Menu choice (1-5)
      */
     public int showMainMenu() {
         System.out.println("\n" + "═".repeat(50));
@@ -33,9 +33,10 @@ public class MenuView {
         System.out.println("  1. 🎮 New Game");
         System.out.println("  2. 📖 Rules");
         System.out.println("  3. ℹ️  About");
-        System.out.println("  4. 🚪 Exit");
+        System.out.println("  4. 💾 Load Game");
+        System.out.println("  5. 🚪 Exit");
         System.out.println();
-        System.out.print("Enter your choice (1-4): ");
+        System.out.print("Enter your choice (1-5): ");
 
         String input = inputReader.readLine();
 
@@ -29,6 +29,8 @@ public class GamePanel extends JPanel {
     // Control buttons
     private JButton formTrioButton;
     private JButton clearSelectionButton;
+    private JButton saveButton;
+    private JButton saveReplayButton;
     private JButton quitButton;
 
     // Labels
@@ -73,6 +75,22 @@ public class GamePanel extends JPanel {
         updateDisplay();
     }
 
+    /**
+     * Constructor for a read-only board, drawn by {@link #showGame(Game)}
+     * (used by the replay viewer)
+     * @param mainWindow Main window reference
+     */
+    GamePanel(MainWindow mainWindow) {
+        this.mainWindow = mainWindow;
+        this.controller = null;
+
+        setLayout(new BorderLayout(5, 5));
+        setBackground(new Color(245, 245, 245));
+        setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+        initializeComponents();
+    }
+
     /**
      * Initialize all UI components - RESPONSIVE
      */
@@ -121,9 +139,11 @@ public class GamePanel extends JPanel {
 
         add(centerPanel, BorderLayout.CENTER);
 
-        // Control panel
-        createControlPanel();
-        add(controlPanel, BorderLayout.SOUTH);
+        // Control panel (none on a read-only board)
+        if (controller != null) {
+            createControlPanel();
+            add(controlPanel, BorderLayout.SOUTH);
+        }
 
         // Add component listener to handle resizing
         addComponentListener(new java.awt.event.ComponentAdapter() {
@@ -209,6 +229,28 @@ public class GamePanel extends JPanel {
         clearSelectionButton.addActionListener(e -> clearAllSelections());
         controlPanel.add(clearSelectionButton);
 
+        // Save Replay button
+        saveReplayButton = new JButton("Save Replay");
+        saveReplayButton.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        saveReplayButton.setPreferredSize(new Dimension(120, 35));
+        saveReplayButton.addActionListener(e -> {
+            if (mainWindow != null) {
+                mainWindow.saveReplay();
+            }
+        });
+
+        // Save button
+        saveButton = new JButton("Save");
+        saveButton.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        saveButton.setPreferredSize(new Dimension(100, 35));
+        saveButton.addActionListener(e -> {
+            if (mainWindow != null) {
+                mainWindow.saveGame();
+            }
+        });
+        controlPanel.add(saveButton);
+        controlPanel.add(saveReplayButton);
+
         // Quit button
         quitButton = new JButton("Quit");
         quitButton.setFont(new Font("SansSerif", Font.PLAIN, 12));
@@ -227,7 +269,15 @@ public class GamePanel extends JPanel {
      * Update entire display
      */
     public void updateDisplay() {
-        Student currentPlayer = controller.getCurrentPlayer();
+        showGame(controller.getGame());
+    }
+
+    /**
+     * Draw the table of a game from its current player's seat
+     * @param game The game to draw
+     */
+    void showGame(Game game) {
+        Student currentPlayer = game.getTurnManager().getCurrentStudent();
         if (currentPlayer == null) return;
 
         // Update player info
@@ -239,11 +289,11 @@ public class GamePanel extends JPanel {
         handPanel.updateDisplayAllVisible(currentPlayer.getHand());
 
         // Update other players' hands
-        List<Student> allPlayers = controller.getGame().getStudents();
+        List<Student> allPlayers = game.getStudents();
         otherPlayersPanel.updateDisplay(allPlayers, currentPlayer);
 
         // Update lecture hall
-        lectureHallPanel.updateDisplay(controller.getGame().getLectureHall());
+        lectureHallPanel.updateDisplay(game.getLectureHall());
 
         // Clear selections
         clearAllSelections();
@@ -274,6 +324,11 @@ public class GamePanel extends JPanel {
      * Add a card to selection (max 3)
      */
     private void addSelectedCard(Card card, String source, String playerName, int position) {
+        if (controller == null) {
+            clearAllSelections(); // Read-only board
+            return;
+        }
+
         // Check if THIS EXACT card at THIS position is already selected
         for (SelectedCard sc : selectedCards) {
             if (sc.card.equals(card) && sc.position == position && sc.source.equals(source)) {
@@ -307,6 +362,10 @@ public class GamePanel extends JPanel {
      */
     private void updateSelectionStatus() {
         int count = selectedCards.size();
+        if (controller == null) {
+            instructionLabel.setText("Replay");
+            return;
+        }
 
         if (count == 0) {
             instructionLabel.setText("Select ANY 3 cards to form a trio!");
@@ -2,8 +2,16 @@ package view.gui;
 
 import controller.*;
 import enums.*;
+import model.GameEvent;
+import model.GameEventLog;
+import replay.ReplayFormat;
+import replay.ReplayWriter;
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -15,12 +23,14 @@ import java.util.List;
  */
 public class MainWindow extends JFrame {
     private GameController gameController;
+    private GameEventLog gameLog; // Events of the current game, null for a loaded game
     private CardLayout cardLayout;
     private JPanel mainPanel;
 
     // Panels
     private MenuPanel menuPanel;
     private GamePanel gamePanel;
+    private ReplayPanel replayPanel;
 
     // Constants
     private static final int WINDOW_WIDTH = 1400;
@@ -100,7 +110,10 @@ public class MainWindow extends JFrame {
      * @param playerNames List of player names
      */
     public void startNewGame(int numPlayers, GameMode mode, Difficulty difficulty, List<String> playerNames) {
-        // Initialize game
+        // Initialize game (on a fresh controller: a loaded or finished game may be in the old one)
+        gameController = new GameController();
+        gameLog = new GameEventLog();
+        gameController.setEventListener(gameLog);
         boolean success = gameController.initializeGame(numPlayers, mode, difficulty, playerNames);
 
         if (success) {
@@ -125,6 +138,166 @@ public class MainWindow extends JFrame {
         }
     }
 
+    /**
+     * Save the current game to a file chosen by the user
+     */
+    public void saveGame() {
+        JFileChooser chooser = createSaveChooser();
+        chooser.setSelectedFile(new File("trio" + GameCheckpoint.EXTENSION));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File file = chooser.getSelectedFile();
+        if (!file.getName().endsWith(GameCheckpoint.EXTENSION)) {
+            file = new File(file.getParentFile(), file.getName() + GameCheckpoint.EXTENSION);
+        }
+        try {
+            GameCheckpoint.save(gameController, file.toPath());
+            JOptionPane.showMessageDialog(this,
+                    "Game saved to " + file.getName(),
+                    "Game Saved",
+                    JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this,
+                    "Could not save the game: " + e.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Load a saved game chosen by the user and continue it
+     */
+    public void loadGame() {
+        JFileChooser chooser = createSaveChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        GameController loaded;
+        try {
+            loaded = GameCheckpoint.load(chooser.getSelectedFile().toPath());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this,
+                    "Could not load the game: " + e.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (!loaded.isGameRunning()) {
+            JOptionPane.showMessageDialog(this,
+                    "This game is already over.",
+                    "Load Game",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        gameController = loaded;
+        gameLog = null;
+        if (gamePanel != null) {
+            mainPanel.remove(gamePanel);
+        }
+        gamePanel = new GamePanel(this, gameController);
+        mainPanel.add(gamePanel, "GAME");
+        cardLayout.show(mainPanel, "GAME");
+        gamePanel.updateDisplay();
+    }
+
+    private JFileChooser createSaveChooser() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Trio_UTBM saved games",
+                GameCheckpoint.EXTENSION.substring(1)));
+        return chooser;
+    }
+
+    /**
+     * Save the moves of the current game as a replay
+     */
+    public void saveReplay() {
+        if (gameLog == null) {
+            JOptionPane.showMessageDialog(this,
+                    "Only games started in this window can be saved as a replay.",
+                    "Save Replay",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        JFileChooser chooser = createReplayChooser();
+        chooser.setSelectedFile(new File("trio" + ReplayFormat.EXTENSION));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File file = chooser.getSelectedFile();
+        if (!file.getName().endsWith(ReplayFormat.EXTENSION)) {
+            file = new File(file.getParentFile(), file.getName() + ReplayFormat.EXTENSION);
+        }
+        try (ReplayWriter writer = new ReplayWriter(new FileOutputStream(file))) {
+            for (GameEvent event : gameLog.getEvents()) {
+                writer.onEvent(event);
+            }
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this,
+                    "Could not save the replay: " + e.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JOptionPane.showMessageDialog(this,
+                "Replay saved to " + file.getName(),
+                "Replay Saved",
+                JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Open a replay chosen by the user in the replay viewer
+     */
+    public void watchReplay() {
+        JFileChooser chooser = createReplayChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        ReplayPanel opened;
+        try {
+            opened = new ReplayPanel(this, chooser.getSelectedFile().toPath());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this,
+                    "Could not open the replay: " + e.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        closeReplayPanel();
+        replayPanel = opened;
+        mainPanel.add(replayPanel, "REPLAY");
+        cardLayout.show(mainPanel, "REPLAY");
+    }
+
+    /**
+     * Close the replay viewer and return to menu
+     */
+    public void closeReplay() {
+        closeReplayPanel();
+        showMenu();
+    }
+
+    private void closeReplayPanel() {
+        if (replayPanel != null) {
+            replayPanel.close();
+            mainPanel.remove(replayPanel);
+            replayPanel = null;
+        }
+    }
+
+    private JFileChooser createReplayChooser() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Trio_UTBM replays",
+                ReplayFormat.EXTENSION.substring(1)));
+        return chooser;
+    }
+
     /**
      * End current game and return to menu
      */
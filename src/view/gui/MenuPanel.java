@@ -22,6 +22,8 @@ public class MenuPanel extends JPanel {
     private JComboBox<String> difficultyCombo;
     private JTextField[] playerNameFields;
     private JButton startButton;
+    private JButton loadButton;
+    private JButton replayButton;
     private JButton rulesButton;
     private JButton aboutButton;
     private JButton exitButton;
@@ -208,6 +210,18 @@ public class MenuPanel extends JPanel {
         startButton.setForeground(Color.WHITE);
         startButton.addActionListener(e -> startGame());
 
+        // Load button
+        loadButton = new JButton("Load Game");
+        loadButton.setFont(new Font("SansSerif", Font.PLAIN, 14));
+        loadButton.setPreferredSize(new Dimension(120, 40));
+        loadButton.addActionListener(e -> mainWindow.loadGame());
+
+        // Replay button
+        replayButton = new JButton("Watch Replay");
+        replayButton.setFont(new Font("SansSerif", Font.PLAIN, 14));
+        replayButton.setPreferredSize(new Dimension(140, 40));
+        replayButton.addActionListener(e -> mainWindow.watchReplay());
+
         // Rules button
         rulesButton = new JButton("Rules");
         rulesButton.setFont(new Font("SansSerif", Font.PLAIN, 14));
@@ -229,6 +243,8 @@ public class MenuPanel extends JPanel {
         exitButton.addActionListener(e -> System.exit(0));
 
         panel.add(startButton);
+        panel.add(loadButton);
+        panel.add(replayButton);
         panel.add(rulesButton);
         panel.add(aboutButton);
         panel.add(exitButton);
@@ -0,0 +1,222 @@
+package view.gui;
+
+import enums.GameState;
+import model.Student;
+import replay.ReplayReader;
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Replay viewer: draws a recorded game on a read-only {@link GamePanel}
+ * with a timeline, step buttons and playback from 1× to 64×.
+ *
+ * Jumping to a move reopens the replay at the nearest keyframe and plays
+ * the few moves after it, so seeking costs the same anywhere in the game.
+ *
+ * @author Acil HAMIEH, Dana SLEIMAN
+ * @version 1.0
+ */
+public class ReplayPanel extends JPanel {
+    private static final int[] SPEEDS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int MOVE_MILLIS = 1000; // One move per second at 1×
+
+    private final MainWindow mainWindow;
+    private final Path file;
+    private ReplayReader reader;
+    private final int moveCount;
+
+    // UI Components
+    private GamePanel board;
+    private JSlider timeline;
+    private JLabel positionLabel;
+    private JButton playButton;
+    private JComboBox<String> speedCombo;
+    private Timer timer;
+    private boolean updatingTimeline;
+
+    /**
+     * Constructor for ReplayPanel
+     * @param mainWindow Main window reference
+     * @param file The replay file
+     * @throws IOException if the file is not a complete replay
+     */
+    public ReplayPanel(MainWindow mainWindow, Path file) throws IOException {
+        this.mainWindow = mainWindow;
+        this.file = file;
+        this.reader = ReplayReader.open(file, 0);
+        this.moveCount = reader.getMoveCount();
+
+        setLayout(new BorderLayout(5, 5));
+        setBackground(new Color(245, 245, 245));
+
+        board = new GamePanel(mainWindow);
+        add(board, BorderLayout.CENTER);
+        add(createControlPanel(), BorderLayout.SOUTH);
+
+        timer = new Timer(MOVE_MILLIS, e -> playNextMove());
+        updateDisplay();
+    }
+
+    /**
+     * Create the timeline and playback controls
+     * @return Control panel
+     */
+    private JPanel createControlPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 5));
+        panel.setBackground(new Color(220, 220, 220));
+        panel.setBorder(BorderFactory.createEmptyBorder(5, 15, 5, 15));
+
+        // Timeline
+        timeline = new JSlider(0, moveCount, 0);
+        timeline.setOpaque(false);
+        timeline.addChangeListener(e -> {
+            if (!updatingTimeline) {
+                showMove(timeline.getValue());
+            }
+        });
+        panel.add(timeline, BorderLayout.CENTER);
+
+        positionLabel = new JLabel();
+        positionLabel.setFont(new Font("SansSerif", Font.BOLD, 13));
+        panel.add(positionLabel, BorderLayout.EAST);
+
+        // Buttons
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 5));
+        buttons.setOpaque(false);
+        buttons.add(createButton("|◀", e -> showMove(0)));
+        buttons.add(createButton("◀", e -> showMove(reader.getPosition() - 1)));
+        playButton = createButton("Play", e -> togglePlayback());
+        buttons.add(playButton);
+        buttons.add(createButton("▶", e -> showMove(reader.getPosition() + 1)));
+        buttons.add(createButton("▶|", e -> showMove(moveCount)));
+
+        speedCombo = new JComboBox<>();
+        for (int speed : SPEEDS) {
+            speedCombo.addItem(speed + "×");
+        }
+        speedCombo.addActionListener(e -> timer.setDelay(MOVE_MILLIS / SPEEDS[speedCombo.getSelectedIndex()]));
+        buttons.add(new JLabel("Speed:"));
+        buttons.add(speedCombo);
+
+        JButton closeButton = createButton("Close", e -> mainWindow.closeReplay());
+        closeButton.setBackground(new Color(220, 20, 60));
+        closeButton.setForeground(Color.WHITE);
+        buttons.add(closeButton);
+        panel.add(buttons, BorderLayout.SOUTH);
+
+        return panel;
+    }
+
+    private JButton createButton(String text, java.awt.event.ActionListener action) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        button.addActionListener(action);
+        return button;
+    }
+
+    /**
+     * Start or pause playback; playing from the end starts over
+     */
+    private void togglePlayback() {
+        if (timer.isRunning()) {
+            stop();
+            return;
+        }
+        if (reader.getPosition() >= moveCount) {
+            showMove(0);
+        }
+        timer.setDelay(MOVE_MILLIS / SPEEDS[speedCombo.getSelectedIndex()]);
+        timer.start();
+        playButton.setText("Pause");
+    }
+
+    /**
+     * Stop playback
+     */
+    public void stop() {
+        timer.stop();
+        playButton.setText("Play");
+    }
+
+    private void playNextMove() {
+        try {
+            if (!reader.next()) {
+                stop();
+            }
+        } catch (IOException e) {
+            showError(e);
+            return;
+        }
+        updateDisplay();
+        if (reader.getPosition() >= moveCount) {
+            stop();
+        }
+    }
+
+    /**
+     * Jump to a move: a short step forward plays on, anything else
+     * starts again from the nearest keyframe
+     * @param move Target move (clamped to the replay)
+     */
+    private void showMove(int move) {
+        int target = Math.max(0, Math.min(move, moveCount));
+        int position = reader.getPosition();
+        if (target == position) {
+            updateDisplay();
+            return;
+        }
+        try {
+            if (target > position && target - position <= reader.getKeyframeInterval()) {
+                reader.seek(target);
+            } else {
+                ReplayReader next = ReplayReader.open(file, target);
+                reader.close();
+                reader = next;
+            }
+        } catch (IOException e) {
+            showError(e);
+            return;
+        }
+        updateDisplay();
+    }
+
+    /**
+     * Draw the game at the current move and update the timeline
+     */
+    private void updateDisplay() {
+        board.showGame(reader.getGame());
+
+        updatingTimeline = true;
+        timeline.setValue(reader.getPosition());
+        updatingTimeline = false;
+
+        StringBuilder text = new StringBuilder("Move " + reader.getPosition() + " / " + moveCount);
+        if (reader.getState() == GameState.GAME_OVER) {
+            Student winner = reader.getGame().checkVictoryConditions();
+            text.append(winner != null ? " - " + winner.getName() + " graduated!" : " - Game over");
+        }
+        positionLabel.setText(text.toString());
+    }
+
+    private void showError(IOException e) {
+        stop();
+        JOptionPane.showMessageDialog(this,
+                "Could not read the replay: " + e.getMessage(),
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Stop playback and release the replay file
+     */
+    public void close() {
+        stop();
+        try {
+            reader.close();
+        } catch (IOException e) {
+            // Read-only file, nothing to lose
+        }
+    }
+}